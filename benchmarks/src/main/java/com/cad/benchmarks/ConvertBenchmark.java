@@ -0,0 +1,64 @@
+package com.cad.benchmarks;
+
+import com.cad.dxflib.converter.DxfToSvgConverter;
+import com.cad.dxflib.converter.SvgConversionOptions;
+import com.cad.dxflib.math.Bounds;
+import com.cad.dxflib.parser.DxfParser;
+import com.cad.dxflib.parser.DxfParserException;
+import com.cad.dxflib.structure.DxfDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what happens to a document once it is parsed: {@link DxfToSvgConverter#convert} and
+ * {@link DxfDocument#getBounds()}, on the sample drawings and synthetic drawings of increasing size.
+ * Run from the repository root; add {@code -prof gc} for the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConvertBenchmark {
+
+    @Param({"DXF/1.dxf", "DXF/2.dxf", "synthetic-1000", "synthetic-10000", "synthetic-100000"})
+    private String source;
+
+    private DxfDocument document;
+    private DxfToSvgConverter converter;
+    private SvgConversionOptions options;
+
+    @Setup(Level.Trial)
+    public void parse() throws IOException, DxfParserException {
+        Path file = SyntheticDrawing.resolve(source);
+        document = new DxfParser().parse(file);
+        SyntheticDrawing.release(source, file);
+        converter = new DxfToSvgConverter();
+        options = new SvgConversionOptions();
+    }
+
+    @Benchmark
+    public String convertToSvg() {
+        return converter.convert(document, options);
+    }
+
+    @Benchmark
+    public Bounds bounds() {
+        return document.getBounds();
+    }
+}
@@ -0,0 +1,90 @@
+package com.cad.benchmarks;
+
+import com.cad.dxflib.parser.DxfNumberParser;
+import com.cad.dxflib.parser.DxfParserException;
+import com.cad.dxflib.parser.DxfTokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares {@link DxfNumberParser} with {@link Double#parseDouble(String)} on the coordinate, radius,
+ * angle and bulge values (group codes 10-59) of the sample drawings.
+ * Run from the repository root, so that the DXF directory resolves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoubleParsingBenchmark {
+
+    @Param({"DXF/1.dxf", "DXF/2.dxf"})
+    private String file;
+
+    private byte[][] values;
+    private String[] strings;
+
+    @Setup(Level.Trial)
+    public void loadValues() throws IOException, DxfParserException {
+        Path path = Paths.get(file);
+        List<byte[]> collected = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(path)) {
+            DxfTokenizer tokenizer = new DxfTokenizer(in, StandardCharsets.ISO_8859_1);
+            while (tokenizer.next()) {
+                if (tokenizer.getCode() >= 10 && tokenizer.getCode() <= 59) {
+                    byte[] value = new byte[tokenizer.getValueLength()];
+                    System.arraycopy(tokenizer.getValueBuffer(), tokenizer.getValueOffset(), value, 0, value.length);
+                    collected.add(value);
+                }
+            }
+        }
+        values = collected.toArray(new byte[0][]);
+        strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            strings[i] = new String(values[i], StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    @Benchmark
+    public void jdkParseDouble(Blackhole blackhole) {
+        for (String value : strings) {
+            blackhole.consume(Double.parseDouble(value));
+        }
+    }
+
+    @Benchmark
+    public void jdkParseDoubleFromBytes(Blackhole blackhole) {
+        // What the old reader paid per value: a String for every line, then the JDK conversion
+        for (byte[] value : values) {
+            blackhole.consume(Double.parseDouble(new String(value, StandardCharsets.ISO_8859_1)));
+        }
+    }
+
+    @Benchmark
+    public void dxfNumberParser(Blackhole blackhole) {
+        for (byte[] value : values) {
+            blackhole.consume(DxfNumberParser.parseDouble(value, 0, value.length));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.cad.benchmarks;
+
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.EntityType;
+import com.cad.dxflib.common.Point2D;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.parser.DxfParser;
+import com.cad.dxflib.parser.DxfParserException;
+import com.cad.dxflib.structure.DxfDocument;
+import com.cad.gui.CustomCadPanel;
+import com.cad.gui.tool.ToolManager;
+import com.cad.modules.rendering.DxfRenderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link CustomCadPanel} hit tests behind selection: the scan over the document's LINE and
+ * CIRCLE indexes that {@code handleMousePress} runs with the SELECT tool, through
+ * {@link CustomCadPanel#isPointNearDxfLine} and {@link CustomCadPanel#isPointNearDxfCircle}.
+ * A miss scans every line and circle, the worst case of a click.
+ * Runs headless; add {@code -prof gc} for the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class HitTestBenchmark {
+
+    private static final double TOLERANCE = 5.0; // CustomCadPanel.HIT_TOLERANCE at scale 1
+
+    @Param({"DXF/2.dxf", "synthetic-10000", "synthetic-100000"})
+    private String source;
+
+    private CustomCadPanel panel;
+    private List<DxfEntity> lines;
+    private List<DxfEntity> circles;
+    private Point2D miss;
+    private Point2D hit;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException, DxfParserException {
+        Path file = SyntheticDrawing.resolve(source);
+        DxfDocument document = new DxfParser().parse(file);
+        lines = document.getEntities(EntityType.LINE);
+        circles = document.getEntities(EntityType.CIRCLE);
+        SyntheticDrawing.release(source, file);
+        panel = new CustomCadPanel(new ToolManager(), new DxfRenderService());
+        miss = new Point2D(-1e9, -1e9);
+        // The midpoint of the last line, so a hit also scans nearly everything
+        hit = miss;
+        if (!lines.isEmpty()) {
+            DxfLine line = (DxfLine) lines.get(lines.size() - 1);
+            hit = new Point2D((line.getStartPoint().x + line.getEndPoint().x) / 2,
+                              (line.getStartPoint().y + line.getEndPoint().y) / 2);
+        }
+    }
+
+    @Benchmark
+    public DxfEntity selectMiss() {
+        return select(miss);
+    }
+
+    @Benchmark
+    public DxfEntity selectLastLine() {
+        return select(hit);
+    }
+
+    private DxfEntity select(Point2D point) {
+        for (DxfEntity entity : lines) {
+            if (panel.isPointNearDxfLine(point, (DxfLine) entity, TOLERANCE)) {
+                return entity;
+            }
+        }
+        for (DxfEntity entity : circles) {
+            if (panel.isPointNearDxfCircle(point, (DxfCircle) entity, TOLERANCE)) {
+                return entity;
+            }
+        }
+        return null;
+    }
+}
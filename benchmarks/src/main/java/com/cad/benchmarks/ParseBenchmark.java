@@ -0,0 +1,102 @@
+package com.cad.benchmarks;
+
+import com.cad.dxflib.parser.DxfParser;
+import com.cad.dxflib.parser.DxfParserException;
+import com.cad.dxflib.parser.DxfTokenizer;
+import com.cad.dxflib.structure.DxfDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DxfParser#parse(Path)} (memory-mapped) and {@link DxfParser#parse(java.io.InputStream)}
+ * on the sample drawings and on synthetic drawings of increasing size, see {@link SyntheticDrawing},
+ * sequentially and with parallel BLOCKS and ENTITIES. {@link #tokenizePath()} is the pass over the pairs
+ * alone, the part of a parallel parse the reading thread keeps: sequential over tokenize bounds the speedup.
+ * Run from the repository root, so that the DXF directory resolves; add {@code -prof gc} for the
+ * allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"DXF/1.dxf", "DXF/2.dxf", "synthetic-1000", "synthetic-10000", "synthetic-100000"})
+    private String source;
+
+    private Path file;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        file = SyntheticDrawing.resolve(source);
+        bytes = Files.readAllBytes(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void release() throws IOException {
+        SyntheticDrawing.release(source, file);
+    }
+
+    @Benchmark
+    public DxfDocument parsePath() throws DxfParserException {
+        return new DxfParser().parse(file);
+    }
+
+    @Benchmark
+    public DxfDocument parseStream() throws DxfParserException {
+        return new DxfParser().parse(new ByteArrayInputStream(bytes));
+    }
+
+    @Benchmark
+    public DxfDocument parsePathParallel() throws DxfParserException {
+        return parallelParser().parse(file);
+    }
+
+    @Benchmark
+    public DxfDocument parseStreamParallel() throws DxfParserException {
+        return parallelParser().parse(new ByteArrayInputStream(bytes));
+    }
+
+    @Benchmark
+    public long tokenizePath() throws IOException, DxfParserException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DxfTokenizer tokenizer = new DxfTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    StandardCharsets.US_ASCII);
+            long codes = 0;
+            while (tokenizer.next()) {
+                codes += tokenizer.getCode();
+            }
+            return codes;
+        }
+    }
+
+    private static DxfParser parallelParser() {
+        DxfParser parser = new DxfParser();
+        parser.setParallelEntities(true);
+        parser.setParallelBlocks(true);
+        return parser;
+    }
+}
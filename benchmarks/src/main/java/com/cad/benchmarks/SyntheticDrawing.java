@@ -0,0 +1,127 @@
+package com.cad.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Sources for the benchmarks: either a sample drawing path such as {@code DXF/1.dxf}, or
+ * {@code synthetic-N}, a generated drawing of N model space entities on several layers.
+ * The synthetic mix is half LINEs, then CIRCLEs, ARCs, LWPOLYLINEs, TEXTs and INSERTs of a small block,
+ * with a fixed seed so every run parses the same bytes.
+ */
+final class SyntheticDrawing {
+
+    private static final String PREFIX = "synthetic-";
+    private static final int LAYERS = 16;
+
+    private SyntheticDrawing() {
+    }
+
+    /**
+     * Resolves a benchmark source to a file, generating synthetic drawings into a temporary file.
+     * @param source A path relative to the repository root, or {@code synthetic-N}.
+     * @return The DXF file.
+     * @throws IOException If the synthetic drawing cannot be written.
+     */
+    static Path resolve(String source) throws IOException {
+        if (!source.startsWith(PREFIX)) {
+            return Paths.get(source);
+        }
+        Path file = Files.createTempFile("dxf-benchmark-", ".dxf");
+        file.toFile().deleteOnExit();
+        Files.write(file, generate(Integer.parseInt(source.substring(PREFIX.length()))));
+        return file;
+    }
+
+    /**
+     * Deletes a file created by {@link #resolve(String)}; sample drawings are left alone.
+     * @param source The source the file was resolved from.
+     * @param file The resolved file.
+     * @throws IOException If the file cannot be deleted.
+     */
+    static void release(String source, Path file) throws IOException {
+        if (source.startsWith(PREFIX)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Generates an ASCII DXF drawing.
+     * @param entities The number of model space entities.
+     * @return The DXF bytes.
+     */
+    static byte[] generate(int entities) {
+        Random random = new Random(42);
+        StringBuilder dxf = new StringBuilder(entities * 120);
+        dxf.append("0\nSECTION\n2\nTABLES\n0\nTABLE\n2\nLAYER\n");
+        for (int i = 0; i < LAYERS; i++) {
+            dxf.append("0\nLAYER\n2\nLAYER").append(i).append("\n70\n0\n62\n").append(i % 255 + 1)
+               .append("\n6\nCONTINUOUS\n");
+        }
+        dxf.append("0\nENDTAB\n0\nENDSEC\n");
+        dxf.append("0\nSECTION\n2\nBLOCKS\n0\nBLOCK\n2\nMARK\n8\n0\n10\n0\n20\n0\n30\n0\n");
+        dxf.append("0\nLINE\n8\n0\n10\n-1\n20\n0\n30\n0\n11\n1\n21\n0\n31\n0\n");
+        dxf.append("0\nLINE\n8\n0\n10\n0\n20\n-1\n30\n0\n11\n0\n21\n1\n31\n0\n");
+        dxf.append("0\nCIRCLE\n8\n0\n10\n0\n20\n0\n30\n0\n40\n0.5\n");
+        dxf.append("0\nENDBLK\n8\n0\n0\nENDSEC\n");
+        dxf.append("0\nSECTION\n2\nENTITIES\n");
+        for (int i = 0; i < entities; i++) {
+            String layer = "LAYER" + random.nextInt(LAYERS);
+            double x = random.nextDouble() * 10000;
+            double y = random.nextDouble() * 10000;
+            int kind = random.nextInt(20);
+            if (kind < 10) {
+                dxf.append("0\nLINE\n8\n").append(layer);
+                point(dxf, 10, x, y);
+                point(dxf, 11, x + random.nextDouble() * 100, y + random.nextDouble() * 100);
+            } else if (kind < 13) {
+                dxf.append("0\nCIRCLE\n8\n").append(layer);
+                point(dxf, 10, x, y);
+                value(dxf, 40, 1 + random.nextDouble() * 50);
+            } else if (kind < 16) {
+                dxf.append("0\nARC\n8\n").append(layer);
+                point(dxf, 10, x, y);
+                value(dxf, 40, 1 + random.nextDouble() * 50);
+                value(dxf, 50, random.nextDouble() * 360);
+                value(dxf, 51, random.nextDouble() * 360);
+            } else if (kind < 18) {
+                int vertices = 3 + random.nextInt(6);
+                dxf.append("0\nLWPOLYLINE\n8\n").append(layer).append("\n90\n").append(vertices)
+                   .append("\n70\n").append(random.nextInt(2));
+                for (int v = 0; v < vertices; v++) {
+                    value(dxf, 10, x + random.nextDouble() * 100);
+                    value(dxf, 20, y + random.nextDouble() * 100);
+                }
+            } else if (kind < 19) {
+                dxf.append("0\nTEXT\n8\n").append(layer);
+                point(dxf, 10, x, y);
+                value(dxf, 40, 2.5);
+                dxf.append("\n1\nLabel ").append(i);
+            } else {
+                dxf.append("0\nINSERT\n8\n").append(layer).append("\n2\nMARK");
+                point(dxf, 10, x, y);
+                value(dxf, 41, 2);
+                value(dxf, 42, 2);
+                value(dxf, 50, random.nextInt(360));
+            }
+            dxf.append('\n');
+        }
+        dxf.append("0\nENDSEC\n0\nEOF\n");
+        return dxf.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void point(StringBuilder dxf, int code, double x, double y) {
+        value(dxf, code, x);
+        value(dxf, code + 10, y);
+        value(dxf, code + 20, 0);
+    }
+
+    private static void value(StringBuilder dxf, int code, double value) {
+        dxf.append('\n').append(code).append('\n').append(String.format(Locale.ROOT, "%.6f", value));
+    }
+}
@@ -0,0 +1,102 @@
+package com.cad.benchmarks;
+
+import com.cad.dxflib.parser.DxfParser;
+import com.cad.dxflib.parser.DxfParserException;
+import com.cad.dxflib.parser.DxfWriter;
+import com.cad.dxflib.structure.DxfDocument;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DxfWriter} in ASCII and binary mode, writing to a channel that only counts bytes, so
+ * the score is the serialization cost alone. The bytes written are reported as the secondary
+ * {@code write:bytes} result, in bytes per second next to the score; divide by the score for bytes per write.
+ * Run from the repository root; add {@code -prof gc} for the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+    @Param({"DXF/2.dxf", "synthetic-10000", "synthetic-100000"})
+    private String source;
+
+    @Param({"false", "true"})
+    private boolean binary;
+
+    private DxfDocument document;
+    private DxfWriter writer;
+    private final CountingChannel channel = new CountingChannel();
+
+    @Setup(Level.Trial)
+    public void parse() throws IOException, DxfParserException {
+        Path file = SyntheticDrawing.resolve(source);
+        document = new DxfParser().parse(file);
+        SyntheticDrawing.release(source, file);
+        writer = new DxfWriter();
+        writer.setBinary(binary);
+    }
+
+    @Benchmark
+    public long write(Output output) throws IOException {
+        channel.count = 0;
+        writer.write(document, channel);
+        output.bytes += channel.count;
+        return channel.count;
+    }
+
+    /** The bytes written, as a JMH secondary result normalized like the score. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Output {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    private static final class CountingChannel implements WritableByteChannel {
+
+        private long count;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int remaining = source.remaining();
+            source.position(source.limit());
+            count += remaining;
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -11,7 +11,7 @@ import java.util.Map;
 
 /**
  * Abstract base class for most DXF entities.
- * Implements common properties such as layer name, color, linetype, thickness,
+ * Implements common properties such as layer name, color, linetype, thickness, handle,
  * Extended Entity Data (XDATA), and reactor handles.
  */
 public abstract class AbstractDxfEntity implements DxfEntity {
@@ -19,17 +19,18 @@ public abstract class AbstractDxfEntity implements DxfEntity {
     protected int color = 256; // DXF color code 256 = BYLAYER (code 62)
     protected String linetypeName = "BYLAYER"; // Default linetype (code 6)
     protected double thickness = 0.0; // Entity thickness (code 39)
-    protected Map<String, List<DxfGroupCode>> xdata;
-    protected List<String> reactorHandles;
+    protected long handle; // Hexadecimal handle (code 5), 0 if none
+    protected long ownerHandle; // Handle of the owning block record or dictionary (code 330), 0 if none
+    protected Map<String, List<DxfGroupCode>> xdata; // Null until the first XDATA is added
+    protected List<String> reactorHandles; // Null until the first reactor is added
 
     /**
      * Constructs an AbstractDxfEntity, initializing common fields to default values.
      * Layer is "0", color is 256 (BYLAYER), linetype is "BYLAYER".
-     * XDATA map and reactor handles list are initialized as empty.
+     * XDATA and reactor handles start empty; their collections are only allocated when data is added,
+     * as most entities of a large drawing have neither.
      */
     public AbstractDxfEntity() {
-        this.xdata = new HashMap<> ();
-        this.reactorHandles = new ArrayList<> ();
     }
 
     /**
@@ -117,6 +118,43 @@ public abstract class AbstractDxfEntity implements DxfEntity {
         this.thickness = thickness;
     }
 
+    /**
+     * Gets the handle of the entity, the hexadecimal value of group code 5 as a number.
+     *
+     * @return The handle, or 0 if the entity has none.
+     */
+    @Override
+    public long getHandle () {
+        return handle;
+    }
+
+    /**
+     * Sets the handle of the entity.
+     *
+     * @param handle The new handle, or 0 for none.
+     */
+    public void setHandle (long handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Gets the handle of the object owning this entity (group code 330), e.g. its block record.
+     *
+     * @return The owner handle, or 0 if not known.
+     */
+    public long getOwnerHandle () {
+        return ownerHandle;
+    }
+
+    /**
+     * Sets the handle of the object owning this entity.
+     *
+     * @param ownerHandle The new owner handle, or 0 for none.
+     */
+    public void setOwnerHandle (long ownerHandle) {
+        this.ownerHandle = ownerHandle;
+    }
+
     /**
      * Adds Extended Entity Data (XDATA) associated with a specific application name.
      * XDATA allows applications to attach custom data to DXF entities.
@@ -126,6 +164,9 @@ public abstract class AbstractDxfEntity implements DxfEntity {
      */
     public void addXData (String appName, List<DxfGroupCode> data) {
         if (appName != null && !appName.isEmpty () && data != null) {
+            if (this.xdata == null) {
+                this.xdata = new HashMap<> ();
+            }
             this.xdata.computeIfAbsent (appName, k -> new ArrayList<> ()).addAll (data);
         }
     }
@@ -136,7 +177,7 @@ public abstract class AbstractDxfEntity implements DxfEntity {
      * @return An unmodifiable map where keys are application names and values are lists of {@link DxfGroupCode}s.
      */
     public Map<String, List<DxfGroupCode>> getXData () {
-        return Collections.unmodifiableMap (xdata);
+        return xdata != null ? Collections.unmodifiableMap (xdata) : Collections.emptyMap ();
     }
 
     /**
@@ -146,7 +187,7 @@ public abstract class AbstractDxfEntity implements DxfEntity {
      * @return An unmodifiable list of {@link DxfGroupCode}s for the given application, or null if not found.
      */
     public List<DxfGroupCode> getXDataForApplication (String appName) {
-        List<DxfGroupCode> dataList = xdata.get (appName);
+        List<DxfGroupCode> dataList = xdata != null ? xdata.get (appName) : null;
         return dataList != null ? Collections.unmodifiableList (dataList) : null;
     }
 
@@ -158,6 +199,9 @@ public abstract class AbstractDxfEntity implements DxfEntity {
      */
     public void addReactorHandle (String handle) {
         if (handle != null && !handle.isEmpty ()) {
+            if (this.reactorHandles == null) {
+                this.reactorHandles = new ArrayList<> ();
+            }
             this.reactorHandles.add (handle);
         }
     }
@@ -168,7 +212,7 @@ public abstract class AbstractDxfEntity implements DxfEntity {
      * @return An unmodifiable list of reactor handle strings.
      */
     public List<String> getReactorHandles () {
-        return Collections.unmodifiableList (reactorHandles);
+        return reactorHandles != null ? Collections.unmodifiableList (reactorHandles) : Collections.emptyList ();
     }
 
     /**
@@ -16,6 +16,8 @@ public interface DxfEntity {
     double getThickness(); // Optional: For future use
     void setThickness(double thickness); // Optional
 
+    long getHandle(); // Group code 5 as a number, 0 if none
+
     // We'll need a Bounds class later. For now, can be commented out or use a placeholder.
     Bounds getBounds();
 
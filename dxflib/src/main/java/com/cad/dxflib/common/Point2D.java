@@ -18,14 +18,14 @@ public class Point2D {
     }
 
     @Override
-    public boolean equals(Object o) {
+    public boolean equals(Object obj) {
     if (this == obj) {
         return true;
     }
     if (obj == null || getClass() != obj.getClass()) {
         return false;
     }
-        Point2D point2D = (Point2D) o;
+        Point2D point2D = (Point2D) obj;
         return Double.compare(point2D.x, x) == 0 &&
                Double.compare(point2D.y, y) == 0;
     }
@@ -7,6 +7,9 @@ public class Point3D {
     public final double y;
     public final double z;
 
+    /** The origin (0,0,0). Points are immutable, so entities share it as their default position. */
+    public static final Point3D ORIGIN = new Point3D(0, 0, 0);
+
     public Point3D(double x, double y, double z) {
         this.x = x;
         this.y = y;
@@ -20,14 +23,14 @@ public class Point3D {
 
 
     @Override
-    public boolean equals(Object o) {
+    public boolean equals(Object obj) {
     if (this == obj) {
         return true;
     }
     if (obj == null || getClass() != obj.getClass()) {
         return false;
     }
-        Point3D point3D = (Point3D) o;
+        Point3D point3D = (Point3D) obj;
         return Double.compare(point3D.x, x) == 0 &&
                Double.compare(point3D.y, y) == 0 &&
                Double.compare(point3D.z, z) == 0;
@@ -4,7 +4,6 @@ import com.cad.dxflib.structure.DxfDocument;
 import com.cad.dxflib.math.Bounds;
 import com.cad.dxflib.common.DxfEntity;
 import com.cad.dxflib.common.EntityType; // Added import
-import com.cad.dxflib.common.Point2D; // For LwPolyline
 import com.cad.dxflib.common.Point3D; // Added for Point3D
 import com.cad.dxflib.entities.DxfArc;
 import com.cad.dxflib.entities.DxfCircle;
@@ -13,10 +12,12 @@ import com.cad.dxflib.entities.DxfLwPolyline;
 import com.cad.dxflib.entities.DxfText;
 import com.cad.dxflib.entities.DxfInsert;
 import com.cad.dxflib.structure.DxfBlock;
+import com.cad.dxflib.structure.DxfBlockGeometry;
 import com.cad.dxflib.structure.DxfLayer;
-import com.cad.dxflib.structure.DxfLinetype; // Added
-import java.util.List;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
 public class DxfToSvgConverter {
 
@@ -30,8 +31,47 @@ public class DxfToSvgConverter {
             options = new SvgConversionOptions(); // Use defaults if none provided
         }
 
+        // Content first: the viewBox also covers the blocks drawn by top-level INSERTs
+        Conversion conversion = new Conversion(dxfDocument, options);
+        StringBuilder contentBuilder = new StringBuilder();
+        if (options.isGroupElementsByLayer()) {
+            for (DxfLayer layer : dxfDocument.getLayers().values()) {
+                if (layer == null || !layer.isVisible()) {
+                    continue;
+                }
+                String layerId = "layer_" + layer.getName().replaceAll("[^a-zA-Z0-9_\\-]", "_");
+                contentBuilder.append(String.format(Locale.US, "  <g id=\"%s\" class=\"layer %s\">\n", layerId, layerId));
+
+                if (layer.getEntities() != null) {
+                    for (DxfEntity entity : layer.getEntities()) {
+                        if (entity == null) {
+                            continue;
+                        }
+                        appendEntityToSvg(entity, null, dxfDocument, options, contentBuilder, 0, conversion);
+                    }
+                }
+                contentBuilder.append("  </g> <!-- end layer ").append(layerId).append(" -->\n");
+            }
+        } else {
+            // Iterate through all entities in all visible layers if not grouping
+            for (DxfLayer layer : dxfDocument.getLayers().values()) {
+                if (layer == null || !layer.isVisible()) {
+                    continue;
+                }
+                if (layer.getEntities() != null) {
+                    for (DxfEntity entity : layer.getEntities()) {
+                        if (entity == null) {
+                            continue;
+                        }
+                        appendEntityToSvg(entity, null, dxfDocument, options, contentBuilder, 0, conversion);
+                    }
+                }
+            }
+        }
+
         StringBuilder svgBuilder = new StringBuilder();
         Bounds documentBounds = dxfDocument.getBounds();
+        documentBounds.addToBounds(conversion.insertExtents);
 
         double margin = options.getMargin();
         double svgWidth, svgHeight;
@@ -70,42 +110,7 @@ public class DxfToSvgConverter {
                   .append("viewBox=\"").append(viewBox).append("\">\n");
 
         svgBuilder.append("  <!-- DXF Content Start -->\n");
-
-        if (options.isGroupElementsByLayer()) {
-            for (DxfLayer layer : dxfDocument.getLayers().values()) {
-                if (layer == null || !layer.isVisible()) {
-                    continue;
-                }
-                String layerId = "layer_" + layer.getName().replaceAll("[^a-zA-Z0-9_\\-]", "_");
-                svgBuilder.append(String.format(Locale.US, "  <g id=\"%s\" class=\"layer %s\">\n", layerId, layerId));
-
-                if (layer.getEntities() != null) {
-                    for (DxfEntity entity : layer.getEntities()) {
-                        if (entity == null) {
-                            continue;
-                        }
-                        appendEntityToSvg(entity, dxfDocument, options, svgBuilder, 0);
-                    }
-                }
-                svgBuilder.append("  </g> <!-- end layer ").append(layerId).append(" -->\n");
-            }
-        } else {
-            // Iterate through all entities in all visible layers if not grouping
-            for (DxfLayer layer : dxfDocument.getLayers().values()) {
-                if (layer == null || !layer.isVisible()) {
-                    continue;
-                }
-                if (layer.getEntities() != null) {
-                    for (DxfEntity entity : layer.getEntities()) {
-                        if (entity == null) {
-                            continue;
-                        }
-                        appendEntityToSvg(entity, dxfDocument, options, svgBuilder, 0);
-                    }
-                }
-            }
-        }
-
+        svgBuilder.append(contentBuilder);
         svgBuilder.append("  <!-- DXF Content End -->\n");
 
         // End SVG structure
@@ -114,145 +119,51 @@ public class DxfToSvgConverter {
         return svgBuilder.toString();
     }
 
-    private void appendEntityToSvg(DxfEntity entity, DxfDocument document, SvgConversionOptions options,
-                               StringBuilder svgBuilder, int recursionLevel) {
+    private void appendEntityToSvg(DxfEntity entity, InsertStyle style, DxfDocument document, SvgConversionOptions options,
+                               StringBuilder svgBuilder, int recursionLevel, Conversion conversion) {
         switch (entity.getType()) {
             case LINE:
-                appendLineSvg((DxfLine) entity, document, options, svgBuilder);
+                appendLineSvg((DxfLine) entity, style, conversion.styles, svgBuilder);
                 break;
             case CIRCLE:
-                appendCircleSvg((DxfCircle) entity, document, options, svgBuilder);
+                appendCircleSvg((DxfCircle) entity, style, conversion.styles, svgBuilder);
                 break;
             case ARC:
-                appendArcSvg((DxfArc) entity, document, options, svgBuilder);
+                appendArcSvg((DxfArc) entity, style, conversion.styles, svgBuilder);
                 break;
             case LWPOLYLINE:
-                appendLwPolylineSvg((DxfLwPolyline) entity, document, options, svgBuilder);
+                appendLwPolylineSvg((DxfLwPolyline) entity, style, conversion.styles, svgBuilder);
                 break;
             case TEXT:
-                appendTextSvg((DxfText) entity, document, options, svgBuilder);
+                appendTextSvg((DxfText) entity, style, conversion.styles, svgBuilder);
                 break;
             case INSERT:
-                appendInsertSvg((DxfInsert) entity, document, options, svgBuilder, recursionLevel);
+                appendInsertSvg((DxfInsert) entity, style, document, options, svgBuilder, recursionLevel, conversion);
                 break;
             default:
                 break;
         }
     }
 
-    private String getCommonSvgStyleAttributes(DxfEntity entity, DxfDocument document, SvgConversionOptions options) {
-        StringBuilder styleBuilder = new StringBuilder();
-
-        // Color
-        String svgColor = getDxfColorAsSvg(entity.getColor(), document, entity.getLayerName(), options);
-        styleBuilder.append(String.format(Locale.US, "stroke=\"%s\" ", svgColor));
-
-        // Stroke Width
-        double strokeWidth = options.getStrokeWidth();
+    private String getCommonSvgStyleAttributes(DxfEntity entity, InsertStyle style, SvgStyleTable styles) {
+        // Color, stroke width and linetype -> stroke-dasharray, resolved once per combination by the table
+        SvgStyle svgStyle = styles.resolve(layerOf(entity, style), colorOf(entity, style), linetypeOf(entity, style));
         if (entity.getType() == EntityType.LWPOLYLINE) {
            DxfLwPolyline poly = (DxfLwPolyline) entity;
            if (poly.getConstantWidth() > 0) {
-               strokeWidth = poly.getConstantWidth();
+               svgStyle = styles.withStrokeWidth(svgStyle, poly.getConstantWidth());
            }
         }
-        styleBuilder.append(String.format(Locale.US, "stroke-width=\"%.3f\" ", strokeWidth));
-
-        // Linetype -> stroke-dasharray
-        String linetypeName = entity.getLinetypeName();
-        if (linetypeName == null || "BYLAYER".equalsIgnoreCase(linetypeName)) {
-            DxfLayer layer = document.getLayer(entity.getLayerName());
-            if (layer != null) {
-                linetypeName = layer.getLinetypeName();
-            } else {
-                linetypeName = "CONTINUOUS"; // Fallback
-            }
-        }
-
-        if ("BYBLOCK".equalsIgnoreCase(linetypeName)) {
-            // This part is tricky without context of the INSERT.
-            // For direct entities or entities within a block being resolved by INSERT,
-            // this context needs to be passed down or handled.
-            // For now, if we encounter BYBLOCK at this level, assume CONTINUOUS.
-            // The appendInsertSvg method will handle BYBLOCK for entities within the block.
-            linetypeName = "CONTINUOUS";
-        }
-
-        if (linetypeName != null && !linetypeName.equalsIgnoreCase("CONTINUOUS")) {
-            DxfLinetype ltypeDef = document.getLinetype(linetypeName);
-            if (ltypeDef != null && !ltypeDef.isContinuous()) {
-                String dashArray = ltypeDef.getSvgStrokeDashArray();
-                if (!"none".equals(dashArray) && !dashArray.isEmpty()) {
-                    styleBuilder.append(String.format(Locale.US, "stroke-dasharray=\"%s\" ", dashArray));
-                }
-            }
-        }
 
         // Fill
-        if (entity.getType() == EntityType.CIRCLE ||
-            entity.getType() == EntityType.LWPOLYLINE || // Changed line
-            entity.getType() == EntityType.ARC ) { // Arcs are open paths, fill=none is typical
-             styleBuilder.append("fill=\"none\" ");
-        }
-        // TEXT fill is handled in appendTextSvg
-
-        return styleBuilder.toString().trim();
+        // Arcs are open paths, fill=none is typical; TEXT fill is handled in appendTextSvg
+        return svgStyle.getAttributes(entity.getType() == EntityType.CIRCLE ||
+            entity.getType() == EntityType.LWPOLYLINE ||
+            entity.getType() == EntityType.ARC);
     }
 
-    private String getDxfColorAsSvg(int dxfColorIndex, DxfDocument document, String layerName, SvgConversionOptions options) {
-        int resolvedColorIndex = dxfColorIndex;
-
-        if (resolvedColorIndex == 0) { // BYBLOCK
-            resolvedColorIndex = 256;
-        }
-
-        if (resolvedColorIndex == 256) { // BYLAYER
-            if (layerName != null && document != null) {
-                DxfLayer layer = document.getLayer(layerName);
-                if (layer != null) {
-                    resolvedColorIndex = layer.getColor();
-                    if (resolvedColorIndex < 0) resolvedColorIndex = Math.abs(resolvedColorIndex);
-                    if (resolvedColorIndex == 0 || resolvedColorIndex == 256) {
-                        return options.getDefaultStrokeColor();
-                    }
-                } else {
-                    return options.getDefaultStrokeColor();
-                }
-            } else {
-                return options.getDefaultStrokeColor();
-            }
-        }
-
-        switch (resolvedColorIndex) {
-            case 1: return "red";
-            case 2: return "yellow";
-            case 3: return "green";
-            case 4: return "cyan";
-            case 5: return "blue";
-            case 6: return "magenta";
-            case 7: return options.getDefaultStrokeColor();
-            case 8: return "#808080"; // Dark Grey
-            case 9: return "#C0C0C0"; // Light Grey (Silver)
-            case 10: return "#FF0000"; // Red
-            case 11: return "#FF3F3F";
-            case 12: return "#FF7F7F";
-            case 30: return "#00FF00"; // Green
-            case 40: return "#00FFFF"; // Cyan
-            case 50: return "#0000FF"; // Blue
-            case 60: return "#FF00FF"; // Magenta
-            case 14: return "darkcyan";
-            case 250: return "#2F2F2F";
-            case 251: return "#4C4C4C";
-            case 252: return "#7F7F7F";
-            case 253: return "#B2B2B2";
-            case 254: return "#DFDFDF";
-            case 255: return "#F0F0F0";
-            default:
-                return options.getDefaultStrokeColor();
-        }
-    }
-
-    private void appendLineSvg(DxfLine line, DxfDocument document, SvgConversionOptions options, StringBuilder svgBuilder) {
-        String styleAttributes = getCommonSvgStyleAttributes(line, document, options);
+    private void appendLineSvg(DxfLine line, InsertStyle style, SvgStyleTable styles, StringBuilder svgBuilder) {
+        String styleAttributes = getCommonSvgStyleAttributes(line, style, styles);
         svgBuilder.append(String.format(Locale.US,
                 "    <line x1=\"%.3f\" y1=\"%.3f\" x2=\"%.3f\" y2=\"%.3f\" %s />\n",
                 line.getStartPoint().x,
@@ -262,8 +173,8 @@ public class DxfToSvgConverter {
                 styleAttributes));
     }
 
-    private void appendCircleSvg(DxfCircle circle, DxfDocument document, SvgConversionOptions options, StringBuilder svgBuilder) {
-        String styleAttributes = getCommonSvgStyleAttributes(circle, document, options);
+    private void appendCircleSvg(DxfCircle circle, InsertStyle style, SvgStyleTable styles, StringBuilder svgBuilder) {
+        String styleAttributes = getCommonSvgStyleAttributes(circle, style, styles);
         svgBuilder.append(String.format(Locale.US,
                 "    <circle cx=\"%.3f\" cy=\"%.3f\" r=\"%.3f\" %s />\n",
                 circle.getCenter().x,
@@ -272,8 +183,8 @@ public class DxfToSvgConverter {
                 styleAttributes));
     }
 
-    private void appendArcSvg(DxfArc arc, DxfDocument document, SvgConversionOptions options, StringBuilder svgBuilder) {
-        String styleAttributes = getCommonSvgStyleAttributes(arc, document, options);
+    private void appendArcSvg(DxfArc arc, InsertStyle style, SvgStyleTable styles, StringBuilder svgBuilder) {
+        String styleAttributes = getCommonSvgStyleAttributes(arc, style, styles);
 
         double radius = arc.getRadius();
         Point3D center = arc.getCenter();
@@ -306,31 +217,33 @@ public class DxfToSvgConverter {
                 styleAttributes));
     }
 
-    private void appendLwPolylineSvg(DxfLwPolyline lwpoly, DxfDocument document, SvgConversionOptions options, StringBuilder svgBuilder) {
-        List<Point2D> vertices = lwpoly.getVertices();
-        List<Double> bulges = lwpoly.getBulges();
+    private void appendLwPolylineSvg(DxfLwPolyline lwpoly, InsertStyle style, SvgStyleTable styles, StringBuilder svgBuilder) {
+        // Reads the packed vertex arrays directly, without creating a point per vertex
+        int vertexCount = lwpoly.getNumberOfVertices();
 
-        if (vertices.isEmpty()) {
+        if (vertexCount == 0) {
             return;
         }
 
         StringBuilder pathData = new StringBuilder();
-        pathData.append(String.format(Locale.US, "M %.3f,%.3f", vertices.get(0).x, vertices.get(0).y));
+        pathData.append(String.format(Locale.US, "M %.3f,%.3f", lwpoly.getX(0), lwpoly.getY(0)));
 
-        for (int i = 0; i < vertices.size() - 1; i++) {
-            Point2D p1 = vertices.get(i);
-            Point2D p2 = vertices.get(i + 1);
-            double bulge = (i < bulges.size()) ? bulges.get(i) : 0.0;
+        for (int i = 0; i < vertexCount - 1; i++) {
+            double x1 = lwpoly.getX(i);
+            double y1 = lwpoly.getY(i);
+            double x2 = lwpoly.getX(i + 1);
+            double y2 = lwpoly.getY(i + 1);
+            double bulge = lwpoly.getBulge(i);
 
             if (bulge == 0.0) { // Straight line segment
-                pathData.append(String.format(Locale.US, " L %.3f,%.3f", p2.x, p2.y));
+                pathData.append(String.format(Locale.US, " L %.3f,%.3f", x2, y2));
             } else { // Arc segment
-                double dx = p2.x - p1.x;
-                double dy = p2.y - p1.y;
+                double dx = x2 - x1;
+                double dy = y2 - y1;
                 double chordLength = Math.sqrt(dx * dx + dy * dy);
 
                 if (chordLength < 1e-9) {
-                    pathData.append(String.format(Locale.US, " L %.3f,%.3f", p2.x, p2.y));
+                    pathData.append(String.format(Locale.US, " L %.3f,%.3f", x2, y2));
                 } else {
                     double includedAngle = 4 * Math.atan(Math.abs(bulge));
                     double radius;
@@ -341,7 +254,7 @@ public class DxfToSvgConverter {
                     }
 
                     if (Double.isInfinite(radius) || Double.isNaN(radius) || radius < 1e-9) {
-                        pathData.append(String.format(Locale.US, " L %.3f,%.3f", p2.x, p2.y));
+                        pathData.append(String.format(Locale.US, " L %.3f,%.3f", x2, y2));
                     } else {
                         int largeArcFlag = (includedAngle > Math.PI) ? 1 : 0;
                         int sweepFlag = (bulge > 0) ? 1 : 0;
@@ -351,7 +264,7 @@ public class DxfToSvgConverter {
                                 radius, radius,
                                 largeArcFlag,
                                 sweepFlag,
-                                p2.x, p2.y));
+                                x2, y2));
                     }
                 }
             }
@@ -362,16 +275,16 @@ public class DxfToSvgConverter {
             // We need to check if there was a bulge specified for this closing segment.
             // DXF stores bulge on the *starting* vertex of an arc segment.
             // So, the bulge for the segment from last_vertex to first_vertex would be on the last_vertex.
-            if (vertices.size() > 1) { // Only makes sense if there's more than one vertex
-                double closingBulge = (vertices.size() -1 < bulges.size()) ? bulges.get(vertices.size()-1) : 0.0;
+            if (vertexCount > 1) { // Only makes sense if there's more than one vertex
+                double closingBulge = lwpoly.getBulge(vertexCount - 1);
                 if (closingBulge == 0.0) {
                     pathData.append(" Z"); // Simple close if no bulge on closing segment
                 } else {
                     // Arc for the closing segment
-                    Point2D pLast = vertices.get(vertices.size() - 1);
-                    Point2D pFirst = vertices.get(0);
-                    double dx = pFirst.x - pLast.x;
-                    double dy = pFirst.y - pLast.y;
+                    double firstX = lwpoly.getX(0);
+                    double firstY = lwpoly.getY(0);
+                    double dx = firstX - lwpoly.getX(vertexCount - 1);
+                    double dy = firstY - lwpoly.getY(vertexCount - 1);
                     double chordLength = Math.sqrt(dx*dx + dy*dy);
 
                     if (chordLength < 1e-9) {
@@ -394,7 +307,7 @@ public class DxfToSvgConverter {
                                     " A %.3f,%.3f 0 %d,%d %.3f,%.3f",
                                     radius, radius,
                                     largeArcFlag, sweepFlag,
-                                    pFirst.x, pFirst.y));
+                                    firstX, firstY));
                             // No explicit Z needed here as the arc command itself moves to the start point.
                             // However, some SVG renderers might behave better with an explicit Z if the path isn't auto-closed by fill.
                             // Since fill="none", an explicit Z might be better if the arc doesn't perfectly land.
@@ -410,7 +323,7 @@ public class DxfToSvgConverter {
         // String color will come from styleAttributes
         // double strokeWidth will come from styleAttributes (or be overridden if constantWidth > 0)
 
-        String styleAttributes = getCommonSvgStyleAttributes(lwpoly, document, options);
+        String styleAttributes = getCommonSvgStyleAttributes(lwpoly, style, styles);
         // If lwpoly.getConstantWidth() > 0, styleAttributes already contains the correct stroke-width.
         // The getCommonSvgStyleAttributes was updated to handle this.
 
@@ -420,8 +333,8 @@ public class DxfToSvgConverter {
                 styleAttributes));
     }
 
-    private void appendTextSvg(DxfText text, DxfDocument document, SvgConversionOptions options, StringBuilder svgBuilder) {
-        String svgColor = getDxfColorAsSvg(text.getColor(), document, text.getLayerName(), options);
+    private void appendTextSvg(DxfText text, InsertStyle style, SvgStyleTable styles, StringBuilder svgBuilder) {
+        String svgColor = styles.color(layerOf(text, style), colorOf(text, style));
         Point3D insertionPoint = text.getInsertionPoint();
         double height = text.getHeight();
         String textValue = text.getTextValue();
@@ -459,8 +372,8 @@ public class DxfToSvgConverter {
                   .append("</text>\n");
     }
 
-    private void appendInsertSvg(DxfInsert insert, DxfDocument document, SvgConversionOptions options,
-                                 StringBuilder svgBuilder, int recursionLevel) {
+    private void appendInsertSvg(DxfInsert insert, InsertStyle style, DxfDocument document, SvgConversionOptions options,
+                                 StringBuilder svgBuilder, int recursionLevel, Conversion conversion) {
         if (recursionLevel > MAX_INSERT_RECURSION_DEPTH) {
             // System.err.println("Max recursion depth reached for INSERT: " + insert.getBlockName());
             return;
@@ -477,6 +390,16 @@ public class DxfToSvgConverter {
         double yScale = insert.getYScale();
         double rotation = insert.getRotationAngle();
 
+        if (recursionLevel == 0) {
+            // The flattened block is memoized by the document; place its extents like the group transform below
+            double angle = Math.toRadians(-rotation);
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            DxfBlockGeometry geometry = document.getBlockGeometry(block.getName());
+            conversion.insertExtents.addToBounds(geometry.getBounds(new double[] {
+                cos * xScale, sin * xScale, -sin * yScale, cos * yScale, insertPt.x, insertPt.y}));
+        }
+
         svgBuilder.append("  <g transform=\"");
 
         svgBuilder.append(String.format(Locale.US, "translate(%.3f, %.3f)", insertPt.x, insertPt.y));
@@ -492,58 +415,138 @@ public class DxfToSvgConverter {
         }
         svgBuilder.append("\">\n");
 
-        for (DxfEntity entityInBlock : block.getEntities()) {
-            if (entityInBlock == null) continue;
+        // What the block's entities inherit from this INSERT, itself resolved against the enclosing INSERT
+        String insertLayerName = layerOf(insert, style);
+        int insertColor = colorOf(insert, style);
+        String insertLinetype = linetypeOf(insert, style);
+        DxfLayer insertLayer = document.getLayer(insertLayerName);
+        int blockColor;
+        if (insertColor == 256) {
+            blockColor = insertLayer != null ? Math.abs(insertLayer.getColor()) : 7; // Use absolute color
+        } else if (insertColor != 0) {
+            blockColor = insertColor;
+        } else { // INSERT is also BYBLOCK
+            blockColor = 7;
+        }
+        String blockLinetype;
+        if (insertLinetype == null || "BYLAYER".equalsIgnoreCase(insertLinetype)) {
+            blockLinetype = insertLayer != null ? insertLayer.getLinetypeName() : "CONTINUOUS";
+        } else if (!"BYBLOCK".equalsIgnoreCase(insertLinetype)) {
+            blockLinetype = insertLinetype;
+        } else { // INSERT itself is BYBLOCK for linetype
+            blockLinetype = "CONTINUOUS";
+        }
+        InsertStyle blockStyle = new InsertStyle(insertLayerName, blockColor, blockLinetype);
+
+        // The body only depends on the block, what it inherits and the depth: expand it once per conversion
+        Fragment key = new Fragment(block, blockStyle, recursionLevel);
+        String body = conversion.fragments.get(key);
+        if (body == null) {
+            StringBuilder bodyBuilder = new StringBuilder();
+            for (DxfEntity entityInBlock : block.getEntities()) {
+                if (entityInBlock == null) continue;
+                // Use the centralized dispatcher
+                appendEntityToSvg(entityInBlock, blockStyle, document, options, bodyBuilder, recursionLevel + 1, conversion);
+            }
+            body = bodyBuilder.toString();
+            conversion.fragments.put(key, body);
+        }
+        svgBuilder.append(body);
+        svgBuilder.append("  </g>\n");
+    }
+
+    // Effective properties of an entity drawn through an INSERT; style is null outside blocks
 
-            String originalEntityLayer = entityInBlock.getLayerName();
-            int originalEntityColor = entityInBlock.getColor();
-            String originalEntityLinetype = entityInBlock.getLinetypeName(); // Save linetype
-            boolean changedLayer = false;
-            boolean changedColor = false;
-            boolean linetypeChanged = false;
+    private static String layerOf(DxfEntity entity, InsertStyle style) {
+        String layerName = entity.getLayerName();
+        return style != null && "0".equals(layerName) ? style.layerName : layerName;
+    }
 
-            if ("0".equals(originalEntityLayer)) {
-                entityInBlock.setLayerName(insert.getLayerName());
-                changedLayer = true;
+    private static int colorOf(DxfEntity entity, InsertStyle style) {
+        int color = entity.getColor();
+        return style != null && color == 0 ? style.color : color; // 0 is BYBLOCK
+    }
+
+    private static String linetypeOf(DxfEntity entity, InsertStyle style) {
+        String linetypeName = entity.getLinetypeName();
+        return style != null && "BYBLOCK".equalsIgnoreCase(linetypeName) ? style.linetypeName : linetypeName;
+    }
+
+    /**
+     * What the entities of a block inherit from the INSERT drawing them: entities on layer "0" take its layer,
+     * BYBLOCK colors and linetypes take its resolved color and linetype. One immutable instance per INSERT,
+     * passed down the recursion, so the shared block entities are never modified and one document can be
+     * converted on several threads at once.
+     */
+    private static final class InsertStyle {
+        final String layerName;
+        final int color;
+        final String linetypeName;
+
+        InsertStyle(String layerName, int color, String linetypeName) {
+            this.layerName = layerName;
+            this.color = color;
+            this.linetypeName = linetypeName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
             }
-            if (entityInBlock.getColor() == 0) { // BYBLOCK
-                changedColor = true;
-                if (insert.getColor() == 256) {
-                    DxfLayer insertLayer = document.getLayer(insert.getLayerName());
-                    entityInBlock.setColor(insertLayer != null ? Math.abs(insertLayer.getColor()) : 7); // Use absolute color
-                } else if (insert.getColor() != 0) {
-                     entityInBlock.setColor(insert.getColor());
-                } else { // INSERT is also BYBLOCK
-                    entityInBlock.setColor(7);
-                }
+            if (!(o instanceof InsertStyle)) {
+                return false;
             }
-            if ("BYBLOCK".equalsIgnoreCase(entityInBlock.getLinetypeName())) {
-                String insertLinetype = insert.getLinetypeName();
-                if (insertLinetype == null || "BYLAYER".equalsIgnoreCase(insertLinetype)) {
-                    DxfLayer insertLayer = document.getLayer(insert.getLayerName());
-                    if (insertLayer != null) {
-                        entityInBlock.setLinetypeName(insertLayer.getLinetypeName());
-                        linetypeChanged = true;
-                    } else {
-                        entityInBlock.setLinetypeName("CONTINUOUS");
-                        linetypeChanged = true;
-                    }
-                } else if (!"BYBLOCK".equalsIgnoreCase(insertLinetype)) {
-                    entityInBlock.setLinetypeName(insertLinetype);
-                    linetypeChanged = true;
-                } else { // INSERT itself is BYBLOCK for linetype
-                    entityInBlock.setLinetypeName("CONTINUOUS");
-                    linetypeChanged = true;
-                }
+            InsertStyle other = (InsertStyle) o;
+            return color == other.color && Objects.equals(layerName, other.layerName)
+                    && Objects.equals(linetypeName, other.linetypeName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(layerName, color, linetypeName);
+        }
+    }
+
+    /** A block body as drawn by INSERTs that pass down the same style, at the same depth. */
+    private static final class Fragment {
+        private final DxfBlock block;
+        private final InsertStyle style;
+        private final int recursionLevel;
+
+        Fragment(DxfBlock block, InsertStyle style, int recursionLevel) {
+            this.block = block;
+            this.style = style;
+            this.recursionLevel = recursionLevel;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Fragment)) {
+                return false;
             }
+            Fragment other = (Fragment) o;
+            return block == other.block && recursionLevel == other.recursionLevel && style.equals(other.style);
+        }
 
-            // Use the centralized dispatcher
-            appendEntityToSvg(entityInBlock, document, options, svgBuilder, recursionLevel + 1);
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(block) * 31 + style.hashCode()) * 31 + recursionLevel;
+        }
+    }
 
-            if (changedLayer) entityInBlock.setLayerName(originalEntityLayer);
-            if (changedColor) entityInBlock.setColor(originalEntityColor);
-            if (linetypeChanged) entityInBlock.setLinetypeName(originalEntityLinetype); // Restore linetype
+    /**
+     * State of one {@link #convert} call: block bodies already expanded, so a block inserted thousands of times
+     * (directly or inside other blocks) is written out once, the extents of the top-level INSERTs and the
+     * resolved entity styles.
+     */
+    private static final class Conversion {
+        final Map<Fragment, String> fragments = new HashMap<>();
+        final Bounds insertExtents = new Bounds();
+        final SvgStyleTable styles;
+
+        Conversion(DxfDocument document, SvgConversionOptions options) {
+            this.styles = new SvgStyleTable(document, options);
         }
-        svgBuilder.append("  </g>\n");
     }
 }
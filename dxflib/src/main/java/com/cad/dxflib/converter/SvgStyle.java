@@ -0,0 +1,84 @@
+package com.cad.dxflib.converter;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The effective look of an entity once its layer, color and linetype (BYLAYER, BYBLOCK or explicit) are resolved:
+ * the SVG color, stroke width and dash array. Instances are interned by {@link SvgStyleTable}, and keep their
+ * attribute text formatted, so entities sharing a look share one instance and one string.
+ */
+final class SvgStyle {
+
+    private final String color;
+    private final double strokeWidth;
+    private final String dashArray; // Null for solid lines
+    private final String strokeAttributes; // stroke, stroke-width and stroke-dasharray, as written in SVG
+    private final String filledAttributes; // The same, with fill="none" for shapes that could be filled
+
+    SvgStyle(String color, double strokeWidth, String dashArray) {
+        this.color = color;
+        this.strokeWidth = strokeWidth;
+        this.dashArray = dashArray;
+        StringBuilder attributes = new StringBuilder();
+        attributes.append(String.format(Locale.US, "stroke=\"%s\" ", color));
+        attributes.append(String.format(Locale.US, "stroke-width=\"%.3f\" ", strokeWidth));
+        if (dashArray != null) {
+            attributes.append(String.format(Locale.US, "stroke-dasharray=\"%s\" ", dashArray));
+        }
+        this.filledAttributes = attributes.append("fill=\"none\"").toString();
+        this.strokeAttributes = filledAttributes.substring(0, filledAttributes.length() - " fill=\"none\"".length());
+    }
+
+    /**
+     * Gets the SVG color: a name such as "red", a "#RRGGBB" value or the default stroke color.
+     * @return The color.
+     */
+    String getColor() {
+        return color;
+    }
+
+    double getStrokeWidth() {
+        return strokeWidth;
+    }
+
+    /**
+     * Gets the stroke-dasharray value.
+     * @return The dash array, or null for a solid line.
+     */
+    String getDashArray() {
+        return dashArray;
+    }
+
+    /**
+     * Gets the style as SVG attributes.
+     * @param fillNone Whether to add fill="none", for circles, arcs and polylines.
+     * @return The attributes separated by spaces, without leading or trailing space.
+     */
+    String getAttributes(boolean fillNone) {
+        return fillNone ? filledAttributes : strokeAttributes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SvgStyle)) {
+            return false;
+        }
+        SvgStyle other = (SvgStyle) o;
+        return Double.compare(strokeWidth, other.strokeWidth) == 0 && Objects.equals(color, other.color)
+                && Objects.equals(dashArray, other.dashArray);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(color, strokeWidth, dashArray);
+    }
+
+    @Override
+    public String toString() {
+        return "SvgStyle{" + strokeAttributes + '}';
+    }
+}
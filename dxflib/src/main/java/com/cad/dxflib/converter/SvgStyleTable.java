@@ -0,0 +1,221 @@
+package com.cad.dxflib.converter;
+
+import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfLayer;
+import com.cad.dxflib.structure.DxfLinetype;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the effective {@link SvgStyle} of entities for one document and one set of options. Each layer gets
+ * a row per linetype name of interned styles indexed by ACI color (0 to 256), filled on first use, so after
+ * the first entity of a kind, resolving a style is a lookup of the layer and linetype names (cached for the
+ * last ones, which repeat in runs) and one array index, without case conversion, table lookups or formatting.
+ * <p>
+ * Built per conversion: it does not see layers or linetypes changed afterwards. Not thread-safe.
+ */
+final class SvgStyleTable {
+
+    private static final int COLORS = 257; // ACI 0 (BYBLOCK) to 256 (BYLAYER)
+
+    private final DxfDocument document;
+    private final SvgConversionOptions options;
+    private final Map<String, LayerStyles> layers = new HashMap<>(); // By layer name as entities spell it
+    private final Map<SvgStyle, SvgStyle> interned = new HashMap<>();
+    private final Map<String, String> dashArrays = new HashMap<>(); // By linetype name, "" for solid
+    private String lastLayerName;
+    private LayerStyles lastLayer;
+    private LayerStyles lastRowLayer;
+    private String lastLinetypeName;
+    private SvgStyle[] lastRow;
+
+    SvgStyleTable(DxfDocument document, SvgConversionOptions options) {
+        this.document = document;
+        this.options = options;
+    }
+
+    /**
+     * Resolves the style of an entity.
+     * @param layerName The entity's layer, after INSERT inheritance.
+     * @param color The ACI color, after INSERT inheritance; 0 (BYBLOCK outside blocks) is taken as BYLAYER.
+     * @param linetypeName The linetype name, after INSERT inheritance; null or BYLAYER for the layer's.
+     * @return The interned style.
+     */
+    SvgStyle resolve(String layerName, int color, String linetypeName) {
+        LayerStyles layer = layer(layerName);
+        if (color < 0 || color >= COLORS) {
+            return intern(layer.create(color, linetypeName));
+        }
+        SvgStyle[] row;
+        if (layer == lastRowLayer && linetypeName == lastLinetypeName) {
+            row = lastRow;
+        } else {
+            row = layer.byLinetype.computeIfAbsent(linetypeName, name -> new SvgStyle[COLORS]);
+            lastRowLayer = layer;
+            lastLinetypeName = linetypeName;
+            lastRow = row;
+        }
+        SvgStyle style = row[color];
+        if (style == null) {
+            style = intern(layer.create(color, linetypeName));
+            row[color] = style;
+        }
+        return style;
+    }
+
+    /**
+     * Resolves only the SVG color, e.g. for text fill.
+     * @param layerName The entity's layer, after INSERT inheritance.
+     * @param color The ACI color, after INSERT inheritance.
+     * @return The SVG color.
+     */
+    String color(String layerName, int color) {
+        return layer(layerName).color(color);
+    }
+
+    /**
+     * Gets the number of distinct styles resolved so far.
+     * @return The interned style count.
+     */
+    int size() {
+        return interned.size();
+    }
+
+    /**
+     * Interns a style with another stroke width, for polylines with a constant width.
+     * @param style The resolved style.
+     * @param strokeWidth The stroke width.
+     * @return The interned style.
+     */
+    SvgStyle withStrokeWidth(SvgStyle style, double strokeWidth) {
+        if (Double.compare(style.getStrokeWidth(), strokeWidth) == 0) {
+            return style;
+        }
+        return intern(new SvgStyle(style.getColor(), strokeWidth, style.getDashArray()));
+    }
+
+    private LayerStyles layer(String layerName) {
+        if (layerName == lastLayerName && lastLayer != null) {
+            return lastLayer; // Layer names are interned by the parser, so runs of entities hit here
+        }
+        LayerStyles layer = layers.get(layerName);
+        if (layer == null) {
+            layer = new LayerStyles(layerName != null ? document.getLayer(layerName) : null);
+            layers.put(layerName, layer);
+        }
+        lastLayerName = layerName;
+        lastLayer = layer;
+        return layer;
+    }
+
+    private SvgStyle intern(SvgStyle style) {
+        SvgStyle existing = interned.putIfAbsent(style, style);
+        return existing != null ? existing : style;
+    }
+
+    private String dashArray(String linetypeName) {
+        String dashArray = dashArrays.get(linetypeName);
+        if (dashArray == null) {
+            dashArray = "";
+            DxfLinetype linetype = document.getLinetype(linetypeName);
+            if (linetype != null && !linetype.isContinuous()) {
+                String svgDashArray = linetype.getSvgStrokeDashArray();
+                if (!"none".equals(svgDashArray) && !svgDashArray.isEmpty()) {
+                    dashArray = svgDashArray;
+                }
+            }
+            dashArrays.put(linetypeName, dashArray);
+        }
+        return dashArray.isEmpty() ? null : dashArray;
+    }
+
+    /** The styles of the entities of one layer. */
+    private final class LayerStyles {
+        private final DxfLayer layer; // Null if the document has no such layer
+        private final String[] colors = new String[COLORS];
+        private final Map<String, SvgStyle[]> byLinetype = new HashMap<>(); // Null key for entities without one
+
+        LayerStyles(DxfLayer layer) {
+            this.layer = layer;
+        }
+
+        String color(int color) {
+            if (color < 0 || color >= COLORS) {
+                return svgColor(color);
+            }
+            String svgColor = colors[color];
+            if (svgColor == null) {
+                svgColor = svgColor(color);
+                colors[color] = svgColor;
+            }
+            return svgColor;
+        }
+
+        SvgStyle create(int color, String linetypeName) {
+            String svgColor = color(color);
+            String resolvedLinetype = linetypeName;
+            if (resolvedLinetype == null || "BYLAYER".equalsIgnoreCase(resolvedLinetype)) {
+                resolvedLinetype = layer != null ? layer.getLinetypeName() : "CONTINUOUS";
+            }
+            if ("BYBLOCK".equalsIgnoreCase(resolvedLinetype)) {
+                // Only outside blocks: inside one, BYBLOCK was already resolved from the INSERT
+                resolvedLinetype = "CONTINUOUS";
+            }
+            String dashArray = null;
+            if (resolvedLinetype != null && !resolvedLinetype.equalsIgnoreCase("CONTINUOUS")) {
+                dashArray = dashArray(resolvedLinetype);
+            }
+            return new SvgStyle(svgColor, options.getStrokeWidth(), dashArray);
+        }
+
+        String svgColor(int dxfColorIndex) {
+            int resolvedColorIndex = dxfColorIndex;
+
+            if (resolvedColorIndex == 0) { // BYBLOCK
+                resolvedColorIndex = 256;
+            }
+
+            if (resolvedColorIndex == 256) { // BYLAYER
+                if (layer == null) {
+                    return options.getDefaultStrokeColor();
+                }
+                resolvedColorIndex = Math.abs(layer.getColor());
+                if (resolvedColorIndex == 0 || resolvedColorIndex == 256) {
+                    return options.getDefaultStrokeColor();
+                }
+            }
+            return aciToSvg(resolvedColorIndex, options);
+        }
+    }
+
+    private static String aciToSvg(int colorIndex, SvgConversionOptions options) {
+        switch (colorIndex) {
+            case 1: return "red";
+            case 2: return "yellow";
+            case 3: return "green";
+            case 4: return "cyan";
+            case 5: return "blue";
+            case 6: return "magenta";
+            case 7: return options.getDefaultStrokeColor();
+            case 8: return "#808080"; // Dark Grey
+            case 9: return "#C0C0C0"; // Light Grey (Silver)
+            case 10: return "#FF0000"; // Red
+            case 11: return "#FF3F3F";
+            case 12: return "#FF7F7F";
+            case 30: return "#00FF00"; // Green
+            case 40: return "#00FFFF"; // Cyan
+            case 50: return "#0000FF"; // Blue
+            case 60: return "#FF00FF"; // Magenta
+            case 14: return "darkcyan";
+            case 250: return "#2F2F2F";
+            case 251: return "#4C4C4C";
+            case 252: return "#7F7F7F";
+            case 253: return "#B2B2B2";
+            case 254: return "#DFDFDF";
+            case 255: return "#F0F0F0";
+            default:
+                return options.getDefaultStrokeColor();
+        }
+    }
+}
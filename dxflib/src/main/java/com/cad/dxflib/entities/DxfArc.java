@@ -23,7 +23,7 @@ public class DxfArc extends AbstractDxfEntity {
      */
     public DxfArc() {
         super();
-        this.center = new Point3D(0, 0, 0);
+        this.center = Point3D.ORIGIN;
         this.radius = 1.0;
         this.startAngle = 0.0;
         this.endAngle = 360.0;
@@ -19,7 +19,7 @@ public class DxfCircle extends AbstractDxfEntity {
      */
     public DxfCircle() {
         super();
-        this.center = new Point3D(0, 0, 0);
+        this.center = Point3D.ORIGIN;
         this.radius = 1.0; // Default radius
     }
 
@@ -13,8 +13,8 @@ import com.cad.dxflib.math.Bounds;
  */
 public class DxfDimension extends AbstractDxfEntity {
 
-    private Point3D definitionPoint = new Point3D(0,0,0); // Codes 10,20,30 (interpretation depends on dimension type)
-    private Point3D middleOfTextPoint = new Point3D(0,0,0); // Codes 11,21,31 (actual middle of dimension text)
+    private Point3D definitionPoint = Point3D.ORIGIN; // Codes 10,20,30 (interpretation depends on dimension type)
+    private Point3D middleOfTextPoint = Point3D.ORIGIN; // Codes 11,21,31 (actual middle of dimension text)
     private String dimensionText = ""; // Code 1 (user-supplied dimension text, "" or "<>" for generated)
     private String dimensionStyleName = "STANDARD"; // Code 3 (name of referenced DxfDimStyle)
     private int dimensionTypeFlags = 0; // Code 70 (bit flags indicating type, properties)
@@ -22,8 +22,8 @@ public class DxfDimension extends AbstractDxfEntity {
     private double rotationAngle = 0.0; // Code 50 (for rotated dimensions: angle of dimension line)
 
     // Points for Linear/Aligned/Angular(2-line) dimensions
-    private Point3D linearPoint1 = new Point3D(0,0,0); // Codes 13,23,33 (e.g., start of first extension line)
-    private Point3D linearPoint2 = new Point3D(0,0,0); // Codes 14,24,34 (e.g., start of second extension line)
+    private Point3D linearPoint1 = Point3D.ORIGIN; // Codes 13,23,33 (e.g., start of first extension line)
+    private Point3D linearPoint2 = Point3D.ORIGIN; // Codes 14,24,34 (e.g., start of second extension line)
     // Code 10 (definitionPoint) is often the dimension line definition point for these types.
     // Code 15,25,35 for angular 3-point dimensions (center, start, end)
     // Code 16,26,36 for ordinate dimensions (feature location, leader endpoint)
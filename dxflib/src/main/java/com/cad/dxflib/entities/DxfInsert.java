@@ -27,7 +27,7 @@ public class DxfInsert extends AbstractDxfEntity {
      */
     public DxfInsert() {
         super();
-        this.insertionPoint = new Point3D(0,0,0);
+        this.insertionPoint = Point3D.ORIGIN;
     }
 
     /**
@@ -19,8 +19,8 @@ public class DxfLine extends AbstractDxfEntity {
      */
     public DxfLine() {
         super();
-        this.startPoint = new Point3D(0, 0, 0);
-        this.endPoint = new Point3D(0, 0, 0);
+        this.startPoint = Point3D.ORIGIN;
+        this.endPoint = Point3D.ORIGIN;
     }
 
     /**
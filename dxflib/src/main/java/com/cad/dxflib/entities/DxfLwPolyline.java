@@ -4,9 +4,10 @@ import com.cad.dxflib.common.AbstractDxfEntity;
 import com.cad.dxflib.common.EntityType;
 import com.cad.dxflib.common.Point2D;
 import com.cad.dxflib.math.Bounds;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Represents an LWPOLYLINE (Lightweight Polyline) entity in a DXF file.
@@ -14,24 +15,26 @@ import java.util.List;
  * They have a single elevation value for all vertices.
  */
 public class DxfLwPolyline extends AbstractDxfEntity {
-    private final List<Point2D> vertices; // List of 2D vertices (codes 10, 20 repeated)
+    private static final double[] EMPTY = new double[0];
+
+    // Vertices are packed in primitive arrays, so a vertex costs 16 bytes instead of two objects plus boxing.
+    private double[] xy = EMPTY;          // x0, y0, x1, y1, ... (codes 10, 20 repeated)
+    private double[] bulges;              // Bulge per vertex (code 42), null while every bulge is 0. A bulge
+                                          // defines an arc segment starting at its vertex and ending at the next;
+                                          // a bulge of 0 means a straight line segment.
+    private double[] widths;              // start0, end0, start1, end1, ... (codes 40, 41), null while all are 0
+    private int vertexCount;
     private double elevation = 0.0;       // Polyline elevation (code 38)
     private boolean closed = false;       // Flag if polyline is closed (code 70, bit 1)
     private double constantWidth = 0.0;   // Constant width for all segments (code 43)
-                                          // If 0, segments can have individual start/end widths (not fully supported here yet).
-    private final List<Double> bulges;    // List of bulge values (code 42, repeated). One bulge per vertex,
-                                          // defining an arc segment starting at that vertex and ending at the next.
-                                          // A bulge of 0 means a straight line segment.
+                                          // If 0, segments can have individual start/end widths (codes 40, 41).
 
     /**
      * Constructs a new, empty DxfLwPolyline.
-     * Initializes vertex and bulge lists. Sets default elevation and constantWidth to 0.0,
-     * and closed to false.
+     * Sets default elevation and constantWidth to 0.0, and closed to false.
      */
     public DxfLwPolyline() {
         super();
-        this.vertices = new ArrayList<>();
-        this.bulges = new ArrayList<>();
     }
 
     /**
@@ -42,8 +45,7 @@ public class DxfLwPolyline extends AbstractDxfEntity {
      */
     public void addVertex(Point2D vertex) {
         if (vertex != null) {
-            this.vertices.add(vertex);
-            this.bulges.add(0.0); // Default bulge for a straight segment
+            addVertex(vertex.x, vertex.y, 0.0);
         }
     }
 
@@ -56,26 +58,149 @@ public class DxfLwPolyline extends AbstractDxfEntity {
      */
      public void addVertex(Point2D vertex, double bulge) {
         if (vertex != null) {
-            this.vertices.add(vertex);
-            this.bulges.add(bulge);
+            addVertex(vertex.x, vertex.y, bulge);
+        }
+    }
+
+    /**
+     * Adds a vertex to the polyline without creating a point object.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param bulge The bulge of the segment starting at this vertex.
+     */
+    public void addVertex(double x, double y, double bulge) {
+        addVertex(x, y, bulge, 0.0, 0.0);
+    }
+
+    /**
+     * Adds a vertex with its own segment widths, used when the constant width is 0.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param bulge The bulge of the segment starting at this vertex.
+     * @param startWidth The width at the start of the segment starting at this vertex (code 40).
+     * @param endWidth The width at the end of the segment starting at this vertex (code 41).
+     */
+    public void addVertex(double x, double y, double bulge, double startWidth, double endWidth) {
+        ensureCapacity(vertexCount + 1);
+        int index = vertexCount++;
+        xy[2 * index] = x;
+        xy[2 * index + 1] = y;
+        if (bulge != 0.0) {
+            if (bulges == null) {
+                bulges = new double[xy.length / 2];
+            }
+            bulges[index] = bulge;
+        }
+        if (startWidth != 0.0 || endWidth != 0.0) {
+            if (widths == null) {
+                widths = new double[xy.length];
+            }
+            widths[2 * index] = startWidth;
+            widths[2 * index + 1] = endWidth;
         }
     }
 
     /**
-     * Gets an unmodifiable list of 2D vertices for this polyline.
+     * Makes room for a number of vertices, e.g. the count announced by group code 90,
+     * so adding them does not grow the arrays repeatedly.
+     * @param capacity The number of vertices to hold.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity * 2 <= xy.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, vertexCount + (vertexCount >> 1) + 4);
+        xy = Arrays.copyOf(xy, newCapacity * 2);
+        if (bulges != null) {
+            bulges = Arrays.copyOf(bulges, newCapacity);
+        }
+        if (widths != null) {
+            widths = Arrays.copyOf(widths, newCapacity * 2);
+        }
+    }
+
+    /**
+     * Gets the X coordinate of a vertex.
+     * @param index The vertex index.
+     * @return The X coordinate.
+     */
+    public double getX(int index) {
+        checkIndex(index);
+        return xy[2 * index];
+    }
+
+    /**
+     * Gets the Y coordinate of a vertex.
+     * @param index The vertex index.
+     * @return The Y coordinate.
+     */
+    public double getY(int index) {
+        checkIndex(index);
+        return xy[2 * index + 1];
+    }
+
+    /**
+     * Gets the bulge of the segment starting at a vertex.
+     * @param index The vertex index.
+     * @return The bulge, 0 for a straight segment.
+     */
+    public double getBulge(int index) {
+        checkIndex(index);
+        return bulges != null ? bulges[index] : 0.0;
+    }
+
+    /**
+     * Gets the start width of the segment starting at a vertex (code 40).
+     * @param index The vertex index.
+     * @return The start width, 0 if none was given.
+     */
+    public double getStartWidth(int index) {
+        checkIndex(index);
+        return widths != null ? widths[2 * index] : 0.0;
+    }
+
+    /**
+     * Gets the end width of the segment starting at a vertex (code 41).
+     * @param index The vertex index.
+     * @return The end width, 0 if none was given.
+     */
+    public double getEndWidth(int index) {
+        checkIndex(index);
+        return widths != null ? widths[2 * index + 1] : 0.0;
+    }
+
+    /**
+     * Checks whether any segment is an arc, so straight polylines can skip the bulge handling.
+     * @return true if a vertex has a non-zero bulge.
+     */
+    public boolean hasBulges() {
+        return bulges != null;
+    }
+
+    /**
+     * Checks whether any vertex has its own start or end width.
+     * @return true if a vertex has a non-zero start or end width.
+     */
+    public boolean hasVertexWidths() {
+        return widths != null;
+    }
+
+    /**
+     * Gets an unmodifiable view of the 2D vertices of this polyline. Each access creates a point,
+     * so bulk readers should use {@link #getX(int)} and {@link #getY(int)} instead.
      * @return An unmodifiable list of {@link Point2D} vertices.
      */
     public List<Point2D> getVertices() {
-        return Collections.unmodifiableList(vertices);
+        return new VertexList();
     }
 
     /**
-     * Gets an unmodifiable list of bulge values for this polyline.
+     * Gets an unmodifiable view of the bulge values of this polyline.
      * Each bulge corresponds to a vertex and defines the arc segment starting at that vertex.
      * @return An unmodifiable list of bulge values.
      */
     public List<Double> getBulges() {
-        return Collections.unmodifiableList(bulges);
+        return new BulgeList();
     }
 
     /**
@@ -132,7 +257,7 @@ public class DxfLwPolyline extends AbstractDxfEntity {
      * @return The number of vertices.
      */
     public int getNumberOfVertices() {
-        return this.vertices.size();
+        return vertexCount;
     }
 
     @Override
@@ -150,9 +275,9 @@ public class DxfLwPolyline extends AbstractDxfEntity {
     @Override
     public Bounds getBounds() {
         Bounds bounds = new Bounds();
-        if (vertices != null && !vertices.isEmpty()) {
-            for (Point2D p : vertices) {
-                bounds.addToBounds(p.x, p.y, this.elevation);
+        if (vertexCount > 0) {
+            for (int i = 0; i < vertexCount; i++) {
+                bounds.addToBounds(xy[2 * i], xy[2 * i + 1], this.elevation);
             }
             // TODO: For more accuracy, if bulges are present, the arc segments
             // formed by bulges should also be considered in the bounds calculation.
@@ -163,10 +288,40 @@ public class DxfLwPolyline extends AbstractDxfEntity {
     @Override
     public String toString() {
         return "DxfLwPolyline{" +
-               "vertices=" + vertices.size() +
+               "vertices=" + vertexCount +
                ", closed=" + closed +
                ", layer='" + layerName + '\'' +
                ", color=" + color +
                '}';
     }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= vertexCount) {
+            throw new IndexOutOfBoundsException("Vertex: " + index + ", vertices: " + vertexCount);
+        }
+    }
+
+    private final class VertexList extends AbstractList<Point2D> implements RandomAccess {
+        @Override
+        public Point2D get(int index) {
+            return new Point2D(getX(index), getY(index));
+        }
+
+        @Override
+        public int size() {
+            return vertexCount;
+        }
+    }
+
+    private final class BulgeList extends AbstractList<Double> implements RandomAccess {
+        @Override
+        public Double get(int index) {
+            return getBulge(index);
+        }
+
+        @Override
+        public int size() {
+            return vertexCount;
+        }
+    }
 }
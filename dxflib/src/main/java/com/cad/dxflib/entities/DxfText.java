@@ -25,7 +25,7 @@ public class DxfText extends AbstractDxfEntity {
      */
     public DxfText() {
         super();
-        this.insertionPoint = new Point3D(0, 0, 0);
+        this.insertionPoint = Point3D.ORIGIN;
         this.height = 1.0;
         this.textValue = "";
         this.rotationAngle = 0.0;
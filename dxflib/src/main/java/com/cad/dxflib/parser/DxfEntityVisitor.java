@@ -0,0 +1,21 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.structure.DxfDocument;
+
+/**
+ * Receives the entities of the ENTITIES section one at a time, see {@link DxfParser#parse(java.io.InputStream, DxfEntityVisitor)}.
+ * Entities are not kept by the parser, so a visitor that does not hold on to them lets the whole file
+ * be processed in constant memory.
+ */
+@FunctionalInterface
+public interface DxfEntityVisitor {
+
+    /**
+     * Called for each model space entity, in file order.
+     * @param entity The parsed entity.
+     * @param document The document being parsed. Sections that precede ENTITIES in the file (usually
+     *                 HEADER, TABLES and BLOCKS) are complete, so layers and blocks can be looked up.
+     */
+    void visitEntity(DxfEntity entity, DxfDocument document);
+}
@@ -0,0 +1,215 @@
+package com.cad.dxflib.parser;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts ASCII decimal numbers to doubles straight from bytes, with results bit-identical to
+ * {@link Double#parseDouble(String)}.
+ * <p>
+ * Numbers with up to 15 significant digits and a decimal exponent within +/-22 are exact after a single
+ * multiplication or division (Clinger's fast path). Up to 19 significant digits are converted with the
+ * Eisel-Lemire algorithm: the digits are multiplied by a 128-bit approximation of the power of ten, which
+ * yields the correctly rounded result unless the product is too close to a rounding boundary to decide.
+ * Those rare cases, subnormals, and anything that is not a plain decimal (hex, NaN, Infinity, more digits)
+ * go to the JDK.
+ */
+public final class DxfNumberParser {
+
+    private static final int MAX_FAST_PATH_DIGITS = 15;
+    private static final int MAX_FAST_PATH_EXPONENT = 22;
+    private static final int MAX_SIGNIFICANT_DIGITS = 19;
+    private static final int MAX_EXPONENT_DIGITS = 4;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Below 10^-342 any 19-digit value rounds to zero, above 10^308 to infinity
+    private static final int MIN_POWER_OF_TEN = -342;
+    private static final int MAX_POWER_OF_TEN = 308;
+    // Truncated 128-bit mantissas of 10^q (high word, low word), normalized so the top bit is set
+    private static final long[] POWER_OF_TEN_MANTISSAS = computePowerOfTenMantissas();
+
+    private DxfNumberParser() {
+    }
+
+    /**
+     * Parses an ASCII decimal number.
+     * @param bytes The buffer holding the number.
+     * @param offset The offset of the first character.
+     * @param length The number of characters, without surrounding whitespace.
+     * @return The double value, identical to {@link Double#parseDouble(String)} on the same text.
+     * @throws NumberFormatException If the text is not a number, as {@link Double#parseDouble(String)} would.
+     */
+    public static double parseDouble(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0; // Unsigned: 19 digits may exceed Long.MAX_VALUE
+        int significantDigits = 0;
+        int digitCount = 0;
+        int exponent = 0;
+        boolean dotSeen = false;
+        for (; i < end; i++) {
+            int b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                digitCount++;
+                if (mantissa != 0 || b != '0') {
+                    if (++significantDigits > MAX_SIGNIFICANT_DIGITS) {
+                        return parseWithJdk(bytes, offset, length);
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                }
+                if (dotSeen) {
+                    exponent--;
+                }
+            } else if (b == '.' && !dotSeen) {
+                dotSeen = true;
+            } else {
+                break;
+            }
+        }
+        if (digitCount == 0) {
+            return parseWithJdk(bytes, offset, length);
+        }
+        if (i < end) {
+            if ((bytes[i] != 'e' && bytes[i] != 'E') || ++i == end) {
+                return parseWithJdk(bytes, offset, length);
+            }
+            boolean negativeExponent = false;
+            if (bytes[i] == '-' || bytes[i] == '+') {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            if (i == end || end - i > MAX_EXPONENT_DIGITS) {
+                return parseWithJdk(bytes, offset, length);
+            }
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return parseWithJdk(bytes, offset, length);
+                }
+                explicitExponent = explicitExponent * 10 + digit;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (significantDigits <= MAX_FAST_PATH_DIGITS) {
+            if (exponent >= 0 && exponent <= MAX_FAST_PATH_EXPONENT) {
+                double result = mantissa * POWERS_OF_TEN[exponent];
+                return negative ? -result : result;
+            } else if (exponent < 0 && exponent >= -MAX_FAST_PATH_EXPONENT) {
+                double result = mantissa / POWERS_OF_TEN[-exponent];
+                return negative ? -result : result;
+            }
+        }
+        double result = eiselLemire(mantissa, exponent, negative);
+        return Double.isNaN(result) ? parseWithJdk(bytes, offset, length) : result;
+    }
+
+    /**
+     * Computes mantissa * 10^exponent with the Eisel-Lemire algorithm.
+     * @param mantissa The decimal significand, unsigned and non-zero.
+     * @param exponent The decimal exponent.
+     * @param negative Whether the result is negative.
+     * @return The correctly rounded double, or NaN if the algorithm cannot decide.
+     */
+    static double eiselLemire(long mantissa, int exponent, boolean negative) {
+        if (exponent < MIN_POWER_OF_TEN) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (exponent > MAX_POWER_OF_TEN) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long normalized = mantissa << leadingZeros;
+        // 217706 / 2^16 approximates log2(10), exact for the table's exponent range
+        long binaryExponent = ((217706L * exponent) >> 16) + 64 + 1023 - leadingZeros;
+
+        int index = 2 * (exponent - MIN_POWER_OF_TEN);
+        long powerHigh = POWER_OF_TEN_MANTISSAS[index];
+        long productHigh = unsignedMultiplyHigh(normalized, powerHigh);
+        long productLow = normalized * powerHigh;
+
+        // The truncated power may be too small to decide the low bits: refine with its low word
+        if ((productHigh & 0x1FF) == 0x1FF && Long.compareUnsigned(productLow + normalized, normalized) < 0) {
+            long powerLow = POWER_OF_TEN_MANTISSAS[index + 1];
+            long refinementHigh = unsignedMultiplyHigh(normalized, powerLow);
+            long refinementLow = normalized * powerLow;
+            long mergedHigh = productHigh;
+            long mergedLow = productLow + refinementHigh;
+            if (Long.compareUnsigned(mergedLow, productLow) < 0) {
+                mergedHigh++;
+            }
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0
+                    && Long.compareUnsigned(refinementLow + normalized, normalized) < 0) {
+                return Double.NaN;
+            }
+            productHigh = mergedHigh;
+            productLow = mergedLow;
+        }
+
+        long topBit = productHigh >>> 63;
+        long significand = productHigh >>> (topBit + 9);
+        binaryExponent -= 1 ^ topBit;
+
+        // Exactly halfway between two doubles: round-half-even needs the exact value
+        if (productLow == 0 && (productHigh & 0x1FF) == 0 && (significand & 3) == 1) {
+            return Double.NaN;
+        }
+
+        significand += significand & 1;
+        significand >>>= 1;
+        if ((significand >>> 53) > 0) {
+            significand >>>= 1;
+            binaryExponent++;
+        }
+        if (binaryExponent <= 0 || binaryExponent >= 0x7FF) {
+            return Double.NaN; // Subnormal or overflow: leave it to the JDK
+        }
+        long bits = (binaryExponent << 52) | (significand & 0x000FFFFFFFFFFFFFL);
+        if (negative) {
+            bits |= 0x8000000000000000L;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    private static double parseWithJdk(byte[] bytes, int offset, int length) {
+        return Double.parseDouble(new String(bytes, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
+    private static long[] computePowerOfTenMantissas() {
+        // 10^q and 5^q share the same binary mantissa, so only powers of five are needed
+        BigInteger five = BigInteger.valueOf(5);
+        long[] table = new long[2 * (MAX_POWER_OF_TEN - MIN_POWER_OF_TEN + 1)];
+        for (int q = MIN_POWER_OF_TEN; q <= MAX_POWER_OF_TEN; q++) {
+            BigInteger mantissa;
+            if (q >= 0) {
+                BigInteger power = five.pow(q);
+                int shift = power.bitLength() - 128;
+                mantissa = shift > 0 ? power.shiftRight(shift) : power.shiftLeft(-shift);
+            } else {
+                BigInteger power = five.pow(-q);
+                // floor(2^k / 5^-q) with k chosen so the quotient has exactly 128 bits
+                mantissa = BigInteger.ONE.shiftLeft(127 + power.bitLength()).divide(power);
+            }
+            int index = 2 * (q - MIN_POWER_OF_TEN);
+            table[index] = mantissa.shiftRight(64).longValue();
+            table[index + 1] = mantissa.longValue();
+        }
+        return table;
+    }
+}
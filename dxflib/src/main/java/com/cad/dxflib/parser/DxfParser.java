@@ -5,80 +5,383 @@ import com.cad.dxflib.common.Point3D;
 import com.cad.dxflib.structure.DxfBlock;
 import com.cad.dxflib.structure.DxfDimStyle;
 import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfHeader;
 import com.cad.dxflib.structure.DxfLayer;
 import com.cad.dxflib.structure.DxfLinetype;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public class DxfParser {
 
-    private BufferedReader reader;
+    // First AutoCAD release (2007) whose DXF files are always UTF-8, whatever $DWGCODEPAGE says
+    private static final String FIRST_UTF8_ACAD_VERSION = "AC1021";
+    // HEADER variables read by parseHeaderSection
+    private static final int HEADER_OTHER = 0;
+    private static final int HEADER_ACADVER = 1;
+    private static final int HEADER_DWGCODEPAGE = 2;
+    private static final int HEADER_EXTMIN = 3;
+    private static final int HEADER_EXTMAX = 4;
+    private static final int HEADER_INSUNITS = 5;
+    private static final int HEADER_LTSCALE = 6;
+
+    private DxfTokenizer tokenizer;
     private DxfDocument document;
-    private DxfGroupCode aktuellenGroupCode;
     private String currentSection;
+    private boolean applyCodePage;
+    private boolean parallelEntities;
+    private boolean parallelBlocks;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int entityChunkSize = ParallelEntitiesParser.DEFAULT_CHUNK_SIZE;
+    private DxfEntityVisitor entityVisitor; // Set for the duration of a streaming parse
+    private ParseMonitor monitor; // Set for asynchronous parses
+    private DxfSnapshotCache snapshotCache;
+    private boolean columnarStorage;
+
+    /**
+     * Enables or disables parallel parsing of the ENTITIES section.
+     * When enabled, the section is split into chunks at entity boundaries, the chunks are parsed
+     * concurrently on the configured pool, and the entities are added to the document in file order,
+     * so draw order and layer membership match a sequential parse. Disabled by default.
+     * Binary DXF is always parsed sequentially, as it has no text to convert.
+     * @param parallelEntities true to parse entities in parallel.
+     */
+    public void setParallelEntities(boolean parallelEntities) {
+        this.parallelEntities = parallelEntities;
+    }
+
+    /**
+     * Checks whether the ENTITIES section is parsed in parallel.
+     * @return true if parallel entity parsing is enabled.
+     */
+    public boolean isParallelEntities() {
+        return parallelEntities;
+    }
+
+    /**
+     * Enables or disables parallel parsing of the BLOCKS section.
+     * When enabled, every BLOCK..ENDBLK definition is parsed as its own task on the configured pool,
+     * and the blocks are registered with the document in file order, so a duplicated block name
+     * resolves to the same definition as in a sequential parse. Disabled by default.
+     * Binary DXF is always parsed sequentially, as it has no text to convert.
+     * @param parallelBlocks true to parse block definitions in parallel.
+     */
+    public void setParallelBlocks(boolean parallelBlocks) {
+        this.parallelBlocks = parallelBlocks;
+    }
+
+    /**
+     * Checks whether the BLOCKS section is parsed in parallel.
+     * @return true if parallel block parsing is enabled.
+     */
+    public boolean isParallelBlocks() {
+        return parallelBlocks;
+    }
+
+    /**
+     * Sets the pool used for parallel parsing. Defaults to {@link ForkJoinPool#commonPool()}.
+     * @param pool The pool to use. Must not be null.
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("ForkJoinPool cannot be null.");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the approximate number of bytes of ENTITIES data handed to each parallel task.
+     * @param entityChunkSize The chunk size in bytes. Must be positive.
+     */
+    public void setEntityChunkSize(int entityChunkSize) {
+        if (entityChunkSize <= 0) {
+            throw new IllegalArgumentException("Entity chunk size must be positive.");
+        }
+        this.entityChunkSize = entityChunkSize;
+    }
+
+    /**
+     * Sets the cache of binary snapshots used by {@link #parse(Path)} (and so {@link #parseAsync}):
+     * an unchanged file is then read from its snapshot, and a parsed file is snapshotted for the next open.
+     * Streams and lazy documents are never cached. Disabled by default.
+     * @param snapshotCache The cache to use, or null to always parse.
+     */
+    public void setSnapshotCache(DxfSnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
 
+    /**
+     * Gets the cache of binary snapshots used when parsing files.
+     * @return The cache, or null if files are always parsed.
+     */
+    public DxfSnapshotCache getSnapshotCache() {
+        return snapshotCache;
+    }
+
+    /**
+     * Enables or disables columnar storage of model space LINE, CIRCLE and ARC entities in the parsed
+     * documents, see {@link DxfDocument#setColumnarStorage(boolean)}. It takes a fraction of the memory of
+     * entity objects, for drawings of millions of segments. Disabled by default.
+     * @param columnarStorage true to store simple entities in columns.
+     */
+    public void setColumnarStorage(boolean columnarStorage) {
+        this.columnarStorage = columnarStorage;
+    }
+
+    /**
+     * Checks whether parsed documents store simple model space entities in columns.
+     * @return true if columnar storage is enabled.
+     */
+    public boolean isColumnarStorage() {
+        return columnarStorage;
+    }
+
+    /**
+     * Parses a DXF stream. Gzip- and zip-compressed streams are recognized from their first bytes and
+     * inflated on a background thread while the parse runs (of a zip archive, the first {@code .dxf} entry).
+     * @param inputStream The DXF stream to parse. It is closed when parsing ends.
+     * @return The parsed document.
+     * @throws DxfParserException If the stream cannot be read or is malformed.
+     */
     public DxfDocument parse(InputStream inputStream) throws DxfParserException {
         if (inputStream == null) {
             throw new IllegalArgumentException("InputStream cannot be null.");
         }
+        return parse(new DxfTokenizer(decompressed(inputStream)), false);
+    }
+
+    /**
+     * Parses a DXF stream without retaining its entities: HEADER, TABLES, BLOCKS and OBJECTS are parsed
+     * as usual, but each ENTITIES-section entity is handed to the visitor instead of being added to the
+     * document's model space or layer lists. Memory use therefore does not grow with the number of entities.
+     * The ENTITIES section is always parsed sequentially, so entities arrive in file order on this thread.
+     * @param inputStream The DXF stream to parse. It is closed when parsing ends.
+     * @param visitor The callback receiving each entity.
+     * @return The document, with tables and blocks but no model space entities.
+     * @throws DxfParserException If the stream cannot be read or is malformed.
+     */
+    public DxfDocument parse(InputStream inputStream, DxfEntityVisitor visitor) throws DxfParserException {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("InputStream cannot be null.");
+        }
+        if (visitor == null) {
+            throw new IllegalArgumentException("DxfEntityVisitor cannot be null.");
+        }
+        this.entityVisitor = visitor;
+        try {
+            return parse(new DxfTokenizer(decompressed(inputStream)), false);
+        } finally {
+            this.entityVisitor = null;
+        }
+    }
+
+    /**
+     * Parses a DXF file by memory-mapping it, so the bytes go straight to the tokenizer
+     * without passing through a stream or a Reader.
+     * String values are decoded according to the file's HEADER: ASCII values are never decoded,
+     * and non-ASCII ones use the charset named by $DWGCODEPAGE (or UTF-8 for AutoCAD 2007+ files).
+     * Files too large for a single mapping are read through a plain byte stream instead.
+     * Gzip- and zip-compressed files ({@code .dxf.gz}, {@code .zip}) are recognized from their first bytes and
+     * inflated on a background thread that feeds the tokenizer through a bounded buffer, so decompression
+     * overlaps with parsing.
+     * With a snapshot cache (see {@link #setSnapshotCache(DxfSnapshotCache)}), an unchanged file is read
+     * from its snapshot instead.
+     * @param path The DXF file to parse.
+     * @return The parsed document.
+     * @throws DxfParserException If the file cannot be read or is malformed.
+     */
+    public DxfDocument parse(Path path) throws DxfParserException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        if (snapshotCache != null) {
+            return snapshotCache.load(path, this);
+        }
+        return parseFile(path);
+    }
+
+    // Parses a file, bypassing the snapshot cache
+    DxfDocument parseFile(Path path) throws DxfParserException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            InflatingInputStream.Format compression = compression(channel);
+            if (compression != null) {
+                InflatingInputStream inflating = InflatingInputStream.open(
+                        Files.newInputStream(path), compression, String.valueOf(path.getFileName()));
+                if (monitor != null) {
+                    monitor.setInputPosition(inflating::getCompressedBytesRead); // Progress in file bytes
+                }
+                return parse(new DxfTokenizer(inflating), true);
+            }
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return parse(new DxfTokenizer(Files.newInputStream(path)), true);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parse(new DxfTokenizer(mapped, Charset.defaultCharset()), true);
+        } catch (IOException e) {
+            throw new DxfParserException("Error reading DXF file: " + path, e);
+        }
+    }
+
+    /**
+     * Parses a DXF file in the background, see {@link #parseAsync(Path, DxfProgressListener, Executor)}.
+     * The parse runs on a new daemon thread of its own, so it neither blocks the caller nor occupies a
+     * shared pool for the duration of a long load.
+     * @param path The DXF file to parse.
+     * @param listener Receives progress on the parsing thread, or null.
+     * @return A future completing with the document.
+     */
+    public CompletableFuture<DxfDocument> parseAsync(Path path, DxfProgressListener listener) {
+        return parseAsync(path, listener, task -> {
+            Thread thread = new Thread(task, "dxf-parse-" + path.getFileName());
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Parses a DXF file in the background, like {@link #parse(Path)}, using this parser's settings.
+     * Progress is reported as bytes consumed and entities parsed. Cancelling the returned future
+     * (e.g. {@code future.cancel(true)}) stops the parse at the next entity or block boundary, so the
+     * partial document is released right away. Failures complete the future exceptionally with the
+     * {@link DxfParserException} as the cause.
+     * @param path The DXF file to parse.
+     * @param listener Receives progress on the parsing thread, or null.
+     * @param executor Runs the parse, e.g. a virtual-thread-per-task executor on Java 21.
+     * @return A future completing with the document.
+     */
+    public CompletableFuture<DxfDocument> parseAsync(Path path, DxfProgressListener listener, Executor executor) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null.");
+        }
+        CompletableFuture<DxfDocument> future = new CompletableFuture<>();
+        DxfParser asyncParser = copySettings(); // This parser stays free for other calls
+        executor.execute(() -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            try {
+                asyncParser.monitor = new ParseMonitor(future, listener, Files.size(path));
+                future.complete(asyncParser.parse(path));
+            } catch (CancellationException e) {
+                // The future is already cancelled; the partial document is simply dropped
+            } catch (IOException e) {
+                future.completeExceptionally(new DxfParserException("Error reading DXF file: " + path, e));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                asyncParser.document = null;
+                asyncParser.tokenizer = null;
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Opens a DXF file without parsing it. The returned document is lazy: a fast pre-pass locates the
+     * sections ({@link DxfSectionIndex}), and each section is parsed the first time a getter needs it,
+     * e.g. {@link DxfDocument#getLayers()} only parses HEADER and TABLES and never reads the entities.
+     * Parse errors surface from those getters as {@link IllegalStateException}.
+     * The file is memory-mapped and must not change while the document is in use; call
+     * {@link DxfDocument#loadAllSections()} to detach from it. Files too large for a single mapping
+     * and compressed files are parsed eagerly.
+     * @param path The DXF file to open.
+     * @return The lazy document.
+     * @throws DxfParserException If the file cannot be read.
+     */
+    public DxfDocument parseLazily(Path path) throws DxfParserException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE || compression(channel) != null) {
+                return parse(path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            DxfDocument lazyDocument = new DxfDocument();
+            lazyDocument.setColumnarStorage(columnarStorage);
+            lazyDocument.setSectionLoader(new LazySectionLoader(mapped, copySettings()));
+            return lazyDocument;
+        } catch (IOException e) {
+            throw new DxfParserException("Error reading DXF file: " + path, e);
+        }
+    }
+
+    private static InputStream decompressed(InputStream inputStream) throws DxfParserException {
+        try {
+            return InflatingInputStream.decompressed(inputStream);
+        } catch (IOException e) {
+            throw new DxfParserException("Error reading DXF stream", e);
+        }
+    }
+
+    private static InflatingInputStream.Format compression(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(4);
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // Reads the first bytes without moving the channel
+        }
+        return InflatingInputStream.detect(head.array(), head.position());
+    }
+
+    private DxfDocument parse(DxfTokenizer dxfTokenizer, boolean useHeaderCodePage) throws DxfParserException {
         this.document = new DxfDocument();
-        this.reader = new BufferedReader(new InputStreamReader(inputStream));
+        this.document.setColumnarStorage(columnarStorage);
+        this.tokenizer = dxfTokenizer;
+        this.applyCodePage = useHeaderCodePage;
 
         try {
-            aktuellenGroupCode = nextGroupCode();
-            while (aktuellenGroupCode != null) {
-                if (aktuellenGroupCode.code == 0 && "SECTION".equalsIgnoreCase(aktuellenGroupCode.value)) {
-                    aktuellenGroupCode = nextGroupCode(); // Consumes 0/SECTION, gets 2/SECTION_NAME
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 2) {
-                        currentSection = aktuellenGroupCode.value.toUpperCase(Locale.ROOT);
-                        switch (currentSection) {
-                            case "HEADER":
-                                consumeSection();
-                                break;
-                            case "TABLES":
-                                parseTablesSection();
-                                break;
-                            case "BLOCKS":
-                                parseBlocksSection();
-                                break;
-                            case "ENTITIES":
-                                parseEntitiesSection();
-                                break;
-                            case "OBJECTS":
-                                // For now, consume OBJECTS section if not fully implemented or if testParseDxf2 fails
-                                // parseObjectsSection(); // TODO: Implement or verify this for dictionary test
-                                consumeSection();
-                                break;
-                            default:
-                                consumeSection();
-                                break;
+            tokenizer.next();
+            while (tokenizer.hasCurrent()) {
+                if (tokenizer.getCode() == 0 && tokenizer.valueEqualsIgnoreCase("SECTION")) {
+                    tokenizer.next(); // Consumes 0/SECTION, gets 2/SECTION_NAME
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 2) {
+                        currentSection = tokenizer.getStringValue().toUpperCase(Locale.ROOT);
+                        parseCurrentSection();
+                        if (monitor != null) {
+                            monitor.sectionParsed(tokenizer.getPairStartOffset());
                         }
-                        // After section processing, aktuellenGroupCode is the one that followed ENDSEC
+                        // After section processing, the current pair is the one that followed ENDSEC
                         // or the one that caused an issue if not properly consumed.
-                        // The main loop expects aktuellenGroupCode to be ready for the next 0/SECTION or 0/EOF.
+                        // The main loop expects the tokenizer to be ready for the next 0/SECTION or 0/EOF.
                         // If consumeSection or a specific parseXXXSection correctly consumes ENDSEC and advances,
                         // this 'continue' is fine.
                         continue;
                     } else {
-                        throw new DxfParserException("Malformed SECTION: expected group code 2 after 0/SECTION, got: " + aktuellenGroupCode);
+                        throw new DxfParserException("Malformed SECTION: expected group code 2 after 0/SECTION, got: " + tokenizer);
                     }
-                } else if (aktuellenGroupCode.code == 0 && "EOF".equalsIgnoreCase(aktuellenGroupCode.value)) {
+                } else if (tokenizer.getCode() == 0 && tokenizer.valueEqualsIgnoreCase("EOF")) {
                     break;
                 }
                 // If not a section or EOF, advance to find one. This handles comments or other data between sections.
-                aktuellenGroupCode = nextGroupCode();
+                tokenizer.next();
+            }
+            if (monitor != null) {
+                monitor.finished();
             }
         } catch (IOException e) {
             throw new DxfParserException("Error reading DXF file", e);
         } finally {
             try {
-                if (reader != null) {
-                    reader.close();
+                if (tokenizer != null) {
+                    tokenizer.close();
                 }
             } catch (IOException e) {
                 // Usually indicates end of file or stream closed, or other IO issue.
@@ -89,68 +392,222 @@ public class DxfParser {
         return this.document;
     }
 
-    private DxfGroupCode nextGroupCode() throws IOException, DxfParserException {
-        String codeStr = reader.readLine();
-        String valueStr;
-        if (codeStr != null) {
-            valueStr = reader.readLine();
-            if (valueStr == null) {
-                throw new DxfParserException("Premature EOF: Expected value after group code " + codeStr.trim());
-            }
-        } else {
-            return null;
-        }
-        try {
-            int code = Integer.parseInt(codeStr.trim());
-            return new DxfGroupCode(code, valueStr.trim());
-        } catch (NumberFormatException e) {
-            throw new DxfParserException("Invalid group code format: '" + codeStr.trim() + "'", e);
+    private void parseCurrentSection() throws IOException, DxfParserException {
+        // The tokenizer is on 2/SECTION_NAME and currentSection holds the uppercase name
+        switch (currentSection) {
+            case "HEADER":
+                parseHeaderSection();
+                break;
+            case "TABLES":
+                parseTablesSection();
+                break;
+            case "BLOCKS":
+                parseBlocksSection();
+                break;
+            case "ENTITIES":
+                parseEntitiesSection();
+                break;
+            case "OBJECTS":
+                // For now, consume OBJECTS section if not fully implemented or if testParseDxf2 fails
+                // parseObjectsSection(); // TODO: Implement or verify this for dictionary test
+                consumeSection();
+                break;
+            default:
+                consumeSection();
+                break;
         }
     }
 
+    /**
+     * Parses a single section into an existing document. Used to load the sections of a lazy document.
+     * @param target The document to populate.
+     * @param sectionTokenizer A tokenizer positioned on the section's 2/SECTION_NAME pair.
+     *                         A HEADER section switches its charset according to $DWGCODEPAGE.
+     */
+    void parseSection(DxfDocument target, DxfTokenizer sectionTokenizer) throws IOException, DxfParserException {
+        this.document = target;
+        this.tokenizer = sectionTokenizer;
+        this.applyCodePage = true;
+        this.currentSection = sectionTokenizer.getStringValue().toUpperCase(Locale.ROOT);
+        parseCurrentSection();
+    }
+
+    /**
+     * Creates a parser with the same parallel parsing settings as this one.
+     * @return A new parser.
+     */
+    DxfParser copySettings() {
+        DxfParser copy = new DxfParser();
+        copy.parallelEntities = this.parallelEntities;
+        copy.parallelBlocks = this.parallelBlocks;
+        copy.pool = this.pool;
+        copy.entityChunkSize = this.entityChunkSize;
+        copy.snapshotCache = this.snapshotCache;
+        copy.columnarStorage = this.columnarStorage;
+        return copy;
+    }
+
     private void consumeSection() throws IOException, DxfParserException {
-        // Assumes aktuellenGroupCode is on 2/SECTION_NAME or first code after it.
+        // Assumes the tokenizer is on 2/SECTION_NAME or first code after it.
         // Consumes until 0/ENDSEC is found and read.
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0 && "ENDSEC".equalsIgnoreCase(aktuellenGroupCode.value)) {
-                aktuellenGroupCode = nextGroupCode(); // Consume ENDSEC
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0 && tokenizer.valueEqualsIgnoreCase("ENDSEC")) {
+                tokenizer.next(); // Consume ENDSEC
                 currentSection = null;
                 return;
             }
-            aktuellenGroupCode = nextGroupCode();
+            tokenizer.next();
         }
         throw new DxfParserException("Premature EOF while consuming section: " + currentSection);
     }
 
+    private void parseHeaderSection() throws IOException, DxfParserException {
+        // Called when the tokenizer is on 2/HEADER. Header variables are 9/$NAME pairs followed by their values.
+        DxfHeader header = document.getHeader();
+        double[] extMin = null;
+        double[] extMax = null;
+        int variable = HEADER_OTHER;
+        tokenizer.next();
+
+        while (tokenizer.hasCurrent()) {
+            int code = tokenizer.getCode();
+            if (code == 0 && tokenizer.valueEqualsIgnoreCase("ENDSEC")) {
+                if (extMin != null) {
+                    header.setExtMin(new Point3D(extMin[0], extMin[1], extMin[2]));
+                }
+                if (extMax != null) {
+                    header.setExtMax(new Point3D(extMax[0], extMax[1], extMax[2]));
+                }
+                if (applyCodePage) {
+                    tokenizer.setCharset(resolveCharset(header.getAcadVersion(), header.getCodePage()));
+                }
+                tokenizer.next(); // Consume ENDSEC
+                currentSection = null;
+                return;
+            }
+            if (code == 9) {
+                variable = headerVariable();
+            } else {
+                switch (variable) {
+                    case HEADER_ACADVER:
+                        header.setAcadVersion(tokenizer.getStringValue());
+                        break;
+                    case HEADER_DWGCODEPAGE:
+                        header.setCodePage(tokenizer.getStringValue());
+                        break;
+                    case HEADER_INSUNITS:
+                        header.setInsertionUnits(tokenizer.getIntValue());
+                        break;
+                    case HEADER_LTSCALE:
+                        header.setLinetypeScale(tokenizer.getDoubleValue());
+                        break;
+                    case HEADER_EXTMIN:
+                        extMin = headerCoordinate(extMin, code);
+                        break;
+                    case HEADER_EXTMAX:
+                        extMax = headerCoordinate(extMax, code);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            tokenizer.next();
+        }
+        throw new DxfParserException("Premature EOF while consuming section: " + currentSection);
+    }
+
+    private int headerVariable() {
+        if (tokenizer.valueEqualsIgnoreCase("$ACADVER")) {
+            return HEADER_ACADVER;
+        } else if (tokenizer.valueEqualsIgnoreCase("$DWGCODEPAGE")) {
+            return HEADER_DWGCODEPAGE;
+        } else if (tokenizer.valueEqualsIgnoreCase("$EXTMIN")) {
+            return HEADER_EXTMIN;
+        } else if (tokenizer.valueEqualsIgnoreCase("$EXTMAX")) {
+            return HEADER_EXTMAX;
+        } else if (tokenizer.valueEqualsIgnoreCase("$INSUNITS")) {
+            return HEADER_INSUNITS;
+        } else if (tokenizer.valueEqualsIgnoreCase("$LTSCALE")) {
+            return HEADER_LTSCALE;
+        }
+        return HEADER_OTHER;
+    }
+
+    // Stores a 10/20/30 value of a point variable; z stays 0 for 2D points
+    private double[] headerCoordinate(double[] point, int code) {
+        if (code != 10 && code != 20 && code != 30) {
+            return point;
+        }
+        double[] coordinates = point != null ? point : new double[3];
+        coordinates[code / 10 - 1] = tokenizer.getDoubleValue();
+        return coordinates;
+    }
+
+    /**
+     * Maps the HEADER $ACADVER / $DWGCODEPAGE values to the charset used for string values.
+     * AutoCAD 2007 (AC1021) and later always write UTF-8; older files use the named code page,
+     * e.g. "ANSI_1252" or "DOS850". Unknown or unsupported code pages keep the current charset.
+     * @return The charset to use, or null to keep the current one.
+     */
+    static Charset resolveCharset(String acadVersion, String codePage) {
+        if (acadVersion != null && acadVersion.toUpperCase(Locale.ROOT).compareTo(FIRST_UTF8_ACAD_VERSION) >= 0) {
+            return StandardCharsets.UTF_8;
+        }
+        if (codePage == null) {
+            return null;
+        }
+        String upper = codePage.toUpperCase(Locale.ROOT);
+        String[] candidates;
+        if (upper.startsWith("ANSI_")) {
+            String number = upper.substring("ANSI_".length());
+            candidates = new String[] {"windows-" + number, "x-windows-" + number, "MS" + number, "cp" + number};
+        } else if (upper.startsWith("DOS")) {
+            String number = upper.substring("DOS".length());
+            candidates = new String[] {"IBM" + number, "cp" + number};
+        } else {
+            candidates = new String[] {codePage};
+        }
+        for (String candidate : candidates) {
+            try {
+                if (Charset.isSupported(candidate)) {
+                    return Charset.forName(candidate);
+                }
+            } catch (IllegalArgumentException e) {
+                // Not a legal charset name; try the next spelling
+            }
+        }
+        return null;
+    }
+
     private void parseTablesSection() throws IOException, DxfParserException {
-        // Called when aktuellenGroupCode is 2/TABLES (the section name itself)
+        // Called when the tokenizer is on 2/TABLES (the section name itself)
         // The first actual content of the section will be 0/TABLE
-        aktuellenGroupCode = nextGroupCode();
+        tokenizer.next();
 
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0) {
-                if ("ENDSEC".equalsIgnoreCase(aktuellenGroupCode.value)) {
-                    aktuellenGroupCode = nextGroupCode();
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDSEC")) {
+                    tokenizer.next();
                     currentSection = null;
                     return;
-                } else if ("TABLE".equalsIgnoreCase(aktuellenGroupCode.value)) {
-                    aktuellenGroupCode = nextGroupCode(); // Should be 2/table_name
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 2) {
-                        String tableName = aktuellenGroupCode.value.toUpperCase(Locale.ROOT);
-                        aktuellenGroupCode = nextGroupCode(); // Advance past 2/table_name to table-specific headers or first 0/entry
+                } else if (tokenizer.valueEqualsIgnoreCase("TABLE")) {
+                    tokenizer.next(); // Should be 2/table_name
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 2) {
+                        String tableName = tokenizer.getStringValue().toUpperCase(Locale.ROOT);
+                        tokenizer.next(); // Advance past 2/table_name to table-specific headers or first 0/entry
 
                         // Consume table-specific header codes (e.g. 70 for max number of entries)
                         // until we hit the first 0/entry_type_name or 0/ENDTAB
-                        while(aktuellenGroupCode != null && aktuellenGroupCode.code != 0) {
+                        while(tokenizer.hasCurrent() && tokenizer.getCode() != 0) {
                             // Optionally handle specific table header codes like 70 if needed by specific table parsers
-                            aktuellenGroupCode = nextGroupCode();
+                            tokenizer.next();
                         }
 
-                        if (aktuellenGroupCode == null) { // EOF before ENDTAB
+                        if (!tokenizer.hasCurrent()) { // EOF before ENDTAB
                              throw new DxfParserException("Premature EOF in TABLE " + tableName);
                         }
 
-                        // Now aktuellenGroupCode should be on the first 0/entry_type or 0/ENDTAB
+                        // Now the tokenizer should be on the first 0/entry_type or 0/ENDTAB
                         if ("LAYER".equals(tableName)) {
                             parseLayerTable();
                         } else if ("LTYPE".equals(tableName)) {
@@ -161,51 +618,51 @@ public class DxfParser {
                             consumeTableOrEntries();
                         }
 
-                        if (aktuellenGroupCode == null || !(aktuellenGroupCode.code == 0 && "ENDTAB".equalsIgnoreCase(aktuellenGroupCode.value))) {
-                            throw new DxfParserException("TABLE " + tableName + " parsing did not correctly position at ENDTAB. Current: " + aktuellenGroupCode);
+                        if (!tokenizer.hasCurrent() || !(tokenizer.getCode() == 0 && tokenizer.valueEqualsIgnoreCase("ENDTAB"))) {
+                            throw new DxfParserException("TABLE " + tableName + " parsing did not correctly position at ENDTAB. Current: " + tokenizer);
                         }
-                        aktuellenGroupCode = nextGroupCode(); // Consume ENDTAB
+                        tokenizer.next(); // Consume ENDTAB
                     } else {
-                        throw new DxfParserException("Malformed TABLE entry: expected group code 2 for table name. Got: " + aktuellenGroupCode);
+                        throw new DxfParserException("Malformed TABLE entry: expected group code 2 for table name. Got: " + tokenizer);
                     }
                 } else {
-                    throw new DxfParserException("Unexpected group code " + aktuellenGroupCode + " in TABLES section while expecting 0/TABLE or 0/ENDSEC.");
+                    throw new DxfParserException("Unexpected group code " + tokenizer + " in TABLES section while expecting 0/TABLE or 0/ENDSEC.");
                 }
             } else {
-                throw new DxfParserException("Unexpected non-zero group code " + aktuellenGroupCode + " at a point where a 0-code (TABLE/ENDSEC) was expected in TABLES section.");
+                throw new DxfParserException("Unexpected non-zero group code " + tokenizer + " at a point where a 0-code (TABLE/ENDSEC) was expected in TABLES section.");
             }
         }
         throw new DxfParserException("Premature EOF in TABLES section (outer loop).");
     }
 
     private void parseLayerTable() throws IOException, DxfParserException {
-        // aktuellenGroupCode is at the first 0/LAYER or 0/ENDTAB
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0) {
-                if ("ENDTAB".equalsIgnoreCase(aktuellenGroupCode.value)) {
+        // The tokenizer is at the first 0/LAYER or 0/ENDTAB
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDTAB")) {
                     return;
-                } else if ("LAYER".equalsIgnoreCase(aktuellenGroupCode.value)) {
+                } else if (tokenizer.valueEqualsIgnoreCase("LAYER")) {
                     parseSingleLayerEntry();
                 } else {
-                    throw new DxfParserException("Unexpected group code " + aktuellenGroupCode + " in LAYER table while expecting LAYER or ENDTAB.");
+                    throw new DxfParserException("Unexpected group code " + tokenizer + " in LAYER table while expecting LAYER or ENDTAB.");
                 }
             } else {
-                throw new DxfParserException("Unexpected non-zero group code " + aktuellenGroupCode + " where 0/LAYER or 0/ENDTAB was expected in LAYER table.");
+                throw new DxfParserException("Unexpected non-zero group code " + tokenizer + " where 0/LAYER or 0/ENDTAB was expected in LAYER table.");
             }
         }
         throw new DxfParserException("Premature EOF in LAYER table.");
     }
 
     private void parseSingleLayerEntry() throws IOException, DxfParserException {
-        // aktuellenGroupCode is 0/LAYER
+        // The tokenizer is on 0/LAYER
         String layerName = null;
         int color = 7;
         String linetype = "CONTINUOUS";
-        while ((aktuellenGroupCode = nextGroupCode()) != null && aktuellenGroupCode.code != 0) {
-            switch (aktuellenGroupCode.code) {
-                case 2: layerName = aktuellenGroupCode.value; break;
-                case 62: color = Integer.parseInt(aktuellenGroupCode.value); break;
-                case 6: linetype = aktuellenGroupCode.value; break;
+        while (tokenizer.next() && tokenizer.getCode() != 0) {
+            switch (tokenizer.getCode()) {
+                case 2: layerName = tokenizer.getStringValue(document.getSymbols()); break;
+                case 62: color = tokenizer.getIntValue(); break;
+                case 6: linetype = tokenizer.getStringValue(document.getSymbols()); break;
                 case 70: break;
                 default: break;
             }
@@ -218,42 +675,42 @@ public class DxfParser {
             layer.setLinetypeName(linetype);
             document.addLayer(layer);
         }
-        // aktuellenGroupCode is now on the next 0/LAYER or 0/ENDTAB or null
+        // The tokenizer is now on the next 0/LAYER or 0/ENDTAB or null
     }
 
     private void parseLinetypeTable() throws IOException, DxfParserException {
-        // aktuellenGroupCode is at the first 0/LTYPE or 0/ENDTAB
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0) {
-                if ("ENDTAB".equalsIgnoreCase(aktuellenGroupCode.value)) {
+        // The tokenizer is at the first 0/LTYPE or 0/ENDTAB
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDTAB")) {
                     return;
-                } else if ("LTYPE".equalsIgnoreCase(aktuellenGroupCode.value)) {
+                } else if (tokenizer.valueEqualsIgnoreCase("LTYPE")) {
                     parseSingleLinetypeEntry();
                 } else {
-                    throw new DxfParserException("Unexpected group code " + aktuellenGroupCode + " in LTYPE table while expecting LTYPE or ENDTAB.");
+                    throw new DxfParserException("Unexpected group code " + tokenizer + " in LTYPE table while expecting LTYPE or ENDTAB.");
                 }
             } else {
-                 throw new DxfParserException("Unexpected group code " + aktuellenGroupCode + " at start of linetype entry.");
+                 throw new DxfParserException("Unexpected group code " + tokenizer + " at start of linetype entry.");
             }
         }
         throw new DxfParserException("Premature EOF in LTYPE table.");
     }
 
     private void parseSingleLinetypeEntry() throws IOException, DxfParserException {
-        // aktuellenGroupCode is 0/LTYPE
+        // The tokenizer is on 0/LTYPE
         String linetypeName = null;
         String description = "";
         double patternLength = 0.0;
         List<Double> patternElements = new ArrayList<>();
-        while ((aktuellenGroupCode = nextGroupCode()) != null && aktuellenGroupCode.code != 0) {
-            switch (aktuellenGroupCode.code) {
-                case 2: linetypeName = aktuellenGroupCode.value; break;
-                case 3: description = aktuellenGroupCode.value; break;
+        while (tokenizer.next() && tokenizer.getCode() != 0) {
+            switch (tokenizer.getCode()) {
+                case 2: linetypeName = tokenizer.getStringValue(document.getSymbols()); break;
+                case 3: description = tokenizer.getStringValue(); break;
                 case 70: break;
                 case 72: break;
                 case 73: break;
-                case 40: patternLength = Double.parseDouble(aktuellenGroupCode.value); break;
-                case 49: patternElements.add(Double.parseDouble(aktuellenGroupCode.value)); break;
+                case 40: patternLength = tokenizer.getDoubleValue(); break;
+                case 49: patternElements.add(tokenizer.getDoubleValue()); break;
                 default: break;
             }
         }
@@ -267,10 +724,10 @@ public class DxfParser {
     }
 
     private void consumeTableOrEntries() throws IOException, DxfParserException {
-        // aktuellenGroupCode is on 0/TABLE_ENTRY_TYPE or 0/ENDTAB
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0) {
-                if ("ENDTAB".equalsIgnoreCase(aktuellenGroupCode.value)) {
+        // The tokenizer is on 0/TABLE_ENTRY_TYPE or 0/ENDTAB
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDTAB")) {
                     return;
                 }
                 consumeUnknownTableEntry();
@@ -282,29 +739,42 @@ public class DxfParser {
     }
 
     private void consumeUnknownTableEntry() throws IOException, DxfParserException {
-        while((this.aktuellenGroupCode = nextGroupCode()) != null && this.aktuellenGroupCode.code != 0) {
+        while(tokenizer.next() && tokenizer.getCode() != 0) {
             // Intentionally consuming group codes until the next 0 code or EOF
         }
     }
 
     private void parseBlocksSection() throws IOException, DxfParserException {
-        // Called when aktuellenGroupCode is 2/BLOCKS
-        aktuellenGroupCode = nextGroupCode(); // Move to first 0/BLOCK or 0/ENDSEC
+        // Called when the tokenizer is on 2/BLOCKS
+        tokenizer.next(); // Move to first 0/BLOCK or 0/ENDSEC
+        if (parallelBlocks && !tokenizer.isBinary()) {
+            ParallelBlocksParser blocksParser = new ParallelBlocksParser(tokenizer, document, pool);
+            blocksParser.setMonitor(monitor);
+            for (DxfBlock block : blocksParser.parse()) {
+                document.addBlock(block);
+            }
+            tokenizer.next(); // Consume ENDSEC
+            currentSection = null;
+            return;
+        }
 
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0) {
-                if ("ENDSEC".equalsIgnoreCase(aktuellenGroupCode.value)) {
-                    aktuellenGroupCode = nextGroupCode();
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDSEC")) {
+                    tokenizer.next();
                     currentSection = null;
                     return;
-                } else if ("BLOCK".equalsIgnoreCase(aktuellenGroupCode.value)) {
-                    parseSingleBlockDefinition();
-                    // parseSingleBlockDefinition updates aktuellenGroupCode to what follows ENDBLK
+                } else if (tokenizer.valueEqualsIgnoreCase("BLOCK")) {
+                    if (monitor != null) {
+                        monitor.checkCancelled();
+                    }
+                    document.addBlock(parseBlockDefinition(tokenizer, document));
+                    // parseBlockDefinition advances the tokenizer to what follows ENDBLK
                 } else {
-                    throw new DxfParserException("Unexpected group code " + aktuellenGroupCode + " in BLOCKS section while expecting BLOCK or ENDSEC.");
+                    throw new DxfParserException("Unexpected group code " + tokenizer + " in BLOCKS section while expecting BLOCK or ENDSEC.");
                 }
             } else { // Should not happen if previous section/block was parsed correctly
-                 aktuellenGroupCode = nextGroupCode();
+                 tokenizer.next();
             }
         }
         if ("BLOCKS".equalsIgnoreCase(currentSection)) {
@@ -312,19 +782,25 @@ public class DxfParser {
         }
     }
 
-    private void parseSingleBlockDefinition() throws IOException, DxfParserException {
-        // aktuellenGroupCode is 0/BLOCK
+    /**
+     * Parses one block definition, from 0/BLOCK through 0/ENDBLK.
+     * Only reads from the given tokenizer, so definitions can be parsed independently of each other.
+     * @param tokenizer A tokenizer positioned on 0/BLOCK. On return it is on the pair following 0/ENDBLK.
+     * @param document The document whose symbol table interns the entities' names.
+     * @return The parsed block.
+     */
+    static DxfBlock parseBlockDefinition(DxfTokenizer tokenizer, DxfDocument document) throws IOException, DxfParserException {
         String blockName = null;
         Point3D basePoint = new Point3D(0, 0, 0); // Default base point
         DxfBlock currentBlock = null;
 
         // Read block header: name, base point, flags etc.
-        while ((aktuellenGroupCode = nextGroupCode()) != null && aktuellenGroupCode.code != 0) {
-            switch (aktuellenGroupCode.code) {
-                case 2: blockName = aktuellenGroupCode.value; break; // Block name
-                case 10: basePoint = new Point3D(Double.parseDouble(aktuellenGroupCode.value), basePoint.y, basePoint.z); break;
-                case 20: basePoint = new Point3D(basePoint.x, Double.parseDouble(aktuellenGroupCode.value), basePoint.z); break;
-                case 30: basePoint = new Point3D(basePoint.x, basePoint.y, Double.parseDouble(aktuellenGroupCode.value)); break;
+        while (tokenizer.next() && tokenizer.getCode() != 0) {
+            switch (tokenizer.getCode()) {
+                case 2: blockName = tokenizer.getStringValue(); break; // Block name
+                case 10: basePoint = new Point3D(tokenizer.getDoubleValue(), basePoint.y, basePoint.z); break;
+                case 20: basePoint = new Point3D(basePoint.x, tokenizer.getDoubleValue(), basePoint.z); break;
+                case 30: basePoint = new Point3D(basePoint.x, basePoint.y, tokenizer.getDoubleValue()); break;
                 // TODO: Handle other block flags like 70 if necessary
                 default: break;
             }
@@ -336,50 +812,69 @@ public class DxfParser {
         currentBlock = new DxfBlock(blockName);
         currentBlock.setBasePoint(basePoint);
 
-        EntitiesParser entitiesParser = new EntitiesParser(this.reader, this.document);
+        EntitiesParser entitiesParser = new EntitiesParser(tokenizer, document);
 
-        // aktuellenGroupCode is now on the first 0/ENTITY_TYPE within the block, or 0/ENDBLK
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0) {
-                if ("ENDBLK".equalsIgnoreCase(aktuellenGroupCode.value)) {
-                    document.addBlock(currentBlock);
-                    aktuellenGroupCode = nextGroupCode(); // Consume ENDBLK
-                    return;
+        // The tokenizer is now on the first 0/ENTITY_TYPE within the block, or 0/ENDBLK
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDBLK")) {
+                    tokenizer.next(); // Consume ENDBLK
+                    return currentBlock;
                 } else { // It's an entity within the block
-                    DxfEntity entity = entitiesParser.parseEntity(this.aktuellenGroupCode);
-                    this.aktuellenGroupCode = entitiesParser.getAktuellenGroupCode();
+                    DxfEntity entity = entitiesParser.parseEntity();
 
                     if (entity != null) {
                         currentBlock.addEntity(entity);
                     }
                 }
             } else {
-                throw new DxfParserException("Unexpected non-zero group code " + aktuellenGroupCode + " within BLOCK definition '" + blockName + "'. Expected 0 for entity or ENDBLK.");
+                throw new DxfParserException("Unexpected non-zero group code " + tokenizer + " within BLOCK definition '" + blockName + "'. Expected 0 for entity or ENDBLK.");
             }
         }
         throw new DxfParserException("Premature EOF within BLOCK definition for block: " + blockName + ". ENDBLK not found.");
     }
 
     private void parseEntitiesSection() throws IOException, DxfParserException {
-        // Called when aktuellenGroupCode is 2/ENTITIES
-        aktuellenGroupCode = nextGroupCode(); // Move to first 0/ENTITY_TYPE or 0/ENDSEC
-        EntitiesParser entitiesParser = new EntitiesParser(this.reader, this.document);
-
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0) {
-                if ("ENDSEC".equalsIgnoreCase(aktuellenGroupCode.value)) {
-                    aktuellenGroupCode = nextGroupCode(); // Consume ENDSEC
+        // Called when the tokenizer is on 2/ENTITIES
+        tokenizer.next(); // Move to first 0/ENTITY_TYPE or 0/ENDSEC
+        if (parallelEntities && !tokenizer.isBinary() && entityVisitor == null) {
+            ParallelEntitiesParser entitiesParser = new ParallelEntitiesParser(tokenizer, document, pool, entityChunkSize);
+            entitiesParser.setMonitor(monitor);
+            List<DxfEntity> entities = entitiesParser.parse();
+            for (DxfEntity entity : entities) {
+                this.document.addEntity(entity);
+            }
+            if (monitor != null) {
+                monitor.entitiesParsed(entities.size(), tokenizer.getPairStartOffset());
+            }
+            tokenizer.next(); // Consume ENDSEC
+            currentSection = null;
+            return;
+        }
+        EntitiesParser entitiesParser = new EntitiesParser(this.tokenizer, this.document);
+
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDSEC")) {
+                    tokenizer.next(); // Consume ENDSEC
                     currentSection = null;
                     return;
                 }
-                DxfEntity entity = entitiesParser.parseEntity(this.aktuellenGroupCode);
-                this.aktuellenGroupCode = entitiesParser.getAktuellenGroupCode();
+                if (monitor != null) {
+                    monitor.checkCancelled();
+                }
+                DxfEntity entity = entitiesParser.parseEntity();
+                if (monitor != null && entity != null) {
+                    monitor.entitiesParsed(1, tokenizer.getPairStartOffset());
+                }
 
-                if (entity != null) {
+                if (entity != null && entityVisitor != null) {
+                    entityVisitor.visitEntity(entity, this.document);
+                } else if (entity != null) {
                     this.document.addEntity(entity);
                 }
             } else {
-                throw new DxfParserException("Unexpected non-zero group code " + aktuellenGroupCode + " in ENTITIES section. Expected 0 for entity type or ENDSEC.");
+                throw new DxfParserException("Unexpected non-zero group code " + tokenizer + " in ENTITIES section. Expected 0 for entity type or ENDSEC.");
             }
         }
          throw new DxfParserException("Premature EOF in ENTITIES section.");
@@ -387,34 +882,34 @@ public class DxfParser {
 
 
     private void parseDimStyleTable() throws IOException, DxfParserException {
-        // aktuellenGroupCode is at the first 0/DIMSTYLE or 0/ENDTAB
-        while (aktuellenGroupCode != null && aktuellenGroupCode.code != 0) { // Skip potential table header codes
-             aktuellenGroupCode = nextGroupCode();
+        // The tokenizer is at the first 0/DIMSTYLE or 0/ENDTAB
+        while (tokenizer.hasCurrent() && tokenizer.getCode() != 0) { // Skip potential table header codes
+             tokenizer.next();
         }
 
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 0) {
-                if ("ENDTAB".equalsIgnoreCase(aktuellenGroupCode.value)) {
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDTAB")) {
                     return;
-                } else if ("DIMSTYLE".equalsIgnoreCase(aktuellenGroupCode.value)) {
+                } else if (tokenizer.valueEqualsIgnoreCase("DIMSTYLE")) {
                     parseSingleDimStyleEntry();
                 } else {
-                    throw new DxfParserException("Unexpected group code " + aktuellenGroupCode + " in DIMSTYLE table while expecting DIMSTYLE or ENDTAB.");
+                    throw new DxfParserException("Unexpected group code " + tokenizer + " in DIMSTYLE table while expecting DIMSTYLE or ENDTAB.");
                 }
             } else {
-                throw new DxfParserException("Unexpected non-zero group code " + aktuellenGroupCode + " where 0/DIMSTYLE or 0/ENDTAB was expected in DIMSTYLE table.");
+                throw new DxfParserException("Unexpected non-zero group code " + tokenizer + " where 0/DIMSTYLE or 0/ENDTAB was expected in DIMSTYLE table.");
             }
         }
         throw new DxfParserException("Premature EOF in DIMSTYLE table.");
     }
 
     private void parseSingleDimStyleEntry() throws IOException, DxfParserException {
-        // aktuellenGroupCode is 0/DIMSTYLE
+        // The tokenizer is on 0/DIMSTYLE
         String dimStyleName = null;
         DxfDimStyle style = null;
 
         // Initialize with DxfDimStyle defaults by creating a temporary new style
-        DxfDimStyle defaults = new DxfDimStyle(""); // Temporary style to get defaults
+        DxfDimStyle defaults = new DxfDimStyle("STANDARD"); // Temporary style to get defaults; the name must not be empty
         double arrowSize = defaults.getArrowSize();
         double extensionLineOffset = defaults.getExtensionLineOffset();
         double extensionLineExtension = defaults.getExtensionLineExtension();
@@ -426,10 +921,10 @@ public class DxfParser {
         int textColor = defaults.getTextColor();
         boolean nameFound = false;
 
-        while ((aktuellenGroupCode = nextGroupCode()) != null && aktuellenGroupCode.code != 0) {
-            switch (aktuellenGroupCode.code) {
+        while (tokenizer.next() && tokenizer.getCode() != 0) {
+            switch (tokenizer.getCode()) {
                 case 2: // Removed duplicate "case 2:"
-                    dimStyleName = aktuellenGroupCode.value;
+                    dimStyleName = tokenizer.getStringValue();
                     if (dimStyleName == null || dimStyleName.trim().isEmpty()) {
                         nameFound = false;
                         style = null;
@@ -454,7 +949,7 @@ public class DxfParser {
                     break;
                 case 3:
                     if (!nameFound) {
-                        dimStyleName = aktuellenGroupCode.value;
+                        dimStyleName = tokenizer.getStringValue();
                          if (dimStyleName == null || dimStyleName.trim().isEmpty()) {
                             // Similar to above, let main loop consume fields for this nameless style.
                             // Style won't be added if name is invalid.
@@ -472,19 +967,19 @@ public class DxfParser {
                         }
                     }
                     break;
-                case 41: arrowSize = Double.parseDouble(aktuellenGroupCode.value); if (style != null) { style.setArrowSize(arrowSize); } break;
-                case 42: extensionLineOffset = Double.parseDouble(aktuellenGroupCode.value); if (style != null) { style.setExtensionLineOffset(extensionLineOffset); } break;
-                case 43: extensionLineExtension = Double.parseDouble(aktuellenGroupCode.value); if (style != null) { style.setExtensionLineExtension(extensionLineExtension); } break;
+                case 41: arrowSize = tokenizer.getDoubleValue(); if (style != null) { style.setArrowSize(arrowSize); } break;
+                case 42: extensionLineOffset = tokenizer.getDoubleValue(); if (style != null) { style.setExtensionLineOffset(extensionLineOffset); } break;
+                case 43: extensionLineExtension = tokenizer.getDoubleValue(); if (style != null) { style.setExtensionLineExtension(extensionLineExtension); } break;
                 case 44: // DIMTXT (fallback if 140 not present)
-                    double tempTextHeightFallback = Double.parseDouble(aktuellenGroupCode.value);
+                    double tempTextHeightFallback = tokenizer.getDoubleValue();
                     if (style != null) { if(style.getTextHeight() == defaults.getTextHeight()) { style.setTextHeight(tempTextHeightFallback); } }
                     else { textHeight = tempTextHeightFallback; }
                     break;
-                case 140: textHeight = Double.parseDouble(aktuellenGroupCode.value); if (style != null) { style.setTextHeight(textHeight); } break;
-                case 147: textGap = Double.parseDouble(aktuellenGroupCode.value); if (style != null) { style.setTextGap(textGap); } break;
+                case 140: textHeight = tokenizer.getDoubleValue(); if (style != null) { style.setTextHeight(textHeight); } break;
+                case 147: textGap = tokenizer.getDoubleValue(); if (style != null) { style.setTextGap(textGap); } break;
                 case 278: // DIMGAP (alternative)
                     try {
-                        double demoGap = Double.parseDouble(aktuellenGroupCode.value);
+                        double demoGap = tokenizer.getDoubleValue();
                         if (style != null) { if(style.getTextGap() == defaults.getTextGap()) { style.setTextGap(demoGap); } }
                         else { textGap = demoGap; }
                     } catch (NumberFormatException e) {
@@ -493,10 +988,10 @@ public class DxfParser {
                         // System.err.println("Failed to parse number for DIMSTYLE property code " + code + ": " + value);
                     }
                     break;
-                case 176: dimensionLineColor = Integer.parseInt(aktuellenGroupCode.value); if (style != null) { style.setDimensionLineColor(dimensionLineColor); } break;
-                case 177: extensionLineColor = Integer.parseInt(aktuellenGroupCode.value); if (style != null) { style.setExtensionLineColor(extensionLineColor); } break;
-                case 178: textColor = Integer.parseInt(aktuellenGroupCode.value); if (style != null) { style.setTextColor(textColor); } break;
-                case 271: decimalPlaces = Integer.parseInt(aktuellenGroupCode.value); if (style != null) { style.setDecimalPlaces(decimalPlaces); } break;
+                case 176: dimensionLineColor = tokenizer.getIntValue(); if (style != null) { style.setDimensionLineColor(dimensionLineColor); } break;
+                case 177: extensionLineColor = tokenizer.getIntValue(); if (style != null) { style.setExtensionLineColor(extensionLineColor); } break;
+                case 178: textColor = tokenizer.getIntValue(); if (style != null) { style.setTextColor(textColor); } break;
+                case 271: decimalPlaces = tokenizer.getIntValue(); if (style != null) { style.setDecimalPlaces(decimalPlaces); } break;
                 // TODO: Add more DIMSTYLE variables as needed (DIMBLK, DIMTXSTY, DIMTAD, etc.)
                 default: break;
             }
@@ -517,6 +1012,6 @@ public class DxfParser {
         } else if (nameFound) {
              throw new DxfParserException("DIMSTYLE with name '" + dimStyleName + "' found, but DxfDimStyle object was not properly initialized/retrieved.");
         }
-        // aktuellenGroupCode is now on the next 0/DIMSTYLE or 0/ENDTAB or null
+        // The tokenizer is now on the next 0/DIMSTYLE or 0/ENDTAB or null
     }
 }
@@ -0,0 +1,17 @@
+package com.cad.dxflib.parser;
+
+/**
+ * Receives progress updates from {@link DxfParser#parseAsync(java.nio.file.Path, DxfProgressListener)}.
+ * Updates are delivered on the parsing thread; listeners that touch a UI must hand them over to its thread.
+ */
+@FunctionalInterface
+public interface DxfProgressListener {
+
+    /**
+     * Called periodically while the file is parsed, and once more when parsing completes.
+     * @param bytesRead The number of bytes of the file consumed so far.
+     * @param totalBytes The size of the file in bytes.
+     * @param entitiesParsed The number of ENTITIES-section entities parsed so far.
+     */
+    void onProgress(long bytesRead, long totalBytes, long entitiesParsed);
+}
@@ -0,0 +1,198 @@
+package com.cad.dxflib.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Byte offsets of the sections (HEADER, TABLES, BLOCKS, ENTITIES, OBJECTS, ...) of a DXF file.
+ * The index is built by a pre-pass that only compares 0/SECTION and 0/ENDSEC pairs, without parsing
+ * any values. The pass is incremental: {@link #find(String)} scans no further than the requested section,
+ * so locating TABLES never touches the ENTITIES data that follows it. ASCII and binary DXF are both supported.
+ */
+public class DxfSectionIndex {
+
+    /**
+     * The location of one section, from its 0/SECTION pair through its 0/ENDSEC pair.
+     */
+    public static final class Section {
+        private final String name;
+        private final long startOffset;
+        private final long endOffset;
+
+        Section(String name, long startOffset, long endOffset) {
+            this.name = name;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+        }
+
+        /**
+         * Gets the section name, in uppercase.
+         * @return The section name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the offset of the section's 0/SECTION pair.
+         * @return The start offset in bytes.
+         */
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        /**
+         * Gets the offset just past the section's 0/ENDSEC pair, or the end of the file if it has none.
+         * @return The end offset in bytes.
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        @Override
+        public String toString() {
+            return "Section{" + name + ", " + startOffset + ".." + endOffset + "}";
+        }
+    }
+
+    private final DxfTokenizer scanner;
+    private final long length;
+    private final List<Section> sections = new ArrayList<>();
+    private boolean complete;
+
+    /**
+     * Creates an index over the given DXF data. Nothing is scanned until a section is requested.
+     * @param data The DXF file content, from position 0. The buffer itself is not modified.
+     */
+    public DxfSectionIndex(ByteBuffer data) {
+        if (data == null) {
+            throw new IllegalArgumentException("ByteBuffer cannot be null.");
+        }
+        ByteBuffer view = data.duplicate();
+        view.position(0);
+        this.length = view.limit();
+        // Only ASCII keywords are compared, so the charset is irrelevant here
+        this.scanner = new DxfTokenizer(view, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Memory-maps a DXF file and builds its complete section index.
+     * @param path The DXF file.
+     * @return The index of all sections in the file.
+     * @throws DxfParserException If the file cannot be read, is too large to map, or has a malformed SECTION.
+     */
+    public static DxfSectionIndex of(Path path) throws DxfParserException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new DxfParserException("DXF file too large to index: " + path);
+            }
+            DxfSectionIndex index = new DxfSectionIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            index.getSections();
+            return index;
+        } catch (IOException e) {
+            throw new DxfParserException("Error reading DXF file: " + path, e);
+        }
+    }
+
+    /**
+     * Checks whether the indexed data is binary DXF. Only meaningful once a section has been requested.
+     * @return true for binary DXF.
+     */
+    public synchronized boolean isBinary() {
+        return scanner.isBinary();
+    }
+
+    synchronized boolean hasTwoByteGroupCodes() {
+        return scanner.hasTwoByteGroupCodes();
+    }
+
+    /**
+     * Finds the first section with the given name, scanning forward only as far as needed.
+     * @param name The section name (case-insensitive).
+     * @return The section, or null if the file has no such section.
+     * @throws DxfParserException If a malformed SECTION is found while scanning.
+     */
+    public synchronized Section find(String name) throws DxfParserException {
+        if (name == null) {
+            return null;
+        }
+        String key = name.toUpperCase(Locale.ROOT);
+        for (Section section : sections) {
+            if (section.getName().equals(key)) {
+                return section;
+            }
+        }
+        Section section;
+        while ((section = scanNextSection()) != null) {
+            if (section.getName().equals(key)) {
+                return section;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets all sections of the file in file order, completing the scan if necessary.
+     * @return An unmodifiable list of sections.
+     * @throws DxfParserException If a malformed SECTION is found while scanning.
+     */
+    public synchronized List<Section> getSections() throws DxfParserException {
+        while (scanNextSection() != null) {
+            // Keep scanning until the end of the file
+        }
+        return Collections.unmodifiableList(new ArrayList<>(sections));
+    }
+
+    private Section scanNextSection() throws DxfParserException {
+        if (complete) {
+            return null;
+        }
+        try {
+            while (scanner.next()) {
+                if (scanner.getCode() != 0) {
+                    continue;
+                }
+                if (scanner.valueEqualsIgnoreCase("EOF")) {
+                    break;
+                }
+                if (scanner.valueEqualsIgnoreCase("SECTION")) {
+                    return scanSection();
+                }
+            }
+        } catch (IOException e) {
+            throw new DxfParserException("Error reading DXF data", e);
+        }
+        complete = true;
+        return null;
+    }
+
+    private Section scanSection() throws IOException, DxfParserException {
+        // The scanner is on 0/SECTION
+        long start = scanner.getPairStartOffset();
+        if (!scanner.next() || scanner.getCode() != 2) {
+            throw new DxfParserException("Malformed SECTION: expected group code 2 after 0/SECTION, got: " + scanner);
+        }
+        String name = scanner.getStringValue().toUpperCase(Locale.ROOT);
+        long end = length; // Unterminated: the section parser reports the missing ENDSEC
+        while (scanner.next()) {
+            if (scanner.getCode() == 0 && scanner.valueEqualsIgnoreCase("ENDSEC")) {
+                end = scanner.getPairEndOffset();
+                break;
+            }
+        }
+        Section section = new Section(name, start, end);
+        sections.add(section);
+        return section;
+    }
+}
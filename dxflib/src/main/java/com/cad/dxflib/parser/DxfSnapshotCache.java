@@ -0,0 +1,328 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.structure.DxfDocument;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Keeps binary snapshots of parsed {@link DxfDocument}s in a local directory, so reopening an unchanged
+ * file reads the snapshot instead of parsing the DXF again. A snapshot holds the tables (layers,
+ * linetypes, text and dimension styles, block records), the blocks, the model space entities with their
+ * XDATA and reactors, and the dictionaries and scales; it is stored column by column and read back with
+ * bulk primitive reads, which is typically an order of magnitude faster than parsing.
+ * <p>
+ * Snapshots are keyed by the file's absolute path, size, modification time and a 64-bit hash of its
+ * content; a snapshot whose key no longer matches the file, or written by another {@link #FORMAT_VERSION},
+ * is deleted on lookup. Snapshots are written to a temporary file and moved into place, so concurrent
+ * readers never see a partial one. Enable the cache for a parser with {@link DxfParser#setSnapshotCache}.
+ */
+public final class DxfSnapshotCache {
+
+    /** The snapshot format version. Bump it whenever the layout or the document model changes. */
+    public static final int FORMAT_VERSION = 3;
+
+    private static final String SUFFIX = ".dxfsnap";
+    private static final int HASH_BLOCK_SIZE = 1 << 20; // Multiple of 32, the bytes hashed per round of lanes
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final Path directory;
+
+    /**
+     * Creates a cache storing its snapshots in a directory, created when the first snapshot is written.
+     * @param directory The cache directory.
+     */
+    public DxfSnapshotCache(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Cache directory cannot be null.");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the per-user default cache directory: {@code $XDG_CACHE_HOME/cad-tool/dxf-snapshots},
+     * or {@code ~/.cache/cad-tool/dxf-snapshots} if XDG_CACHE_HOME is not set.
+     * @return The default directory.
+     */
+    public static Path defaultDirectory() {
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        Path base = cacheHome != null && !cacheHome.isEmpty()
+                ? Paths.get(cacheHome)
+                : Paths.get(System.getProperty("user.home"), ".cache");
+        return base.resolve("cad-tool").resolve("dxf-snapshots");
+    }
+
+    /**
+     * Gets the directory holding the snapshots.
+     * @return The cache directory.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Reads the snapshot of a DXF file, if there is one for its current content.
+     * Stale, incompatible or corrupt snapshots are deleted.
+     * @param file The DXF file.
+     * @return A new document read from the snapshot, or null if there is no usable snapshot.
+     */
+    public DxfDocument get(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        try {
+            return read(Key.of(file), false);
+        } catch (IOException e) {
+            return null; // The DXF file itself cannot be read
+        }
+    }
+
+    /**
+     * Stores a snapshot of a document parsed from a DXF file, replacing any previous snapshot of the file.
+     * @param file The DXF file the document was parsed from.
+     * @param document The document. A lazy document is loaded completely first.
+     * @throws IOException If the file cannot be read, the snapshot cannot be written, or the document holds
+     * entities of a class the format does not cover.
+     */
+    public void put(Path file, DxfDocument document) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        if (document == null) {
+            throw new IllegalArgumentException("DxfDocument cannot be null.");
+        }
+        write(Key.of(file), document);
+    }
+
+    /**
+     * Deletes the snapshot of a DXF file, if any.
+     * @param file The DXF file.
+     * @return true if a snapshot was deleted.
+     * @throws IOException If the snapshot cannot be deleted.
+     */
+    public boolean invalidate(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        return Files.deleteIfExists(snapshotFile(file.toAbsolutePath().normalize().toString()));
+    }
+
+    /**
+     * Returns the snapshot of a file, or parses the file and snapshots the result.
+     * A snapshot that cannot be written is skipped: it only makes the next open faster.
+     */
+    DxfDocument load(Path file, DxfParser parser) throws DxfParserException {
+        Key key;
+        try {
+            key = Key.of(file);
+        } catch (IOException e) {
+            return parser.parseFile(file); // Reports the error as a parse would
+        }
+        DxfDocument cached = read(key, parser.isColumnarStorage());
+        if (cached != null) {
+            return cached;
+        }
+        DxfDocument document = parser.parseFile(file);
+        try {
+            if (key.isCurrent(file)) { // Not modified while it was being parsed
+                write(key, document);
+            }
+        } catch (IOException e) {
+            // Keep the parsed document; the next open parses again
+        }
+        return document;
+    }
+
+    private DxfDocument read(Key key, boolean columnar) {
+        Path snapshot = snapshotFile(key.path);
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(DxfSnapshotWriter.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (size < header.capacity() || size > Integer.MAX_VALUE || !readFully(channel, header, 0)) {
+                return discard(snapshot);
+            }
+            header.flip();
+            if (header.getLong() != DxfSnapshotWriter.MAGIC || header.getInt() != FORMAT_VERSION) {
+                return discard(snapshot); // Written by an incompatible version
+            }
+            long sourceSize = header.getLong();
+            long modifiedTime = header.getLong();
+            long contentHash = header.getLong();
+            long stringTableOffset = header.getLong();
+            int pathLength = header.getInt();
+            byte[] path = key.path.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer storedPath = ByteBuffer.allocate(Math.max(0, Math.min(pathLength, path.length)));
+            if (pathLength != path.length || !readFully(channel, storedPath, header.capacity())
+                    || !Arrays.equals(storedPath.array(), path)) {
+                return null; // The snapshot of another file whose name hashes the same: leave it
+            }
+            if (sourceSize != key.size || modifiedTime != key.modifiedTime || contentHash != key.contentHash) {
+                return discard(snapshot); // The file has changed
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            data.position(header.capacity() + pathLength);
+            return DxfSnapshotReader.read(data, stringTableOffset, columnar);
+        } catch (IOException e) {
+            return discard(snapshot);
+        }
+    }
+
+    private void write(Key key, DxfDocument document) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = snapshotFile(key.path);
+        Path temp = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                DxfSnapshotWriter.write(document, key, channel);
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("DXF snapshot too large to be read back: " + channel.size() + " bytes.");
+                }
+            }
+            try {
+                Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static DxfDocument discard(Path snapshot) {
+        try {
+            Files.deleteIfExists(snapshot);
+        } catch (IOException e) {
+            // Left in place; it is rejected again on the next lookup and replaced on the next write
+        }
+        return null;
+    }
+
+    private Path snapshotFile(String absolutePath) {
+        byte[] bytes = absolutePath.getBytes(StandardCharsets.UTF_8);
+        long hash = PRIME1;
+        for (byte b : bytes) {
+            hash = round(hash, b);
+        }
+        return directory.resolve(String.format("%016x", avalanche(hash)) + SUFFIX);
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes a whole file with four independent 64-bit lanes over 32-byte stripes, so the multiplies
+     * overlap and hashing runs near memory speed.
+     */
+    static long contentHash(FileChannel channel) throws IOException {
+        ByteBuffer block = ByteBuffer.allocateDirect(HASH_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long[] words = new long[HASH_BLOCK_SIZE / 8];
+        long h0 = PRIME1 + PRIME2;
+        long h1 = PRIME2;
+        long h2 = 0;
+        long h3 = -PRIME1;
+        long length = 0;
+        int read;
+        do {
+            read = channel.read(block);
+            block.flip();
+            int count = block.remaining() / 32 * 4;
+            block.asLongBuffer().get(words, 0, count);
+            block.position(block.position() + count * 8);
+            for (int i = 0; i < count; i += 4) {
+                h0 = round(h0, words[i]);
+                h1 = round(h1, words[i + 1]);
+                h2 = round(h2, words[i + 2]);
+                h3 = round(h3, words[i + 3]);
+            }
+            length += count * 8L;
+            block.compact();
+        } while (read >= 0);
+        block.flip();
+        long hash = Long.rotateLeft(h0, 1) + Long.rotateLeft(h1, 7) + Long.rotateLeft(h2, 12) + Long.rotateLeft(h3, 18);
+        length += block.remaining();
+        while (block.hasRemaining()) {
+            hash = round(hash, block.get() & 0xFF);
+        }
+        return avalanche(hash ^ length);
+    }
+
+    private static long round(long hash, long input) {
+        return Long.rotateLeft(hash + input * PRIME2, 31) * PRIME1;
+    }
+
+    private static long avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME1;
+        return hash ^ (hash >>> 32);
+    }
+
+    /** Identifies the content of a DXF file: absolute path, size, modification time and content hash. */
+    static final class Key {
+        private final String path;
+        private final long size;
+        private final long modifiedTime;
+        private final long contentHash;
+
+        private Key(String path, long size, long modifiedTime, long contentHash) {
+            this.path = path;
+            this.size = size;
+            this.modifiedTime = modifiedTime;
+            this.contentHash = contentHash;
+        }
+
+        static Key of(Path file) throws IOException {
+            Path absolute = file.toAbsolutePath().normalize();
+            try (FileChannel channel = FileChannel.open(absolute, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long modifiedTime = Files.getLastModifiedTime(absolute).toMillis();
+                return new Key(absolute.toString(), size, modifiedTime, contentHash(channel));
+            }
+        }
+
+        /** Checks the size and modification time again, e.g. after a long parse. */
+        boolean isCurrent(Path file) throws IOException {
+            return Files.size(file) == size && Files.getLastModifiedTime(file).toMillis() == modifiedTime;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getModifiedTime() {
+            return modifiedTime;
+        }
+
+        long getContentHash() {
+            return contentHash;
+        }
+    }
+}
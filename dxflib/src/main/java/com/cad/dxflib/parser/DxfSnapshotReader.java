@@ -0,0 +1,473 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.common.AbstractDxfEntity;
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfArc;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfDimension;
+import com.cad.dxflib.entities.DxfInsert;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.entities.DxfLwPolyline;
+import com.cad.dxflib.entities.DxfSpline;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.objects.DxfDictionary;
+import com.cad.dxflib.objects.DxfScale;
+import com.cad.dxflib.structure.DxfBlock;
+import com.cad.dxflib.structure.DxfBlockRecord;
+import com.cad.dxflib.structure.DxfDimStyle;
+import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfHeader;
+import com.cad.dxflib.structure.DxfLayer;
+import com.cad.dxflib.structure.DxfLinetype;
+import com.cad.dxflib.structure.DxfSymbolTable;
+import com.cad.dxflib.structure.DxfTextStyle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rebuilds a {@link DxfDocument} from a snapshot written by {@link DxfSnapshotWriter}.
+ * Each entity page is read column by column into primitive arrays with bulk reads, then the
+ * entities are created from those arrays. Names (layers, linetypes, styles) are interned in the
+ * new document's symbol table, as the parser does.
+ */
+final class DxfSnapshotReader {
+
+    private final ByteBuffer in;
+    private final DxfDocument document = new DxfDocument();
+    private final DxfSymbolTable symbols = document.getSymbols();
+    private String[] strings;
+    private String[] names; // Interned on first use
+
+    // The pools of the entity page being read, and the read positions in them
+    private double[] doubles;
+    private int doubleIndex;
+    private int[] ints;
+    private int intIndex;
+    private int[] stringRefs;
+    private int stringIndex;
+
+    private DxfSnapshotReader(ByteBuffer in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the body of a snapshot.
+     * @param snapshot The snapshot, little-endian, positioned after the header.
+     * @param stringTableOffset The absolute position of the string table.
+     * @param columnar Whether the document stores simple model space entities in columns.
+     * @return The document.
+     * @throws IOException If the snapshot is truncated or inconsistent.
+     */
+    static DxfDocument read(ByteBuffer snapshot, long stringTableOffset, boolean columnar) throws IOException {
+        try {
+            DxfSnapshotReader reader = new DxfSnapshotReader(snapshot);
+            reader.document.setColumnarStorage(columnar);
+            return reader.readDocument(stringTableOffset);
+        } catch (RuntimeException e) {
+            // Out-of-range counts or references, or values the model rejects
+            throw new IOException("Corrupt DXF snapshot.", e);
+        }
+    }
+
+    private DxfDocument readDocument(long stringTableOffset) {
+        int bodyStart = in.position();
+        in.position(Math.toIntExact(stringTableOffset));
+        readStrings();
+        in.position(bodyStart);
+
+        readHeader();
+        readLinetypes();
+        readLayers();
+        readTextStyles();
+        readDimensionStyles();
+        readBlockRecords();
+        for (int blockCount = in.getInt(), i = 0; i < blockCount; i++) {
+            DxfBlock block = new DxfBlock(string(in.getInt()));
+            block.setBasePoint(readPoint());
+            readEntities(block);
+            document.addBlock(block);
+        }
+        readEntities(null);
+        readDictionaries();
+        readScales();
+        return document;
+    }
+
+    private void readStrings() {
+        int count = in.getInt();
+        strings = new String[count];
+        names = new String[count];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < count; i++) {
+            int length = in.getInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            in.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private String string(int id) {
+        return id < 0 ? null : strings[id];
+    }
+
+    private String name(int id) {
+        if (id < 0) {
+            return null;
+        }
+        String name = names[id];
+        if (name == null) {
+            name = symbols.intern(strings[id]);
+            names[id] = name;
+        }
+        return name;
+    }
+
+    private void readHeader() {
+        DxfHeader header = document.getHeader();
+        header.setAcadVersion(string(in.getInt()));
+        header.setCodePage(string(in.getInt()));
+        if (in.get() != 0) {
+            header.setExtMin(readPoint());
+        }
+        if (in.get() != 0) {
+            header.setExtMax(readPoint());
+        }
+        header.setInsertionUnits(in.getInt());
+        header.setLinetypeScale(in.getDouble());
+    }
+
+    private void readLinetypes() {
+        for (int count = in.getInt(), i = 0; i < count; i++) {
+            DxfLinetype linetype = new DxfLinetype(name(in.getInt()));
+            linetype.setDescription(string(in.getInt()));
+            linetype.setPatternLength(in.getDouble());
+            for (int elements = in.getInt(), j = 0; j < elements; j++) {
+                linetype.addPatternElement(in.getDouble());
+            }
+            document.addLinetype(linetype);
+        }
+    }
+
+    private void readLayers() {
+        for (int count = in.getInt(), i = 0; i < count; i++) {
+            DxfLayer layer = new DxfLayer(name(in.getInt()));
+            layer.setColor(in.getInt());
+            layer.setLinetypeName(name(in.getInt()));
+            layer.setVisible(in.get() != 0);
+            document.addLayer(layer);
+        }
+    }
+
+    private void readTextStyles() {
+        for (int count = in.getInt(), i = 0; i < count; i++) {
+            DxfTextStyle style = new DxfTextStyle(name(in.getInt()));
+            style.setFlags(in.getInt());
+            style.setFixedTextHeight(in.getDouble());
+            style.setWidthFactor(in.getDouble());
+            style.setObliqueAngle(in.getDouble());
+            style.setTextGenerationFlags(in.getInt());
+            style.setLastHeightUsed(in.getDouble());
+            style.setPrimaryFontFileName(string(in.getInt()));
+            style.setBigFontFileName(string(in.getInt()));
+            document.addTextStyle(style);
+        }
+    }
+
+    private void readDimensionStyles() {
+        for (int count = in.getInt(), i = 0; i < count; i++) {
+            DxfDimStyle style = new DxfDimStyle(name(in.getInt()));
+            style.setHandle(string(in.getInt()));
+            style.setFlags70(in.getInt());
+            style.setDimensionLineColor(in.getInt());
+            style.setExtensionLineColor(in.getInt());
+            style.setExtensionLineExtension(in.getDouble());
+            style.setExtensionLineOffset(in.getDouble());
+            style.setDimBlkName(string(in.getInt()));
+            style.setArrowSize(in.getDouble());
+            style.setTextStyleName(string(in.getInt()));
+            style.setTextColor(in.getInt());
+            style.setTextHeight(in.getDouble());
+            style.setTextGap(in.getDouble());
+            style.setDecimalPlaces(in.getInt());
+            style.setTextVerticalAlignment(in.getInt());
+            style.setTextInsideHorizontal(in.get() != 0);
+            style.setTextOutsideHorizontal(in.get() != 0);
+            style.setTextOutsideExtensions(in.get() != 0);
+            style.setSuppressFirstExtensionLine(in.get() != 0);
+            style.setSuppressSecondExtensionLine(in.get() != 0);
+            document.addDimensionStyle(style);
+        }
+    }
+
+    private void readBlockRecords() {
+        for (int count = in.getInt(), i = 0; i < count; i++) {
+            DxfBlockRecord record = new DxfBlockRecord(string(in.getInt()));
+            record.setHandle(string(in.getInt()));
+            record.setOwnerDictionaryHandle(string(in.getInt()));
+            record.setLayoutHandle(string(in.getInt()));
+            record.setXrefPathName(string(in.getInt()));
+            document.addBlockRecord(record);
+        }
+    }
+
+    private void readDictionaries() {
+        DxfDictionary[] dictionaries = new DxfDictionary[in.getInt()];
+        for (int i = 0; i < dictionaries.length; i++) {
+            DxfDictionary dictionary = new DxfDictionary();
+            dictionary.setHandle(string(in.getInt()));
+            dictionary.setOwnerHandle(string(in.getInt()));
+            dictionary.setHardOwner(in.get() != 0);
+            dictionary.setCloningFlag(in.getInt());
+            for (int entries = in.getInt(), j = 0; j < entries; j++) {
+                String entryName = string(in.getInt());
+                dictionary.addEntry(entryName, string(in.getInt()));
+            }
+            dictionaries[i] = dictionary;
+        }
+        for (int keys = in.getInt(), i = 0; i < keys; i++) {
+            String key = string(in.getInt());
+            document.addDictionary(key, dictionaries[in.getInt()]);
+        }
+    }
+
+    private void readScales() {
+        for (int count = in.getInt(), i = 0; i < count; i++) {
+            DxfScale scale = new DxfScale();
+            scale.setHandle(string(in.getInt()));
+            scale.setOwnerHandle(string(in.getInt()));
+            scale.setName(string(in.getInt()));
+            scale.setPaperUnits(in.getDouble());
+            scale.setDrawingUnits(in.getDouble());
+            scale.setUnitScale(in.get() != 0);
+            scale.setFlags(in.getInt());
+            document.addScale(scale);
+        }
+    }
+
+    /**
+     * Reads an entity list: its size, then pages of entities.
+     * @param block The block owning the entities, or null for model space.
+     */
+    private void readEntities(DxfBlock block) {
+        int total = in.getInt();
+        if (total < 0 || total > in.remaining()) {
+            throw new IllegalStateException("Invalid entity count in snapshot: " + total);
+        }
+        List<AbstractDxfEntity> list = new ArrayList<>(total);
+        while (list.size() < total) {
+            int count = in.getInt();
+            if (count <= 0 || count > total - list.size()) {
+                throw new IllegalStateException("Invalid entity page size in snapshot: " + count);
+            }
+            byte[] types = new byte[count];
+            in.get(types);
+            int[] layers = readInts(count);
+            int[] linetypes = readInts(count);
+            int[] colors = readInts(count);
+            double[] thicknesses = readDoubles(count);
+            long[] handles = readLongs(count);
+            long[] owners = readLongs(count);
+            doubles = readDoubles(in.getInt());
+            doubleIndex = 0;
+            ints = readInts(in.getInt());
+            intIndex = 0;
+            stringRefs = readInts(in.getInt());
+            stringIndex = 0;
+            int[] extras = readInts(in.getInt());
+
+            AbstractDxfEntity[] entities = new AbstractDxfEntity[count];
+            for (int i = 0; i < count; i++) {
+                AbstractDxfEntity entity = readGeometry(types[i]);
+                entity.setLayerName(name(layers[i]));
+                entity.setLinetypeName(name(linetypes[i]));
+                entity.setColor(colors[i]);
+                entity.setThickness(thicknesses[i]);
+                entity.setHandle(handles[i]);
+                entity.setOwnerHandle(owners[i]);
+                entities[i] = entity;
+            }
+            readExtras(extras, entities);
+            list.addAll(Arrays.asList(entities));
+        }
+        if (block != null) {
+            for (AbstractDxfEntity entity : list) {
+                block.addEntity(entity);
+            }
+        } else {
+            document.addEntities(list);
+        }
+    }
+
+    private AbstractDxfEntity readGeometry(byte type) {
+        switch (type) {
+            case DxfSnapshotWriter.LINE: {
+                DxfLine line = new DxfLine();
+                line.setStartPoint(nextPoint());
+                line.setEndPoint(nextPoint());
+                return line;
+            }
+            case DxfSnapshotWriter.CIRCLE: {
+                DxfCircle circle = new DxfCircle();
+                circle.setCenter(nextPoint());
+                circle.setRadius(nextDouble());
+                return circle;
+            }
+            case DxfSnapshotWriter.ARC: {
+                DxfArc arc = new DxfArc();
+                arc.setCenter(nextPoint());
+                arc.setRadius(nextDouble());
+                arc.setStartAngle(nextDouble());
+                arc.setEndAngle(nextDouble());
+                return arc;
+            }
+            case DxfSnapshotWriter.LWPOLYLINE: {
+                DxfLwPolyline polyline = new DxfLwPolyline();
+                int vertexCount = nextInt();
+                int flags = nextInt();
+                polyline.setClosed((flags & DxfSnapshotWriter.LWPOLYLINE_CLOSED) != 0);
+                polyline.setElevation(nextDouble());
+                polyline.setConstantWidth(nextDouble());
+                polyline.ensureCapacity(vertexCount);
+                boolean widths = (flags & DxfSnapshotWriter.LWPOLYLINE_WIDTHS) != 0;
+                for (int i = 0; i < vertexCount; i++) {
+                    double x = nextDouble();
+                    double y = nextDouble();
+                    double bulge = nextDouble();
+                    if (widths) {
+                        polyline.addVertex(x, y, bulge, nextDouble(), nextDouble());
+                    } else {
+                        polyline.addVertex(x, y, bulge);
+                    }
+                }
+                return polyline;
+            }
+            case DxfSnapshotWriter.TEXT: {
+                DxfText text = new DxfText();
+                text.setInsertionPoint(nextPoint());
+                text.setHeight(nextDouble());
+                text.setRotationAngle(nextDouble());
+                text.setTextValue(string(stringRefs[stringIndex++]));
+                text.setStyleName(name(stringRefs[stringIndex++]));
+                return text;
+            }
+            case DxfSnapshotWriter.INSERT: {
+                DxfInsert insert = new DxfInsert();
+                insert.setInsertionPoint(nextPoint());
+                insert.setXScale(nextDouble());
+                insert.setYScale(nextDouble());
+                insert.setRotationAngle(nextDouble());
+                insert.setBlockName(string(stringRefs[stringIndex++]));
+                return insert;
+            }
+            case DxfSnapshotWriter.DIMENSION: {
+                DxfDimension dimension = new DxfDimension();
+                dimension.setDefinitionPoint(nextPoint());
+                dimension.setMiddleOfTextPoint(nextPoint());
+                dimension.setLinearPoint1(nextPoint());
+                dimension.setLinearPoint2(nextPoint());
+                dimension.setExtrusionDirection(nextPoint());
+                dimension.setRotationAngle(nextDouble());
+                dimension.setDimensionTypeFlags(nextInt());
+                dimension.setDimensionText(string(stringRefs[stringIndex++]));
+                dimension.setDimensionStyleName(name(stringRefs[stringIndex++]));
+                dimension.setBlockName(string(stringRefs[stringIndex++]));
+                return dimension;
+            }
+            case DxfSnapshotWriter.SPLINE: {
+                DxfSpline spline = new DxfSpline();
+                spline.setFlags(nextInt());
+                spline.setDegree(nextInt());
+                spline.setNumberOfKnots(nextInt());
+                spline.setNumberOfControlPoints(nextInt());
+                spline.setNumberOfFitPoints(nextInt());
+                int knots = nextInt();
+                int controlPoints = nextInt();
+                int fitPoints = nextInt();
+                spline.setNormalVector(nextPoint());
+                spline.setKnotTolerance(nextDouble());
+                spline.setControlPointTolerance(nextDouble());
+                spline.setFitTolerance(nextDouble());
+                for (int i = 0; i < knots; i++) {
+                    spline.addKnot(nextDouble());
+                }
+                for (int i = 0; i < controlPoints; i++) {
+                    spline.addControlPoint(nextPoint());
+                }
+                for (int i = 0; i < fitPoints; i++) {
+                    spline.addFitPoint(nextPoint());
+                }
+                return spline;
+            }
+            default:
+                throw new IllegalStateException("Unknown entity type in snapshot: " + type);
+        }
+    }
+
+    private void readExtras(int[] extras, AbstractDxfEntity[] entities) {
+        int i = 0;
+        while (i < extras.length) {
+            AbstractDxfEntity entity = entities[extras[i++]];
+            for (int applications = extras[i++]; applications > 0; applications--) {
+                String application = string(extras[i++]);
+                int groupCount = extras[i++];
+                List<DxfGroupCode> groupCodes = new ArrayList<>(groupCount);
+                for (int j = 0; j < groupCount; j++) {
+                    int code = extras[i++];
+                    groupCodes.add(new DxfGroupCode(code, string(extras[i++])));
+                }
+                entity.addXData(application, groupCodes);
+            }
+            for (int reactors = extras[i++]; reactors > 0; reactors--) {
+                entity.addReactorHandle(string(extras[i++]));
+            }
+        }
+    }
+
+    private double nextDouble() {
+        return doubles[doubleIndex++];
+    }
+
+    private int nextInt() {
+        return ints[intIndex++];
+    }
+
+    private Point3D nextPoint() {
+        Point3D point = new Point3D(doubles[doubleIndex], doubles[doubleIndex + 1], doubles[doubleIndex + 2]);
+        doubleIndex += 3;
+        return point;
+    }
+
+    private Point3D readPoint() {
+        return new Point3D(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    // Bulk reads: one copy per column
+
+    private int[] readInts(int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * 4);
+        return values;
+    }
+
+    private long[] readLongs(int count) {
+        long[] values = new long[count];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + count * 8);
+        return values;
+    }
+
+    private double[] readDoubles(int count) {
+        double[] values = new double[count];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + count * 8);
+        return values;
+    }
+}
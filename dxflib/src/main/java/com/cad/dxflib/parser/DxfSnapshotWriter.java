@@ -0,0 +1,627 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.common.AbstractDxfEntity;
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfArc;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfDimension;
+import com.cad.dxflib.entities.DxfInsert;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.entities.DxfLwPolyline;
+import com.cad.dxflib.entities.DxfSpline;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.objects.DxfDictionary;
+import com.cad.dxflib.objects.DxfScale;
+import com.cad.dxflib.structure.DxfBlock;
+import com.cad.dxflib.structure.DxfBlockRecord;
+import com.cad.dxflib.structure.DxfDimStyle;
+import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfEntityColumns;
+import com.cad.dxflib.structure.DxfHeader;
+import com.cad.dxflib.structure.DxfLayer;
+import com.cad.dxflib.structure.DxfLinetype;
+import com.cad.dxflib.structure.DxfTextStyle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link DxfDocument} in the snapshot format read by {@link DxfSnapshotReader}.
+ * <p>
+ * Layout (little-endian): a fixed header with the magic number, {@link DxfSnapshotCache#FORMAT_VERSION},
+ * the source file key and the offset of the string table; then the header variables, the tables, the blocks, the model space
+ * entities and the objects; then the string table. Strings are written once and referenced by index.
+ * An entity list is its size followed by pages of up to {@link #PAGE_SIZE} entities, stored column by column (types, layers,
+ * colors, handles, ..., then one pool each of doubles, ints and string references), so the reader fills
+ * whole primitive arrays with single bulk reads.
+ */
+final class DxfSnapshotWriter {
+
+    static final long MAGIC = 0x0050414E53465844L; // "DXFSNAP\0" as little-endian bytes
+    static final int HEADER_SIZE = 8 + 4 + 8 + 8 + 8 + 8 + 4; // Magic, version, size, mtime, hash, string table, path length
+    static final int PAGE_SIZE = 1 << 16;
+
+    // Entity type tags; the values are part of the format
+    static final byte LINE = 1;
+    static final byte CIRCLE = 2;
+    static final byte ARC = 3;
+    static final byte LWPOLYLINE = 4;
+    static final byte TEXT = 5;
+    static final byte INSERT = 6;
+    static final byte DIMENSION = 7;
+    static final byte SPLINE = 8;
+
+    // LWPOLYLINE flags; the values are part of the format
+    static final int LWPOLYLINE_CLOSED = 1;
+    static final int LWPOLYLINE_WIDTHS = 2; // Each vertex is followed by its start and end widths
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long flushed;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final EntityPage page = new EntityPage();
+
+    private DxfSnapshotWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a snapshot of a document to a channel positioned at its start.
+     * @param document The document. Lazy documents are loaded completely first.
+     * @param key The key of the file the document was parsed from.
+     * @param channel The channel to write to.
+     * @throws IOException If the channel cannot be written or the document holds an entity the format does not cover.
+     */
+    static void write(DxfDocument document, DxfSnapshotCache.Key key, FileChannel channel) throws IOException {
+        document.loadAllSections();
+        new DxfSnapshotWriter(channel).writeDocument(document, key);
+    }
+
+    private void writeDocument(DxfDocument document, DxfSnapshotCache.Key key) throws IOException {
+        byte[] path = key.getPath().getBytes(StandardCharsets.UTF_8);
+        buffer.putLong(MAGIC);
+        buffer.putInt(DxfSnapshotCache.FORMAT_VERSION);
+        buffer.putLong(key.getSize());
+        buffer.putLong(key.getModifiedTime());
+        buffer.putLong(key.getContentHash());
+        buffer.putLong(0L); // String table offset, patched at the end
+        buffer.putInt(path.length);
+        putBytes(path);
+
+        writeHeader(document.getHeader());
+        writeLinetypes(document.getLinetypes().values());
+        writeLayers(document.getLayers().values());
+        writeTextStyles(document.getTextStyles().values());
+        writeDimensionStyles(document.getDimensionStyles().values());
+        writeBlockRecords(document.getBlockRecords().values());
+        putInt(document.getBlocks().size());
+        for (DxfBlock block : document.getBlocks().values()) {
+            putInt(stringId(block.getName()));
+            putPoint(block.getBasePoint());
+            writeEntities(block.getEntities());
+        }
+        writeEntities(document.getModelSpaceEntities());
+        writeDictionaries(document.getDictionaries());
+        writeScales(document.getScales().values());
+
+        long stringTableOffset = position();
+        putInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+        flush();
+        ByteBuffer offset = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, stringTableOffset);
+        channel.write(offset, 8 + 4 + 8 + 8 + 8);
+    }
+
+    private void writeHeader(DxfHeader header) throws IOException {
+        putInt(stringId(header.getAcadVersion()));
+        putInt(stringId(header.getCodePage()));
+        putBoolean(header.getExtMin() != null);
+        if (header.getExtMin() != null) {
+            putPoint(header.getExtMin());
+        }
+        putBoolean(header.getExtMax() != null);
+        if (header.getExtMax() != null) {
+            putPoint(header.getExtMax());
+        }
+        putInt(header.getInsertionUnits());
+        putDouble(header.getLinetypeScale());
+    }
+
+    private void writeLinetypes(Collection<DxfLinetype> linetypes) throws IOException {
+        putInt(linetypes.size());
+        for (DxfLinetype linetype : linetypes) {
+            putInt(stringId(linetype.getName()));
+            putInt(stringId(linetype.getDescription()));
+            putDouble(linetype.getPatternLength());
+            List<Double> elements = linetype.getPatternElements();
+            putInt(elements.size());
+            for (double element : elements) {
+                putDouble(element);
+            }
+        }
+    }
+
+    private void writeLayers(Collection<DxfLayer> layers) throws IOException {
+        putInt(layers.size());
+        for (DxfLayer layer : layers) {
+            putInt(stringId(layer.getName()));
+            putInt(layer.getColor());
+            putInt(stringId(layer.getLinetypeName()));
+            putBoolean(layer.isVisible());
+        }
+    }
+
+    private void writeTextStyles(Collection<DxfTextStyle> styles) throws IOException {
+        putInt(styles.size());
+        for (DxfTextStyle style : styles) {
+            putInt(stringId(style.getName()));
+            putInt(style.getFlags());
+            putDouble(style.getFixedTextHeight());
+            putDouble(style.getWidthFactor());
+            putDouble(style.getObliqueAngle());
+            putInt(style.getTextGenerationFlags());
+            putDouble(style.getLastHeightUsed());
+            putInt(stringId(style.getPrimaryFontFileName()));
+            putInt(stringId(style.getBigFontFileName()));
+        }
+    }
+
+    private void writeDimensionStyles(Collection<DxfDimStyle> styles) throws IOException {
+        putInt(styles.size());
+        for (DxfDimStyle style : styles) {
+            putInt(stringId(style.getName()));
+            putInt(stringId(style.getHandle()));
+            putInt(style.getFlags70());
+            putInt(style.getDimensionLineColor());
+            putInt(style.getExtensionLineColor());
+            putDouble(style.getExtensionLineExtension());
+            putDouble(style.getExtensionLineOffset());
+            putInt(stringId(style.getDimBlkName()));
+            putDouble(style.getArrowSize());
+            putInt(stringId(style.getTextStyleName()));
+            putInt(style.getTextColor());
+            putDouble(style.getTextHeight());
+            putDouble(style.getTextGap());
+            putInt(style.getDecimalPlaces());
+            putInt(style.getTextVerticalAlignment());
+            putBoolean(style.isTextInsideHorizontal());
+            putBoolean(style.isTextOutsideHorizontal());
+            putBoolean(style.isTextOutsideExtensions());
+            putBoolean(style.isSuppressFirstExtensionLine());
+            putBoolean(style.isSuppressSecondExtensionLine());
+        }
+    }
+
+    private void writeBlockRecords(Collection<DxfBlockRecord> records) throws IOException {
+        putInt(records.size());
+        for (DxfBlockRecord record : records) {
+            putInt(stringId(record.getName()));
+            putInt(stringId(record.getHandle()));
+            putInt(stringId(record.getOwnerDictionaryHandle()));
+            putInt(stringId(record.getLayoutHandle()));
+            putInt(stringId(record.getXrefPathName()));
+        }
+    }
+
+    private void writeDictionaries(Map<String, DxfDictionary> dictionaries) throws IOException {
+        // A dictionary may be registered under both its handle and a well-known name: store it once
+        Map<DxfDictionary, Integer> ids = new IdentityHashMap<>();
+        List<DxfDictionary> unique = new ArrayList<>();
+        for (DxfDictionary dictionary : dictionaries.values()) {
+            if (ids.putIfAbsent(dictionary, unique.size()) == null) {
+                unique.add(dictionary);
+            }
+        }
+        putInt(unique.size());
+        for (DxfDictionary dictionary : unique) {
+            putInt(stringId(dictionary.getHandle()));
+            putInt(stringId(dictionary.getOwnerHandle()));
+            putBoolean(dictionary.isHardOwner());
+            putInt(dictionary.getCloningFlag());
+            putInt(dictionary.getEntries().size());
+            for (Map.Entry<String, String> entry : dictionary.getEntries().entrySet()) {
+                putInt(stringId(entry.getKey()));
+                putInt(stringId(entry.getValue()));
+            }
+        }
+        putInt(dictionaries.size());
+        for (Map.Entry<String, DxfDictionary> entry : dictionaries.entrySet()) {
+            putInt(stringId(entry.getKey()));
+            putInt(ids.get(entry.getValue()));
+        }
+    }
+
+    private void writeScales(Collection<DxfScale> scales) throws IOException {
+        putInt(scales.size());
+        for (DxfScale scale : scales) {
+            putInt(stringId(scale.getHandle()));
+            putInt(stringId(scale.getOwnerHandle()));
+            putInt(stringId(scale.getName()));
+            putDouble(scale.getPaperUnits());
+            putDouble(scale.getDrawingUnits());
+            putBoolean(scale.isUnitScale());
+            putInt(scale.getFlags());
+        }
+    }
+
+    private void writeEntities(List<DxfEntity> entities) throws IOException {
+        putInt(entities.size());
+        for (DxfEntity entity : entities) {
+            page.add(entity);
+            if (page.count == PAGE_SIZE) {
+                writePage();
+            }
+        }
+        if (page.count > 0) {
+            writePage();
+        }
+    }
+
+    private void writePage() throws IOException {
+        EntityPage p = page;
+        putInt(p.count);
+        putBytes(p.types, p.count);
+        putInts(p.layers, p.count);
+        putInts(p.linetypes, p.count);
+        putInts(p.colors, p.count);
+        putDoubles(p.thicknesses, p.count);
+        putLongs(p.handles, p.count);
+        putLongs(p.owners, p.count);
+        putInt(p.doubleCount);
+        putDoubles(p.doubles, p.doubleCount);
+        putInt(p.intCount);
+        putInts(p.ints, p.intCount);
+        putInt(p.stringCount);
+        putInts(p.strings, p.stringCount);
+        putInt(p.extraCount);
+        putInts(p.extras, p.extraCount);
+        p.clear();
+    }
+
+    private int stringId(String string) {
+        if (string == null) {
+            return -1;
+        }
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(string, id);
+            strings.add(string);
+        }
+        return id;
+    }
+
+    /** The columns of one page of entities, reused from page to page. */
+    private final class EntityPage {
+        int count;
+        final byte[] types = new byte[PAGE_SIZE];
+        final int[] layers = new int[PAGE_SIZE];
+        final int[] linetypes = new int[PAGE_SIZE];
+        final int[] colors = new int[PAGE_SIZE];
+        final double[] thicknesses = new double[PAGE_SIZE];
+        final long[] handles = new long[PAGE_SIZE];
+        final long[] owners = new long[PAGE_SIZE];
+        double[] doubles = new double[PAGE_SIZE * 4];
+        int doubleCount;
+        int[] ints = new int[256];
+        int intCount;
+        int[] strings = new int[256];
+        int stringCount;
+        // XDATA and reactors: entity index, application count, per application its name, group count
+        // and (code, value) pairs, then the reactor count and reactor handles. Only for entities having some.
+        int[] extras = new int[256];
+        int extraCount;
+
+        void add(DxfEntity entity) throws IOException {
+            if (!(entity instanceof AbstractDxfEntity)) {
+                throw new IOException("Cannot snapshot entity class " + entity.getClass().getName());
+            }
+            AbstractDxfEntity e = (AbstractDxfEntity) entity;
+            types[count] = typeOf(e);
+            layers[count] = stringId(e.getLayerName());
+            linetypes[count] = stringId(e.getLinetypeName());
+            colors[count] = e.getColor();
+            thicknesses[count] = e.getThickness();
+            handles[count] = e.getHandle();
+            owners[count] = e.getOwnerHandle();
+            addGeometry(e);
+            Map<String, List<DxfGroupCode>> xdata = e.getXData();
+            List<String> reactors = e.getReactorHandles();
+            if (!xdata.isEmpty() || !reactors.isEmpty()) {
+                addExtra(count);
+                addExtra(xdata.size());
+                for (Map.Entry<String, List<DxfGroupCode>> application : xdata.entrySet()) {
+                    addExtra(stringId(application.getKey()));
+                    addExtra(application.getValue().size());
+                    for (DxfGroupCode groupCode : application.getValue()) {
+                        addExtra(groupCode.code);
+                        addExtra(stringId(groupCode.value));
+                    }
+                }
+                addExtra(reactors.size());
+                for (String reactor : reactors) {
+                    addExtra(stringId(reactor));
+                }
+            }
+            count++;
+        }
+
+        private void addGeometry(AbstractDxfEntity entity) {
+            switch (types[count]) {
+                case LINE: {
+                    DxfLine line = (DxfLine) entity;
+                    addPoint(line.getStartPoint());
+                    addPoint(line.getEndPoint());
+                    break;
+                }
+                case CIRCLE: {
+                    DxfCircle circle = (DxfCircle) entity;
+                    addPoint(circle.getCenter());
+                    addDouble(circle.getRadius());
+                    break;
+                }
+                case ARC: {
+                    DxfArc arc = (DxfArc) entity;
+                    addPoint(arc.getCenter());
+                    addDouble(arc.getRadius());
+                    addDouble(arc.getStartAngle());
+                    addDouble(arc.getEndAngle());
+                    break;
+                }
+                case LWPOLYLINE: {
+                    DxfLwPolyline polyline = (DxfLwPolyline) entity;
+                    int vertexCount = polyline.getNumberOfVertices();
+                    boolean widths = polyline.hasVertexWidths();
+                    addInt(vertexCount);
+                    addInt((polyline.isClosed() ? LWPOLYLINE_CLOSED : 0) | (widths ? LWPOLYLINE_WIDTHS : 0));
+                    addDouble(polyline.getElevation());
+                    addDouble(polyline.getConstantWidth());
+                    for (int i = 0; i < vertexCount; i++) {
+                        addDouble(polyline.getX(i));
+                        addDouble(polyline.getY(i));
+                        addDouble(polyline.getBulge(i));
+                        if (widths) {
+                            addDouble(polyline.getStartWidth(i));
+                            addDouble(polyline.getEndWidth(i));
+                        }
+                    }
+                    break;
+                }
+                case TEXT: {
+                    DxfText text = (DxfText) entity;
+                    addPoint(text.getInsertionPoint());
+                    addDouble(text.getHeight());
+                    addDouble(text.getRotationAngle());
+                    addString(text.getTextValue());
+                    addString(text.getStyleName());
+                    break;
+                }
+                case INSERT: {
+                    DxfInsert insert = (DxfInsert) entity;
+                    addPoint(insert.getInsertionPoint());
+                    addDouble(insert.getXScale());
+                    addDouble(insert.getYScale());
+                    addDouble(insert.getRotationAngle());
+                    addString(insert.getBlockName());
+                    break;
+                }
+                case DIMENSION: {
+                    DxfDimension dimension = (DxfDimension) entity;
+                    addPoint(dimension.getDefinitionPoint());
+                    addPoint(dimension.getMiddleOfTextPoint());
+                    addPoint(dimension.getLinearPoint1());
+                    addPoint(dimension.getLinearPoint2());
+                    addPoint(dimension.getExtrusionDirection());
+                    addDouble(dimension.getRotationAngle());
+                    addInt(dimension.getDimensionTypeFlags());
+                    addString(dimension.getDimensionText());
+                    addString(dimension.getDimensionStyleName());
+                    addString(dimension.getBlockName());
+                    break;
+                }
+                case SPLINE: {
+                    DxfSpline spline = (DxfSpline) entity;
+                    addInt(spline.getFlags());
+                    addInt(spline.getDegree());
+                    addInt(spline.getNumberOfKnots());
+                    addInt(spline.getNumberOfControlPoints());
+                    addInt(spline.getNumberOfFitPoints());
+                    addInt(spline.getKnots().size());
+                    addInt(spline.getControlPoints().size());
+                    addInt(spline.getFitPoints().size());
+                    addPoint(spline.getNormalVector());
+                    addDouble(spline.getKnotTolerance());
+                    addDouble(spline.getControlPointTolerance());
+                    addDouble(spline.getFitTolerance());
+                    for (double knot : spline.getKnots()) {
+                        addDouble(knot);
+                    }
+                    for (Point3D point : spline.getControlPoints()) {
+                        addPoint(point);
+                    }
+                    for (Point3D point : spline.getFitPoints()) {
+                        addPoint(point);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unhandled snapshot type " + types[count]);
+            }
+        }
+
+        private byte typeOf(AbstractDxfEntity entity) throws IOException {
+            if (DxfEntityColumns.isRowView(entity)) {
+                // Column rows hold plain lines, circles and arcs; they come back as rows if the reader stores columns
+                switch (entity.getType()) {
+                    case LINE: return LINE;
+                    case CIRCLE: return CIRCLE;
+                    default: return ARC;
+                }
+            }
+            // Exact classes only: a subclass would come back as its base class
+            Class<?> type = entity.getClass();
+            if (type == DxfLine.class) {
+                return LINE;
+            } else if (type == DxfCircle.class) {
+                return CIRCLE;
+            } else if (type == DxfArc.class) {
+                return ARC;
+            } else if (type == DxfLwPolyline.class) {
+                return LWPOLYLINE;
+            } else if (type == DxfText.class) {
+                return TEXT;
+            } else if (type == DxfInsert.class) {
+                return INSERT;
+            } else if (type == DxfDimension.class) {
+                return DIMENSION;
+            } else if (type == DxfSpline.class) {
+                return SPLINE;
+            }
+            throw new IOException("Cannot snapshot entity class " + type.getName());
+        }
+
+        private void addPoint(Point3D point) {
+            addDouble(point.x);
+            addDouble(point.y);
+            addDouble(point.z);
+        }
+
+        private void addDouble(double value) {
+            if (doubleCount == doubles.length) {
+                doubles = Arrays.copyOf(doubles, doubles.length * 2);
+            }
+            doubles[doubleCount++] = value;
+        }
+
+        private void addInt(int value) {
+            if (intCount == ints.length) {
+                ints = Arrays.copyOf(ints, ints.length * 2);
+            }
+            ints[intCount++] = value;
+        }
+
+        private void addString(String value) {
+            if (stringCount == strings.length) {
+                strings = Arrays.copyOf(strings, strings.length * 2);
+            }
+            strings[stringCount++] = stringId(value);
+        }
+
+        private void addExtra(int value) {
+            if (extraCount == extras.length) {
+                extras = Arrays.copyOf(extras, extras.length * 2);
+            }
+            extras[extraCount++] = value;
+        }
+
+        void clear() {
+            count = 0;
+            doubleCount = 0;
+            intCount = 0;
+            stringCount = 0;
+            extraCount = 0;
+        }
+    }
+
+    // Buffered output
+
+    private long position() {
+        return flushed + buffer.position();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushed += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    private void putDouble(double value) throws IOException {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    private void putBoolean(boolean value) throws IOException {
+        ensure(1);
+        buffer.put(value ? (byte) 1 : (byte) 0);
+    }
+
+    private void putPoint(Point3D point) throws IOException {
+        putDouble(point.x);
+        putDouble(point.y);
+        putDouble(point.z);
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        putBytes(bytes, bytes.length);
+    }
+
+    private void putBytes(byte[] values, int length) throws IOException {
+        for (int done = 0; done < length; ) {
+            ensure(1);
+            int n = Math.min(buffer.remaining(), length - done);
+            buffer.put(values, done, n);
+            done += n;
+        }
+    }
+
+    private void putInts(int[] values, int length) throws IOException {
+        for (int done = 0; done < length; ) {
+            ensure(4);
+            int n = Math.min(buffer.remaining() / 4, length - done);
+            buffer.asIntBuffer().put(values, done, n);
+            buffer.position(buffer.position() + n * 4);
+            done += n;
+        }
+    }
+
+    private void putLongs(long[] values, int length) throws IOException {
+        for (int done = 0; done < length; ) {
+            ensure(8);
+            int n = Math.min(buffer.remaining() / 8, length - done);
+            buffer.asLongBuffer().put(values, done, n);
+            buffer.position(buffer.position() + n * 8);
+            done += n;
+        }
+    }
+
+    private void putDoubles(double[] values, int length) throws IOException {
+        for (int done = 0; done < length; ) {
+            ensure(8);
+            int n = Math.min(buffer.remaining() / 8, length - done);
+            buffer.asDoubleBuffer().put(values, done, n);
+            buffer.position(buffer.position() + n * 8);
+            done += n;
+        }
+    }
+}
@@ -0,0 +1,820 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.structure.DxfSymbolTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads DXF group code/value pairs directly from bytes.
+ * A single reusable buffer backs the tokenizer: the current group code is exposed as an {@code int}
+ * and the value as a trimmed byte slice, so walking a file does not allocate per pair.
+ * Strings and numbers are only produced when a parser asks for them.
+ * <p>
+ * Binary DXF is detected from the "AutoCAD Binary DXF" sentinel at the start of the input. Its pairs are
+ * little-endian group codes followed by zero-terminated strings or raw IEEE doubles and integers; numeric
+ * values are returned as read, and are only rendered as text if a caller asks for the string form.
+ */
+public class DxfTokenizer implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] BINARY_SENTINEL = "AutoCAD Binary DXF\r\n\u001a\u0000".getBytes(StandardCharsets.ISO_8859_1);
+    // Value encodings of binary DXF, by group code range
+    static final int BINARY_STRING = 0;
+    static final int BINARY_DOUBLE = 1;
+    static final int BINARY_INT16 = 2;
+    static final int BINARY_INT32 = 3;
+    static final int BINARY_INT64 = 4;
+    static final int BINARY_BOOLEAN = 5;
+    static final int BINARY_CHUNK = 6;
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final InputStream inputStream;
+    private final ByteBuffer source;
+    private final int sourceStart; // The source's position at construction, input offset 0
+    private Charset charset;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+    private boolean endOfInput;
+    private long bufferOffset; // Input offset of buffer[0]
+    private long lineStartOffset;
+    private long pairStartOffset;
+    private long pairEndOffset;
+
+    private byte[] lineBytes = new byte[128];
+    private byte[] valueBytes = new byte[128];
+    private int valueStart;
+    private int valueEnd;
+    private int code;
+    private boolean hasCurrent;
+
+    private boolean formatDetected;
+    private boolean binary;
+    private boolean twoByteGroupCodes;
+    private final byte[] scratch = new byte[8];
+    private boolean numericValue; // Binary only: the value was read as a number
+    private boolean textPending; // Binary only: valueBytes does not hold the number's text yet
+    private double doubleValue;
+    private long longValue;
+    private boolean integerValue;
+
+    /**
+     * Creates a tokenizer that decodes string values with the platform default charset,
+     * matching the behaviour of an {@link java.io.InputStreamReader} without an explicit charset.
+     * @param inputStream The stream to read. It is closed by {@link #close()}.
+     */
+    public DxfTokenizer(InputStream inputStream) {
+        this(inputStream, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a tokenizer that decodes non-ASCII string values with the given charset.
+     * @param inputStream The stream to read. It is closed by {@link #close()}.
+     * @param charset The charset used to decode string values.
+     */
+    public DxfTokenizer(InputStream inputStream, Charset charset) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("InputStream cannot be null.");
+        }
+        this.inputStream = inputStream;
+        this.source = null;
+        this.sourceStart = 0;
+        this.charset = charset != null ? charset : Charset.defaultCharset();
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a tokenizer over an in-memory or memory-mapped buffer, reading from its position to its limit.
+     * Bytes are copied out in bulk chunks; no stream or charset decoder sits in between.
+     * @param source The buffer to read. Its position is advanced as pairs are consumed.
+     * @param charset The charset used to decode non-ASCII string values.
+     */
+    public DxfTokenizer(ByteBuffer source, Charset charset) {
+        if (source == null) {
+            throw new IllegalArgumentException("ByteBuffer cannot be null.");
+        }
+        this.inputStream = null;
+        this.source = source;
+        this.sourceStart = source.position();
+        this.charset = charset != null ? charset : Charset.defaultCharset();
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Gets the charset used to decode non-ASCII string values.
+     * @return The current charset.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Changes the charset used to decode non-ASCII string values, e.g. once $DWGCODEPAGE is known.
+     * ASCII values are unaffected, so this can be switched mid-file.
+     * @param charset The new charset. Ignored if null.
+     */
+    public void setCharset(Charset charset) {
+        if (charset != null) {
+            this.charset = charset;
+        }
+    }
+
+    /**
+     * Advances to the next group code/value pair.
+     * @return true if a pair was read, false at end of input.
+     * @throws IOException If the underlying stream fails.
+     * @throws DxfParserException If the group code is not an integer or its value line is missing.
+     */
+    public boolean next() throws IOException, DxfParserException {
+        if (!formatDetected) {
+            detectFormat();
+        }
+        if (binary) {
+            return nextBinary();
+        }
+        int codeLength = readLine();
+        if (codeLength < 0) {
+            hasCurrent = false;
+            return false;
+        }
+        long codeLineOffset = lineStartOffset;
+        int codeStart = trimStart(lineBytes, 0, codeLength);
+        int codeEnd = trimEnd(lineBytes, codeStart, codeLength);
+        int parsedCode = parseCode(lineBytes, codeStart, codeEnd);
+
+        byte[] swap = valueBytes;
+        valueBytes = lineBytes;
+        lineBytes = swap;
+        int valueLength = readLine();
+        if (valueLength < 0) {
+            hasCurrent = false;
+            throw new DxfParserException("Premature EOF: Expected value after group code "
+                    + new String(valueBytes, codeStart, codeEnd - codeStart, StandardCharsets.ISO_8859_1));
+        }
+        swap = valueBytes;
+        valueBytes = lineBytes;
+        lineBytes = swap;
+
+        code = parsedCode;
+        pairStartOffset = codeLineOffset;
+        pairEndOffset = bufferOffset + position;
+        valueStart = trimStart(valueBytes, 0, valueLength);
+        valueEnd = trimEnd(valueBytes, valueStart, valueLength);
+        hasCurrent = true;
+        return true;
+    }
+
+    /**
+     * Checks whether {@link #slice(long, long)} can hand out ranges of the input.
+     * @return true if the tokenizer reads a buffer rather than a stream.
+     */
+    boolean canSlice() {
+        return source != null;
+    }
+
+    /**
+     * Creates a buffer over a range of the input without copying it, e.g. to parse those pairs on another thread.
+     * The range may have been consumed already; the buffer is independent of this tokenizer's position.
+     * @param start The input offset of the first byte, see {@link #getPairStartOffset()}.
+     * @param end The input offset following the last byte, see {@link #getPairEndOffset()}.
+     * @return The buffer, or null if the tokenizer reads a stream.
+     */
+    ByteBuffer slice(long start, long end) {
+        if (source == null) {
+            return null;
+        }
+        ByteBuffer slice = source.duplicate();
+        slice.limit(sourceStart + (int) end);
+        slice.position(sourceStart + (int) start);
+        return slice;
+    }
+
+    /**
+     * Checks whether the input is binary DXF. Only meaningful once {@link #next()} has been called.
+     * @return true if the input started with the binary DXF sentinel.
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Reads the input as binary DXF without looking for the sentinel, e.g. for a slice of a binary file.
+     * @param twoByteCodes true for 2-byte group codes (AutoCAD R13 and later), false for 1-byte codes.
+     */
+    void assumeBinary(boolean twoByteCodes) {
+        this.formatDetected = true;
+        this.binary = true;
+        this.twoByteGroupCodes = twoByteCodes;
+    }
+
+    /**
+     * Checks whether binary group codes are 2 bytes wide.
+     * @return true for 2-byte group codes.
+     */
+    boolean hasTwoByteGroupCodes() {
+        return twoByteGroupCodes;
+    }
+
+    /**
+     * Checks whether the tokenizer is positioned on a group code/value pair.
+     * @return true if {@link #next()} last returned true.
+     */
+    public boolean hasCurrent() {
+        return hasCurrent;
+    }
+
+    /**
+     * Gets the current group code.
+     * @return The group code of the current pair.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the input offset of the current pair's group code line, counted in bytes from where the
+     * tokenizer started reading (the stream start, or the buffer's position at construction).
+     * @return The offset of the first byte of the current pair.
+     */
+    public long getPairStartOffset() {
+        return pairStartOffset;
+    }
+
+    /**
+     * Gets the input offset just past the current pair's value line terminator.
+     * For a "\r\n" terminator the "\n" may not be included yet.
+     * @return The offset following the last byte of the current pair.
+     */
+    public long getPairEndOffset() {
+        return pairEndOffset;
+    }
+
+    /**
+     * Gets the buffer holding the current value. Only the range
+     * [{@link #getValueOffset()}, {@link #getValueOffset()} + {@link #getValueLength()}) is meaningful,
+     * and the content is overwritten by the next call to {@link #next()}.
+     * @return The reusable value buffer.
+     */
+    public byte[] getValueBuffer() {
+        if (textPending) {
+            renderNumericValue();
+        }
+        return valueBytes;
+    }
+
+    /**
+     * Gets the offset of the trimmed value in {@link #getValueBuffer()}.
+     * @return The value offset.
+     */
+    public int getValueOffset() {
+        if (textPending) {
+            renderNumericValue();
+        }
+        return valueStart;
+    }
+
+    /**
+     * Gets the length of the trimmed value in {@link #getValueBuffer()}.
+     * @return The value length.
+     */
+    public int getValueLength() {
+        if (textPending) {
+            renderNumericValue();
+        }
+        return valueEnd - valueStart;
+    }
+
+    /**
+     * Decodes the current value as a String. ASCII values skip the charset decoder.
+     * @return The trimmed value.
+     */
+    public String getStringValue() {
+        if (textPending) {
+            renderNumericValue();
+        }
+        for (int i = valueStart; i < valueEnd; i++) {
+            if (valueBytes[i] < 0) {
+                return new String(valueBytes, valueStart, valueEnd - valueStart, charset);
+            }
+        }
+        return new String(valueBytes, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Gets the current value as the symbol table's canonical instance, for names that repeat across
+     * entities such as layers and linetypes. ASCII values that are already interned do not allocate.
+     * @param symbols The table to intern into.
+     * @return The interned value.
+     */
+    public String getStringValue(DxfSymbolTable symbols) {
+        if (textPending) {
+            renderNumericValue();
+        }
+        for (int i = valueStart; i < valueEnd; i++) {
+            if (valueBytes[i] < 0) {
+                return symbols.intern(new String(valueBytes, valueStart, valueEnd - valueStart, charset));
+            }
+        }
+        return symbols.intern(valueBytes, valueStart, valueEnd - valueStart);
+    }
+
+    /**
+     * Compares the current value with an ASCII literal, ignoring case, without allocating.
+     * @param literal The ASCII text to compare with.
+     * @return true if the value matches the literal.
+     */
+    public boolean valueEqualsIgnoreCase(String literal) {
+        if (textPending) {
+            renderNumericValue();
+        }
+        int length = valueEnd - valueStart;
+        if (literal.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int a = valueBytes[valueStart + i];
+            int b = literal.charAt(i);
+            if (a != b && toUpperAscii(a) != toUpperAscii(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the current value with an ASCII literal, respecting case, without allocating.
+     * @param literal The ASCII text to compare with.
+     * @return true if the value matches the literal exactly.
+     */
+    public boolean valueEquals(String literal) {
+        if (textPending) {
+            renderNumericValue();
+        }
+        int length = valueEnd - valueStart;
+        if (literal.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (valueBytes[valueStart + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the current value as an int directly from the bytes.
+     * @return The parsed value.
+     * @throws NumberFormatException If the value is not an integer, as {@link Integer#parseInt(String)} would.
+     */
+    public int getIntValue() {
+        if (numericValue && integerValue && longValue == (int) longValue) {
+            return (int) longValue;
+        }
+        if (textPending) {
+            renderNumericValue();
+        }
+        int i = valueStart;
+        boolean negative = false;
+        if (i < valueEnd && (valueBytes[i] == '-' || valueBytes[i] == '+')) {
+            negative = valueBytes[i] == '-';
+            i++;
+        }
+        if (i == valueEnd || valueEnd - i > 9) {
+            return Integer.parseInt(getStringValue()); // Empty, or long enough to need overflow checks
+        }
+        int result = 0;
+        for (; i < valueEnd; i++) {
+            int digit = valueBytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(getStringValue());
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses the current value as a hexadecimal handle (group codes 5, 105 and 320-369) directly from the bytes.
+     * @return The handle as an unsigned 64-bit number.
+     * @throws NumberFormatException If the value is empty, longer than 16 digits or not hexadecimal.
+     */
+    public long getHexValue() {
+        if (textPending) {
+            renderNumericValue();
+        }
+        int length = valueEnd - valueStart;
+        if (length == 0 || length > 16) {
+            throw new NumberFormatException("Not a handle: \"" + getStringValue() + "\"");
+        }
+        long result = 0;
+        for (int i = valueStart; i < valueEnd; i++) {
+            int digit = Character.digit(valueBytes[i], 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Not a handle: \"" + getStringValue() + "\"");
+            }
+            result = (result << 4) | digit;
+        }
+        return result;
+    }
+
+    /**
+     * Parses the current value as a double directly from the bytes, see {@link DxfNumberParser}.
+     * Results are always identical to {@link Double#parseDouble(String)}.
+     * @return The parsed value.
+     * @throws NumberFormatException If the value is not a number, as {@link Double#parseDouble(String)} would.
+     */
+    public double getDoubleValue() {
+        if (numericValue) {
+            return integerValue ? longValue : doubleValue;
+        }
+        return DxfNumberParser.parseDouble(valueBytes, valueStart, valueEnd - valueStart);
+    }
+
+    /**
+     * Materializes the current pair as a {@link DxfGroupCode}, for callers that need to keep it
+     * (e.g. XDATA) or report it in an error message.
+     * @return A new DxfGroupCode, or null if there is no current pair.
+     */
+    public DxfGroupCode toGroupCode() {
+        return hasCurrent ? new DxfGroupCode(code, getStringValue()) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inputStream != null) {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Gets the binary DXF encoding of a group code's value.
+     * @param groupCode The group code.
+     * @return One of the BINARY_* constants; codes outside the known numeric ranges are strings.
+     */
+    static int binaryValueType(int groupCode) {
+        if ((groupCode >= 10 && groupCode <= 59) || (groupCode >= 110 && groupCode <= 149)
+                || (groupCode >= 210 && groupCode <= 239) || (groupCode >= 460 && groupCode <= 469)
+                || (groupCode >= 1010 && groupCode <= 1059)) {
+            return BINARY_DOUBLE;
+        }
+        if ((groupCode >= 60 && groupCode <= 79) || (groupCode >= 170 && groupCode <= 179)
+                || (groupCode >= 270 && groupCode <= 289) || (groupCode >= 370 && groupCode <= 389)
+                || (groupCode >= 400 && groupCode <= 409) || (groupCode >= 1060 && groupCode <= 1070)) {
+            return BINARY_INT16;
+        }
+        if ((groupCode >= 90 && groupCode <= 99) || (groupCode >= 420 && groupCode <= 429)
+                || (groupCode >= 440 && groupCode <= 459) || groupCode == 1071) {
+            return BINARY_INT32;
+        }
+        if (groupCode >= 160 && groupCode <= 169) {
+            return BINARY_INT64;
+        }
+        if (groupCode >= 290 && groupCode <= 299) {
+            return BINARY_BOOLEAN;
+        }
+        if ((groupCode >= 310 && groupCode <= 319) || groupCode == 1004) {
+            return BINARY_CHUNK;
+        }
+        return BINARY_STRING;
+    }
+
+    /**
+     * Looks for the binary DXF sentinel at the start of the input, leaving the bytes in the buffer.
+     */
+    private void detectFormat() throws IOException {
+        formatDetected = true;
+        int wanted = BINARY_SENTINEL.length + 2; // Sentinel plus the first group code
+        while (limit < wanted && !endOfInput) {
+            int read;
+            if (source != null) {
+                read = Math.min(source.remaining(), buffer.length - limit);
+                if (read == 0) {
+                    read = -1;
+                } else {
+                    source.get(buffer, limit, read);
+                }
+            } else {
+                read = inputStream.read(buffer, limit, buffer.length - limit);
+            }
+            if (read < 0) {
+                endOfInput = true; // What was read stays in the buffer
+            } else {
+                limit += read;
+            }
+        }
+        if (limit < wanted) {
+            return;
+        }
+        for (int i = 0; i < BINARY_SENTINEL.length; i++) {
+            if (buffer[i] != BINARY_SENTINEL[i]) {
+                return;
+            }
+        }
+        binary = true;
+        position = BINARY_SENTINEL.length;
+        // Pre-R13 files use 1-byte codes: the first pair is then 0/SECTION ("\0S") or an extended code (255).
+        // A 2-byte code 0 is followed by a second zero byte, and any other 2-byte code (e.g. 999) never starts with 255.
+        byte low = buffer[position];
+        twoByteGroupCodes = !((low == 0 && buffer[position + 1] != 0) || low == (byte) 0xFF);
+    }
+
+    private boolean nextBinary() throws IOException, DxfParserException {
+        long startOffset = bufferOffset + position;
+        int first = readByte();
+        if (first < 0) {
+            hasCurrent = false;
+            return false;
+        }
+        int parsedCode;
+        if (twoByteGroupCodes || first == 255) {
+            if (!twoByteGroupCodes) {
+                first = readByte(); // 1-byte codes use 255 to introduce an extended 2-byte code
+            }
+            int second = readByte();
+            if (first < 0 || second < 0) {
+                hasCurrent = false;
+                throw new DxfParserException("Premature EOF: Incomplete binary group code.");
+            }
+            parsedCode = (short) (first | (second << 8));
+        } else {
+            parsedCode = first;
+        }
+
+        numericValue = false;
+        textPending = false;
+        integerValue = false;
+        int type = binaryValueType(parsedCode);
+        switch (type) {
+            case BINARY_DOUBLE:
+                readBinaryNumber(parsedCode, 8);
+                doubleValue = Double.longBitsToDouble(littleEndian(8));
+                break;
+            case BINARY_INT16:
+                readBinaryNumber(parsedCode, 2);
+                longValue = (short) littleEndian(2);
+                break;
+            case BINARY_INT32:
+                readBinaryNumber(parsedCode, 4);
+                longValue = (int) littleEndian(4);
+                break;
+            case BINARY_INT64:
+                readBinaryNumber(parsedCode, 8);
+                longValue = littleEndian(8);
+                break;
+            case BINARY_BOOLEAN:
+                readBinaryNumber(parsedCode, 1);
+                longValue = scratch[0] & 0xFF;
+                break;
+            case BINARY_CHUNK:
+                readBinaryChunk(parsedCode);
+                break;
+            default:
+                int valueLength = readZeroTerminated();
+                if (valueLength < 0) {
+                    hasCurrent = false;
+                    throw new DxfParserException("Premature EOF: Expected value after group code " + parsedCode);
+                }
+                byte[] swap = valueBytes;
+                valueBytes = lineBytes;
+                lineBytes = swap;
+                valueStart = trimStart(valueBytes, 0, valueLength);
+                valueEnd = trimEnd(valueBytes, valueStart, valueLength);
+                break;
+        }
+        if (numericValue) {
+            integerValue = type != BINARY_DOUBLE;
+            textPending = true;
+        }
+        code = parsedCode;
+        pairStartOffset = startOffset;
+        pairEndOffset = bufferOffset + position;
+        hasCurrent = true;
+        return true;
+    }
+
+    private void readBinaryNumber(int groupCode, int size) throws IOException, DxfParserException {
+        for (int i = 0; i < size; i++) {
+            int b = readByte();
+            if (b < 0) {
+                hasCurrent = false;
+                throw new DxfParserException("Premature EOF: Expected value after group code " + groupCode);
+            }
+            scratch[i] = (byte) b;
+        }
+        numericValue = true;
+    }
+
+    private long littleEndian(int size) {
+        long result = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            result = (result << 8) | (scratch[i] & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a length-prefixed binary chunk and stores it as hex text, as an ASCII DXF file would.
+     */
+    private void readBinaryChunk(int groupCode) throws IOException, DxfParserException {
+        int length = readByte();
+        if (length < 0) {
+            hasCurrent = false;
+            throw new DxfParserException("Premature EOF: Expected value after group code " + groupCode);
+        }
+        if (valueBytes.length < length * 2) {
+            valueBytes = new byte[length * 2];
+        }
+        for (int i = 0; i < length; i++) {
+            int b = readByte();
+            if (b < 0) {
+                hasCurrent = false;
+                throw new DxfParserException("Premature EOF: Expected value after group code " + groupCode);
+            }
+            valueBytes[2 * i] = HEX_DIGITS[b >>> 4];
+            valueBytes[2 * i + 1] = HEX_DIGITS[b & 0x0F];
+        }
+        valueStart = 0;
+        valueEnd = length * 2;
+    }
+
+    private void renderNumericValue() {
+        textPending = false;
+        String text = integerValue ? Long.toString(longValue) : Double.toString(doubleValue);
+        int length = text.length();
+        if (valueBytes.length < length) {
+            valueBytes = new byte[Math.max(valueBytes.length * 2, length)];
+        }
+        for (int i = 0; i < length; i++) {
+            valueBytes[i] = (byte) text.charAt(i);
+        }
+        valueStart = 0;
+        valueEnd = length;
+    }
+
+    private int readByte() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Reads a zero-terminated binary DXF string into {@link #lineBytes}.
+     * @return The string length, or -1 if the input ends before the terminator.
+     */
+    private int readZeroTerminated() throws IOException {
+        int length = 0;
+        while (true) {
+            if (position >= limit && !fill()) {
+                return -1;
+            }
+            int start = position;
+            while (position < limit) {
+                if (buffer[position] == 0) {
+                    length = append(start, position, length);
+                    position++;
+                    return length;
+                }
+                position++;
+            }
+            length = append(start, limit, length);
+        }
+    }
+
+    /**
+     * Reads the next line into {@link #lineBytes}, without its terminator.
+     * Lines end at "\n", "\r" or "\r\n", as with {@link java.io.BufferedReader#readLine()}.
+     * @return The line length, or -1 at end of input.
+     */
+    private int readLine() throws IOException {
+        int length = 0;
+        boolean readAny = false;
+        while (true) {
+            if (position >= limit && !fill()) {
+                return readAny ? length : -1;
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            if (!readAny) {
+                readAny = true;
+                lineStartOffset = bufferOffset + position;
+            }
+            int start = position;
+            while (position < limit) {
+                byte b = buffer[position];
+                if (b == '\n' || b == '\r') {
+                    length = append(start, position, length);
+                    position++;
+                    skipLineFeed = b == '\r';
+                    return length;
+                }
+                position++;
+            }
+            length = append(start, limit, length);
+        }
+    }
+
+    private int append(int from, int to, int length) {
+        int count = to - from;
+        if (length + count > lineBytes.length) {
+            lineBytes = Arrays.copyOf(lineBytes, Math.max(lineBytes.length * 2, length + count));
+        }
+        System.arraycopy(buffer, from, lineBytes, length, count);
+        return length + count;
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        bufferOffset += limit;
+        int read;
+        if (source != null) {
+            read = Math.min(source.remaining(), buffer.length);
+            if (read == 0) {
+                read = -1;
+            } else {
+                source.get(buffer, 0, read);
+            }
+        } else {
+            read = inputStream.read(buffer, 0, buffer.length);
+            while (read == 0) {
+                read = inputStream.read(buffer, 0, buffer.length);
+            }
+        }
+        if (read < 0) {
+            endOfInput = true;
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private static int parseCode(byte[] bytes, int start, int end) throws DxfParserException {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            throw invalidCode(bytes, start, end);
+        }
+        int result = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidCode(bytes, start, end);
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    private static DxfParserException invalidCode(byte[] bytes, int start, int end) {
+        String text = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        return new DxfParserException("Invalid group code format: '" + text + "'",
+                new NumberFormatException("For input string: \"" + text + "\""));
+    }
+
+    private static int trimStart(byte[] bytes, int start, int end) {
+        while (start < end && (bytes[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(byte[] bytes, int start, int end) {
+        while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int toUpperAscii(int c) {
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+    }
+
+    @Override
+    public String toString() {
+        return hasCurrent ? String.format(Locale.ROOT, "(%d, \"%s\")", code, getStringValue()) : "null";
+    }
+}
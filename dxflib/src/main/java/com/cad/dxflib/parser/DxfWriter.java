@@ -0,0 +1,703 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.common.AbstractDxfEntity;
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfArc;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfDimension;
+import com.cad.dxflib.entities.DxfInsert;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.entities.DxfLwPolyline;
+import com.cad.dxflib.entities.DxfSpline;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.math.Bounds;
+import com.cad.dxflib.structure.DxfBlock;
+import com.cad.dxflib.structure.DxfDimStyle;
+import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfHeader;
+import com.cad.dxflib.structure.DxfLayer;
+import com.cad.dxflib.structure.DxfLinetype;
+import com.cad.dxflib.structure.DxfTextStyle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link DxfDocument} as a DXF file that {@link DxfParser} reads back to the same document:
+ * the HEADER variables of {@link DxfHeader} (with $EXTMIN/$EXTMAX set to the current extents), the LTYPE,
+ * LAYER, STYLE and DIMSTYLE tables, the blocks, and the model space entities with their handles, owners,
+ * reactors and XDATA. Dictionaries and other objects are not written.
+ * <p>
+ * Output is ASCII DXF by default, or binary DXF (see {@link #setBinary(boolean)}). The writer streams
+ * through a single reusable buffer: names and ASCII strings are copied character by character and
+ * numbers are formatted straight into the buffer, so writing allocates next to nothing per entity.
+ * Doubles are written with the fewest decimals that read back to the same value; only values that
+ * need more than 15 significant digits go through {@link Double#toString(double)}.
+ * The file declares AutoCAD 2007 ($ACADVER AC1021), so non-ASCII strings are written as UTF-8.
+ */
+public class DxfWriter {
+
+    private static final String ACAD_VERSION = "AC1021";
+
+    private boolean binary;
+
+    /**
+     * Sets whether to write binary DXF instead of ASCII DXF.
+     * Binary files are smaller and faster to read, and keep every double exactly.
+     * @param binary true for binary DXF.
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    /**
+     * Checks whether this writer writes binary DXF.
+     * @return true for binary DXF, false for ASCII DXF.
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Writes a document to a file, replacing its content.
+     * @param document The document to write.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(DxfDocument document, Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(document, channel);
+        }
+    }
+
+    /**
+     * Writes a document to a stream. The stream is flushed but not closed.
+     * @param document The document to write.
+     * @param outputStream The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void write(DxfDocument document, OutputStream outputStream) throws IOException {
+        if (outputStream == null) {
+            throw new IllegalArgumentException("OutputStream cannot be null.");
+        }
+        write(document, Channels.newChannel(outputStream));
+        outputStream.flush();
+    }
+
+    /**
+     * Writes a document to a channel. The channel is not closed.
+     * @param document The document to write.
+     * @param channel The channel to write to.
+     * @throws IOException If the channel cannot be written.
+     */
+    public void write(DxfDocument document, WritableByteChannel channel) throws IOException {
+        if (document == null) {
+            throw new IllegalArgumentException("DxfDocument cannot be null.");
+        }
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null.");
+        }
+        GroupCodeOutput out = new GroupCodeOutput(channel, binary);
+        writeHeader(document, out);
+        writeTables(document, out);
+        out.string(0, "SECTION");
+        out.string(2, "BLOCKS");
+        for (DxfBlock block : document.getBlocks().values()) {
+            writeBlock(block, out);
+        }
+        out.string(0, "ENDSEC");
+        out.string(0, "SECTION");
+        out.string(2, "ENTITIES");
+        for (DxfEntity entity : document.getModelSpaceEntities()) {
+            writeEntity(entity, out);
+        }
+        out.string(0, "ENDSEC");
+        out.string(0, "EOF");
+        out.flush();
+    }
+
+    private void writeHeader(DxfDocument document, GroupCodeOutput out) throws IOException {
+        DxfHeader header = document.getHeader();
+        out.string(0, "SECTION");
+        out.string(2, "HEADER");
+        out.string(9, "$ACADVER");
+        out.string(1, ACAD_VERSION);
+        out.string(9, "$DWGCODEPAGE");
+        out.string(3, header.getCodePage() != null ? header.getCodePage() : "ANSI_1252");
+        // The extents of what is written, not the possibly stale ones read from the file
+        document.ensureSectionLoaded("ENTITIES");
+        Bounds bounds = document.getBounds();
+        if (bounds.isValid()) {
+            out.string(9, "$EXTMIN");
+            out.point(10, new Point3D(bounds.getMinX(), bounds.getMinY(), bounds.getMinZ()));
+            out.string(9, "$EXTMAX");
+            out.point(10, new Point3D(bounds.getMaxX(), bounds.getMaxY(), bounds.getMaxZ()));
+        }
+        out.string(9, "$INSUNITS");
+        out.integer(70, header.getInsertionUnits());
+        out.string(9, "$LTSCALE");
+        out.real(40, header.getLinetypeScale());
+        out.string(0, "ENDSEC");
+    }
+
+    private void writeTables(DxfDocument document, GroupCodeOutput out) throws IOException {
+        out.string(0, "SECTION");
+        out.string(2, "TABLES");
+
+        beginTable("LTYPE", document.getLinetypes().size(), out);
+        for (DxfLinetype linetype : document.getLinetypes().values()) {
+            out.string(0, "LTYPE");
+            out.string(2, linetype.getName());
+            out.integer(70, 0);
+            out.string(3, linetype.getDescription() != null ? linetype.getDescription() : "");
+            out.integer(72, 65); // Alignment 'A'
+            List<Double> elements = linetype.getPatternElements();
+            out.integer(73, elements.size());
+            out.real(40, linetype.getPatternLength());
+            for (double element : elements) {
+                out.real(49, element);
+            }
+        }
+        out.string(0, "ENDTAB");
+
+        beginTable("LAYER", document.getLayers().size(), out);
+        for (DxfLayer layer : document.getLayers().values()) {
+            out.string(0, "LAYER");
+            out.string(2, layer.getName());
+            out.integer(70, 0);
+            // A negative color marks a layer that is off
+            out.integer(62, layer.isVisible() ? layer.getColor() : -Math.abs(layer.getColor()));
+            out.string(6, layer.getLinetypeName() != null ? layer.getLinetypeName() : "CONTINUOUS");
+        }
+        out.string(0, "ENDTAB");
+
+        if (!document.getTextStyles().isEmpty()) {
+            beginTable("STYLE", document.getTextStyles().size(), out);
+            for (DxfTextStyle style : document.getTextStyles().values()) {
+                out.string(0, "STYLE");
+                out.string(2, style.getName());
+                out.integer(70, style.getFlags());
+                out.real(40, style.getFixedTextHeight());
+                out.real(41, style.getWidthFactor());
+                out.real(50, style.getObliqueAngle());
+                out.integer(71, style.getTextGenerationFlags());
+                out.real(42, style.getLastHeightUsed());
+                out.string(3, style.getPrimaryFontFileName() != null ? style.getPrimaryFontFileName() : "");
+                out.string(4, style.getBigFontFileName() != null ? style.getBigFontFileName() : "");
+            }
+            out.string(0, "ENDTAB");
+        }
+
+        if (!document.getDimensionStyles().isEmpty()) {
+            beginTable("DIMSTYLE", document.getDimensionStyles().size(), out);
+            for (DxfDimStyle style : document.getDimensionStyles().values()) {
+                out.string(0, "DIMSTYLE");
+                if (style.getHandle() != null) {
+                    out.string(105, style.getHandle());
+                }
+                out.string(2, style.getName());
+                out.integer(70, style.getFlags70());
+                out.real(41, style.getArrowSize());
+                out.real(42, style.getExtensionLineOffset());
+                out.real(44, style.getExtensionLineExtension());
+                out.real(140, style.getTextHeight());
+                out.real(147, style.getTextGap());
+                out.integer(73, style.isTextInsideHorizontal() ? 1 : 0);
+                out.integer(74, style.isTextOutsideHorizontal() ? 1 : 0);
+                out.integer(75, style.isSuppressFirstExtensionLine() ? 1 : 0);
+                out.integer(76, style.isSuppressSecondExtensionLine() ? 1 : 0);
+                out.integer(77, style.getTextVerticalAlignment());
+                out.integer(172, style.isTextOutsideExtensions() ? 1 : 0);
+                out.integer(176, style.getDimensionLineColor());
+                out.integer(177, style.getExtensionLineColor());
+                out.integer(178, style.getTextColor());
+                out.integer(271, style.getDecimalPlaces());
+            }
+            out.string(0, "ENDTAB");
+        }
+
+        out.string(0, "ENDSEC");
+    }
+
+    private void beginTable(String name, int entries, GroupCodeOutput out) throws IOException {
+        out.string(0, "TABLE");
+        out.string(2, name);
+        out.integer(70, entries);
+    }
+
+    private void writeBlock(DxfBlock block, GroupCodeOutput out) throws IOException {
+        out.string(0, "BLOCK");
+        out.string(8, "0");
+        out.string(2, block.getName());
+        out.integer(70, 0);
+        out.point(10, block.getBasePoint());
+        out.string(3, block.getName());
+        for (DxfEntity entity : block.getEntities()) {
+            writeEntity(entity, out);
+        }
+        out.string(0, "ENDBLK");
+        out.string(8, "0");
+    }
+
+    private void writeEntity(DxfEntity entity, GroupCodeOutput out) throws IOException {
+        switch (entity.getType()) {
+            case LINE: {
+                DxfLine line = (DxfLine) entity;
+                writeCommon(line, "LINE", out);
+                out.string(100, "AcDbLine");
+                out.point(10, line.getStartPoint());
+                out.point(11, line.getEndPoint());
+                break;
+            }
+            case CIRCLE: {
+                DxfCircle circle = (DxfCircle) entity;
+                writeCommon(circle, "CIRCLE", out);
+                out.string(100, "AcDbCircle");
+                out.point(10, circle.getCenter());
+                out.real(40, circle.getRadius());
+                break;
+            }
+            case ARC: {
+                DxfArc arc = (DxfArc) entity;
+                writeCommon(arc, "ARC", out);
+                out.string(100, "AcDbCircle");
+                out.point(10, arc.getCenter());
+                out.real(40, arc.getRadius());
+                out.string(100, "AcDbArc");
+                out.real(50, arc.getStartAngle());
+                out.real(51, arc.getEndAngle());
+                break;
+            }
+            case LWPOLYLINE: {
+                DxfLwPolyline polyline = (DxfLwPolyline) entity;
+                writeCommon(polyline, "LWPOLYLINE", out);
+                out.string(100, "AcDbPolyline");
+                int vertexCount = polyline.getNumberOfVertices();
+                out.integer(90, vertexCount);
+                out.integer(70, polyline.isClosed() ? 1 : 0);
+                out.real(43, polyline.getConstantWidth());
+                if (polyline.getElevation() != 0) {
+                    out.real(38, polyline.getElevation());
+                }
+                boolean widths = polyline.hasVertexWidths();
+                for (int i = 0; i < vertexCount; i++) {
+                    out.real(10, polyline.getX(i));
+                    out.real(20, polyline.getY(i));
+                    if (widths) {
+                        out.real(40, polyline.getStartWidth(i));
+                        out.real(41, polyline.getEndWidth(i));
+                    }
+                    double bulge = polyline.getBulge(i);
+                    if (bulge != 0) {
+                        out.real(42, bulge);
+                    }
+                }
+                break;
+            }
+            case TEXT: {
+                DxfText text = (DxfText) entity;
+                writeCommon(text, "TEXT", out);
+                out.string(100, "AcDbText");
+                out.point(10, text.getInsertionPoint());
+                out.real(40, text.getHeight());
+                out.string(1, text.getTextValue() != null ? text.getTextValue() : "");
+                if (text.getRotationAngle() != 0) {
+                    out.real(50, text.getRotationAngle());
+                }
+                if (text.getStyleName() != null) {
+                    out.string(7, text.getStyleName());
+                }
+                break;
+            }
+            case INSERT: {
+                DxfInsert insert = (DxfInsert) entity;
+                writeCommon(insert, "INSERT", out);
+                out.string(100, "AcDbBlockReference");
+                out.string(2, insert.getBlockName());
+                out.point(10, insert.getInsertionPoint());
+                out.real(41, insert.getXScale());
+                out.real(42, insert.getYScale());
+                if (insert.getRotationAngle() != 0) {
+                    out.real(50, insert.getRotationAngle());
+                }
+                break;
+            }
+            case DIMENSION: {
+                DxfDimension dimension = (DxfDimension) entity;
+                writeCommon(dimension, "DIMENSION", out);
+                out.string(100, "AcDbDimension");
+                if (dimension.getBlockName() != null) {
+                    out.string(2, dimension.getBlockName());
+                }
+                out.point(10, dimension.getDefinitionPoint());
+                out.point(11, dimension.getMiddleOfTextPoint());
+                out.integer(70, dimension.getDimensionTypeFlags());
+                if (dimension.getDimensionText() != null) {
+                    out.string(1, dimension.getDimensionText());
+                }
+                if (dimension.getDimensionStyleName() != null) {
+                    out.string(3, dimension.getDimensionStyleName());
+                }
+                out.point(210, dimension.getExtrusionDirection());
+                out.point(13, dimension.getLinearPoint1());
+                out.point(14, dimension.getLinearPoint2());
+                if (dimension.getRotationAngle() != 0) {
+                    out.real(50, dimension.getRotationAngle());
+                }
+                break;
+            }
+            case SPLINE: {
+                DxfSpline spline = (DxfSpline) entity;
+                writeCommon(spline, "SPLINE", out);
+                out.string(100, "AcDbSpline");
+                out.point(210, spline.getNormalVector());
+                out.integer(70, spline.getFlags());
+                out.integer(71, spline.getDegree());
+                out.integer(72, spline.getNumberOfKnots());
+                out.integer(73, spline.getNumberOfControlPoints());
+                out.integer(74, spline.getNumberOfFitPoints());
+                out.real(42, spline.getKnotTolerance());
+                out.real(43, spline.getControlPointTolerance());
+                out.real(44, spline.getFitTolerance());
+                for (double knot : spline.getKnots()) {
+                    out.real(40, knot);
+                }
+                for (Point3D point : spline.getControlPoints()) {
+                    out.point(10, point);
+                }
+                for (Point3D point : spline.getFitPoints()) {
+                    out.point(11, point);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Cannot write entity of type " + entity.getType() + ".");
+        }
+        if (entity instanceof AbstractDxfEntity) {
+            writeXData((AbstractDxfEntity) entity, out);
+        }
+    }
+
+    private void writeCommon(DxfEntity entity, String type, GroupCodeOutput out) throws IOException {
+        out.string(0, type);
+        AbstractDxfEntity e = entity instanceof AbstractDxfEntity ? (AbstractDxfEntity) entity : null;
+        if (entity.getHandle() != 0) {
+            out.handle(5, entity.getHandle());
+        }
+        if (e != null && !e.getReactorHandles().isEmpty()) {
+            out.string(102, "{ACAD_REACTORS");
+            for (String reactor : e.getReactorHandles()) {
+                out.string(330, reactor);
+            }
+            out.string(102, "}");
+        }
+        if (e != null && e.getOwnerHandle() != 0) {
+            out.handle(330, e.getOwnerHandle());
+        }
+        out.string(100, "AcDbEntity");
+        out.string(8, entity.getLayerName());
+        if (entity.getLinetypeName() != null && !"BYLAYER".equalsIgnoreCase(entity.getLinetypeName())) {
+            out.string(6, entity.getLinetypeName());
+        }
+        if (entity.getColor() != 256) {
+            out.integer(62, entity.getColor());
+        }
+        if (e != null && e.getThickness() != 0) {
+            out.real(39, e.getThickness());
+        }
+    }
+
+    private void writeXData(AbstractDxfEntity entity, GroupCodeOutput out) throws IOException {
+        for (Map.Entry<String, List<DxfGroupCode>> application : entity.getXData().entrySet()) {
+            List<DxfGroupCode> groupCodes = application.getValue();
+            if (groupCodes.isEmpty() || groupCodes.get(0).code != 1001) {
+                out.string(1001, application.getKey()); // Lists built by hand may lack the application pair
+            }
+            for (DxfGroupCode groupCode : groupCodes) {
+                out.value(groupCode.code, groupCode.value);
+            }
+        }
+    }
+
+    /**
+     * Writes group code/value pairs, ASCII or binary, through one buffer flushed to the channel when full.
+     */
+    static final class GroupCodeOutput {
+
+        private static final int BUFFER_SIZE = 1 << 18;
+        private static final byte[] BINARY_SENTINEL = "AutoCAD Binary DXF\r\n\u001a\u0000".getBytes(StandardCharsets.ISO_8859_1);
+        private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.ISO_8859_1);
+        private static final int MAX_FRACTION_DIGITS = 22; // Powers of ten up to 1e22 are exact doubles
+        private static final double MAX_EXACT_INTEGER = 9007199254740992.0; // 2^53
+        private static final double[] POWERS_OF_TEN = new double[MAX_FRACTION_DIGITS + 1];
+
+        static {
+            POWERS_OF_TEN[0] = 1;
+            for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+                POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+            }
+        }
+
+        private final WritableByteChannel channel;
+        private final boolean binary;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+        private int position;
+
+        GroupCodeOutput(WritableByteChannel channel, boolean binary) throws IOException {
+            this.channel = channel;
+            this.binary = binary;
+            if (binary) {
+                System.arraycopy(BINARY_SENTINEL, 0, buffer, 0, BINARY_SENTINEL.length);
+                position = BINARY_SENTINEL.length;
+            }
+        }
+
+        void string(int code, String value) throws IOException {
+            code(code);
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    utf8(value, i);
+                    break;
+                }
+                ensure(1);
+                buffer[position++] = (byte) c;
+            }
+            end();
+        }
+
+        void integer(int code, int value) throws IOException {
+            code(code);
+            if (binary) {
+                switch (DxfTokenizer.binaryValueType(code)) {
+                    case DxfTokenizer.BINARY_INT16: littleEndian(value, 2); return;
+                    case DxfTokenizer.BINARY_INT32: littleEndian(value, 4); return;
+                    case DxfTokenizer.BINARY_INT64: littleEndian(value, 8); return;
+                    case DxfTokenizer.BINARY_BOOLEAN: littleEndian(value, 1); return;
+                    default: break; // A string code holding a number
+                }
+            }
+            ensure(20);
+            position = formatLong(value, buffer, position);
+            end();
+        }
+
+        void real(int code, double value) throws IOException {
+            code(code);
+            if (binary && DxfTokenizer.binaryValueType(code) == DxfTokenizer.BINARY_DOUBLE) {
+                littleEndian(Double.doubleToRawLongBits(value), 8);
+                return;
+            }
+            ensure(40);
+            int end = formatDouble(value, buffer, position);
+            if (end < 0) {
+                String text = Double.toString(value); // Needs more digits than the fast path handles
+                for (int i = 0; i < text.length(); i++) {
+                    buffer[position++] = (byte) text.charAt(i);
+                }
+            } else {
+                position = end;
+            }
+            end();
+        }
+
+        void point(int code, Point3D point) throws IOException {
+            real(code, point.x);
+            real(code + 10, point.y);
+            real(code + 20, point.z);
+        }
+
+        void handle(int code, long handle) throws IOException {
+            code(code);
+            ensure(16);
+            int digits = Math.max(1, (64 - Long.numberOfLeadingZeros(handle) + 3) / 4);
+            for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+                buffer[position++] = HEX_DIGITS[(int) (handle >>> shift) & 0x0F];
+            }
+            end();
+        }
+
+        /** Writes a value held as text, e.g. XDATA, converting it for the binary encoding of its code. */
+        void value(int code, String value) throws IOException {
+            if (!binary) {
+                string(code, value);
+                return;
+            }
+            switch (DxfTokenizer.binaryValueType(code)) {
+                case DxfTokenizer.BINARY_DOUBLE:
+                    real(code, Double.parseDouble(value.trim()));
+                    break;
+                case DxfTokenizer.BINARY_INT16:
+                case DxfTokenizer.BINARY_INT32:
+                case DxfTokenizer.BINARY_BOOLEAN:
+                    integer(code, Integer.parseInt(value.trim()));
+                    break;
+                case DxfTokenizer.BINARY_INT64:
+                    code(code);
+                    littleEndian(Long.parseLong(value.trim()), 8);
+                    break;
+                case DxfTokenizer.BINARY_CHUNK:
+                    code(code);
+                    String hex = value.trim();
+                    int length = Math.min(hex.length() / 2, 255);
+                    ensure(1 + length);
+                    buffer[position++] = (byte) length;
+                    for (int i = 0; i < length; i++) {
+                        buffer[position++] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+                    }
+                    break;
+                default:
+                    string(code, value);
+                    break;
+            }
+        }
+
+        void flush() throws IOException {
+            wrapper.clear().limit(position);
+            while (wrapper.hasRemaining()) {
+                channel.write(wrapper);
+            }
+            position = 0;
+        }
+
+        private void code(int code) throws IOException {
+            if (binary) {
+                ensure(2);
+                buffer[position++] = (byte) code;
+                buffer[position++] = (byte) (code >> 8);
+            } else {
+                ensure(8);
+                position = formatLong(code, buffer, position);
+                buffer[position++] = '\n';
+            }
+        }
+
+        // Ends a text value: a line break in ASCII, a terminating zero in binary
+        private void end() throws IOException {
+            ensure(1);
+            buffer[position++] = binary ? 0 : (byte) '\n';
+        }
+
+        private void utf8(String value, int from) throws IOException {
+            byte[] bytes = value.substring(from).getBytes(StandardCharsets.UTF_8);
+            for (int done = 0; done < bytes.length; ) {
+                ensure(1);
+                int n = Math.min(buffer.length - position, bytes.length - done);
+                System.arraycopy(bytes, done, buffer, position, n);
+                position += n;
+                done += n;
+            }
+        }
+
+        private void littleEndian(long value, int size) throws IOException {
+            ensure(size);
+            for (int i = 0; i < size; i++) {
+                buffer[position++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.length - position < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Formats a long in decimal.
+         * @return The offset after the last digit.
+         */
+        static int formatLong(long value, byte[] out, int offset) {
+            if (value < 0) {
+                if (value == Long.MIN_VALUE) {
+                    byte[] min = Long.toString(value).getBytes(StandardCharsets.ISO_8859_1);
+                    System.arraycopy(min, 0, out, offset, min.length);
+                    return offset + min.length;
+                }
+                out[offset++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long v = value; v >= 10; v /= 10) {
+                digits++;
+            }
+            int end = offset + digits;
+            for (int i = end - 1; i >= offset; i--) {
+                out[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            return end;
+        }
+
+        /**
+         * Formats a double with the fewest fraction digits that parse back to the same value, without
+         * allocating: the magnitude is scaled by 10^k for k = 0, 1, ... until it rounds to an integer m below
+         * 2^53 with m / 10^k == value. Both m and 10^k are exact doubles then, so the division is correctly
+         * rounded, just like the parse of the decimal m * 10^-k.
+         * @return The offset after the last character, or -1 if the value needs another format
+         * (more than 15 significant digits, very large or small, -0.0, NaN or infinite).
+         */
+        static int formatDouble(double value, byte[] out, int offset) {
+            if (value == 0 && Double.doubleToRawLongBits(value) == 0) {
+                out[offset] = '0';
+                return offset + 1;
+            }
+            double magnitude = Math.abs(value);
+            if (!(magnitude < MAX_EXACT_INTEGER) || value == 0) {
+                return -1;
+            }
+            for (int k = 0; k <= MAX_FRACTION_DIGITS; k++) {
+                double scaled = magnitude * POWERS_OF_TEN[k];
+                if (scaled >= MAX_EXACT_INTEGER) {
+                    return -1;
+                }
+                double mantissa = Math.rint(scaled);
+                if (mantissa / POWERS_OF_TEN[k] == magnitude) {
+                    return formatDecimal(value < 0, (long) mantissa, k, out, offset);
+                }
+            }
+            return -1;
+        }
+
+        // Writes mantissa * 10^-fractionDigits
+        private static int formatDecimal(boolean negative, long mantissa, int fractionDigits, byte[] out, int offset) {
+            if (negative) {
+                out[offset++] = '-';
+            }
+            if (fractionDigits == 0) {
+                return formatLong(mantissa, out, offset);
+            }
+            int digits = 1;
+            for (long v = mantissa; v >= 10; v /= 10) {
+                digits++;
+            }
+            int integerDigits = Math.max(1, digits - fractionDigits);
+            int end = offset + integerDigits + 1 + fractionDigits;
+            for (int i = end - 1; i > end - 1 - fractionDigits; i--) {
+                out[i] = (byte) ('0' + mantissa % 10);
+                mantissa /= 10;
+            }
+            out[offset + integerDigits] = '.';
+            for (int i = offset + integerDigits - 1; i >= offset; i--) {
+                out[i] = (byte) ('0' + mantissa % 10);
+                mantissa /= 10;
+            }
+            return end;
+        }
+    }
+}
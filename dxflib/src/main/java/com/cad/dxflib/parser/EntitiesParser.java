@@ -2,12 +2,10 @@ package com.cad.dxflib.parser;
 
 import com.cad.dxflib.common.AbstractDxfEntity;
 import com.cad.dxflib.common.DxfEntity;
-import com.cad.dxflib.common.Point2D;
 import com.cad.dxflib.common.Point3D;
 import com.cad.dxflib.structure.*;
 import com.cad.dxflib.entities.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -16,74 +14,78 @@ import java.util.Locale;
 
 public class EntitiesParser {
 
-    private BufferedReader reader;
-    private DxfGroupCode aktuellenGroupCode;
+    // Upper bound for presizing from group code 90, so a corrupt count cannot allocate a huge array up front
+    private static final int MAX_PRESIZED_VERTICES = 1 << 20;
 
-    public EntitiesParser(BufferedReader reader, DxfDocument document) {
-        this.reader = reader;
-        // this.document = document; // Field removed
-    }
+    private final DxfTokenizer tokenizer;
+    private final DxfSymbolTable symbols;
 
-    public DxfGroupCode getAktuellenGroupCode() {
-        return aktuellenGroupCode;
+    /**
+     * Creates a parser reading entities from the tokenizer.
+     * @param tokenizer The tokenizer to read from.
+     * @param document The document whose symbol table interns layer, linetype and style names.
+     *                 If null, names are interned in a table private to this parser.
+     */
+    public EntitiesParser(DxfTokenizer tokenizer, DxfDocument document) {
+        this.tokenizer = tokenizer;
+        this.symbols = document != null ? document.getSymbols() : new DxfSymbolTable();
     }
 
-    private DxfGroupCode nextGroupCode() throws IOException, DxfParserException {
-        String codeStr = reader.readLine();
-        if (codeStr == null) {
-            return null;
-        }
-        String valueStr = reader.readLine();
-        if (valueStr == null) {
-            throw new DxfParserException("Unexpected end of file: missing value for code " + codeStr);
-        }
-        try {
-            int code = Integer.parseInt(codeStr.trim());
-            return new DxfGroupCode(code, valueStr.trim());
-        } catch (NumberFormatException e) {
-            throw new DxfParserException("Invalid group code format: " + codeStr, e);
-        }
+    /**
+     * Materializes the pair the tokenizer is currently positioned on.
+     * @return The current group code, or null at end of input.
+     */
+    public DxfGroupCode getAktuellenGroupCode() {
+        return tokenizer.toGroupCode();
     }
 
+    // Reads the XDATA of every application, from the first 1001 pair up to the first pair with a code below 1000,
+    // on which the tokenizer is left (XDATA ends an entity, so that is normally its 0 pair)
     private void parseAndAttachXData(AbstractDxfEntity entity) throws IOException, DxfParserException {
-        if (aktuellenGroupCode == null || aktuellenGroupCode.code != 1001) {
+        if (!tokenizer.hasCurrent() || tokenizer.getCode() != 1001) {
             return;
         }
-        String appName = aktuellenGroupCode.value;
+        String appName = tokenizer.getStringValue();
         List<DxfGroupCode> xdataList = new ArrayList<>();
-        xdataList.add(aktuellenGroupCode);
+        xdataList.add(tokenizer.toGroupCode());
 
-        while ((aktuellenGroupCode = nextGroupCode()) != null) {
-            if (aktuellenGroupCode.code == 1001) {
-                entity.addXData(appName, xdataList);
-                return;
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() < 1000) {
+                break;
             }
-            if (aktuellenGroupCode.code < 1000) {
-                 entity.addXData(appName, xdataList);
-                 return;
+            if (tokenizer.getCode() == 1001) {
+                entity.addXData(appName, xdataList);
+                appName = tokenizer.getStringValue();
+                xdataList = new ArrayList<>();
             }
-            xdataList.add(aktuellenGroupCode);
+            xdataList.add(tokenizer.toGroupCode());
         }
-        if (!xdataList.isEmpty()) {
-             entity.addXData(appName, xdataList);
+        entity.addXData(appName, xdataList);
+    }
+
+    // A malformed handle (empty, not hexadecimal or over 16 digits) counts as no handle rather than failing the file
+    private long handleValue() {
+        try {
+            return tokenizer.getHexValue();
+        } catch (NumberFormatException e) {
+            return 0L;
         }
     }
 
     private void parseAndAttachReactors(AbstractDxfEntity entity) throws IOException, DxfParserException {
-        if (aktuellenGroupCode == null || aktuellenGroupCode.code != 102 || !"{ACAD_REACTORS".equals(aktuellenGroupCode.value)) {
+        if (!tokenizer.hasCurrent() || tokenizer.getCode() != 102 || !tokenizer.valueEquals("{ACAD_REACTORS")) {
             return;
         }
-        aktuellenGroupCode = nextGroupCode();
+        tokenizer.next();
 
-        while (aktuellenGroupCode != null) {
-            if (aktuellenGroupCode.code == 102 && "}".equals(aktuellenGroupCode.value)) {
-                aktuellenGroupCode = nextGroupCode();
-                return;
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 102 && tokenizer.valueEquals("}")) {
+                return; // Left on the closing pair: the entity loop advances past it
             }
-            if (aktuellenGroupCode.code == 330 || aktuellenGroupCode.code == 360) {
-                entity.addReactorHandle(aktuellenGroupCode.value);
+            if (tokenizer.getCode() == 330 || tokenizer.getCode() == 360) {
+                entity.addReactorHandle(tokenizer.getStringValue());
             }
-            aktuellenGroupCode = nextGroupCode();
+            tokenizer.next();
         }
     }
 
@@ -115,25 +117,27 @@ public class EntitiesParser {
         boolean y2Read=false;
         boolean z2Read=false;
 
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 break;
             }
-            switch (aktuellenGroupCode.code) {
-                case 8: line.setLayerName(aktuellenGroupCode.value); break;
-                case 6: line.setLinetypeName(aktuellenGroupCode.value); break;
-                case 62: line.setColor(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 10: x1 = Double.parseDouble(aktuellenGroupCode.value); x1Read=true; break;
-                case 20: y1 = Double.parseDouble(aktuellenGroupCode.value); y1Read=true; break;
-                case 30: z1 = Double.parseDouble(aktuellenGroupCode.value); z1Read=true; break;
-                case 11: x2 = Double.parseDouble(aktuellenGroupCode.value); x2Read=true; break;
-                case 21: y2 = Double.parseDouble(aktuellenGroupCode.value); y2Read=true; break;
-                case 31: z2 = Double.parseDouble(aktuellenGroupCode.value); z2Read=true; break;
+            switch (tokenizer.getCode()) {
+                case 8: line.setLayerName(tokenizer.getStringValue(symbols)); break;
+                case 6: line.setLinetypeName(tokenizer.getStringValue(symbols)); break;
+                case 5: line.setHandle(handleValue()); break;
+                case 330: line.setOwnerHandle(handleValue()); break;
+                case 62: line.setColor(tokenizer.getIntValue()); break;
+                case 10: x1 = tokenizer.getDoubleValue(); x1Read=true; break;
+                case 20: y1 = tokenizer.getDoubleValue(); y1Read=true; break;
+                case 30: z1 = tokenizer.getDoubleValue(); z1Read=true; break;
+                case 11: x2 = tokenizer.getDoubleValue(); x2Read=true; break;
+                case 21: y2 = tokenizer.getDoubleValue(); y2Read=true; break;
+                case 31: z2 = tokenizer.getDoubleValue(); z2Read=true; break;
                 case 1001:
                     if(x1Read || y1Read || z1Read) { line.setStartPoint(new Point3D(x1,y1,z1)); x1Read=y1Read=z1Read=false;}
                     if(x2Read || y2Read || z2Read) { line.setEndPoint(new Point3D(x2,y2,z2)); x2Read=y2Read=z2Read=false;}
                     parseAndAttachXData(line);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return line;
                     }
                     break;
@@ -141,14 +145,14 @@ public class EntitiesParser {
                     if(x1Read || y1Read || z1Read) { line.setStartPoint(new Point3D(x1,y1,z1)); x1Read=y1Read=z1Read=false;}
                     if(x2Read || y2Read || z2Read) { line.setEndPoint(new Point3D(x2,y2,z2)); x2Read=y2Read=z2Read=false;}
                     parseAndAttachReactors(line);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return line;
                     }
                     break;
                 default: break;
             }
-            if (aktuellenGroupCode != null && (aktuellenGroupCode.code == 1001 || aktuellenGroupCode.code == 102)) {
-                 if (aktuellenGroupCode.code == 0) {
+            if (tokenizer.hasCurrent() && (tokenizer.getCode() == 1001 || tokenizer.getCode() == 102)) {
+                 if (tokenizer.getCode() == 0) {
                      break;
                  }
             }
@@ -168,36 +172,38 @@ public class EntitiesParser {
         double cy=0;
         double cz=0;
         boolean centerRead = false;
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 break;
             }
-            switch (aktuellenGroupCode.code) {
-                case 8: circle.setLayerName(aktuellenGroupCode.value); break;
-                case 6: circle.setLinetypeName(aktuellenGroupCode.value); break;
-                case 62: circle.setColor(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 10: cx = Double.parseDouble(aktuellenGroupCode.value); centerRead=true; break;
-                case 20: cy = Double.parseDouble(aktuellenGroupCode.value); centerRead=true; break;
-                case 30: cz = Double.parseDouble(aktuellenGroupCode.value); centerRead=true; break;
-                case 40: circle.setRadius(Double.parseDouble(aktuellenGroupCode.value)); break;
+            switch (tokenizer.getCode()) {
+                case 8: circle.setLayerName(tokenizer.getStringValue(symbols)); break;
+                case 6: circle.setLinetypeName(tokenizer.getStringValue(symbols)); break;
+                case 5: circle.setHandle(handleValue()); break;
+                case 330: circle.setOwnerHandle(handleValue()); break;
+                case 62: circle.setColor(tokenizer.getIntValue()); break;
+                case 10: cx = tokenizer.getDoubleValue(); centerRead=true; break;
+                case 20: cy = tokenizer.getDoubleValue(); centerRead=true; break;
+                case 30: cz = tokenizer.getDoubleValue(); centerRead=true; break;
+                case 40: circle.setRadius(tokenizer.getDoubleValue()); break;
                 case 1001:
                     if(centerRead) { circle.setCenter(new Point3D(cx,cy,cz)); centerRead=false; }
                     parseAndAttachXData(circle);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return circle;
                     }
                     break;
                 case 102:
                     if(centerRead) { circle.setCenter(new Point3D(cx,cy,cz)); centerRead=false; }
                     parseAndAttachReactors(circle);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return circle;
                     }
                     break;
                 default: break;
             }
-             if (aktuellenGroupCode != null && (aktuellenGroupCode.code == 1001 || aktuellenGroupCode.code == 102)) {
-                if (aktuellenGroupCode.code == 0) {
+             if (tokenizer.hasCurrent() && (tokenizer.getCode() == 1001 || tokenizer.getCode() == 102)) {
+                if (tokenizer.getCode() == 0) {
                     break;
                 }
             }
@@ -214,38 +220,40 @@ public class EntitiesParser {
         double cy=0;
         double cz=0;
         boolean centerRead = false;
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 break;
             }
-            switch (aktuellenGroupCode.code) {
-                case 8: arc.setLayerName(aktuellenGroupCode.value); break;
-                case 6: arc.setLinetypeName(aktuellenGroupCode.value); break;
-                case 62: arc.setColor(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 10: cx = Double.parseDouble(aktuellenGroupCode.value); centerRead=true; break;
-                case 20: cy = Double.parseDouble(aktuellenGroupCode.value); centerRead=true; break;
-                case 30: cz = Double.parseDouble(aktuellenGroupCode.value); centerRead=true; break;
-                case 40: arc.setRadius(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 50: arc.setStartAngle(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 51: arc.setEndAngle(Double.parseDouble(aktuellenGroupCode.value)); break;
+            switch (tokenizer.getCode()) {
+                case 8: arc.setLayerName(tokenizer.getStringValue(symbols)); break;
+                case 6: arc.setLinetypeName(tokenizer.getStringValue(symbols)); break;
+                case 5: arc.setHandle(handleValue()); break;
+                case 330: arc.setOwnerHandle(handleValue()); break;
+                case 62: arc.setColor(tokenizer.getIntValue()); break;
+                case 10: cx = tokenizer.getDoubleValue(); centerRead=true; break;
+                case 20: cy = tokenizer.getDoubleValue(); centerRead=true; break;
+                case 30: cz = tokenizer.getDoubleValue(); centerRead=true; break;
+                case 40: arc.setRadius(tokenizer.getDoubleValue()); break;
+                case 50: arc.setStartAngle(tokenizer.getDoubleValue()); break;
+                case 51: arc.setEndAngle(tokenizer.getDoubleValue()); break;
                 case 1001:
                     if(centerRead) { arc.setCenter(new Point3D(cx,cy,cz)); centerRead=false; }
                     parseAndAttachXData(arc);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return arc;
                     }
                     break;
                 case 102:
                     if(centerRead) { arc.setCenter(new Point3D(cx,cy,cz)); centerRead=false; }
                     parseAndAttachReactors(arc);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return arc;
                     }
                     break;
                 default: break;
             }
-            if (aktuellenGroupCode != null && (aktuellenGroupCode.code == 1001 || aktuellenGroupCode.code == 102)) {
-                if (aktuellenGroupCode.code == 0) {
+            if (tokenizer.hasCurrent() && (tokenizer.getCode() == 1001 || tokenizer.getCode() == 102)) {
+                if (tokenizer.getCode() == 0) {
                     break;
                 }
             }
@@ -261,81 +269,88 @@ public class EntitiesParser {
         double tempX = 0;
         double tempY = 0;
         double tempBulge = 0;
+        double tempStartWidth = 0;
+        double tempEndWidth = 0;
         boolean xRead = false;
         boolean yRead = false;
 
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 break;
             }
-            switch (aktuellenGroupCode.code) {
-                case 8: lwpolyline.setLayerName(aktuellenGroupCode.value); break;
-                case 6: lwpolyline.setLinetypeName(aktuellenGroupCode.value); break;
-                case 62: lwpolyline.setColor(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 90: /* numVertices = Integer.parseInt(aktuellenGroupCode.value); DxfLwPolyline manages its own count */ break;
+            switch (tokenizer.getCode()) {
+                case 8: lwpolyline.setLayerName(tokenizer.getStringValue(symbols)); break;
+                case 6: lwpolyline.setLinetypeName(tokenizer.getStringValue(symbols)); break;
+                case 5: lwpolyline.setHandle(handleValue()); break;
+                case 330: lwpolyline.setOwnerHandle(handleValue()); break;
+                case 62: lwpolyline.setColor(tokenizer.getIntValue()); break;
+                case 90: lwpolyline.ensureCapacity(Math.min(tokenizer.getIntValue(), MAX_PRESIZED_VERTICES)); break;
+                case 91: break; // Vertex identifier
+                case 40: tempStartWidth = tokenizer.getDoubleValue(); break;
+                case 41: tempEndWidth = tokenizer.getDoubleValue(); break;
                 case 70:
-                    int flags = Integer.parseInt(aktuellenGroupCode.value);
+                    int flags = tokenizer.getIntValue();
                     if ((flags & 1) == 1) { lwpolyline.setClosed(true); }
                     break;
-                case 43: lwpolyline.setConstantWidth(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 38: lwpolyline.setElevation(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 39: lwpolyline.setThickness(Double.parseDouble(aktuellenGroupCode.value)); break;
+                case 43: lwpolyline.setConstantWidth(tokenizer.getDoubleValue()); break;
+                case 38: lwpolyline.setElevation(tokenizer.getDoubleValue()); break;
+                case 39: lwpolyline.setThickness(tokenizer.getDoubleValue()); break;
                 case 10:
                     if (xRead && yRead) { // Finalize previous vertex before starting new one
-                        lwpolyline.addVertex(new Point2D(tempX, tempY), tempBulge);
-                        tempBulge = 0; // Reset for new vertex
+                        lwpolyline.addVertex(tempX, tempY, tempBulge, tempStartWidth, tempEndWidth);
+                        tempBulge = 0; tempStartWidth = 0; tempEndWidth = 0; // Reset for new vertex
                     }
-                    tempX = Double.parseDouble(aktuellenGroupCode.value);
+                    tempX = tokenizer.getDoubleValue();
                     xRead = true; yRead = false; // Reset yRead for new vertex
                     break;
                 case 20:
                     if (!xRead) { throw new DxfParserException("LWPOLYLINE: Y coordinate (20) read for a vertex before X coordinate (10)."); }
-                    tempY = Double.parseDouble(aktuellenGroupCode.value);
+                    tempY = tokenizer.getDoubleValue();
                     yRead = true;
                     // Don't add vertex yet; wait for optional bulge (42) or next 10/0 code
                     break;
                 case 42:
                     if (!xRead || !yRead) { /* Or log warning: Bulge received without complete X,Y pair */ }
-                    tempBulge = Double.parseDouble(aktuellenGroupCode.value);
+                    tempBulge = tokenizer.getDoubleValue();
                     break;
                 default: // This case handles adding a vertex if a non-vertex code is encountered
                     if (xRead && yRead) {
-                        lwpolyline.addVertex(new Point2D(tempX, tempY), tempBulge);
-                        xRead = false; yRead = false; tempBulge = 0;
+                        lwpolyline.addVertex(tempX, tempY, tempBulge, tempStartWidth, tempEndWidth);
+                        xRead = false; yRead = false; tempBulge = 0; tempStartWidth = 0; tempEndWidth = 0;
                     }
-                    if (aktuellenGroupCode.code == 1001) {
+                    if (tokenizer.getCode() == 1001) {
                         parseAndAttachXData(lwpolyline);
-                        if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                        if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                             return lwpolyline;
                         }
-                    } else if (aktuellenGroupCode.code == 102) {
+                    } else if (tokenizer.getCode() == 102) {
                         parseAndAttachReactors(lwpolyline);
-                        if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                        if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                             return lwpolyline;
                         }
                     }
                     break;
             }
-             if (aktuellenGroupCode != null && (aktuellenGroupCode.code == 1001 || aktuellenGroupCode.code == 102)) {
+             if (tokenizer.hasCurrent() && (tokenizer.getCode() == 1001 || tokenizer.getCode() == 102)) {
                  if (xRead && yRead) { // Add pending vertex before processing XDATA/Reactors
-                    lwpolyline.addVertex(new Point2D(tempX, tempY), tempBulge);
-                    xRead = false; yRead = false; tempBulge = 0;
+                    lwpolyline.addVertex(tempX, tempY, tempBulge, tempStartWidth, tempEndWidth);
+                    xRead = false; yRead = false; tempBulge = 0; tempStartWidth = 0; tempEndWidth = 0;
                  }
-                 if (aktuellenGroupCode.code == 1001) { // Re-check after parseAndAttachXData/Reactors
+                 if (tokenizer.getCode() == 1001) { // Re-check after parseAndAttachXData/Reactors
                     parseAndAttachXData(lwpolyline);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return lwpolyline;
                     }
-                 } else if (aktuellenGroupCode.code == 102) {
+                 } else if (tokenizer.getCode() == 102) {
                     parseAndAttachReactors(lwpolyline);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return lwpolyline;
                     }
                  }
             }
         }
         if (xRead && yRead) { // Add any final pending vertex
-            lwpolyline.addVertex(new Point2D(tempX, tempY), tempBulge);
+            lwpolyline.addVertex(tempX, tempY, tempBulge, tempStartWidth, tempEndWidth);
         }
         return lwpolyline;
     }
@@ -346,42 +361,44 @@ public class EntitiesParser {
         double insY=0;
         double insZ=0;
         boolean insRead = false;
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 break;
             }
-            switch (aktuellenGroupCode.code) {
-                case 1: text.setTextValue(aktuellenGroupCode.value); break;
-                case 8: text.setLayerName(aktuellenGroupCode.value); break;
-                case 6: text.setLinetypeName(aktuellenGroupCode.value); break;
-                case 62: text.setColor(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 10: insX = Double.parseDouble(aktuellenGroupCode.value); insRead=true; break;
-                case 20: insY = Double.parseDouble(aktuellenGroupCode.value); insRead=true; break;
-                case 30: insZ = Double.parseDouble(aktuellenGroupCode.value); insRead=true; break;
-                case 11: /* alignX = Double.parseDouble(aktuellenGroupCode.value); alignRead=true; DxfText has no setAlignmentPoint */ break;
-                case 21: /* alignY = Double.parseDouble(aktuellenGroupCode.value); alignRead=true; */ break;
-                case 31: /* alignZ = Double.parseDouble(aktuellenGroupCode.value); alignRead=true; */ break;
-                case 40: text.setHeight(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 50: text.setRotationAngle(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 7: text.setStyleName(aktuellenGroupCode.value); break;
+            switch (tokenizer.getCode()) {
+                case 1: text.setTextValue(tokenizer.getStringValue()); break;
+                case 8: text.setLayerName(tokenizer.getStringValue(symbols)); break;
+                case 6: text.setLinetypeName(tokenizer.getStringValue(symbols)); break;
+                case 5: text.setHandle(handleValue()); break;
+                case 330: text.setOwnerHandle(handleValue()); break;
+                case 62: text.setColor(tokenizer.getIntValue()); break;
+                case 10: insX = tokenizer.getDoubleValue(); insRead=true; break;
+                case 20: insY = tokenizer.getDoubleValue(); insRead=true; break;
+                case 30: insZ = tokenizer.getDoubleValue(); insRead=true; break;
+                case 11: /* alignX = tokenizer.getDoubleValue(); alignRead=true; DxfText has no setAlignmentPoint */ break;
+                case 21: /* alignY = tokenizer.getDoubleValue(); alignRead=true; */ break;
+                case 31: /* alignZ = tokenizer.getDoubleValue(); alignRead=true; */ break;
+                case 40: text.setHeight(tokenizer.getDoubleValue()); break;
+                case 50: text.setRotationAngle(tokenizer.getDoubleValue()); break;
+                case 7: text.setStyleName(tokenizer.getStringValue(symbols)); break;
                 case 1001:
                     if(insRead) { text.setInsertionPoint(new Point3D(insX, insY, insZ)); insRead = false; }
                     parseAndAttachXData(text);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return text;
                     }
                     break;
                 case 102:
                     if(insRead) { text.setInsertionPoint(new Point3D(insX, insY, insZ)); insRead = false; }
                     parseAndAttachReactors(text);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return text;
                     }
                     break;
                 default: break;
             }
-            if (aktuellenGroupCode != null && (aktuellenGroupCode.code == 1001 || aktuellenGroupCode.code == 102)) {
-                if (aktuellenGroupCode.code == 0) {
+            if (tokenizer.hasCurrent() && (tokenizer.getCode() == 1001 || tokenizer.getCode() == 102)) {
+                if (tokenizer.getCode() == 0) {
                     break;
                 }
             }
@@ -398,40 +415,42 @@ public class EntitiesParser {
         double insY=0;
         double insZ=0;
         boolean insRead = false;
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 break;
             }
-            switch (aktuellenGroupCode.code) {
-                case 2: insert.setBlockName(aktuellenGroupCode.value.toUpperCase(Locale.ROOT)); break;
-                case 8: insert.setLayerName(aktuellenGroupCode.value); break;
-                case 6: insert.setLinetypeName(aktuellenGroupCode.value); break;
-                case 62: insert.setColor(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 10: insX = Double.parseDouble(aktuellenGroupCode.value); insRead=true; break;
-                case 20: insY = Double.parseDouble(aktuellenGroupCode.value); insRead=true; break;
-                case 30: insZ = Double.parseDouble(aktuellenGroupCode.value); insRead=true; break;
-                case 41: insert.setXScale(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 42: insert.setYScale(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 50: insert.setRotationAngle(Double.parseDouble(aktuellenGroupCode.value)); break;
+            switch (tokenizer.getCode()) {
+                case 2: insert.setBlockName(tokenizer.getStringValue().toUpperCase(Locale.ROOT)); break;
+                case 8: insert.setLayerName(tokenizer.getStringValue(symbols)); break;
+                case 6: insert.setLinetypeName(tokenizer.getStringValue(symbols)); break;
+                case 5: insert.setHandle(handleValue()); break;
+                case 330: insert.setOwnerHandle(handleValue()); break;
+                case 62: insert.setColor(tokenizer.getIntValue()); break;
+                case 10: insX = tokenizer.getDoubleValue(); insRead=true; break;
+                case 20: insY = tokenizer.getDoubleValue(); insRead=true; break;
+                case 30: insZ = tokenizer.getDoubleValue(); insRead=true; break;
+                case 41: insert.setXScale(tokenizer.getDoubleValue()); break;
+                case 42: insert.setYScale(tokenizer.getDoubleValue()); break;
+                case 50: insert.setRotationAngle(tokenizer.getDoubleValue()); break;
                 case 66: break;
                 case 1001:
                     if(insRead) { insert.setInsertionPoint(new Point3D(insX,insY,insZ)); insRead = false; }
                     parseAndAttachXData(insert);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return insert;
                     }
                     break;
                 case 102:
                     if(insRead) { insert.setInsertionPoint(new Point3D(insX,insY,insZ)); insRead = false; }
                     parseAndAttachReactors(insert);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return insert;
                     }
                     break;
                 default: break;
             }
-            if (aktuellenGroupCode != null && (aktuellenGroupCode.code == 1001 || aktuellenGroupCode.code == 102)) {
-                if (aktuellenGroupCode.code == 0) {
+            if (tokenizer.hasCurrent() && (tokenizer.getCode() == 1001 || tokenizer.getCode() == 102)) {
+                if (tokenizer.getCode() == 0) {
                     break;
                 }
             }
@@ -465,34 +484,36 @@ public class EntitiesParser {
         double extZ=0;
         boolean extrusionRead = false;
 
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 break;
             }
-            switch (aktuellenGroupCode.code) {
-                case 2: dimension.setBlockName(aktuellenGroupCode.value); break;
-                case 3: dimension.setDimensionStyleName(aktuellenGroupCode.value.toUpperCase(Locale.ROOT)); break;
-                case 8: dimension.setLayerName(aktuellenGroupCode.value); break;
-                case 6: dimension.setLinetypeName(aktuellenGroupCode.value); break;
-                case 62: dimension.setColor(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 10: defX = Double.parseDouble(aktuellenGroupCode.value); defRead=true; break;
-                case 20: defY = Double.parseDouble(aktuellenGroupCode.value); defRead=true; break;
-                case 30: defZ = Double.parseDouble(aktuellenGroupCode.value); defRead=true; break;
-                case 11: midX = Double.parseDouble(aktuellenGroupCode.value); midRead=true; break;
-                case 21: midY = Double.parseDouble(aktuellenGroupCode.value); midRead=true; break;
-                case 31: midZ = Double.parseDouble(aktuellenGroupCode.value); midRead=true; break;
-                case 13: p1X = Double.parseDouble(aktuellenGroupCode.value); p1Read=true; break;
-                case 23: p1Y = Double.parseDouble(aktuellenGroupCode.value); p1Read=true; break;
-                case 33: p1Z = Double.parseDouble(aktuellenGroupCode.value); p1Read=true; break;
-                case 14: p2X = Double.parseDouble(aktuellenGroupCode.value); p2Read=true; break;
-                case 24: p2Y = Double.parseDouble(aktuellenGroupCode.value); p2Read=true; break;
-                case 34: p2Z = Double.parseDouble(aktuellenGroupCode.value); p2Read=true; break;
-                case 1: dimension.setDimensionText(aktuellenGroupCode.value); break;
-                case 50: dimension.setRotationAngle(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 70: dimension.setDimensionTypeFlags(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 210: extX = Double.parseDouble(aktuellenGroupCode.value); extrusionRead=true; break;
-                case 220: extY = Double.parseDouble(aktuellenGroupCode.value); extrusionRead=true; break;
-                case 230: extZ = Double.parseDouble(aktuellenGroupCode.value); extrusionRead=true; break;
+            switch (tokenizer.getCode()) {
+                case 2: dimension.setBlockName(tokenizer.getStringValue()); break;
+                case 3: dimension.setDimensionStyleName(symbols.getKey(tokenizer.getStringValue(symbols))); break;
+                case 8: dimension.setLayerName(tokenizer.getStringValue(symbols)); break;
+                case 6: dimension.setLinetypeName(tokenizer.getStringValue(symbols)); break;
+                case 5: dimension.setHandle(handleValue()); break;
+                case 330: dimension.setOwnerHandle(handleValue()); break;
+                case 62: dimension.setColor(tokenizer.getIntValue()); break;
+                case 10: defX = tokenizer.getDoubleValue(); defRead=true; break;
+                case 20: defY = tokenizer.getDoubleValue(); defRead=true; break;
+                case 30: defZ = tokenizer.getDoubleValue(); defRead=true; break;
+                case 11: midX = tokenizer.getDoubleValue(); midRead=true; break;
+                case 21: midY = tokenizer.getDoubleValue(); midRead=true; break;
+                case 31: midZ = tokenizer.getDoubleValue(); midRead=true; break;
+                case 13: p1X = tokenizer.getDoubleValue(); p1Read=true; break;
+                case 23: p1Y = tokenizer.getDoubleValue(); p1Read=true; break;
+                case 33: p1Z = tokenizer.getDoubleValue(); p1Read=true; break;
+                case 14: p2X = tokenizer.getDoubleValue(); p2Read=true; break;
+                case 24: p2Y = tokenizer.getDoubleValue(); p2Read=true; break;
+                case 34: p2Z = tokenizer.getDoubleValue(); p2Read=true; break;
+                case 1: dimension.setDimensionText(tokenizer.getStringValue()); break;
+                case 50: dimension.setRotationAngle(tokenizer.getDoubleValue()); break;
+                case 70: dimension.setDimensionTypeFlags(tokenizer.getIntValue()); break;
+                case 210: extX = tokenizer.getDoubleValue(); extrusionRead=true; break;
+                case 220: extY = tokenizer.getDoubleValue(); extrusionRead=true; break;
+                case 230: extZ = tokenizer.getDoubleValue(); extrusionRead=true; break;
                 case 1001:
                     updateDimensionPoints(dimension, defRead, defX, defY, defZ, midRead, midX, midY, midZ, p1Read, p1X, p1Y, p1Z, p2Read, p2X, p2Y, p2Z, extrusionRead, extX, extY, extZ);
                     // Reset flags after updating, as this is specific to the XDATA/Reactor handling path
@@ -502,7 +523,7 @@ public class EntitiesParser {
                     if(p2Read) { p2Read=false; }
                     if(extrusionRead) { extrusionRead=false; }
                     parseAndAttachXData(dimension);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return dimension;
                     }
                     break;
@@ -515,14 +536,14 @@ public class EntitiesParser {
                     if(p2Read) { p2Read=false; }
                     if(extrusionRead) { extrusionRead=false; }
                     parseAndAttachReactors(dimension);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return dimension;
                     }
                     break;
                 default: break;
             }
-             if (aktuellenGroupCode != null && (aktuellenGroupCode.code == 1001 || aktuellenGroupCode.code == 102)) {
-                if (aktuellenGroupCode.code == 0) {
+             if (tokenizer.hasCurrent() && (tokenizer.getCode() == 1001 || tokenizer.getCode() == 102)) {
+                if (tokenizer.getCode() == 0) {
                     break;
                 }
             }
@@ -548,60 +569,62 @@ public class EntitiesParser {
         double currentFpY=0;
         boolean fpXRead = false;
 
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 break;
             }
-            switch (aktuellenGroupCode.code) {
-                case 8: spline.setLayerName(aktuellenGroupCode.value); break;
-                case 6: spline.setLinetypeName(aktuellenGroupCode.value); break;
-                case 62: spline.setColor(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 210: normalX = Double.parseDouble(aktuellenGroupCode.value); normalRead=true; break;
-                case 220: normalY = Double.parseDouble(aktuellenGroupCode.value); normalRead=true; break;
-                case 230: normalZ = Double.parseDouble(aktuellenGroupCode.value); normalRead=true; break;
-                case 70: spline.setFlags(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 71: spline.setDegree(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 72: spline.setNumberOfKnots(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 73: spline.setNumberOfControlPoints(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 74: spline.setNumberOfFitPoints(Integer.parseInt(aktuellenGroupCode.value)); break;
-                case 40: spline.addKnot(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 10: currentCpX = Double.parseDouble(aktuellenGroupCode.value); cpXRead = true; break;
-                case 20: currentCpY = Double.parseDouble(aktuellenGroupCode.value); break;
+            switch (tokenizer.getCode()) {
+                case 8: spline.setLayerName(tokenizer.getStringValue(symbols)); break;
+                case 6: spline.setLinetypeName(tokenizer.getStringValue(symbols)); break;
+                case 5: spline.setHandle(handleValue()); break;
+                case 330: spline.setOwnerHandle(handleValue()); break;
+                case 62: spline.setColor(tokenizer.getIntValue()); break;
+                case 210: normalX = tokenizer.getDoubleValue(); normalRead=true; break;
+                case 220: normalY = tokenizer.getDoubleValue(); normalRead=true; break;
+                case 230: normalZ = tokenizer.getDoubleValue(); normalRead=true; break;
+                case 70: spline.setFlags(tokenizer.getIntValue()); break;
+                case 71: spline.setDegree(tokenizer.getIntValue()); break;
+                case 72: spline.setNumberOfKnots(tokenizer.getIntValue()); break;
+                case 73: spline.setNumberOfControlPoints(tokenizer.getIntValue()); break;
+                case 74: spline.setNumberOfFitPoints(tokenizer.getIntValue()); break;
+                case 40: spline.addKnot(tokenizer.getDoubleValue()); break;
+                case 10: currentCpX = tokenizer.getDoubleValue(); cpXRead = true; break;
+                case 20: currentCpY = tokenizer.getDoubleValue(); break;
                 case 30:
                     if(cpXRead) {
-                        spline.addControlPoint(new Point3D(currentCpX, currentCpY, Double.parseDouble(aktuellenGroupCode.value)));
+                        spline.addControlPoint(new Point3D(currentCpX, currentCpY, tokenizer.getDoubleValue()));
                         cpXRead = false; currentCpY = 0; currentCpX = 0;
                     }
                     break;
-                case 11: currentFpX = Double.parseDouble(aktuellenGroupCode.value); fpXRead = true; break;
-                case 21: currentFpY = Double.parseDouble(aktuellenGroupCode.value); break;
+                case 11: currentFpX = tokenizer.getDoubleValue(); fpXRead = true; break;
+                case 21: currentFpY = tokenizer.getDoubleValue(); break;
                 case 31:
                     if(fpXRead) {
-                        spline.addFitPoint(new Point3D(currentFpX, currentFpY, Double.parseDouble(aktuellenGroupCode.value)));
+                        spline.addFitPoint(new Point3D(currentFpX, currentFpY, tokenizer.getDoubleValue()));
                         fpXRead = false; currentFpY = 0; currentFpX = 0;
                     }
                     break;
-                case 42: spline.setKnotTolerance(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 43: spline.setControlPointTolerance(Double.parseDouble(aktuellenGroupCode.value)); break;
-                case 44: spline.setFitTolerance(Double.parseDouble(aktuellenGroupCode.value)); break;
+                case 42: spline.setKnotTolerance(tokenizer.getDoubleValue()); break;
+                case 43: spline.setControlPointTolerance(tokenizer.getDoubleValue()); break;
+                case 44: spline.setFitTolerance(tokenizer.getDoubleValue()); break;
                 case 1001:
                     if(normalRead) { spline.setNormalVector(new Point3D(normalX, normalY, normalZ)); normalRead = false; } // This if already has braces in a sense due to {} in Point3D potentially, but PMD might want outer braces. Let's assume the main action is one line.
                     parseAndAttachXData(spline);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return spline;
                     }
                     break;
                 case 102:
                     if(normalRead) { spline.setNormalVector(new Point3D(normalX, normalY, normalZ)); normalRead = false; }
                     parseAndAttachReactors(spline);
-                    if (aktuellenGroupCode != null && aktuellenGroupCode.code == 0) {
+                    if (tokenizer.hasCurrent() && tokenizer.getCode() == 0) {
                         return spline;
                     }
                     break;
                 default: break;
             }
-            if (aktuellenGroupCode != null && (aktuellenGroupCode.code == 1001 || aktuellenGroupCode.code == 102)) {
-                if (aktuellenGroupCode.code == 0) {
+            if (tokenizer.hasCurrent() && (tokenizer.getCode() == 1001 || tokenizer.getCode() == 102)) {
+                if (tokenizer.getCode() == 0) {
                     break;
                 }
             }
@@ -613,31 +636,41 @@ public class EntitiesParser {
     }
 
     public DxfEntity consumeUnknownEntity() throws IOException, DxfParserException {
-        while ((this.aktuellenGroupCode = nextGroupCode()) != null) {
-            if (this.aktuellenGroupCode.code == 0) {
+        while (tokenizer.next()) {
+            if (tokenizer.getCode() == 0) {
                 return null;
             }
         }
         return null;
     }
 
-    public DxfEntity parseEntity(DxfGroupCode entityStartCode) throws IOException, DxfParserException {
-        if (entityStartCode == null || entityStartCode.code != 0) {
-            throw new DxfParserException("Entity start code must be a 0 group code. Got: " + entityStartCode);
+    /**
+     * Parses the entity whose 0/TYPE pair the tokenizer is currently positioned on.
+     * On return the tokenizer is positioned on the 0 code that follows the entity, or at end of input.
+     * @return The parsed entity, or null if the entity type is not supported.
+     */
+    public DxfEntity parseEntity() throws IOException, DxfParserException {
+        if (!tokenizer.hasCurrent() || tokenizer.getCode() != 0) {
+            throw new DxfParserException("Entity start code must be a 0 group code. Got: " + tokenizer);
         }
-        this.aktuellenGroupCode = entityStartCode;
-        String entityType = entityStartCode.value.toUpperCase(Locale.ROOT);
-
-        switch (entityType) {
-            case "LINE": return parseLineEntity();
-            case "CIRCLE": return parseCircleEntity();
-            case "ARC": return parseArcEntity();
-            case "LWPOLYLINE": return parseLwPolylineEntity();
-            case "TEXT": return parseTextEntity();
-            case "INSERT": return parseInsertEntity();
-            case "DIMENSION": return parseDimensionEntity();
-            case "SPLINE": return parseSplineEntity();
-            default: return consumeUnknownEntity();
+        // Compared on the tokenizer's bytes: this runs once per entity, so no String is made for the type
+        if (tokenizer.valueEqualsIgnoreCase("LINE")) {
+            return parseLineEntity();
+        } else if (tokenizer.valueEqualsIgnoreCase("CIRCLE")) {
+            return parseCircleEntity();
+        } else if (tokenizer.valueEqualsIgnoreCase("ARC")) {
+            return parseArcEntity();
+        } else if (tokenizer.valueEqualsIgnoreCase("LWPOLYLINE")) {
+            return parseLwPolylineEntity();
+        } else if (tokenizer.valueEqualsIgnoreCase("TEXT")) {
+            return parseTextEntity();
+        } else if (tokenizer.valueEqualsIgnoreCase("INSERT")) {
+            return parseInsertEntity();
+        } else if (tokenizer.valueEqualsIgnoreCase("DIMENSION")) {
+            return parseDimensionEntity();
+        } else if (tokenizer.valueEqualsIgnoreCase("SPLINE")) {
+            return parseSplineEntity();
         }
+        return consumeUnknownEntity();
     }
 }
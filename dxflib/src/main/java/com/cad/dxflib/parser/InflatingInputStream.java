@@ -0,0 +1,245 @@
+package com.cad.dxflib.parser;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Decompresses a gzip- or zip-compressed DXF on a background thread, so inflation overlaps with
+ * tokenizing and parsing. The inflating thread fills fixed-size chunks and hands them over through a
+ * bounded queue; the reader returns each chunk once it is consumed, so at most {@link #QUEUED_CHUNKS}
+ * plus two chunks exist however large the file is, and the inflater waits whenever the parser falls behind.
+ * <p>
+ * Of a zip archive, the first entry named {@code *.dxf} is read.
+ */
+final class InflatingInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 1 << 18;
+    private static final int QUEUED_CHUNKS = 4;
+    private static final Chunk END = new Chunk(0);
+
+    enum Format { GZIP, ZIP }
+
+    private final CountingInputStream compressed;
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(QUEUED_CHUNKS + 2);
+    private final Thread inflater;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private Chunk current;
+    private int position;
+
+    private InflatingInputStream(InputStream compressed, Format format, String name) {
+        this.compressed = new CountingInputStream(compressed);
+        for (int i = 0; i < QUEUED_CHUNKS + 2; i++) {
+            free.add(new Chunk(CHUNK_SIZE));
+        }
+        this.inflater = new Thread(() -> inflate(format), "dxf-inflate-" + name);
+        this.inflater.setDaemon(true);
+        this.inflater.start();
+    }
+
+    /**
+     * Detects the compression of a stream from its first bytes.
+     * @param head The first bytes of the stream (at least 4 to detect zip).
+     * @param length The number of bytes in head.
+     * @return The compression format, or null for an uncompressed (ASCII or binary DXF) stream.
+     */
+    static Format detect(byte[] head, int length) {
+        if (length >= 2 && (head[0] & 0xFF) == 0x1F && (head[1] & 0xFF) == 0x8B) {
+            return Format.GZIP;
+        }
+        if (length >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4) {
+            return Format.ZIP;
+        }
+        return null;
+    }
+
+    /**
+     * Starts inflating a compressed stream in the background.
+     * @param compressed The compressed stream, positioned at its start. It is closed by {@link #close()}.
+     * @param format The compression format.
+     * @param name A name for the inflating thread, e.g. the file name.
+     * @return The stream of decompressed bytes.
+     */
+    static InflatingInputStream open(InputStream compressed, Format format, String name) {
+        return new InflatingInputStream(compressed, format, name);
+    }
+
+    /**
+     * Returns a stream of the DXF content of a possibly compressed stream: compressed streams are
+     * inflated in the background, others are returned as they are (behind a small pushback buffer).
+     * @param in The stream to read.
+     * @return The decompressed stream.
+     * @throws IOException If the first bytes cannot be read.
+     */
+    static InputStream decompressed(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 4);
+        byte[] head = new byte[4];
+        int length = pushback.readNBytes(head, 0, head.length);
+        pushback.unread(head, 0, length);
+        Format format = detect(head, length);
+        return format != null ? open(pushback, format, "stream") : pushback;
+    }
+
+    /**
+     * Gets the number of compressed bytes read so far, for progress reporting. It runs ahead of the
+     * consumer by at most the queued chunks. Safe to call from any thread.
+     * @return The compressed input offset.
+     */
+    long getCompressedBytesRead() {
+        return compressed.count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        inflater.interrupt(); // Wakes it if it waits for a chunk
+        compressed.close(); // Fails a pending read
+        try {
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+        while (current == null || position == current.length) {
+            if (current == END) {
+                return false;
+            }
+            if (current != null) {
+                free.add(current);
+            }
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed DXF data.");
+            }
+            position = 0;
+            if (current == END && failure != null) {
+                throw failure instanceof IOException
+                        ? new IOException(failure.getMessage(), failure)
+                        : new IOException("Error decompressing DXF data.", failure);
+            }
+        }
+        return true;
+    }
+
+    // Runs on the inflating thread
+    private void inflate(Format format) {
+        try (InputStream in = format == Format.GZIP ? new GZIPInputStream(compressed, CHUNK_SIZE) : dxfEntry()) {
+            while (!closed) {
+                Chunk chunk = free.take();
+                chunk.length = in.readNBytes(chunk.data, 0, chunk.data.length);
+                if (chunk.length == 0) {
+                    break;
+                }
+                filled.put(chunk);
+            }
+        } catch (InterruptedException e) {
+            return; // Closed by the reader, which no longer waits for data
+        } catch (Throwable t) {
+            if (closed) {
+                return;
+            }
+            failure = t;
+        }
+        try {
+            filled.put(END);
+        } catch (InterruptedException e) {
+            // Closed by the reader
+        }
+    }
+
+    private InputStream dxfEntry() throws IOException {
+        ZipInputStream zip = new ZipInputStream(compressed);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".dxf")) {
+                return zip;
+            }
+        }
+        throw new IOException("ZIP archive contains no .dxf entry.");
+    }
+
+    private static final class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    // Counts the compressed bytes consumed by the inflater
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
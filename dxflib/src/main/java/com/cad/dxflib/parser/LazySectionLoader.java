@@ -0,0 +1,64 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfSectionLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Loads the sections of a document returned by {@link DxfParser#parseLazily(java.nio.file.Path)}.
+ * Each section is parsed from its own slice of the mapped file, located through a {@link DxfSectionIndex}.
+ * HEADER is always loaded first so that string values are decoded with the file's code page, and TABLES
+ * is loaded before ENTITIES when it precedes it in the file, so entities find their layers as in a full parse.
+ */
+class LazySectionLoader implements DxfSectionLoader {
+
+    private final ByteBuffer data;
+    private final DxfSectionIndex index;
+    private final DxfParser settings;
+    private Charset charset = Charset.defaultCharset();
+
+    LazySectionLoader(ByteBuffer data, DxfParser settings) {
+        this.data = data;
+        this.index = new DxfSectionIndex(data);
+        this.settings = settings;
+    }
+
+    @Override
+    public void loadSection(DxfDocument document, String sectionName) {
+        try {
+            if (!"HEADER".equals(sectionName)) {
+                document.ensureSectionLoaded("HEADER");
+            }
+            DxfSectionIndex.Section section = index.find(sectionName);
+            if (section == null) {
+                return;
+            }
+            if ("ENTITIES".equals(sectionName)) {
+                DxfSectionIndex.Section tables = index.find("TABLES");
+                if (tables != null && tables.getStartOffset() < section.getStartOffset()) {
+                    document.ensureSectionLoaded("TABLES");
+                }
+            }
+
+            ByteBuffer slice = data.duplicate();
+            slice.limit((int) section.getEndOffset());
+            slice.position((int) section.getStartOffset());
+            DxfTokenizer tokenizer = new DxfTokenizer(slice, charset);
+            if (index.isBinary()) {
+                tokenizer.assumeBinary(index.hasTwoByteGroupCodes()); // The slice has no sentinel
+            }
+            tokenizer.next(); // 0/SECTION
+            tokenizer.next(); // 2/SECTION_NAME
+            // A fresh parser per section: loads can nest (ENTITIES pulls in TABLES)
+            settings.copySettings().parseSection(document, tokenizer);
+            if ("HEADER".equals(sectionName)) {
+                charset = tokenizer.getCharset();
+            }
+        } catch (IOException | DxfParserException e) {
+            throw new IllegalStateException("Error parsing " + sectionName + " section of lazily loaded DXF document.", e);
+        }
+    }
+}
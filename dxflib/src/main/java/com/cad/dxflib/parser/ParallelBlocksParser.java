@@ -0,0 +1,71 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.structure.DxfBlock;
+import com.cad.dxflib.structure.DxfDocument;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parses the BLOCKS section on a {@link ForkJoinPool}, one task per BLOCK..ENDBLK definition.
+ * Block definitions do not depend on each other, so each range is copied out while scanning and
+ * turned into its own {@link DxfBlock} concurrently. The blocks are returned in file order.
+ */
+class ParallelBlocksParser extends ParallelSectionParser<DxfBlock> {
+
+    private final DxfDocument document;
+
+    ParallelBlocksParser(DxfTokenizer tokenizer, DxfDocument document, ForkJoinPool pool) {
+        super(tokenizer, pool, 16 * 1024);
+        this.document = document;
+    }
+
+    /**
+     * Scans from the first pair after 2/BLOCKS up to 0/ENDSEC and parses the block definitions found.
+     * On return the tokenizer is positioned on 0/ENDSEC.
+     * @return The parsed blocks, in file order.
+     */
+    List<DxfBlock> parse() throws IOException, DxfParserException {
+        return run();
+    }
+
+    @Override
+    protected void scan() throws IOException, DxfParserException {
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDSEC")) {
+                    return;
+                } else if (tokenizer.valueEqualsIgnoreCase("BLOCK")) {
+                    scanBlockDefinition();
+                    continue;
+                } else {
+                    throw new DxfParserException("Unexpected group code " + tokenizer + " in BLOCKS section while expecting BLOCK or ENDSEC.");
+                }
+            }
+            tokenizer.next(); // Trailing ENDBLK data, as in the sequential parse
+        }
+        throw new DxfParserException("Premature EOF in BLOCKS section (outer loop), ENDSEC not found.");
+    }
+
+    private void scanBlockDefinition() throws IOException, DxfParserException {
+        // The tokenizer is on 0/BLOCK; copy everything up to and including 0/ENDBLK
+        appendCurrentPair();
+        while (tokenizer.next()) {
+            appendCurrentPair();
+            if (tokenizer.getCode() == 0 && tokenizer.valueEqualsIgnoreCase("ENDBLK")) {
+                submitChunk();
+                tokenizer.next(); // Consume ENDBLK
+                return;
+            }
+        }
+        // Let the block parser report the missing ENDBLK with the block's name
+        submitChunk();
+    }
+
+    @Override
+    protected DxfBlock parseChunk(DxfTokenizer chunkTokenizer) throws IOException, DxfParserException {
+        chunkTokenizer.next(); // Move to 0/BLOCK
+        return DxfParser.parseBlockDefinition(chunkTokenizer, document);
+    }
+}
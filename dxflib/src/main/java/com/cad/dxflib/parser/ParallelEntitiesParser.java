@@ -0,0 +1,79 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.structure.DxfDocument;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parses the ENTITIES section on a {@link ForkJoinPool}.
+ * The section is split into chunks of roughly {@code chunkSize} bytes at 0/entity boundaries,
+ * each chunk is parsed by its own {@link EntitiesParser}, and the entities are returned in file order.
+ * Names are interned into the document's symbol table, which is safe to share between the tasks.
+ */
+class ParallelEntitiesParser extends ParallelSectionParser<List<DxfEntity>> {
+
+    static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    private final DxfDocument document;
+    private final int chunkSize;
+
+    ParallelEntitiesParser(DxfTokenizer tokenizer, DxfDocument document, ForkJoinPool pool, int chunkSize) {
+        super(tokenizer, pool, chunkSize + 1024);
+        this.document = document;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Scans from the current position up to 0/ENDSEC and parses the entities found in between.
+     * On return the tokenizer is positioned on 0/ENDSEC.
+     * @return The parsed entities, in file order.
+     */
+    List<DxfEntity> parse() throws IOException, DxfParserException {
+        List<DxfEntity> entities = new ArrayList<>();
+        for (List<DxfEntity> chunkEntities : run()) {
+            entities.addAll(chunkEntities);
+        }
+        return entities;
+    }
+
+    @Override
+    protected void scan() throws IOException, DxfParserException {
+        while (tokenizer.hasCurrent()) {
+            if (tokenizer.getCode() == 0) {
+                if (tokenizer.valueEqualsIgnoreCase("ENDSEC")) {
+                    submitChunk();
+                    return;
+                }
+                if (chunkLength() >= chunkSize) {
+                    submitChunk();
+                }
+            }
+            appendCurrentPair();
+            tokenizer.next();
+        }
+        submitChunk();
+        throw new DxfParserException("Premature EOF in ENTITIES section.");
+    }
+
+    @Override
+    protected List<DxfEntity> parseChunk(DxfTokenizer chunkTokenizer) throws IOException, DxfParserException {
+        EntitiesParser entitiesParser = new EntitiesParser(chunkTokenizer, document);
+        List<DxfEntity> entities = new ArrayList<>();
+        chunkTokenizer.next();
+        while (chunkTokenizer.hasCurrent()) {
+            if (chunkTokenizer.getCode() != 0) {
+                throw new DxfParserException("Unexpected non-zero group code " + chunkTokenizer
+                        + " in ENTITIES section. Expected 0 for entity type or ENDSEC.");
+            }
+            DxfEntity entity = entitiesParser.parseEntity();
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,202 @@
+package com.cad.dxflib.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Base for parsers that split a section into independent chunks and parse them on a {@link ForkJoinPool}.
+ * The calling thread only finds the chunk boundaries, which needs no number parsing and no entity objects.
+ * When the input is a buffer, e.g. a memory-mapped file, a chunk is a range of it and nothing is copied;
+ * from a stream, the pairs are copied into a chunk buffer that the task takes over and hands back for reuse.
+ * Each submitted chunk is parsed from its own {@link DxfTokenizer} while the scan continues, and the results
+ * are handed back in submission (file) order.
+ * @param <T> The result of parsing one chunk.
+ */
+abstract class ParallelSectionParser<T> {
+
+    protected final DxfTokenizer tokenizer;
+    private final ForkJoinPool pool;
+    private final List<Future<T>> tasks = new ArrayList<>();
+    private final boolean slicing;
+    private final Queue<byte[]> spareChunks = new ConcurrentLinkedQueue<>(); // Returned by finished tasks
+
+    private byte[] chunk; // Null when slicing
+    private int chunkLength;
+    private long sliceStart = -1; // Input offsets of the current chunk when slicing, -1 while it is empty
+    private long sliceEnd;
+    private ParseMonitor monitor;
+
+    ParallelSectionParser(DxfTokenizer tokenizer, ForkJoinPool pool, int initialCapacity) {
+        this.tokenizer = tokenizer;
+        this.pool = pool;
+        this.slicing = tokenizer.canSlice();
+        this.chunk = slicing ? null : new byte[initialCapacity];
+    }
+
+    /**
+     * Makes the scan stop at the next chunk boundary once the monitored parse is cancelled.
+     * @param monitor The monitor of an asynchronous parse, or null.
+     */
+    void setMonitor(ParseMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Scans the section from the current position, submitting chunks with {@link #submitChunk()}.
+     */
+    protected abstract void scan() throws IOException, DxfParserException;
+
+    /**
+     * Parses one chunk. Runs on a pool thread.
+     * @param chunkTokenizer A tokenizer over the chunk, not yet advanced to its first pair.
+     * @return The result for the chunk.
+     */
+    protected abstract T parseChunk(DxfTokenizer chunkTokenizer) throws IOException, DxfParserException;
+
+    /**
+     * Runs {@link #scan()} and waits for all submitted chunks.
+     * @return The chunk results, in file order.
+     */
+    protected List<T> run() throws IOException, DxfParserException {
+        try {
+            scan();
+        } catch (IOException | DxfParserException | RuntimeException e) {
+            // In a sequential parse, a failure inside an earlier chunk would have surfaced first
+            collect();
+            throw e;
+        }
+        return collect();
+    }
+
+    /**
+     * Gets the size of the current chunk.
+     * @return The number of input (or copied) bytes in the chunk.
+     */
+    protected int chunkLength() {
+        if (slicing) {
+            return sliceStart < 0 ? 0 : (int) (sliceEnd - sliceStart);
+        }
+        return chunkLength;
+    }
+
+    protected void submitChunk() {
+        if (monitor != null) {
+            monitor.checkCancelled();
+        }
+        if (chunkLength() == 0) {
+            return;
+        }
+        Charset charset = tokenizer.getCharset();
+        if (slicing) {
+            submit(tokenizer.slice(sliceStart, sliceEnd), charset, null);
+            sliceStart = -1;
+            return;
+        }
+        // The task owns the bytes until it has parsed them; the scan goes on in a spare buffer
+        submit(ByteBuffer.wrap(chunk, 0, chunkLength), charset, chunk);
+        byte[] spare = spareChunks.poll();
+        chunk = spare != null ? spare : new byte[chunk.length];
+        chunkLength = 0;
+    }
+
+    private void submit(ByteBuffer input, Charset charset, byte[] owned) {
+        tasks.add(CompletableFuture.supplyAsync(() -> {
+            try {
+                return parseChunk(new DxfTokenizer(input, charset));
+            } catch (IOException | DxfParserException e) {
+                // Unwrapped again by get(), so collect() sees the original exception as the cause
+                throw new CompletionException(e);
+            } finally {
+                if (owned != null) {
+                    spareChunks.offer(owned); // The parsed entities hold no references into the bytes
+                }
+            }
+        }, pool));
+    }
+
+    private List<T> collect() throws IOException, DxfParserException {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                results.add(tasks.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DxfParserException("Interrupted while parsing DXF section.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof DxfParserException) {
+                    throw (DxfParserException) cause;
+                } else if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new DxfParserException("Error parsing DXF section.", cause);
+            }
+            tasks.set(i, null); // Let the chunk's bytes and results be collected early
+        }
+        tasks.clear();
+        return results;
+    }
+
+    /**
+     * Adds the current pair to the chunk: extends the chunk's input range when slicing, otherwise copies
+     * the pair into the chunk as "code\nvalue\n". The value is already trimmed, which is all the section
+     * parsers ever look at.
+     */
+    protected void appendCurrentPair() {
+        if (slicing) {
+            if (sliceStart < 0) {
+                sliceStart = tokenizer.getPairStartOffset();
+            }
+            sliceEnd = tokenizer.getPairEndOffset();
+            return;
+        }
+        int valueLength = tokenizer.getValueLength();
+        ensureCapacity(chunkLength + 12 + valueLength + 1);
+        chunkLength = appendInt(tokenizer.getCode());
+        chunk[chunkLength++] = '\n';
+        System.arraycopy(tokenizer.getValueBuffer(), tokenizer.getValueOffset(), chunk, chunkLength, valueLength);
+        chunkLength += valueLength;
+        chunk[chunkLength++] = '\n';
+    }
+
+    private int appendInt(int value) {
+        int position = chunkLength;
+        long remaining = value;
+        if (remaining < 0) {
+            chunk[position++] = '-';
+            remaining = -remaining;
+        }
+        int start = position;
+        do {
+            chunk[position++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte swap = chunk[i];
+            chunk[i] = chunk[j];
+            chunk[j] = swap;
+        }
+        return position;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chunk.length) {
+            chunk = Arrays.copyOf(chunk, Math.max(chunk.length * 2, capacity));
+        }
+    }
+}
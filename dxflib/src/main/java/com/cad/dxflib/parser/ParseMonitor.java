@@ -0,0 +1,82 @@
+package com.cad.dxflib.parser;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks an asynchronous parse: counts entities, reports progress to a {@link DxfProgressListener}
+ * and stops the parse at the next entity boundary once its future has been cancelled.
+ */
+class ParseMonitor {
+
+    // Report every this many entities, so listeners are not flooded on large files
+    private static final int PROGRESS_INTERVAL = 4096;
+
+    private final Future<?> future;
+    private final DxfProgressListener listener;
+    private final long totalBytes;
+    private long entitiesParsed;
+    private LongSupplier inputPosition;
+
+    ParseMonitor(Future<?> future, DxfProgressListener listener, long totalBytes) {
+        this.future = future;
+        this.listener = listener;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Reports progress from another input position than the tokenizer offset, e.g. the compressed bytes
+     * consumed when the tokenizer reads inflated data whose total size is unknown.
+     * @param inputPosition Supplies the position within the totalBytes, or null for the tokenizer offset.
+     */
+    void setInputPosition(LongSupplier inputPosition) {
+        this.inputPosition = inputPosition;
+    }
+
+    /**
+     * Throws if the parse has been cancelled. Called at entity and block boundaries.
+     * @throws CancellationException If the future was cancelled.
+     */
+    void checkCancelled() {
+        if (future.isCancelled()) {
+            throw new CancellationException("DXF parse cancelled.");
+        }
+    }
+
+    /**
+     * Records parsed entities, reporting progress every few thousand.
+     * @param count The number of entities just parsed.
+     * @param bytesRead The input offset reached.
+     */
+    void entitiesParsed(int count, long bytesRead) {
+        long before = entitiesParsed;
+        entitiesParsed += count;
+        if (listener != null && before / PROGRESS_INTERVAL != entitiesParsed / PROGRESS_INTERVAL) {
+            listener.onProgress(position(bytesRead), totalBytes, entitiesParsed);
+        }
+    }
+
+    /**
+     * Reports progress at the end of a section, which may contain no entities (e.g. BLOCKS).
+     * @param bytesRead The input offset reached.
+     */
+    void sectionParsed(long bytesRead) {
+        if (listener != null) {
+            listener.onProgress(position(bytesRead), totalBytes, entitiesParsed);
+        }
+    }
+
+    private long position(long bytesRead) {
+        return inputPosition != null ? Math.min(inputPosition.getAsLong(), totalBytes) : bytesRead;
+    }
+
+    /**
+     * Reports the final progress once the whole file has been read.
+     */
+    void finished() {
+        if (listener != null) {
+            listener.onProgress(totalBytes, totalBytes, entitiesParsed);
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class DxfBlock {
     private final String name; // Block name (code 2)
     private Point3D basePoint; // Base insertion point (code 10, 20, 30)
     private final List<DxfEntity> entities; // Entities that make up this block definition
+    private int modificationCount; // Bumped by every change, so cached geometry can tell it is outdated
 
     /**
      * Constructs a new DxfBlock with the given name.
@@ -55,6 +56,7 @@ public class DxfBlock {
      */
     public void setBasePoint(Point3D basePoint) {
         this.basePoint = Objects.requireNonNull(basePoint, "Base point cannot be null");
+        modificationCount++;
     }
 
     /**
@@ -72,9 +74,22 @@ public class DxfBlock {
     public void addEntity(DxfEntity entity) {
         if (entity != null) {
             this.entities.add(entity);
+            modificationCount++;
         }
     }
 
+    /**
+     * Records that entities of this block were changed in place, so that geometry flattened from it
+     * (see {@link DxfDocument#getBlockGeometry(String)}) is rebuilt on next use.
+     */
+    public void markModified() {
+        modificationCount++;
+    }
+
+    int getModificationCount() {
+        return modificationCount;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
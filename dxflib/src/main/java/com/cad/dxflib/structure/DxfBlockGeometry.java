@@ -0,0 +1,469 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfArc;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfInsert;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.entities.DxfLwPolyline;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.math.Bounds;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The geometry of a block definition flattened once into packed arrays, see {@link DxfDocument#getBlockGeometry(String)}.
+ * Every LINE, CIRCLE, ARC and LWPOLYLINE of the block and of its nested INSERTs becomes a polyline (arcs and bulges
+ * as chords of at most {@value #MAX_CHORD_DEGREES} degrees) in block coordinates: relative to the block's base point,
+ * with the transforms of the nested INSERTs already applied. TEXT contributes its insertion point to the bounds only.
+ * <p>
+ * Nested blocks are not expanded again: their own memoized geometry is copied through the INSERT transform.
+ * INSERT cycles and nesting deeper than {@value #MAX_INSERT_DEPTH} are cut off. Instances are immutable, so they can
+ * be shared by renderers on any thread; the document replaces them when a block they were built from changes.
+ */
+public final class DxfBlockGeometry {
+
+    /** Nesting depth beyond which INSERTs are ignored, as in the SVG conversion. */
+    public static final int MAX_INSERT_DEPTH = 16;
+
+    /** Largest angle spanned by one chord of a flattened arc or circle. */
+    public static final int MAX_CHORD_DEGREES = 10;
+
+    private static final double[] IDENTITY = {1, 0, 0, 1, 0, 0};
+
+    private final DxfBlock block;
+    private final double[] xy; // Point x, y pairs of all paths
+    private final int[] pathStarts; // Index of each path's first point, plus the total point count
+    private final DxfEntity[] pathEntities; // Block entity each path was flattened from
+    private final int pathCount;
+    private final Bounds bounds;
+    private final boolean hasText;
+    private final boolean truncated; // An INSERT was skipped for a cycle or the depth limit
+    // Blocks this geometry was built from, with their modification counts at the time
+    private final DxfBlock[] sources;
+    private final int[] sourceModifications;
+
+    private DxfBlockGeometry(Builder builder) {
+        this.block = builder.block;
+        this.xy = Arrays.copyOf(builder.xy, builder.points * 2);
+        this.pathStarts = Arrays.copyOf(builder.pathStarts, builder.paths + 1);
+        this.pathStarts[builder.paths] = builder.points;
+        this.pathEntities = Arrays.copyOf(builder.pathEntities, builder.paths);
+        this.pathCount = builder.paths;
+        this.bounds = builder.bounds;
+        this.hasText = builder.hasText;
+        this.truncated = builder.truncated;
+        this.sources = builder.sources.keySet().toArray(new DxfBlock[0]);
+        this.sourceModifications = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sourceModifications[i] = builder.sources.get(sources[i]);
+        }
+    }
+
+    private DxfBlockGeometry(DxfBlockGeometry geometry, DxfBlock block, DxfEntity[] pathEntities, DxfBlock[] sources) {
+        this.block = block;
+        this.xy = geometry.xy; // Never written after construction, so shared
+        this.pathStarts = geometry.pathStarts;
+        this.pathEntities = pathEntities;
+        this.pathCount = geometry.pathCount;
+        this.bounds = geometry.bounds;
+        this.hasText = geometry.hasText;
+        this.truncated = geometry.truncated;
+        this.sources = sources;
+        this.sourceModifications = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sourceModifications[i] = sources[i].getModificationCount();
+        }
+    }
+
+    /**
+     * Flattens a block, taking nested block geometry from the document's cache.
+     * @param block The block definition.
+     * @param document The document resolving nested INSERTs.
+     * @param expanding Blocks being flattened by the callers, to cut INSERT cycles.
+     * @return The flattened geometry.
+     */
+    static DxfBlockGeometry flatten(DxfBlock block, DxfDocument document, Set<DxfBlock> expanding) {
+        Builder builder = new Builder(block);
+        builder.sources.put(block, block.getModificationCount());
+        Point3D base = block.getBasePoint();
+        double[] toBlock = {1, 0, 0, 1, -base.x, -base.y};
+        if (expanding.size() < MAX_INSERT_DEPTH) {
+            expanding.add(block);
+            try {
+                for (DxfEntity entity : block.getEntities()) {
+                    if (entity instanceof DxfInsert) {
+                        DxfInsert insert = (DxfInsert) entity;
+                        DxfBlock nested = document.getBlock(insert.getBlockName());
+                        if (nested != null && !expanding.contains(nested)) {
+                            builder.add(document.getBlockGeometry(nested, expanding), concat(insertTransform(insert, null), toBlock));
+                        } else if (nested != null) {
+                            builder.truncated = true;
+                        }
+                    } else {
+                        builder.add(entity, toBlock);
+                    }
+                }
+            } finally {
+                expanding.remove(block);
+            }
+        } else {
+            builder.truncated = true;
+        }
+        return new DxfBlockGeometry(builder);
+    }
+
+    /**
+     * Gets the transform that an INSERT applies to the flattened geometry of its block (whose base point is
+     * already at the origin): scale, then rotation counter-clockwise, then translation to the insertion point.
+     * @param insert The INSERT.
+     * @param out An array for the six matrix values, or null to allocate one.
+     * @return The values m00, m10, m01, m11, m02, m12, the order of {@code java.awt.geom.AffineTransform(double[])}.
+     */
+    public static double[] insertTransform(DxfInsert insert, double[] out) {
+        double[] m = out != null ? out : new double[6];
+        double angle = Math.toRadians(insert.getRotationAngle());
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        Point3D p = insert.getInsertionPoint();
+        m[0] = cos * insert.getXScale();
+        m[1] = sin * insert.getXScale();
+        m[2] = -sin * insert.getYScale();
+        m[3] = cos * insert.getYScale();
+        m[4] = p.x;
+        m[5] = p.y;
+        return m;
+    }
+
+    /**
+     * Gets the name of the flattened block.
+     * @return The block name.
+     */
+    public String getBlockName() {
+        return block.getName();
+    }
+
+    /**
+     * Gets the number of polylines.
+     * @return The path count.
+     */
+    public int getPathCount() {
+        return pathCount;
+    }
+
+    /**
+     * Gets the number of points of a polyline; a closed one repeats its first point at the end.
+     * @param path The path index.
+     * @return The point count, at least 2.
+     */
+    public int getPointCount(int path) {
+        checkPath(path);
+        return pathStarts[path + 1] - pathStarts[path];
+    }
+
+    /**
+     * Gets the x coordinate of a point of a polyline, in block coordinates.
+     * @param path The path index.
+     * @param point The point index within the path.
+     * @return The x coordinate.
+     */
+    public double getX(int path, int point) {
+        return xy[2 * pointIndex(path, point)];
+    }
+
+    /**
+     * Gets the y coordinate of a point of a polyline, in block coordinates.
+     * @param path The path index.
+     * @param point The point index within the path.
+     * @return The y coordinate.
+     */
+    public double getY(int path, int point) {
+        return xy[2 * pointIndex(path, point) + 1];
+    }
+
+    /**
+     * Gets the entity a polyline was flattened from: an entity of this block or of a nested one.
+     * @param path The path index.
+     * @return The source entity.
+     */
+    public DxfEntity getEntity(int path) {
+        checkPath(path);
+        return pathEntities[path];
+    }
+
+    /**
+     * Gets the extents of the geometry and of the text insertion points, in block coordinates.
+     * @return A copy of the bounds, invalid if the block draws nothing.
+     */
+    public Bounds getBounds() {
+        Bounds copy = new Bounds();
+        copy.addToBounds(bounds);
+        return copy;
+    }
+
+    /**
+     * Gets the extents of this geometry placed by a transform, e.g. {@link #insertTransform(DxfInsert, double[])}:
+     * its transformed bounding box corners, so a little larger than the exact extents under rotation.
+     * @param transform The values m00, m10, m01, m11, m02, m12.
+     * @return The placed bounds, invalid if the block draws nothing.
+     */
+    public Bounds getBounds(double[] transform) {
+        if (transform == null || transform.length < 6) {
+            throw new IllegalArgumentException("Transform must have six values.");
+        }
+        return placed(transform);
+    }
+
+    /**
+     * Checks that this geometry was built from a block and that none of its blocks changed since.
+     * @param current The block definition now in the document.
+     * @return true if the geometry still matches the block.
+     */
+    boolean isCurrent(DxfBlock current) {
+        if (block != current) {
+            return false;
+        }
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i].getModificationCount() != sourceModifications[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves this geometry over to equal block definitions of another document, e.g. a reloaded revision of the
+     * drawing, sharing the packed points instead of flattening again.
+     * @param blocks The definition of each source block in the other document, or null where there is none.
+     * @param entities The entity of the other document standing for each path entity of this geometry.
+     * @return The geometry for the other document, or null if a source block or path entity has no counterpart.
+     */
+    DxfBlockGeometry rebind(Map<DxfBlock, DxfBlock> blocks, Map<DxfEntity, DxfEntity> entities) {
+        DxfBlock[] rebound = new DxfBlock[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            rebound[i] = blocks.get(sources[i]);
+            if (rebound[i] == null) {
+                return null;
+            }
+        }
+        DxfEntity[] reboundEntities = new DxfEntity[pathCount];
+        for (int i = 0; i < pathCount; i++) {
+            reboundEntities[i] = entities.get(pathEntities[i]);
+            if (reboundEntities[i] == null) {
+                return null;
+            }
+        }
+        DxfBlock reboundBlock = blocks.get(block);
+        return reboundBlock != null ? new DxfBlockGeometry(this, reboundBlock, reboundEntities, rebound) : null;
+    }
+
+    /**
+     * Gets the blocks this geometry was built from: its own and the nested ones.
+     * @return The source blocks; not to be modified.
+     */
+    DxfBlock[] getSources() {
+        return sources;
+    }
+
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Estimates the heap retained by the packed arrays, for memory reports.
+     * @return The size in bytes.
+     */
+    long estimateBytes() {
+        return DxfMemoryEstimator.align(DxfMemoryEstimator.OBJECT_HEADER + 7 * DxfMemoryEstimator.REFERENCE + 4 + 2)
+                + DxfMemoryEstimator.array(xy.length, 8) + DxfMemoryEstimator.array(pathStarts.length, 4)
+                + DxfMemoryEstimator.array(pathEntities.length, DxfMemoryEstimator.REFERENCE)
+                + DxfMemoryEstimator.array(sources.length, DxfMemoryEstimator.REFERENCE)
+                + DxfMemoryEstimator.array(sourceModifications.length, 4);
+    }
+
+    private int pointIndex(int path, int point) {
+        checkPath(path);
+        int index = pathStarts[path] + point;
+        if (point < 0 || index >= pathStarts[path + 1]) {
+            throw new IndexOutOfBoundsException("Point " + point + " of path " + path);
+        }
+        return index;
+    }
+
+    private void checkPath(int path) {
+        if (path < 0 || path >= pathCount) {
+            throw new IndexOutOfBoundsException("Path " + path + ", count " + pathCount);
+        }
+    }
+
+    private Bounds placed(double[] m) {
+        Bounds placed = new Bounds();
+        if (!bounds.isValid()) {
+            return placed;
+        }
+        for (int corner = 0; corner < 4; corner++) {
+            double x = (corner & 1) == 0 ? bounds.getMinX() : bounds.getMaxX();
+            double y = (corner & 2) == 0 ? bounds.getMinY() : bounds.getMaxY();
+            placed.addToBounds(m[0] * x + m[2] * y + m[4], m[1] * x + m[3] * y + m[5]);
+        }
+        return placed;
+    }
+
+    /** Applies a, then b: the matrix b * a. */
+    private static double[] concat(double[] a, double[] b) {
+        return new double[] {
+            b[0] * a[0] + b[2] * a[1], b[1] * a[0] + b[3] * a[1],
+            b[0] * a[2] + b[2] * a[3], b[1] * a[2] + b[3] * a[3],
+            b[0] * a[4] + b[2] * a[5] + b[4], b[1] * a[4] + b[3] * a[5] + b[5]
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "DxfBlockGeometry{block='" + block.getName() + "', paths=" + pathCount
+                + ", points=" + pathStarts[pathCount] + ", bounds=" + bounds + '}';
+    }
+
+    /** Accumulates the packed arrays while a block is flattened. */
+    private static final class Builder {
+        private final DxfBlock block;
+        private double[] xy = new double[64];
+        private int[] pathStarts = new int[9];
+        private DxfEntity[] pathEntities = new DxfEntity[8];
+        private int points;
+        private int paths;
+        private final Bounds bounds = new Bounds();
+        private final Map<DxfBlock, Integer> sources = new IdentityHashMap<>();
+        private boolean hasText;
+        private boolean truncated;
+        private double[] m = IDENTITY; // Transform of the points being added
+
+        Builder(DxfBlock block) {
+            this.block = block;
+        }
+
+        void add(DxfEntity entity, double[] transform) {
+            m = transform;
+            if (entity instanceof DxfLine) {
+                DxfLine line = (DxfLine) entity;
+                begin(entity);
+                point(line.getStartPoint().x, line.getStartPoint().y);
+                point(line.getEndPoint().x, line.getEndPoint().y);
+            } else if (entity instanceof DxfArc) {
+                DxfArc arc = (DxfArc) entity;
+                double sweep = arc.getEndAngle() - arc.getStartAngle();
+                if (sweep <= 0) {
+                    sweep += 360;
+                }
+                begin(entity);
+                arc(arc.getCenter().x, arc.getCenter().y, arc.getRadius(), Math.toRadians(arc.getStartAngle()),
+                        Math.toRadians(sweep), true);
+            } else if (entity instanceof DxfCircle) {
+                DxfCircle circle = (DxfCircle) entity;
+                begin(entity);
+                arc(circle.getCenter().x, circle.getCenter().y, circle.getRadius(), 0, 2 * Math.PI, true);
+            } else if (entity instanceof DxfLwPolyline) {
+                addPolyline((DxfLwPolyline) entity);
+            } else if (entity instanceof DxfText) {
+                Point3D p = ((DxfText) entity).getInsertionPoint();
+                if (p != null) {
+                    bounds.addToBounds(x(p.x, p.y), y(p.x, p.y));
+                    hasText = true;
+                }
+            }
+        }
+
+        /** Copies the paths of a nested block through the INSERT transform. */
+        void add(DxfBlockGeometry nested, double[] transform) {
+            m = transform;
+            for (int path = 0; path < nested.pathCount; path++) {
+                begin(nested.pathEntities[path]);
+                for (int i = nested.pathStarts[path]; i < nested.pathStarts[path + 1]; i++) {
+                    point(nested.xy[2 * i], nested.xy[2 * i + 1]);
+                }
+            }
+            if (nested.hasText) {
+                bounds.addToBounds(nested.placed(transform)); // Text points are not kept, only their box
+            }
+            hasText |= nested.hasText;
+            truncated |= nested.truncated;
+            for (int i = 0; i < nested.sources.length; i++) {
+                sources.putIfAbsent(nested.sources[i], nested.sourceModifications[i]);
+            }
+        }
+
+        private void addPolyline(DxfLwPolyline polyline) {
+            int count = polyline.getNumberOfVertices();
+            if (count < 2) {
+                return;
+            }
+            begin(polyline);
+            point(polyline.getX(0), polyline.getY(0));
+            int segments = polyline.isClosed() && count > 1 ? count : count - 1;
+            for (int i = 0; i < segments; i++) {
+                int next = (i + 1) % count;
+                double x1 = polyline.getX(i);
+                double y1 = polyline.getY(i);
+                double x2 = polyline.getX(next);
+                double y2 = polyline.getY(next);
+                double bulge = polyline.getBulge(i);
+                double chord = Math.hypot(x2 - x1, y2 - y1);
+                if (bulge == 0.0 || chord < 1e-9) {
+                    point(x2, y2);
+                    continue;
+                }
+                // Included angle 4 atan(bulge), counter-clockwise when positive
+                double sweep = 4 * Math.atan(bulge);
+                double radius = chord / (2 * Math.sin(Math.abs(sweep) / 2));
+                double toCenter = Math.signum(sweep) * (Math.PI / 2 - Math.abs(sweep) / 2);
+                double chordAngle = Math.atan2(y2 - y1, x2 - x1);
+                double cx = x1 + radius * Math.cos(chordAngle + toCenter);
+                double cy = y1 + radius * Math.sin(chordAngle + toCenter);
+                arc(cx, cy, radius, Math.atan2(y1 - cy, x1 - cx), sweep, false);
+            }
+        }
+
+        /** Adds the points of an arc, the first one too if requested. */
+        private void arc(double cx, double cy, double radius, double start, double sweep, boolean first) {
+            int chords = Math.max(1, (int) Math.ceil(Math.abs(Math.toDegrees(sweep)) / MAX_CHORD_DEGREES));
+            for (int i = first ? 0 : 1; i <= chords; i++) {
+                double angle = start + sweep * i / chords;
+                point(cx + radius * Math.cos(angle), cy + radius * Math.sin(angle));
+            }
+        }
+
+        private void begin(DxfEntity entity) {
+            if (paths + 1 >= pathStarts.length) {
+                pathStarts = Arrays.copyOf(pathStarts, pathStarts.length * 2);
+                pathEntities = Arrays.copyOf(pathEntities, pathEntities.length * 2);
+            }
+            pathStarts[paths] = points;
+            pathEntities[paths] = entity;
+            paths++;
+        }
+
+        private void point(double px, double py) {
+            if (2 * points + 2 > xy.length) {
+                xy = Arrays.copyOf(xy, xy.length * 2);
+            }
+            double x = x(px, py);
+            double y = y(px, py);
+            xy[2 * points] = x;
+            xy[2 * points + 1] = y;
+            points++;
+            bounds.addToBounds(x, y);
+        }
+
+        private double x(double px, double py) {
+            return m[0] * px + m[2] * py + m[4];
+        }
+
+        private double y(double px, double py) {
+            return m[1] * px + m[3] * py + m[5];
+        }
+    }
+}
@@ -1,21 +1,37 @@
 package com.cad.dxflib.structure;
 
 import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.EntityType;
 import com.cad.dxflib.math.Bounds;
 import com.cad.dxflib.objects.DxfDictionary;
 import com.cad.dxflib.objects.DxfScale;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents the entire DXF document.
  * This class holds all parsed data from a DXF file, including layers, blocks, entities,
  * table entries (linetypes, text styles, dimension styles, block records),
  * and objects (dictionaries, scales).
+ * <p>
+ * A document can also be lazy (see {@link #setSectionLoader(DxfSectionLoader)}): each section is then parsed
+ * the first time a getter needs it, e.g. {@link #getLayers()} parses TABLES and {@link #getBlocks()} parses BLOCKS.
+ * Reading the entity list of a layer ({@link DxfLayer#getEntities()}) parses ENTITIES.
+ * <p>
+ * The model space extents are kept up to date as entities are added, so {@link #getBounds()} is O(1),
+ * and so are the entity lists by type ({@link #getEntities(EntityType)}) and by layer.
+ * <p>
+ * With {@link #setColumnarStorage(boolean)}, model space LINEs, CIRCLEs and ARCs are kept as rows of
+ * primitive arrays (see {@link DxfEntityColumns}) instead of objects, for drawings of millions of entities.
  */
 public class DxfDocument {
     private final Map<String, DxfLayer> layers;
@@ -27,9 +43,30 @@ public class DxfDocument {
     private final Map<String, DxfDictionary> dictionaries;
     private final Map<String, DxfScale> scales;
     private final Map<String, Object> genericObjects; // For objects not yet strongly typed
+    // Layer, linetype and style names; the maps below are keyed by its canonical upper-case keys
+    private final DxfSymbolTable symbols = new DxfSymbolTable();
 
     // Entities from the ENTITIES section not associated with a specific block (typically Model Space)
-    private final List<DxfEntity> modelSpaceEntities;
+    private List<DxfEntity> modelSpaceEntities;
+    // LINE, CIRCLE and ARC rows of model space, null until columnar storage is first switched on
+    private DxfEntityColumns columns;
+    private boolean columnar;
+    // Model space and block entities by handle (group code 5)
+    private final HandleIndex<DxfEntity> entitiesByHandle = new HandleIndex<>();
+    // Model space entities by type, like the layer lists: EntitySequences once rows are added
+    private final Map<EntityType, List<DxfEntity>> entitiesByType = new EnumMap<>(EntityType.class);
+    private final Map<String, DxfBlockGeometry> blockGeometry = new ConcurrentHashMap<>(); // By upper-case block name
+    private final DxfHeader header = new DxfHeader();
+    // Extents of the model space entities, grown by addEntity; recomputed on the next getBounds() once stale
+    private Bounds modelSpaceBounds = new Bounds();
+    private boolean boundsStale;
+
+    // Lazy documents only: parses sections on first access, null once everything is loaded
+    private static final String[] SECTION_NAMES = {"HEADER", "TABLES", "BLOCKS", "ENTITIES", "OBJECTS"};
+    private volatile DxfSectionLoader sectionLoader;
+    private final Set<String> loadedSections = ConcurrentHashMap.newKeySet();
+    private final Set<String> sectionsInProgress = new HashSet<>();
+    private final Map<String, RuntimeException> failedSections = new HashMap<>();
 
     /**
      * Constructs a new DxfDocument.
@@ -84,16 +121,35 @@ public class DxfDocument {
         addBlockRecord(new DxfBlockRecord("*Paper_Space"));
     }
 
+    /**
+     * Gets the HEADER section variables of this document.
+     * @return The header, never null. Variables absent from the file keep their defaults.
+     */
+    public DxfHeader getHeader() {
+        ensureSectionLoaded("HEADER");
+        return header;
+    }
+
+    /**
+     * Gets the table interning this document's layer, linetype and style names.
+     * Entities parsed into the document share its String instances.
+     * @return The symbol table.
+     */
+    public DxfSymbolTable getSymbols() {
+        return symbols;
+    }
+
     /**
      * Retrieves a layer by its name (case-insensitive).
      * @param name The name of the layer.
      * @return The DxfLayer object, or null if not found.
      */
     public DxfLayer getLayer(String name) {
+        ensureSectionLoaded("TABLES");
         if (name == null) {
             return null;
         }
-        return layers.get(name.toUpperCase(java.util.Locale.ROOT));
+        return layers.get(symbols.getKey(name));
     }
 
     /**
@@ -102,7 +158,8 @@ public class DxfDocument {
      */
     public void addLayer(DxfLayer layer) {
         if (layer != null && layer.getName() != null) {
-            this.layers.put(layer.getName().toUpperCase(java.util.Locale.ROOT), layer);
+            this.layers.put(symbols.getKey(symbols.intern(layer.getName())), layer);
+            layer.setDocument(this);
         }
     }
 
@@ -112,6 +169,7 @@ public class DxfDocument {
      * @return An unmodifiable map of layers.
      */
     public Map<String, DxfLayer> getLayers() {
+        ensureSectionLoaded("TABLES");
         return Collections.unmodifiableMap(layers);
     }
 
@@ -121,6 +179,7 @@ public class DxfDocument {
      * @return The DxfBlock object, or null if not found.
      */
     public DxfBlock getBlock(String name) {
+        ensureSectionLoaded("BLOCKS");
         if (name == null) {
             return null;
         }
@@ -129,12 +188,91 @@ public class DxfDocument {
 
     /**
      * Adds a block definition to the document. The block name is stored in uppercase.
+     * The block's entities are indexed by handle as they are at this point.
      * @param block The DxfBlock object to add.
      */
     public void addBlock(DxfBlock block) {
         if (block != null && block.getName() != null) {
-            this.blocks.put(block.getName().toUpperCase(java.util.Locale.ROOT), block);
+            String key = block.getName().toUpperCase(java.util.Locale.ROOT);
+            this.blocks.put(key, block);
+            blockGeometry.clear(); // Other blocks may insert the replaced one
+            for (DxfEntity entity : block.getEntities()) {
+                entitiesByHandle.put(entity.getHandle(), entity);
+            }
+        }
+    }
+
+    /**
+     * Gets the geometry of a block flattened with its nested INSERTs, see {@link DxfBlockGeometry}.
+     * It is built on first use and shared by every INSERT of the block, by later calls and by the geometry
+     * of blocks that insert it; it is rebuilt when the block or a nested one gains entities, gets a new base point,
+     * is marked modified ({@link DxfBlock#markModified()}) or is replaced with {@link #addBlock(DxfBlock)}.
+     * Safe to call from several threads while the blocks are not being changed.
+     * @param name The block name (case-insensitive).
+     * @return The flattened geometry, or null if the document has no such block.
+     */
+    public DxfBlockGeometry getBlockGeometry(String name) {
+        DxfBlock block = getBlock(name);
+        return block != null ? getBlockGeometry(block, Collections.newSetFromMap(new IdentityHashMap<>())) : null;
+    }
+
+    DxfBlockGeometry getBlockGeometry(DxfBlock block, Set<DxfBlock> expanding) {
+        String key = block.getName().toUpperCase(java.util.Locale.ROOT);
+        DxfBlockGeometry geometry = blockGeometry.get(key);
+        if (geometry == null || !geometry.isCurrent(block) || (geometry.isTruncated() && !expanding.isEmpty())) {
+            // Not computeIfAbsent: flattening looks up nested blocks in the same map. Racing threads build equal copies.
+            geometry = DxfBlockGeometry.flatten(block, this, expanding);
+            // Geometry cut short by the callers' INSERT cycle or depth is only right for them
+            if (blocks.get(key) == block && (expanding.isEmpty() || !geometry.isTruncated())) {
+                blockGeometry.put(key, geometry);
+            }
         }
+        return geometry;
+    }
+
+    /**
+     * Takes over the block geometry an earlier revision of this drawing has cached, for the blocks a diff found
+     * unaffected, so after a reload only changed blocks and the blocks inserting them are flattened again.
+     * @param previous The earlier revision.
+     * @param diff The diff from {@code previous} to this document, see {@link DxfDocumentDiff#compute(DxfDocument, DxfDocument)}.
+     * @return The number of blocks whose geometry was reused.
+     */
+    public int reuseBlockGeometry(DxfDocument previous, DxfDocumentDiff diff) {
+        if (previous == null || diff == null) {
+            throw new IllegalArgumentException("The previous document and the diff are required.");
+        }
+        previous.ensureSectionLoaded("BLOCKS");
+        ensureSectionLoaded("BLOCKS");
+        Map<DxfBlock, DxfBlock> blockMap = new IdentityHashMap<>();
+        Map<DxfEntity, DxfEntity> entityMap = new IdentityHashMap<>();
+        int reused = 0;
+        for (Map.Entry<String, DxfBlockGeometry> entry : previous.blockGeometry.entrySet()) {
+            String key = entry.getKey();
+            DxfBlockGeometry geometry = entry.getValue();
+            if (diff.getAffectedBlocks().contains(key) || blockGeometry.containsKey(key)
+                    || !geometry.isCurrent(previous.blocks.get(key))) {
+                continue;
+            }
+            // Unaffected, so every source block is unchanged: same entities in the same order
+            for (DxfBlock source : geometry.getSources()) {
+                if (!blockMap.containsKey(source)) {
+                    String sourceKey = source.getName().toUpperCase(java.util.Locale.ROOT);
+                    DxfBlock counterpart = previous.blocks.get(sourceKey) == source ? blocks.get(sourceKey) : null;
+                    if (counterpart != null && counterpart.getEntities().size() == source.getEntities().size()) {
+                        for (int i = 0; i < source.getEntities().size(); i++) {
+                            entityMap.put(source.getEntities().get(i), counterpart.getEntities().get(i));
+                        }
+                        blockMap.put(source, counterpart);
+                    }
+                }
+            }
+            DxfBlockGeometry rebound = geometry.rebind(blockMap, entityMap);
+            if (rebound != null) {
+                blockGeometry.put(key, rebound);
+                reused++;
+            }
+        }
+        return reused;
     }
 
     /**
@@ -143,12 +281,13 @@ public class DxfDocument {
      * @return An unmodifiable map of blocks.
      */
     public Map<String, DxfBlock> getBlocks() {
+        ensureSectionLoaded("BLOCKS");
         return Collections.unmodifiableMap(blocks);
     }
 
     /**
      * Adds a top-level entity (typically to Model Space).
-     * The entity is also added to its respective layer's entity list.
+     * The entity is also added to its respective layer's entity list and indexed by its handle.
      * If the layer specified in the entity does not exist, it attempts to use layer "0".
      * If layer "0" is also missing (which shouldn't happen with a properly initialized document),
      * a new layer "0" is created and used.
@@ -156,16 +295,142 @@ public class DxfDocument {
      */
     public void addEntity(DxfEntity entity) {
         if (entity != null) {
-            DxfLayer layer = getLayer(entity.getLayerName());
-            if (layer == null) {
-                layer = getLayer("0");
+            store(entity, resolveLayer(entity.getLayerName()));
+        }
+    }
+
+    /**
+     * Adds top-level entities in order, exactly as {@link #addEntity(DxfEntity)} would one by one,
+     * but looks up each distinct layer name instance only once. Entities sharing interned names
+     * (see {@link #getSymbols()}) therefore skip the case-insensitive lookup.
+     * @param entities The entities to add. Null elements are skipped.
+     */
+    public void addEntities(List<? extends DxfEntity> entities) {
+        Map<String, DxfLayer> layersByName = new IdentityHashMap<>();
+        if (modelSpaceEntities instanceof ArrayList) {
+            ((ArrayList<DxfEntity>) modelSpaceEntities).ensureCapacity(modelSpaceEntities.size() + entities.size());
+        }
+        for (DxfEntity entity : entities) {
+            if (entity != null) {
+                String layerName = entity.getLayerName();
+                DxfLayer layer = layersByName.get(layerName);
                 if (layer == null) {
-                     layer = new DxfLayer("0");
-                     addLayer(layer);
+                    layer = resolveLayer(layerName);
+                    layersByName.put(layerName, layer);
                 }
+                store(entity, layer);
+            }
+        }
+    }
+
+    private void store(DxfEntity entity, DxfLayer layer) {
+        growBounds(entity);
+        int row = columnar ? columns.add(entity) : -1;
+        if (row >= 0) {
+            // Indexed by handle in the columns; the entity object is dropped
+            ((EntitySequence) modelSpaceEntities).addRow(row);
+            layer.addEntityRow(columns, row);
+            List<DxfEntity> ofType = entitiesByType.get(entity.getType());
+            if (!(ofType instanceof EntitySequence)) {
+                ofType = ofType == null ? new EntitySequence(columns) : new EntitySequence(columns, ofType);
+                entitiesByType.put(entity.getType(), ofType);
             }
+            ((EntitySequence) ofType).addRow(row);
+        } else {
             layer.addEntity(entity);
-            this.modelSpaceEntities.add(entity);
+            List<DxfEntity> ofType = entitiesByType.computeIfAbsent(entity.getType(), type -> new ArrayList<>());
+            if (ofType instanceof EntitySequence) {
+                ((EntitySequence) ofType).addObject(entity);
+            } else {
+                ofType.add(entity);
+            }
+            if (modelSpaceEntities instanceof EntitySequence) {
+                ((EntitySequence) modelSpaceEntities).addObject(entity);
+            } else {
+                modelSpaceEntities.add(entity);
+            }
+            entitiesByHandle.put(entity.getHandle(), entity);
+        }
+    }
+
+    /**
+     * Switches columnar storage of model space LINE, CIRCLE and ARC entities on or off for entities added
+     * from now on. With it, {@link #getModelSpaceEntities()}, {@link DxfLayer#getEntities()} and
+     * {@link #getEntityByHandle(long)} return views created on each access (see {@link DxfEntityColumns}):
+     * equal in content but not the same instance each time, and XDATA cannot be added to them.
+     * Entities with XDATA or reactors are kept as objects.
+     * @param columnar true to store simple entities in columns.
+     */
+    public void setColumnarStorage(boolean columnar) {
+        if (columnar && columns == null) {
+            columns = new DxfEntityColumns();
+            modelSpaceEntities = new EntitySequence(columns, modelSpaceEntities);
+        }
+        // Rows already stored stay where they are when switched off
+        this.columnar = columnar;
+    }
+
+    /**
+     * Checks whether simple model space entities are stored in columns, see {@link #setColumnarStorage(boolean)}.
+     * @return true if columnar storage is on.
+     */
+    public boolean isColumnarStorage() {
+        return columnar;
+    }
+
+    /**
+     * Gets the columns holding the model space LINE, CIRCLE and ARC entities, for consumers that read
+     * coordinates in bulk without creating views.
+     * @return The columns, or null if columnar storage was never switched on.
+     */
+    public DxfEntityColumns getModelSpaceColumns() {
+        ensureSectionLoaded("ENTITIES");
+        return columns;
+    }
+
+    private DxfLayer resolveLayer(String layerName) {
+        // Direct lookups: entities are added while ENTITIES is being loaded, after TABLES
+        String layerKey = symbols.getKey(layerName);
+        DxfLayer layer = layerKey != null ? layers.get(layerKey) : null;
+        if (layer == null) {
+            layer = layers.get("0");
+            if (layer == null) {
+                 layer = new DxfLayer("0");
+                 addLayer(layer);
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Retrieves a model space or block entity by its handle (group code 5) in O(1).
+     * @param handle The handle as a number, see {@link DxfEntity#getHandle()}.
+     * @return The entity, or null if no entity has this handle.
+     */
+    public DxfEntity getEntityByHandle(long handle) {
+        ensureSectionLoaded("BLOCKS");
+        ensureSectionLoaded("ENTITIES");
+        DxfEntity entity = entitiesByHandle.get(handle);
+        if (entity == null && columns != null) {
+            int row = columns.findHandle(handle);
+            entity = row >= 0 ? columns.get(row) : null;
+        }
+        return entity;
+    }
+
+    /**
+     * Retrieves a model space or block entity by its handle as written in the file, e.g. "1A3F".
+     * @param handle The hexadecimal handle (case-insensitive).
+     * @return The entity, or null if no entity has this handle or it is not a valid handle.
+     */
+    public DxfEntity getEntityByHandle(String handle) {
+        if (handle == null || handle.isEmpty() || handle.length() > 16) {
+            return null;
+        }
+        try {
+            return getEntityByHandle(Long.parseUnsignedLong(handle, 16));
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
@@ -174,19 +439,67 @@ public class DxfDocument {
      * @return An unmodifiable list of model space entities.
      */
     public List<DxfEntity> getModelSpaceEntities() {
+        ensureSectionLoaded("ENTITIES");
         return Collections.unmodifiableList(modelSpaceEntities);
     }
 
+    /**
+     * Gets the model space entities of one type, in the order they were added, from an index kept up to date
+     * by {@link #addEntity(DxfEntity)}: no scan of the model space. The list's spliterator is sized and splits
+     * evenly, so {@code getEntities(type).parallelStream()} spreads over all cores.
+     * @param type The entity type.
+     * @return An unmodifiable live view, empty if the document has no entity of this type.
+     */
+    public List<DxfEntity> getEntities(EntityType type) {
+        ensureSectionLoaded("ENTITIES");
+        List<DxfEntity> ofType = entitiesByType.get(type);
+        return ofType != null ? Collections.unmodifiableList(ofType) : Collections.emptyList();
+    }
+
+    /**
+     * Counts the model space entities of one type in O(1).
+     * @param type The entity type.
+     * @return The number of entities of this type.
+     */
+    public int getEntityCount(EntityType type) {
+        ensureSectionLoaded("ENTITIES");
+        List<DxfEntity> ofType = entitiesByType.get(type);
+        return ofType != null ? ofType.size() : 0;
+    }
+
+    /**
+     * Counts the model space entities by type, in time proportional to the number of types.
+     * @return A new map holding the types present, in {@link EntityType} order.
+     */
+    public Map<EntityType, Integer> getEntityCounts() {
+        ensureSectionLoaded("ENTITIES");
+        Map<EntityType, Integer> counts = new EnumMap<>(EntityType.class);
+        entitiesByType.forEach((type, ofType) -> counts.put(type, ofType.size()));
+        return counts;
+    }
+
+    /**
+     * Gets the model space entities on one layer, see {@link DxfLayer#getEntities()}.
+     * @param layerName The layer name (case-insensitive).
+     * @return An unmodifiable live view, empty if the layer does not exist.
+     */
+    public List<DxfEntity> getEntitiesOnLayer(String layerName) {
+        ensureSectionLoaded("ENTITIES");
+        DxfLayer layer = getLayer(layerName);
+        return layer != null ? layer.getEntities() : Collections.emptyList();
+    }
+
     /**
      * Retrieves a linetype by its name (case-insensitive).
      * @param name The name of the linetype.
      * @return The DxfLinetype object, or null if not found.
      */
     public DxfLinetype getLinetype(String name) {
+        ensureSectionLoaded("TABLES");
         if (name == null) {
             return null;
         }
-        return linetypes.get(name.toUpperCase(java.util.Locale.ROOT));
+        return linetypes.get(symbols.getKey(name));
     }
 
     /**
@@ -195,7 +508,7 @@ public class DxfDocument {
      */
     public void addLinetype(DxfLinetype linetype) {
         if (linetype != null && linetype.getName() != null) {
-            this.linetypes.put(linetype.getName().toUpperCase(java.util.Locale.ROOT), linetype);
+            this.linetypes.put(symbols.getKey(symbols.intern(linetype.getName())), linetype);
         }
     }
 
@@ -205,6 +518,7 @@ public class DxfDocument {
      * @return An unmodifiable map of linetypes.
      */
     public Map<String, DxfLinetype> getLinetypes() {
+        ensureSectionLoaded("TABLES");
         return Collections.unmodifiableMap(linetypes);
     }
 
@@ -214,10 +528,11 @@ public class DxfDocument {
      * @return The DxfDimStyle object, or null if not found.
      */
     public DxfDimStyle getDimensionStyle(String name) {
+        ensureSectionLoaded("TABLES");
         if (name == null) {
             return null;
         }
-        return this.dimensionStyles.get(name.toUpperCase(java.util.Locale.ROOT));
+        return this.dimensionStyles.get(symbols.getKey(name));
     }
 
     /**
@@ -226,7 +541,7 @@ public class DxfDocument {
      */
     public void addDimensionStyle(DxfDimStyle style) {
         if (style != null && style.getName() != null && !style.getName().isEmpty()) {
-            this.dimensionStyles.put(style.getName().toUpperCase(java.util.Locale.ROOT), style);
+            this.dimensionStyles.put(symbols.getKey(symbols.intern(style.getName())), style);
         }
     }
 
@@ -236,6 +551,7 @@ public class DxfDocument {
      * @return An unmodifiable map of dimension styles.
      */
     public Map<String, DxfDimStyle> getDimensionStyles() {
+        ensureSectionLoaded("TABLES");
         return Collections.unmodifiableMap(this.dimensionStyles);
     }
 
@@ -245,10 +561,11 @@ public class DxfDocument {
      * @return The DxfTextStyle object, or null if not found.
      */
     public DxfTextStyle getTextStyle(String name) {
+        ensureSectionLoaded("TABLES");
         if (name == null) {
             return null;
         }
-        return this.textStyles.get(name.toUpperCase(java.util.Locale.ROOT));
+        return this.textStyles.get(symbols.getKey(name));
     }
 
     /**
@@ -257,7 +574,7 @@ public class DxfDocument {
      */
     public void addTextStyle(DxfTextStyle style) {
         if (style != null && style.getName() != null && !style.getName().isEmpty()) {
-            this.textStyles.put(style.getName().toUpperCase(java.util.Locale.ROOT), style);
+            this.textStyles.put(symbols.getKey(symbols.intern(style.getName())), style);
         }
     }
 
@@ -267,6 +584,7 @@ public class DxfDocument {
      * @return An unmodifiable map of text styles.
      */
     public Map<String, DxfTextStyle> getTextStyles() {
+        ensureSectionLoaded("TABLES");
         return Collections.unmodifiableMap(textStyles);
     }
 
@@ -276,6 +594,7 @@ public class DxfDocument {
      * @return The DxfBlockRecord object, or null if not found.
      */
     public DxfBlockRecord getBlockRecord(String name) {
+        ensureSectionLoaded("TABLES");
         if (name == null) {
             return null;
         }
@@ -298,6 +617,7 @@ public class DxfDocument {
      * @return An unmodifiable map of block records.
      */
     public Map<String, DxfBlockRecord> getBlockRecords() {
+        ensureSectionLoaded("TABLES");
         return Collections.unmodifiableMap(blockRecords);
     }
 
@@ -307,6 +627,7 @@ public class DxfDocument {
      * @return The DxfDictionary object, or null if not found.
      */
     public DxfDictionary getDictionary(String nameOrHandle) {
+        ensureSectionLoaded("OBJECTS");
         if (nameOrHandle == null) {
             return null;
         }
@@ -330,6 +651,7 @@ public class DxfDocument {
      * @return An unmodifiable map of dictionaries.
      */
     public Map<String, DxfDictionary> getDictionaries() {
+        ensureSectionLoaded("OBJECTS");
         return Collections.unmodifiableMap(dictionaries);
     }
 
@@ -340,6 +662,7 @@ public class DxfDocument {
      * @return The Object, or null if not found.
      */
     public Object getObject(String handle) {
+        ensureSectionLoaded("OBJECTS");
         if (handle == null) {
             return null;
         }
@@ -363,6 +686,7 @@ public class DxfDocument {
      * @return An unmodifiable map of generic objects.
      */
     public Map<String, Object> getGenericObjects() {
+        ensureSectionLoaded("OBJECTS");
         return Collections.unmodifiableMap(genericObjects);
     }
 
@@ -373,6 +697,7 @@ public class DxfDocument {
      * @return The DxfScale object, or null if not found.
      */
     public DxfScale getScale(String handleOrName) {
+        ensureSectionLoaded("OBJECTS");
         if (handleOrName == null) {
             return null;
         }
@@ -399,21 +724,166 @@ public class DxfDocument {
      * @return An unmodifiable map of scales.
      */
     public Map<String, DxfScale> getScales() {
+        ensureSectionLoaded("OBJECTS");
         return Collections.unmodifiableMap(scales);
     }
 
     /**
-     * Calculates the overall bounding box of all entities in the model space.
-     * @return A Bounds object representing the total extent of model space entities. Returns invalid bounds if no entities.
+     * Estimates the heap retained by this document, broken down by entity type, layer and block,
+     * with XDATA and reactors, indexes and tables on their own (see {@link DxfMemoryReport}).
+     * Takes one pass over the entities and creates no views of columnar rows. Sections of a lazy
+     * document that are not loaded yet are not loaded by this call, and count as empty.
+     * @return The memory report.
+     */
+    public DxfMemoryReport estimateMemory() {
+        DxfMemoryEstimator estimator = new DxfMemoryEstimator(symbols);
+        if (modelSpaceEntities instanceof EntitySequence) {
+            EntitySequence sequence = (EntitySequence) modelSpaceEntities;
+            sequence.objects().forEach(estimator::addModelSpaceEntity);
+            estimator.addModelSpaceRows(columns);
+            estimator.addIndex(2, sequence.estimateBytes());
+        } else {
+            modelSpaceEntities.forEach(estimator::addModelSpaceEntity);
+            estimator.addIndex(2, DxfMemoryEstimator.arrayList(modelSpaceEntities.size()));
+        }
+        for (Map.Entry<String, DxfBlock> block : blocks.entrySet()) {
+            estimator.addBlock(block.getKey(), block.getValue());
+        }
+        for (DxfLayer layer : layers.values()) {
+            estimator.addIndex(2, layer.estimateEntityListBytes());
+        }
+        for (List<DxfEntity> ofType : entitiesByType.values()) {
+            estimator.addIndex(2, ofType instanceof EntitySequence
+                    ? ((EntitySequence) ofType).estimateBytes() : DxfMemoryEstimator.arrayList(ofType.size()));
+        }
+        estimator.addIndex(2, entitiesByHandle.estimateBytes());
+        for (DxfBlockGeometry geometry : blockGeometry.values()) {
+            estimator.addIndex(6, geometry.estimateBytes());
+        }
+        estimator.addTable(layers);
+        estimator.addTable(linetypes);
+        estimator.addTable(textStyles);
+        estimator.addTable(dimensionStyles);
+        estimator.addTable(blockRecords);
+        estimator.addTable(dictionaries);
+        estimator.addTable(scales);
+        estimator.addTable(genericObjects);
+        estimator.addTableBytes(2 + 3L * symbols.size(), symbols.estimateBytes());
+        return estimator.build();
+    }
+
+    /**
+     * Gets the overall bounding box of all entities in the model space, in O(1): the extents are
+     * maintained as entities are added. A lazy document whose ENTITIES section is not loaded yet answers
+     * with the HEADER extents ($EXTMIN/$EXTMAX) when the file has valid ones, without parsing the entities.
+     * <p>
+     * Entities changed in place after being added are not tracked; call {@link #invalidateBounds()} then.
+     * @return A new Bounds object with the total extent of model space entities. Returns invalid bounds if no entities.
      */
     public Bounds getBounds() {
-        Bounds totalBounds = new Bounds();
-        for (DxfEntity entity : getModelSpaceEntities()) {
-            Bounds entityBounds = entity.getBounds();
-            if (entityBounds != null && entityBounds.isValid()) {
-                totalBounds.addToBounds(entityBounds);
+        if (sectionLoader != null && !loadedSections.contains("ENTITIES")) {
+            Bounds headerExtents = getHeader().getExtents();
+            if (headerExtents.isValid()) {
+                return headerExtents;
+            }
+        }
+        ensureSectionLoaded("ENTITIES");
+        if (boundsStale) {
+            Bounds totalBounds = new Bounds();
+            for (DxfEntity entity : modelSpaceEntities) {
+                addEntityBounds(totalBounds, entity);
             }
+            modelSpaceBounds = totalBounds;
+            boundsStale = false;
+        }
+        Bounds copy = new Bounds();
+        copy.addToBounds(modelSpaceBounds);
+        return copy;
+    }
+
+    /**
+     * Marks the model space extents as outdated, after entities were moved or resized in place.
+     * The next {@link #getBounds()} recomputes them from all entities.
+     */
+    public void invalidateBounds() {
+        boundsStale = true;
+    }
+
+    private void growBounds(DxfEntity entity) {
+        if (!boundsStale) {
+            addEntityBounds(modelSpaceBounds, entity);
+        }
+    }
+
+    private static void addEntityBounds(Bounds totalBounds, DxfEntity entity) {
+        Bounds entityBounds = entity.getBounds();
+        if (entityBounds != null && entityBounds.isValid()) {
+            totalBounds.addToBounds(entityBounds);
+        }
+    }
+
+    /**
+     * Makes this document lazy: sections are parsed by the loader the first time a getter needs them.
+     * Used by {@code DxfParser.parseLazily}; sections already present in the document are kept.
+     * @param loader The loader to use, or null to stop loading sections.
+     */
+    public void setSectionLoader(DxfSectionLoader loader) {
+        this.sectionLoader = loader;
+    }
+
+    /**
+     * Checks whether some sections of this lazy document have not been parsed yet.
+     * @return true if a section loader is still attached.
+     */
+    public boolean isLazy() {
+        return sectionLoader != null;
+    }
+
+    /**
+     * Parses the named section now, if this is a lazy document and the section has not been parsed yet.
+     * Does nothing for fully parsed documents.
+     * @param sectionName The section name, e.g. "TABLES" (case-insensitive).
+     * @throws IllegalStateException If the section cannot be parsed. Later calls rethrow the same exception.
+     */
+    public void ensureSectionLoaded(String sectionName) {
+        if (sectionLoader == null || sectionName == null) {
+            return;
+        }
+        String key = sectionName.toUpperCase(java.util.Locale.ROOT);
+        if (!loadedSections.contains(key)) {
+            loadSection(key);
+        }
+    }
+
+    /**
+     * Parses every section that has not been parsed yet, so the document no longer depends on its source.
+     * @throws IllegalStateException If a section cannot be parsed.
+     */
+    public void loadAllSections() {
+        for (String sectionName : SECTION_NAMES) {
+            ensureSectionLoaded(sectionName);
+        }
+        this.sectionLoader = null;
+    }
+
+    private synchronized void loadSection(String key) {
+        RuntimeException failure = failedSections.get(key);
+        if (failure != null) {
+            throw failure;
+        }
+        DxfSectionLoader loader = this.sectionLoader;
+        // Already loaded, or being loaded further up this thread's stack (e.g. parser lookups while loading)
+        if (loader == null || loadedSections.contains(key) || !sectionsInProgress.add(key)) {
+            return;
+        }
+        try {
+            loader.loadSection(this, key);
+            loadedSections.add(key);
+        } catch (RuntimeException e) {
+            failedSections.put(key, e);
+            throw e;
+        } finally {
+            sectionsInProgress.remove(key);
         }
-        return totalBounds;
     }
 }
@@ -0,0 +1,287 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.entities.DxfDimension;
+import com.cad.dxflib.entities.DxfInsert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The differences between two revisions of a drawing, e.g. a file before and after it was edited and reloaded.
+ * <p>
+ * Model space entities are matched by handle and compared by a 64-bit content hash (everything but the handle),
+ * so computing a diff takes one pass over each document. Entities without a handle are matched by content
+ * only: they can be added or removed, never modified. Layers, linetypes and blocks are matched by name,
+ * ignoring case; a block changes when its base point or any of its entities, in order, does.
+ * <p>
+ * {@link #getAffectedBlocks()} adds to the changed blocks those inserting them, directly or through other blocks:
+ * the blocks whose cached geometry a reload must rebuild, see {@link DxfDocument#reuseBlockGeometry(DxfDocument, DxfDocumentDiff)}.
+ */
+public final class DxfDocumentDiff {
+
+    private final List<DxfEntity> added;
+    private final List<DxfEntity> removed;
+    private final List<DxfEntity> modified;
+    private final int unchanged;
+    private final Set<String> changedLayers;
+    private final Set<String> changedLinetypes;
+    private final Set<String> changedBlocks;
+    private final Set<String> affectedBlocks;
+
+    private DxfDocumentDiff(List<DxfEntity> added, List<DxfEntity> removed, List<DxfEntity> modified, int unchanged,
+                            Set<String> changedLayers, Set<String> changedLinetypes, Set<String> changedBlocks,
+                            Set<String> affectedBlocks) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.modified = Collections.unmodifiableList(modified);
+        this.unchanged = unchanged;
+        this.changedLayers = Collections.unmodifiableSet(changedLayers);
+        this.changedLinetypes = Collections.unmodifiableSet(changedLinetypes);
+        this.changedBlocks = Collections.unmodifiableSet(changedBlocks);
+        this.affectedBlocks = Collections.unmodifiableSet(affectedBlocks);
+    }
+
+    /**
+     * Compares two revisions of a drawing. Lazy documents are loaded in full.
+     * @param before The earlier revision.
+     * @param after The later revision.
+     * @return The differences from {@code before} to {@code after}.
+     */
+    public static DxfDocumentDiff compute(DxfDocument before, DxfDocument after) {
+        if (before == null || after == null) {
+            throw new IllegalArgumentException("Both documents are required.");
+        }
+        DxfEntityHasher beforeHasher = new DxfEntityHasher(before.getSymbols());
+        DxfEntityHasher afterHasher = new DxfEntityHasher(after.getSymbols());
+        List<DxfEntity> beforeEntities = before.getModelSpaceEntities();
+        List<DxfEntity> afterEntities = after.getModelSpaceEntities();
+
+        // Indexes into beforeEntities: column rows are new views on every get, so not matched by identity
+        Map<Long, Integer> byHandle = new HashMap<>(beforeEntities.size() * 4 / 3 + 1);
+        Map<Long, ArrayDeque<Integer>> withoutHandle = new HashMap<>();
+        for (int i = 0; i < beforeEntities.size(); i++) {
+            DxfEntity entity = beforeEntities.get(i);
+            if (entity.getHandle() != 0) {
+                byHandle.putIfAbsent(entity.getHandle(), i);
+            } else {
+                withoutHandle.computeIfAbsent(beforeHasher.hash(entity), hash -> new ArrayDeque<>()).add(i);
+            }
+        }
+
+        List<DxfEntity> added = new ArrayList<>();
+        List<DxfEntity> modified = new ArrayList<>();
+        BitSet matched = new BitSet(beforeEntities.size());
+        int unchanged = 0;
+        for (DxfEntity entity : afterEntities) {
+            long handle = entity.getHandle();
+            long hash = afterHasher.hash(entity);
+            if (handle != 0) {
+                Integer index = byHandle.remove(handle); // Removed, so a duplicate handle counts as added
+                if (index == null) {
+                    added.add(entity);
+                } else {
+                    matched.set(index);
+                    if (beforeHasher.hash(beforeEntities.get(index)) != hash) {
+                        modified.add(entity);
+                    } else {
+                        unchanged++;
+                    }
+                }
+            } else {
+                ArrayDeque<Integer> equal = withoutHandle.get(hash);
+                if (equal == null || equal.isEmpty()) {
+                    added.add(entity);
+                } else {
+                    matched.set(equal.poll());
+                    unchanged++;
+                }
+            }
+        }
+        List<DxfEntity> removed = new ArrayList<>();
+        for (int i = matched.nextClearBit(0); i < beforeEntities.size(); i = matched.nextClearBit(i + 1)) {
+            removed.add(beforeEntities.get(i));
+        }
+
+        Set<String> changedLayers = new TreeSet<>();
+        compareTables(before.getLayers(), after.getLayers(), changedLayers, (a, b) ->
+                a.getColor() == b.getColor() && a.isVisible() == b.isVisible()
+                        && equalNames(a.getLinetypeName(), b.getLinetypeName()));
+        Set<String> changedLinetypes = new TreeSet<>();
+        compareTables(before.getLinetypes(), after.getLinetypes(), changedLinetypes, (a, b) ->
+                Double.compare(a.getPatternLength(), b.getPatternLength()) == 0
+                        && Objects.equals(a.getPatternElements(), b.getPatternElements())
+                        && Objects.equals(a.getDescription(), b.getDescription()));
+        Set<String> changedBlocks = new TreeSet<>();
+        compareTables(before.getBlocks(), after.getBlocks(), changedBlocks, (a, b) ->
+                equalBlocks(a, beforeHasher, b, afterHasher));
+
+        return new DxfDocumentDiff(added, removed, modified, unchanged, changedLayers, changedLinetypes, changedBlocks,
+                affectedBlocks(after, changedBlocks));
+    }
+
+    /**
+     * Gets the model space entities of the later revision whose handle the earlier one lacks
+     * (or, without a handle, whose content it lacks).
+     * @return The added entities, in drawing order.
+     */
+    public List<DxfEntity> getAddedEntities() {
+        return added;
+    }
+
+    /**
+     * Gets the model space entities of the earlier revision missing from the later one.
+     * @return The removed entities, in their former drawing order.
+     */
+    public List<DxfEntity> getRemovedEntities() {
+        return removed;
+    }
+
+    /**
+     * Gets the model space entities of the later revision whose handle the earlier one has with other content.
+     * The earlier versions can be looked up with {@link DxfDocument#getEntityByHandle(long)}.
+     * @return The modified entities as they are now, in drawing order.
+     */
+    public List<DxfEntity> getModifiedEntities() {
+        return modified;
+    }
+
+    /**
+     * Gets the number of model space entities found unchanged.
+     * @return The unchanged entity count.
+     */
+    public int getUnchangedEntityCount() {
+        return unchanged;
+    }
+
+    /**
+     * Gets the layers added, removed, or with another color, linetype or visibility.
+     * @return The upper-case layer names, sorted.
+     */
+    public Set<String> getChangedLayers() {
+        return changedLayers;
+    }
+
+    /**
+     * Gets the linetypes added, removed, or with another description or pattern.
+     * @return The upper-case linetype names, sorted.
+     */
+    public Set<String> getChangedLinetypes() {
+        return changedLinetypes;
+    }
+
+    /**
+     * Gets the block definitions added, removed, or with another base point or entities.
+     * @return The upper-case block names, sorted.
+     */
+    public Set<String> getChangedBlocks() {
+        return changedBlocks;
+    }
+
+    /**
+     * Gets the changed blocks and the blocks of the later revision inserting any of them, however deeply nested.
+     * @return The upper-case block names, sorted.
+     */
+    public Set<String> getAffectedBlocks() {
+        return affectedBlocks;
+    }
+
+    /**
+     * Checks whether the revisions are equal: no entity, layer, linetype or block changed.
+     * @return true if nothing changed.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && modified.isEmpty()
+                && changedLayers.isEmpty() && changedLinetypes.isEmpty() && changedBlocks.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "DxfDocumentDiff{added=" + added.size() + ", removed=" + removed.size() + ", modified=" + modified.size()
+                + ", unchanged=" + unchanged + ", layers=" + changedLayers + ", linetypes=" + changedLinetypes
+                + ", blocks=" + changedBlocks + '}';
+    }
+
+    private interface Comparison<T> {
+        boolean equal(T before, T after);
+    }
+
+    // Tables are keyed by upper-case name
+    private static <T> void compareTables(Map<String, T> before, Map<String, T> after, Set<String> changed,
+                                          Comparison<T> comparison) {
+        for (Map.Entry<String, T> entry : after.entrySet()) {
+            T previous = before.get(entry.getKey());
+            if (previous == null || !comparison.equal(previous, entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+    }
+
+    private static boolean equalBlocks(DxfBlock before, DxfEntityHasher beforeHasher, DxfBlock after,
+                                       DxfEntityHasher afterHasher) {
+        List<DxfEntity> beforeEntities = before.getEntities();
+        List<DxfEntity> afterEntities = after.getEntities();
+        if (!Objects.equals(before.getBasePoint(), after.getBasePoint()) || beforeEntities.size() != afterEntities.size()) {
+            return false;
+        }
+        for (int i = 0; i < beforeEntities.size(); i++) {
+            DxfEntity previous = beforeEntities.get(i);
+            DxfEntity entity = afterEntities.get(i);
+            if (previous.getHandle() != entity.getHandle() || beforeHasher.hash(previous) != afterHasher.hash(entity)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalNames(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+
+    // The changed blocks, then those inserting an affected block, until no more are found
+    private static Set<String> affectedBlocks(DxfDocument after, Set<String> changedBlocks) {
+        Set<String> affected = new TreeSet<>(changedBlocks);
+        if (changedBlocks.isEmpty()) {
+            return affected;
+        }
+        Map<String, Set<String>> insertedBy = new HashMap<>();
+        for (Map.Entry<String, DxfBlock> entry : after.getBlocks().entrySet()) {
+            for (DxfEntity entity : entry.getValue().getEntities()) {
+                String blockName = null;
+                if (entity instanceof DxfInsert) {
+                    blockName = ((DxfInsert) entity).getBlockName();
+                } else if (entity instanceof DxfDimension) {
+                    blockName = ((DxfDimension) entity).getBlockName();
+                }
+                if (blockName != null) {
+                    insertedBy.computeIfAbsent(blockName.toUpperCase(Locale.ROOT), name -> new HashSet<>())
+                            .add(entry.getKey());
+                }
+            }
+        }
+        ArrayDeque<String> pending = new ArrayDeque<>(changedBlocks);
+        while (!pending.isEmpty()) {
+            for (String parent : insertedBy.getOrDefault(pending.poll(), Collections.emptySet())) {
+                if (affected.add(parent)) {
+                    pending.add(parent);
+                }
+            }
+        }
+        return affected;
+    }
+}
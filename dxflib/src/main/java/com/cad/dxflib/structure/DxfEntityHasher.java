@@ -0,0 +1,201 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.AbstractDxfEntity;
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfArc;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfDimension;
+import com.cad.dxflib.entities.DxfInsert;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.entities.DxfLwPolyline;
+import com.cad.dxflib.entities.DxfSpline;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.parser.DxfGroupCode;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Computes 64-bit content hashes of entities: everything {@link com.cad.dxflib.parser.DxfWriter} would write
+ * except the handle, with layer and linetype names compared ignoring case and a missing linetype taken as BYLAYER.
+ * Entities of the same document hash alike whether they are objects or column rows.
+ * Equal content gives equal hashes; different content gives different hashes except for 64-bit collisions.
+ */
+final class DxfEntityHasher {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    private final DxfSymbolTable symbols;
+    private long hash;
+
+    DxfEntityHasher(DxfSymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    long hash(DxfEntity entity) {
+        hash = SEED;
+        add(entity.getType().ordinal());
+        add(name(entity.getLayerName()));
+        add(entity.getColor());
+        String linetypeName = entity.getLinetypeName();
+        add(name(linetypeName != null ? linetypeName : "BYLAYER"));
+        if (entity instanceof DxfLine) {
+            DxfLine line = (DxfLine) entity;
+            add(line.getStartPoint());
+            add(line.getEndPoint());
+        } else if (entity instanceof DxfArc) {
+            DxfArc arc = (DxfArc) entity;
+            add(arc.getCenter());
+            add(arc.getRadius());
+            add(arc.getStartAngle());
+            add(arc.getEndAngle());
+        } else if (entity instanceof DxfCircle) {
+            DxfCircle circle = (DxfCircle) entity;
+            add(circle.getCenter());
+            add(circle.getRadius());
+        } else if (entity instanceof DxfLwPolyline) {
+            DxfLwPolyline polyline = (DxfLwPolyline) entity;
+            int vertices = polyline.getNumberOfVertices();
+            add(vertices);
+            add(polyline.isClosed() ? 1 : 0);
+            add(polyline.getConstantWidth());
+            add(polyline.getElevation());
+            for (int i = 0; i < vertices; i++) {
+                add(polyline.getX(i));
+                add(polyline.getY(i));
+                add(polyline.getBulge(i));
+                add(polyline.getStartWidth(i));
+                add(polyline.getEndWidth(i));
+            }
+        } else if (entity instanceof DxfText) {
+            DxfText text = (DxfText) entity;
+            add(text.getInsertionPoint());
+            add(text.getHeight());
+            add(text.getRotationAngle());
+            add(text.getTextValue());
+            add(name(text.getStyleName()));
+        } else if (entity instanceof DxfInsert) {
+            DxfInsert insert = (DxfInsert) entity;
+            add(name(insert.getBlockName()));
+            add(insert.getInsertionPoint());
+            add(insert.getXScale());
+            add(insert.getYScale());
+            add(insert.getRotationAngle());
+        } else if (entity instanceof DxfDimension) {
+            DxfDimension dimension = (DxfDimension) entity;
+            add(name(dimension.getBlockName()));
+            add(dimension.getDefinitionPoint());
+            add(dimension.getMiddleOfTextPoint());
+            add(dimension.getLinearPoint1());
+            add(dimension.getLinearPoint2());
+            add(dimension.getExtrusionDirection());
+            add(dimension.getDimensionTypeFlags());
+            add(dimension.getRotationAngle());
+            add(dimension.getDimensionText());
+            add(name(dimension.getDimensionStyleName()));
+        } else if (entity instanceof DxfSpline) {
+            DxfSpline spline = (DxfSpline) entity;
+            add(spline.getNormalVector());
+            add(spline.getFlags());
+            add(spline.getDegree());
+            add(spline.getKnotTolerance());
+            add(spline.getControlPointTolerance());
+            add(spline.getFitTolerance());
+            add(spline.getKnots().size());
+            for (double knot : spline.getKnots()) {
+                add(knot);
+            }
+            add(spline.getControlPoints().size());
+            for (Point3D point : spline.getControlPoints()) {
+                add(point);
+            }
+            add(spline.getFitPoints().size());
+            for (Point3D point : spline.getFitPoints()) {
+                add(point);
+            }
+        } else {
+            add(entity.getClass().getName()); // Unknown shape: only the common fields are compared
+        }
+        if (entity instanceof AbstractDxfEntity) {
+            addCommon((AbstractDxfEntity) entity);
+        }
+        return finish();
+    }
+
+    private void addCommon(AbstractDxfEntity entity) {
+        add(entity.getThickness());
+        add(entity.getOwnerHandle());
+        List<String> reactors = entity.getReactorHandles();
+        add(reactors.size());
+        for (String reactor : reactors) {
+            add(reactor);
+        }
+        Map<String, List<DxfGroupCode>> xdata = entity.getXData();
+        add(xdata.size());
+        for (Map.Entry<String, List<DxfGroupCode>> application : xdata.entrySet()) {
+            add(application.getKey());
+            add(application.getValue().size());
+            for (DxfGroupCode groupCode : application.getValue()) {
+                add(groupCode.code);
+                add(groupCode.value);
+            }
+        }
+    }
+
+    private String name(String name) {
+        if (name == null) {
+            return null;
+        }
+        String key = symbols.getKey(name);
+        return key != null ? key : name.toUpperCase(Locale.ROOT); // Set directly rather than parsed
+    }
+
+    // Every UTF-16 unit goes into the 64-bit state, four per step: String.hashCode would cut it to 32 bits
+    private void add(String value) {
+        if (value == null) {
+            add(-1L);
+            return;
+        }
+        int length = value.length();
+        add(length);
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            add((long) value.charAt(i) | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48);
+        }
+        long rest = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            rest |= (long) value.charAt(i) << shift;
+        }
+        add(rest);
+    }
+
+    private void add(Point3D point) {
+        if (point == null) {
+            add(-1L);
+            return;
+        }
+        add(point.x);
+        add(point.y);
+        add(point.z);
+    }
+
+    private void add(double value) {
+        add(Double.doubleToLongBits(value == 0 ? 0 : value)); // -0.0 as 0.0
+    }
+
+    private void add(long value) {
+        hash = Long.rotateLeft(hash ^ (value * MULTIPLIER), 31) * SEED;
+    }
+
+    private long finish() {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
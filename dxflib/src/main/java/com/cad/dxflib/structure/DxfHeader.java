@@ -0,0 +1,143 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.math.Bounds;
+
+/**
+ * Holds the HEADER section variables the library uses. Other header variables are skipped when parsing.
+ * Variables absent from the file keep the AutoCAD defaults (no version or code page, no extents,
+ * unitless drawing, linetype scale 1).
+ */
+public class DxfHeader {
+
+    private String acadVersion; // $ACADVER, e.g. "AC1021"
+    private String codePage; // $DWGCODEPAGE, e.g. "ANSI_1252"
+    private Point3D extMin; // $EXTMIN, lower-left corner of the drawing extents
+    private Point3D extMax; // $EXTMAX, upper-right corner of the drawing extents
+    private int insertionUnits; // $INSUNITS, 0 = unitless, 1 = inches, 4 = millimeters, 6 = meters, ...
+    private double linetypeScale = 1.0; // $LTSCALE, global linetype scale
+
+    /**
+     * Gets the AutoCAD version the file was saved with.
+     * @return The $ACADVER value, e.g. "AC1021", or null if the header has none.
+     */
+    public String getAcadVersion() {
+        return acadVersion;
+    }
+
+    /**
+     * Sets the AutoCAD version ($ACADVER).
+     * @param acadVersion The version, e.g. "AC1021".
+     */
+    public void setAcadVersion(String acadVersion) {
+        this.acadVersion = acadVersion;
+    }
+
+    /**
+     * Gets the code page of the file's strings; AutoCAD 2007 (AC1021) and later files are UTF-8 regardless.
+     * @return The $DWGCODEPAGE value, e.g. "ANSI_1252", or null if the header has none.
+     */
+    public String getCodePage() {
+        return codePage;
+    }
+
+    /**
+     * Sets the code page ($DWGCODEPAGE).
+     * @param codePage The code page, e.g. "ANSI_1252".
+     */
+    public void setCodePage(String codePage) {
+        this.codePage = codePage;
+    }
+
+    /**
+     * Gets the lower-left corner of the drawing extents, as last saved by the writing application.
+     * @return The $EXTMIN point, or null if the header has none.
+     */
+    public Point3D getExtMin() {
+        return extMin;
+    }
+
+    /**
+     * Sets the lower-left corner of the drawing extents ($EXTMIN).
+     * @param extMin The corner, or null.
+     */
+    public void setExtMin(Point3D extMin) {
+        this.extMin = extMin;
+    }
+
+    /**
+     * Gets the upper-right corner of the drawing extents, as last saved by the writing application.
+     * @return The $EXTMAX point, or null if the header has none.
+     */
+    public Point3D getExtMax() {
+        return extMax;
+    }
+
+    /**
+     * Sets the upper-right corner of the drawing extents ($EXTMAX).
+     * @param extMax The corner, or null.
+     */
+    public void setExtMax(Point3D extMax) {
+        this.extMax = extMax;
+    }
+
+    /**
+     * Gets the saved drawing extents.
+     * These may be stale, since they are only as current as the application that wrote the file made them;
+     * {@link DxfDocument#getBounds()} gives the extents of the entities actually in the document.
+     * @return The extents from $EXTMIN and $EXTMAX, or invalid bounds if either is missing or they describe
+     * an empty drawing (AutoCAD writes 1e20 / -1e20 then).
+     */
+    public Bounds getExtents() {
+        Bounds extents = new Bounds();
+        if (extMin != null && extMax != null && extMin.x <= extMax.x && extMin.y <= extMax.y) {
+            extents.addToBounds(extMin);
+            extents.addToBounds(extMax);
+        }
+        return extents;
+    }
+
+    /**
+     * Gets the drawing units for inserted blocks and images.
+     * @return The $INSUNITS value: 0 = unitless, 1 = inches, 2 = feet, 4 = millimeters, 5 = centimeters, 6 = meters, ...
+     */
+    public int getInsertionUnits() {
+        return insertionUnits;
+    }
+
+    /**
+     * Sets the drawing units ($INSUNITS).
+     * @param insertionUnits The units code.
+     */
+    public void setInsertionUnits(int insertionUnits) {
+        this.insertionUnits = insertionUnits;
+    }
+
+    /**
+     * Gets the global linetype scale, applied to every linetype pattern.
+     * @return The $LTSCALE value, 1 by default.
+     */
+    public double getLinetypeScale() {
+        return linetypeScale;
+    }
+
+    /**
+     * Sets the global linetype scale ($LTSCALE).
+     * @param linetypeScale The scale.
+     */
+    public void setLinetypeScale(double linetypeScale) {
+        this.linetypeScale = linetypeScale;
+    }
+
+    @Override
+    public String toString() {
+        return "DxfHeader{" +
+               "acadVersion='" + acadVersion + '\'' +
+               ", codePage='" + codePage + '\'' +
+               ", extMin=" + extMin +
+               ", extMax=" + extMax +
+               ", insertionUnits=" + insertionUnits +
+               ", linetypeScale=" + linetypeScale +
+               '}';
+    }
+}
@@ -16,7 +16,8 @@ public class DxfLayer {
     private int color = 7; // Default DXF color for layer (white/black for light/dark themes)
     private String linetypeName = "CONTINUOUS"; // Default linetype name (code 6)
     private boolean visible = true; // Layer visibility (derived from color code 62: negative means off)
-    private final List<DxfEntity> entities; // Entities belonging to this layer
+    private List<DxfEntity> entities; // Entities belonging to this layer, an EntitySequence once rows are added
+    private DxfDocument document; // The document holding the layer, which parses ENTITIES when lazy
 
     /**
      * Constructs a new DxfLayer with the given name.
@@ -94,12 +95,39 @@ public class DxfLayer {
 
     /**
      * Gets an unmodifiable list of entities on this layer.
+     * In a lazy document, the ENTITIES section is parsed first if it has not been yet.
      * @return An unmodifiable list of entities.
      */
     public List<DxfEntity> getEntities() {
+        loadEntities();
         return Collections.unmodifiableList(entities);
     }
 
+    /**
+     * Counts the entities on this layer in O(1), once a lazy document has parsed ENTITIES.
+     * @return The entity count.
+     */
+    public int getEntityCount() {
+        loadEntities();
+        return entities.size();
+    }
+
+    void setDocument(DxfDocument document) {
+        this.document = document;
+    }
+
+    private void loadEntities() {
+        if (document != null) {
+            document.ensureSectionLoaded("ENTITIES");
+        }
+    }
+
+    long estimateEntityListBytes() {
+        return entities instanceof EntitySequence
+                ? ((EntitySequence) entities).estimateBytes()
+                : DxfMemoryEstimator.arrayList(entities.size());
+    }
+
     /**
      * Adds an entity to this layer.
      * Note: This method is typically called by DxfDocument when adding entities,
@@ -108,8 +136,24 @@ public class DxfLayer {
      */
     public void addEntity(DxfEntity entity) {
         if (entity != null) {
-            this.entities.add(entity);
+            if (entities instanceof EntitySequence) {
+                ((EntitySequence) entities).addObject(entity);
+            } else {
+                this.entities.add(entity);
+            }
+        }
+    }
+
+    /**
+     * Adds an entity stored as a row of the document's columns, see {@link DxfDocument#setColumnarStorage(boolean)}.
+     * @param columns The columns holding the row.
+     * @param row The row.
+     */
+    void addEntityRow(DxfEntityColumns columns, int row) {
+        if (!(entities instanceof EntitySequence)) {
+            entities = new EntitySequence(columns, entities);
         }
+        ((EntitySequence) entities).addRow(row);
     }
 
     @Override
@@ -0,0 +1,255 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.AbstractDxfEntity;
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.EntityType;
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfArc;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfDimension;
+import com.cad.dxflib.entities.DxfInsert;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.entities.DxfLwPolyline;
+import com.cad.dxflib.entities.DxfSpline;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.parser.DxfGroupCode;
+import com.cad.dxflib.structure.DxfMemoryReport.Usage;
+
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds a {@link DxfMemoryReport} from the shapes of the entity classes rather than by walking the heap,
+ * so estimating a document of millions of entities takes one pass and allocates nothing per entity.
+ * The size helpers are shared by the structures that estimate themselves (lists, indexes, the symbol table).
+ */
+final class DxfMemoryEstimator {
+
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+
+    private static final long POINT = align(OBJECT_HEADER + 3 * 8);
+    private static final long BOXED_DOUBLE = align(OBJECT_HEADER + 8);
+    private static final long GROUP_CODE = align(OBJECT_HEADER + 4 + REFERENCE);
+    private static final long HASH_MAP = align(OBJECT_HEADER + 6 * REFERENCE + 4 * 4);
+    private static final long HASH_MAP_NODE = align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+    private static final long TABLE_ENTRY = align(OBJECT_HEADER + 64); // Layers, linetypes and styles: a few fields each
+    // AbstractDxfEntity: layer, linetype, xdata and reactor references, color, thickness, handle and owner
+    private static final int ENTITY_FIELDS = 4 * REFERENCE + 4 + 3 * 8;
+
+    private final DxfSymbolTable symbols;
+    private final Usage modelSpace = new Usage();
+    private final Map<EntityType, Usage> byType = new EnumMap<>(EntityType.class);
+    private final Map<String, Usage> byLayer = new TreeMap<>();
+    private final Map<String, Usage> layersByName = new IdentityHashMap<>(); // Names are interned, so mostly hits
+    private final Map<String, Usage> byBlock = new TreeMap<>();
+    private final Usage xdata = new Usage();
+    private final Usage reactors = new Usage();
+    private final Usage indexes = new Usage();
+    private final Usage tables = new Usage();
+
+    // Result of the last measure(): an entity's own size, without XDATA and reactors
+    private long bytes;
+    private long objects;
+
+    DxfMemoryEstimator(DxfSymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /** Adds a model space entity object. */
+    void addModelSpaceEntity(DxfEntity entity) {
+        measure(entity);
+        modelSpace.add(1, objects, bytes);
+        byType.computeIfAbsent(entity.getType(), type -> new Usage()).add(1, objects, bytes);
+        layer(entity.getLayerName()).add(1, objects, bytes);
+        measureExtras(entity);
+    }
+
+    /** Adds the model space rows of a column store; its unused capacity and handle index count as indexes. */
+    void addModelSpaceRows(DxfEntityColumns columns) {
+        int rows = columns.size();
+        if (rows == 0) {
+            indexes.add(0, 0, columns.estimateBytes());
+            return;
+        }
+        long rowBytes = columns.estimateRowBytes();
+        for (int row = 0; row < rows; row++) {
+            modelSpace.add(1, 0, rowBytes);
+            byType.computeIfAbsent(columns.getType(row), type -> new Usage()).add(1, 0, rowBytes);
+            layer(columns.getLayerName(row)).add(1, 0, rowBytes);
+        }
+        indexes.add(0, DxfEntityColumns.ARRAYS, columns.estimateBytes() - rowBytes * rows);
+    }
+
+    /** Adds a block definition with its entities. */
+    void addBlock(String key, DxfBlock block) {
+        Usage usage = new Usage();
+        usage.add(0, 1 + (block.getBasePoint() != null ? 1 : 0),
+                align(OBJECT_HEADER + 3 * REFERENCE) + (block.getBasePoint() != null ? POINT : 0)
+                        + string(block.getName()) + arrayList(block.getEntities().size()));
+        for (DxfEntity entity : block.getEntities()) {
+            measure(entity);
+            usage.add(1, objects, bytes);
+            measureExtras(entity);
+        }
+        byBlock.put(key, usage);
+    }
+
+    void addIndex(long objects, long bytes) {
+        indexes.add(0, objects, bytes);
+    }
+
+    /** Adds a map of table entries or objects, with a rough fixed size per entry. */
+    void addTable(Map<String, ?> table) {
+        tables.add(table.size(), 1 + 2L * table.size(), hashMap(table.size()) + table.size() * TABLE_ENTRY);
+    }
+
+    void addTableBytes(long objects, long bytes) {
+        tables.add(0, objects, bytes);
+    }
+
+    DxfMemoryReport build() {
+        return new DxfMemoryReport(modelSpace, byType, byLayer, byBlock, xdata, reactors, indexes, tables);
+    }
+
+    private Usage layer(String name) {
+        Usage usage = layersByName.get(name);
+        if (usage == null) {
+            String key = name != null ? symbols.getKey(name) : "0";
+            if (key == null) {
+                key = name.toUpperCase(Locale.ROOT); // Set directly rather than parsed, so never interned
+            }
+            usage = byLayer.computeIfAbsent(key, k -> new Usage());
+            layersByName.put(name, usage);
+        }
+        return usage;
+    }
+
+    private void measure(DxfEntity entity) {
+        objects = 1;
+        if (entity instanceof DxfLine) {
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + 2 * REFERENCE) + points(2);
+        } else if (entity instanceof DxfArc) {
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + REFERENCE + 3 * 8) + points(1);
+        } else if (entity instanceof DxfCircle) {
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + REFERENCE + 8) + points(1);
+        } else if (entity instanceof DxfLwPolyline) {
+            DxfLwPolyline polyline = (DxfLwPolyline) entity;
+            int vertices = polyline.getNumberOfVertices();
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + 3 * REFERENCE + 4 + 8 + 1 + 8) + array(2L * vertices, 8);
+            objects += 1;
+            if (polyline.hasBulges()) {
+                bytes += array(vertices, 8);
+                objects++;
+            }
+            if (polyline.hasVertexWidths()) {
+                bytes += array(2L * vertices, 8);
+                objects++;
+            }
+        } else if (entity instanceof DxfText) {
+            DxfText text = (DxfText) entity;
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + 3 * REFERENCE + 2 * 8) + points(1) + strings(text.getTextValue());
+        } else if (entity instanceof DxfInsert) {
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + 2 * REFERENCE + 3 * 8) + points(1);
+        } else if (entity instanceof DxfDimension) {
+            DxfDimension dimension = (DxfDimension) entity;
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + 8 * REFERENCE + 4 + 8)
+                    + points(dimension.getDefinitionPoint(), dimension.getMiddleOfTextPoint(),
+                            dimension.getLinearPoint1(), dimension.getLinearPoint2(), dimension.getExtrusionDirection())
+                    + strings(dimension.getDimensionText()) + strings(dimension.getBlockName());
+        } else if (entity instanceof DxfSpline) {
+            DxfSpline spline = (DxfSpline) entity;
+            int knots = spline.getKnots().size();
+            int points = spline.getControlPoints().size() + spline.getFitPoints().size();
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + 4 * REFERENCE + 5 * 4 + 3 * 8) + points(1)
+                    + arrayList(knots) + arrayList(spline.getControlPoints().size())
+                    + arrayList(spline.getFitPoints().size()) + knots * BOXED_DOUBLE + points(points);
+            objects += 6 + knots;
+        } else {
+            bytes = align(OBJECT_HEADER + ENTITY_FIELDS + 2 * REFERENCE); // Unknown shape: a couple of fields
+        }
+    }
+
+    private long points(int count) {
+        objects += count;
+        return count * POINT;
+    }
+
+    private long points(Point3D... points) {
+        int count = 0;
+        for (Point3D point : points) {
+            if (point != null && point != Point3D.ORIGIN) {
+                count++;
+            }
+        }
+        return points(count);
+    }
+
+    private long strings(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0; // Null, or the shared empty literal
+        }
+        objects += 2;
+        return string(value);
+    }
+
+    private void measureExtras(DxfEntity entity) {
+        if (!(entity instanceof AbstractDxfEntity)) {
+            return;
+        }
+        AbstractDxfEntity e = (AbstractDxfEntity) entity;
+        Map<String, List<DxfGroupCode>> data = e.getXData();
+        if (!data.isEmpty()) {
+            long dataObjects = 2 + 3L * data.size();
+            long dataBytes = hashMap(data.size());
+            for (Map.Entry<String, List<DxfGroupCode>> application : data.entrySet()) {
+                List<DxfGroupCode> groupCodes = application.getValue();
+                dataBytes += arrayList(groupCodes.size()) + groupCodes.size() * GROUP_CODE;
+                dataObjects += groupCodes.size();
+                for (DxfGroupCode groupCode : groupCodes) {
+                    dataBytes += string(groupCode.value);
+                    dataObjects += 2;
+                }
+            }
+            xdata.add(1, dataObjects, dataBytes);
+        }
+        List<String> handles = e.getReactorHandles();
+        if (!handles.isEmpty()) {
+            long handleBytes = arrayList(handles.size());
+            for (String handle : handles) {
+                handleBytes += string(handle);
+            }
+            reactors.add(1, 2 + 2L * handles.size(), handleBytes);
+        }
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long array(long length, int elementSize) {
+        return align(ARRAY_HEADER + length * elementSize);
+    }
+
+    /** A String with its Latin-1 byte array: hash, value reference, coder and hashIsZero fields. */
+    static long string(String value) {
+        return value == null ? 0 : align(OBJECT_HEADER + 4 + REFERENCE + 2) + array(value.length(), 1);
+    }
+
+    /** An ArrayList without growth slack. */
+    static long arrayList(long size) {
+        return align(OBJECT_HEADER + 2 * 4 + REFERENCE) + array(size, REFERENCE);
+    }
+
+    /** A HashMap at the default load factor, with its nodes but not its keys and values. */
+    static long hashMap(long size) {
+        long capacity = size == 0 ? 0 : Math.max(16, Long.highestOneBit(Math.max(1, size * 4 / 3)) << 1);
+        return HASH_MAP + (capacity > 0 ? array(capacity, REFERENCE) : 0) + size * HASH_MAP_NODE;
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.EntityType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An estimate of the heap retained by a {@link DxfDocument}, see {@link DxfDocument#estimateMemory()}.
+ * Sizes assume a 64-bit JVM with compressed references (12-byte object headers, 4-byte references,
+ * 8-byte alignment) and Latin-1 strings, so they are close to, but not exactly, what a heap dump shows.
+ * <p>
+ * Model space entities are broken down by {@link EntityType} and by layer, block definitions by block name;
+ * each breakdown sums to the same entity total. XDATA and reactors are reported on their own, not in the
+ * entities that carry them. The total adds the entity lists, the handle index and the tables.
+ */
+public final class DxfMemoryReport {
+
+    private static final int LISTED_LAYERS = 20;
+
+    /** The entity count, object count and estimated bytes of one part of a document. */
+    public static final class Usage {
+        private long count;
+        private long objects;
+        private long bytes;
+
+        void add(long count, long objects, long bytes) {
+            this.count += count;
+            this.objects += objects;
+            this.bytes += bytes;
+        }
+
+        void add(Usage other) {
+            add(other.count, other.objects, other.bytes);
+        }
+
+        /**
+         * Gets the number of entities, or of items for the parts that are not entities.
+         * @return The count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the number of heap objects, including arrays. Entities stored as columns add none.
+         * @return The object count.
+         */
+        public long getObjects() {
+            return objects;
+        }
+
+        /**
+         * Gets the estimated retained size.
+         * @return The size in bytes.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Usage{count=" + count + ", objects=" + objects + ", bytes=" + bytes + '}';
+        }
+    }
+
+    private final Usage total;
+    private final Usage entities;
+    private final Map<EntityType, Usage> byType;
+    private final Map<String, Usage> byLayer;
+    private final Map<String, Usage> byBlock;
+    private final Usage xdata;
+    private final Usage reactors;
+    private final Usage indexes;
+    private final Usage tables;
+
+    DxfMemoryReport(Usage entities, Map<EntityType, Usage> byType, Map<String, Usage> byLayer,
+                    Map<String, Usage> byBlock, Usage xdata, Usage reactors, Usage indexes, Usage tables) {
+        this.entities = entities;
+        this.byType = Collections.unmodifiableMap(byType);
+        this.byLayer = Collections.unmodifiableMap(byLayer);
+        this.byBlock = Collections.unmodifiableMap(byBlock);
+        this.xdata = xdata;
+        this.reactors = reactors;
+        this.indexes = indexes;
+        this.tables = tables;
+        this.total = new Usage();
+        total.add(entities);
+        for (Usage block : byBlock.values()) {
+            total.add(block);
+        }
+        total.add(0, xdata.objects + reactors.objects + indexes.objects + tables.objects,
+                xdata.bytes + reactors.bytes + indexes.bytes + tables.bytes);
+    }
+
+    /**
+     * Gets the estimate for the whole document. Its count is the number of model space and block entities.
+     * @return The total usage.
+     */
+    public Usage getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the estimate for the model space entities, without their XDATA and reactors.
+     * @return The model space usage.
+     */
+    public Usage getModelSpace() {
+        return entities;
+    }
+
+    /**
+     * Gets the model space entities by type.
+     * @return An unmodifiable map holding the types present, in {@link EntityType} order.
+     */
+    public Map<EntityType, Usage> getByType() {
+        return byType;
+    }
+
+    /**
+     * Gets the model space entities by layer.
+     * @return An unmodifiable map keyed by upper-case layer name, as {@link DxfDocument#getLayers()}.
+     */
+    public Map<String, Usage> getByLayer() {
+        return byLayer;
+    }
+
+    /**
+     * Gets the block definitions, each with the entities it holds (without their XDATA and reactors).
+     * @return An unmodifiable map keyed by upper-case block name, as {@link DxfDocument#getBlocks()}.
+     */
+    public Map<String, Usage> getByBlock() {
+        return byBlock;
+    }
+
+    /**
+     * Gets the XDATA of all entities; the count is the number of entities with XDATA.
+     * @return The XDATA usage.
+     */
+    public Usage getXData() {
+        return xdata;
+    }
+
+    /**
+     * Gets the reactor handles of all entities; the count is the number of entities with reactors.
+     * @return The reactor usage.
+     */
+    public Usage getReactors() {
+        return reactors;
+    }
+
+    /**
+     * Gets the model space and layer entity lists, the handle indexes, unused column capacity and the
+     * cached block geometry.
+     * @return The index usage.
+     */
+    public Usage getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Gets the table entries (layers, linetypes, styles, block records), objects and interned names.
+     * @return The table usage.
+     */
+    public Usage getTables() {
+        return tables;
+    }
+
+    /**
+     * Formats the report as text for logs and dialogs: the totals, every entity type and block,
+     * and the largest layers.
+     * @return A multi-line report.
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "Estimated heap: %s in %,d objects (%,d entities)%n",
+                formatBytes(total.bytes), total.objects, total.count));
+        line(text, "Model space", entities);
+        line(text, "XDATA", xdata);
+        line(text, "Reactors", reactors);
+        line(text, "Indexes", indexes);
+        line(text, "Tables", tables);
+        if (!byType.isEmpty()) {
+            text.append(String.format("By type:%n"));
+            for (Map.Entry<EntityType, Usage> entry : byType.entrySet()) {
+                line(text, "  " + entry.getKey(), entry.getValue());
+            }
+        }
+        if (!byLayer.isEmpty()) {
+            text.append(String.format("By layer:%n"));
+            List<Map.Entry<String, Usage>> layers = new ArrayList<>(byLayer.entrySet());
+            layers.sort((a, b) -> Long.compare(b.getValue().bytes, a.getValue().bytes));
+            for (Map.Entry<String, Usage> entry : layers.subList(0, Math.min(LISTED_LAYERS, layers.size()))) {
+                line(text, "  " + entry.getKey(), entry.getValue());
+            }
+            if (layers.size() > LISTED_LAYERS) {
+                text.append(String.format(Locale.ROOT, "  ... %,d more layers%n", layers.size() - LISTED_LAYERS));
+            }
+        }
+        if (!byBlock.isEmpty()) {
+            text.append(String.format("By block:%n"));
+            for (Map.Entry<String, Usage> entry : byBlock.entrySet()) {
+                line(text, "  " + entry.getKey(), entry.getValue());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Formats a byte count with a binary unit, e.g. "1.5 MB".
+     * @param bytes The byte count.
+     * @return The formatted size.
+     */
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        String units = "KMGTPE";
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format(Locale.ROOT, "%.1f %sB", bytes / (double) (1L << (10 * unit)), units.charAt(unit - 1));
+    }
+
+    private static void line(StringBuilder text, String label, Usage usage) {
+        text.append(String.format(Locale.ROOT, "%-24s %12s %,14d objects %,12d items%n",
+                label, formatBytes(usage.bytes), usage.objects, usage.count));
+    }
+
+    @Override
+    public String toString() {
+        return "DxfMemoryReport{bytes=" + total.bytes + ", objects=" + total.objects
+                + ", entities=" + total.count + '}';
+    }
+}
@@ -0,0 +1,17 @@
+package com.cad.dxflib.structure;
+
+/**
+ * Fills in one section of a lazily parsed {@link DxfDocument} the first time it is needed.
+ * Implementations are called at most once per section, while holding the document's lock.
+ */
+@FunctionalInterface
+public interface DxfSectionLoader {
+
+    /**
+     * Parses a section into the document.
+     * @param document The document to populate.
+     * @param sectionName The uppercase section name, e.g. "TABLES" or "ENTITIES".
+     * @throws IllegalStateException If the section cannot be parsed.
+     */
+    void loadSection(DxfDocument document, String sectionName);
+}
@@ -0,0 +1,282 @@
+package com.cad.dxflib.structure;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Interns the names that entities and tables refer to (layers, linetypes, text and dimension styles).
+ * Every distinct spelling is stored once and handed out as the same String instance, so millions of
+ * entities on layer "0" or linetype "BYLAYER" share one string. Names that differ only in case share a
+ * symbol: a small integer id and an upper-case key, as used by the {@link DxfDocument} maps.
+ * <p>
+ * Lookups by name ignore case and do not allocate for ASCII names. Reads are lock-free and inserts are
+ * synchronized, so entities parsed on several threads can intern into the same table.
+ */
+public final class DxfSymbolTable {
+
+    private static final int INITIAL_CAPACITY = 64; // Power of two
+
+    /** One case-insensitive name: its id, upper-case key and the spellings seen so far. Immutable. */
+    private static final class Symbol {
+        final int id;
+        final int hash;
+        final String key;
+        final String[] spellings;
+
+        Symbol(int id, int hash, String key, String[] spellings) {
+            this.id = id;
+            this.hash = hash;
+            this.key = key;
+            this.spellings = spellings;
+        }
+    }
+
+    private volatile Symbol[] slots = new Symbol[INITIAL_CAPACITY];
+    private volatile String[] keysById = new String[INITIAL_CAPACITY / 2];
+    private int size;
+
+    /**
+     * Returns the canonical instance of a name, adding it to the table if needed.
+     * The spelling is kept as given; use {@link #getKey(CharSequence)} for the case-insensitive form.
+     * @param name The name to intern. Null is returned as null.
+     * @return A String equal to {@code name}, the same instance for every equal name.
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String spelling = findSpelling(slots, name);
+        return spelling != null ? spelling : add(name);
+    }
+
+    /**
+     * Returns the canonical instance of a name held in a byte range, decoding it only when the name is new.
+     * Each byte is one character (ASCII or ISO-8859-1); callers decode other multi-byte text themselves.
+     * @param bytes The buffer holding the name.
+     * @param offset The offset of the first character.
+     * @param length The number of characters.
+     * @return The interned name.
+     */
+    public String intern(byte[] bytes, int offset, int length) {
+        Symbol[] table = slots;
+        int hash = 0;
+        boolean ascii = true;
+        for (int i = offset; i < offset + length; i++) {
+            ascii &= bytes[i] >= 0;
+            hash = 31 * hash + upperAscii(bytes[i]);
+        }
+        if (ascii) {
+            int mask = table.length - 1;
+            for (int slot = hash & mask; table[slot] != null; slot = (slot + 1) & mask) {
+                if (table[slot].hash == hash) {
+                    for (String spelling : table[slot].spellings) {
+                        if (spellingEquals(spelling, bytes, offset, length)) {
+                            return spelling;
+                        }
+                    }
+                }
+            }
+        }
+        return intern(new String(bytes, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Gets the upper-case key of a name, ignoring case. Does not allocate for ASCII names.
+     * @param name The name to look up.
+     * @return The canonical upper-case key, or null if the name was never interned.
+     */
+    public String getKey(CharSequence name) {
+        Symbol symbol = find(slots, name);
+        return symbol != null ? symbol.key : null;
+    }
+
+    /**
+     * Gets the id of a name, ignoring case. Ids are assigned from 0 in order of first appearance.
+     * @param name The name to look up.
+     * @return The id, or -1 if the name was never interned.
+     */
+    public int getId(CharSequence name) {
+        Symbol symbol = find(slots, name);
+        return symbol != null ? symbol.id : -1;
+    }
+
+    /**
+     * Gets the upper-case key of a symbol id.
+     * @param id An id returned by {@link #getId(CharSequence)}.
+     * @return The key.
+     * @throws IndexOutOfBoundsException If no symbol has this id.
+     */
+    public String getName(int id) {
+        String[] keys = keysById;
+        if (id >= 0 && id < keys.length && keys[id] != null) {
+            return keys[id];
+        }
+        synchronized (this) {
+            if (id < 0 || id >= size) {
+                throw new IndexOutOfBoundsException("Unknown symbol id: " + id);
+            }
+            return keysById[id];
+        }
+    }
+
+    /**
+     * Gets the number of case-insensitive names in the table.
+     * @return The number of symbols.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Estimates the table with its symbols and name strings, for memory reports. */
+    synchronized long estimateBytes() {
+        long bytes = DxfMemoryEstimator.array(slots.length, DxfMemoryEstimator.REFERENCE)
+                + DxfMemoryEstimator.array(keysById.length, DxfMemoryEstimator.REFERENCE);
+        for (Symbol symbol : slots) {
+            if (symbol != null) {
+                bytes += DxfMemoryEstimator.align(DxfMemoryEstimator.OBJECT_HEADER + 2 * 4 + 2 * DxfMemoryEstimator.REFERENCE)
+                        + DxfMemoryEstimator.array(symbol.spellings.length, DxfMemoryEstimator.REFERENCE);
+                for (String spelling : symbol.spellings) {
+                    bytes += DxfMemoryEstimator.string(spelling);
+                }
+                if (symbol.key != symbol.spellings[0]) {
+                    bytes += DxfMemoryEstimator.string(symbol.key);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private String findSpelling(Symbol[] table, String name) {
+        Symbol symbol = find(table, name);
+        if (symbol != null) {
+            for (String spelling : symbol.spellings) {
+                if (spelling.equals(name)) {
+                    return spelling;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Symbol find(Symbol[] table, CharSequence name) {
+        if (name == null) {
+            return null;
+        }
+        CharSequence key = name;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) {
+                // Full Unicode case mapping, the same as the document maps use
+                key = name.toString().toUpperCase(Locale.ROOT);
+                break;
+            }
+        }
+        int hash = hashIgnoreCase(key);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            Symbol symbol = table[slot];
+            if (symbol.hash == hash && keyEquals(symbol.key, key)) {
+                return symbol;
+            }
+        }
+        return null;
+    }
+
+    private synchronized String add(String name) {
+        // Another thread may have added it since the lock-free lookup
+        Symbol symbol = find(slots, name);
+        if (symbol != null) {
+            for (String spelling : symbol.spellings) {
+                if (spelling.equals(name)) {
+                    return spelling;
+                }
+            }
+            String[] spellings = Arrays.copyOf(symbol.spellings, symbol.spellings.length + 1);
+            spellings[spellings.length - 1] = name;
+            replace(new Symbol(symbol.id, symbol.hash, symbol.key, spellings));
+            return name;
+        }
+        String key = name.toUpperCase(Locale.ROOT);
+        key = key.equals(name) ? name : key;
+        if (size + 1 > slots.length / 2) {
+            rehash(slots.length * 2);
+        }
+        String[] keys = keysById;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        keys[size] = key;
+        keysById = keys;
+        Symbol[] table = slots;
+        int hash = hashIgnoreCase(key);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = new Symbol(size++, hash, key, new String[] {name});
+        return name;
+    }
+
+    private void replace(Symbol symbol) {
+        Symbol[] table = slots;
+        int mask = table.length - 1;
+        for (int slot = symbol.hash & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            if (table[slot].id == symbol.id) {
+                table[slot] = symbol;
+                return;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        Symbol[] table = new Symbol[capacity];
+        int mask = capacity - 1;
+        for (Symbol symbol : slots) {
+            if (symbol != null) {
+                int slot = symbol.hash & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = symbol;
+            }
+        }
+        slots = table;
+    }
+
+    private static int hashIgnoreCase(CharSequence name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + upperAscii(name.charAt(i));
+        }
+        return hash;
+    }
+
+    private static boolean keyEquals(String key, CharSequence name) {
+        if (key.length() != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != upperAscii(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean spellingEquals(String spelling, byte[] bytes, int offset, int length) {
+        if (spelling.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (spelling.charAt(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int upperAscii(int c) {
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+    }
+}
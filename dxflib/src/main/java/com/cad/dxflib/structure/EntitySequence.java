@@ -0,0 +1,78 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.DxfEntity;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An entity list in insertion order whose elements are either rows of a shared {@link DxfEntityColumns}
+ * or regular entity objects. Each element costs one int slot, plus the object reference for objects.
+ * Rows are returned as new views on every {@link #get(int)}. Read-only through the List interface.
+ */
+final class EntitySequence extends AbstractList<DxfEntity> implements RandomAccess {
+
+    private final DxfEntityColumns columns;
+    private final List<DxfEntity> objects = new ArrayList<>();
+    private int[] slots = new int[16]; // Row >= 0, or -(object index + 1)
+    private int size;
+
+    EntitySequence(DxfEntityColumns columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a sequence holding the given entities as objects.
+     * @param columns The shared columns for rows added later.
+     * @param entities The existing entities.
+     */
+    EntitySequence(DxfEntityColumns columns, List<DxfEntity> entities) {
+        this(columns);
+        for (DxfEntity entity : entities) {
+            addObject(entity);
+        }
+    }
+
+    void addRow(int row) {
+        append(row);
+    }
+
+    void addObject(DxfEntity entity) {
+        objects.add(entity);
+        append(-objects.size());
+    }
+
+    /** The elements stored as objects, in order, without the rows. */
+    List<DxfEntity> objects() {
+        return objects;
+    }
+
+    long estimateBytes() {
+        return DxfMemoryEstimator.align(DxfMemoryEstimator.OBJECT_HEADER + 3 * DxfMemoryEstimator.REFERENCE + 2 * 4)
+                + DxfMemoryEstimator.array(slots.length, 4) + DxfMemoryEstimator.arrayList(objects.size());
+    }
+
+    @Override
+    public DxfEntity get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int slot = slots[index];
+        return slot >= 0 ? columns.get(slot) : objects.get(-slot - 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void append(int slot) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+        }
+        slots[size++] = slot;
+    }
+}
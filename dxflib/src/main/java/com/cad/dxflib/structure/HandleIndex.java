@@ -0,0 +1,75 @@
+package com.cad.dxflib.structure;
+
+/**
+ * Maps DXF handles to objects without boxing the handles, see {@link HandleTable}.
+ * Not thread-safe.
+ * @param <V> The type of the indexed objects.
+ */
+final class HandleIndex<V> extends HandleTable {
+
+    private Object[] values = new Object[INITIAL_CAPACITY];
+
+    /**
+     * Gets the object with the given handle.
+     * @param handle The handle.
+     * @return The object, or null if no object has this handle.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long handle) {
+        int slot = find(handle);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    /**
+     * Indexes an object by its handle, replacing any object with the same handle.
+     * @param handle The handle. 0 is ignored.
+     * @param value The object.
+     */
+    void put(long handle, V value) {
+        if (handle != NO_HANDLE) {
+            int slot = insert(handle); // May grow the table, replacing the values array
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Removes the object with the given handle.
+     * @param handle The handle.
+     * @return The removed object, or null if no object had this handle.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long handle) {
+        int slot = find(handle);
+        if (slot < 0) {
+            return null;
+        }
+        V value = (V) values[slot];
+        removeAt(slot);
+        return value;
+    }
+
+    long estimateBytes() {
+        return DxfMemoryEstimator.array(capacity(), 8) + DxfMemoryEstimator.array(values.length, DxfMemoryEstimator.REFERENCE);
+    }
+
+    @Override
+    void rehashValues(int capacity, int[] newSlots) {
+        Object[] oldValues = values;
+        values = new Object[capacity];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (newSlots[i] >= 0) {
+                values[newSlots[i]] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        values[slot] = null; // Not kept reachable
+    }
+}
@@ -0,0 +1,69 @@
+package com.cad.dxflib.structure;
+
+/**
+ * Maps DXF handles to int row numbers, e.g. of {@link DxfEntityColumns}, boxing neither, see {@link HandleTable}.
+ * Not thread-safe.
+ */
+final class HandleRowIndex extends HandleTable {
+
+    private int[] rows = new int[INITIAL_CAPACITY];
+
+    /**
+     * Gets the row with the given handle.
+     * @param handle The handle.
+     * @return The row, or -1 if no row has this handle.
+     */
+    int get(long handle) {
+        int slot = find(handle);
+        return slot >= 0 ? rows[slot] : -1;
+    }
+
+    /**
+     * Indexes a row by its handle, replacing any row with the same handle.
+     * @param handle The handle. 0 is ignored.
+     * @param row The row.
+     */
+    void put(long handle, int row) {
+        if (handle != NO_HANDLE) {
+            int slot = insert(handle); // May grow the table, replacing the rows array
+            rows[slot] = row;
+        }
+    }
+
+    /**
+     * Removes a handle if it is indexed to the given row; a duplicate handle indexing another row stays.
+     * @param handle The handle.
+     * @param row The row.
+     */
+    void remove(long handle, int row) {
+        int slot = find(handle);
+        if (slot >= 0 && rows[slot] == row) {
+            removeAt(slot);
+        }
+    }
+
+    long estimateBytes() {
+        return DxfMemoryEstimator.array(capacity(), 8) + DxfMemoryEstimator.array(rows.length, 4);
+    }
+
+    @Override
+    void rehashValues(int capacity, int[] newSlots) {
+        int[] oldRows = rows;
+        rows = new int[capacity];
+        for (int i = 0; i < oldRows.length; i++) {
+            if (newSlots[i] >= 0) {
+                rows[newSlots[i]] = oldRows[i];
+            }
+        }
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        rows[to] = rows[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        // Rows of empty slots are never read
+    }
+}
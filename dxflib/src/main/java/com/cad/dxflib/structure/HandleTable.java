@@ -0,0 +1,124 @@
+package com.cad.dxflib.structure;
+
+/**
+ * The probing shared by the handle indexes: handles are hexadecimal numbers, stored as {@code long} keys in an
+ * open-addressing table with linear probing, while subclasses keep the values in a parallel array without boxing.
+ * Handle 0 means "no handle" and is never a key. Not thread-safe.
+ */
+abstract class HandleTable {
+
+    static final int INITIAL_CAPACITY = 16; // Power of two
+    static final long NO_HANDLE = 0L;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Finds the slot of a handle.
+     * @param handle The handle.
+     * @return The slot, or -1 if the handle is not a key.
+     */
+    final int find(long handle) {
+        if (handle == NO_HANDLE) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(handle, mask); keys[slot] != NO_HANDLE; slot = (slot + 1) & mask) {
+            if (keys[slot] == handle) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot of a handle, adding the handle as a key if it is not one, after growing the table if needed.
+     * @param handle The handle, not 0.
+     * @return The slot, whose value the subclass sets.
+     */
+    final int insert(long handle) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = slot(handle, mask);
+        while (keys[slot] != NO_HANDLE) {
+            if (keys[slot] == handle) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = handle;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Removes the key of a slot found with {@link #find(long)}. Later keys of its probe run move back
+     * (backward-shift deletion), so the table needs no tombstones.
+     * @param slot The slot.
+     */
+    final void removeAt(int slot) {
+        size--;
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != NO_HANDLE; next = (next + 1) & mask) {
+            // Move the key back unless its home slot lies after the hole on its probe run
+            if (((next - slot(keys[next], mask)) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                moveValue(next, hole);
+                hole = next;
+            }
+        }
+        keys[hole] = NO_HANDLE;
+        clearValue(hole);
+    }
+
+    /**
+     * Gets the number of indexed handles.
+     * @return The size.
+     */
+    final int size() {
+        return size;
+    }
+
+    final int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Moves the values to the slots their keys take in a table of a new capacity.
+     * @param capacity The new capacity.
+     * @param newSlots The new slot of each old slot, or -1 for empty ones.
+     */
+    abstract void rehashValues(int capacity, int[] newSlots);
+
+    abstract void moveValue(int from, int to);
+
+    abstract void clearValue(int slot);
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] newSlots = new int[oldKeys.length];
+        keys = new long[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            newSlots[i] = -1;
+            if (oldKeys[i] != NO_HANDLE) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != NO_HANDLE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                newSlots[i] = slot;
+            }
+        }
+        rehashValues(capacity, newSlots);
+    }
+
+    private static int slot(long handle, int mask) {
+        // Handles are mostly sequential: spread them so neighbours do not form long probe runs
+        long h = handle * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
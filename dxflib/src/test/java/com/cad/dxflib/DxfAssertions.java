@@ -0,0 +1,98 @@
+package com.cad.dxflib;
+
+import com.cad.dxflib.common.AbstractDxfEntity;
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.entities.DxfLwPolyline;
+import com.cad.dxflib.structure.DxfBlock;
+import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfLayer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Assertions comparing documents read along different paths, e.g. parsed and reloaded, or as objects and as columns.
+ */
+public final class DxfAssertions {
+
+    private DxfAssertions() {
+    }
+
+    /**
+     * Asserts that two documents have the same header, tables, blocks and entities.
+     * @param expected The reference document.
+     * @param actual The document to check.
+     */
+    public static void assertSameDocument(DxfDocument expected, DxfDocument actual) {
+        assertEquals(expected.getHeader().toString(), actual.getHeader().toString());
+        assertSameDrawing(expected, actual);
+    }
+
+    /**
+     * Asserts that two documents have the same tables, blocks and entities; the headers may differ,
+     * e.g. because {@link com.cad.dxflib.parser.DxfWriter} fills in the version and extents.
+     * @param expected The reference document.
+     * @param actual The document to check.
+     */
+    public static void assertSameDrawing(DxfDocument expected, DxfDocument actual) {
+        assertEquals(expected.getBounds().toString(), actual.getBounds().toString());
+        assertEquals(new TreeMap<>(expected.getLinetypes()).toString(), new TreeMap<>(actual.getLinetypes()).toString());
+        assertEquals(new TreeMap<>(expected.getTextStyles()).toString(), new TreeMap<>(actual.getTextStyles()).toString());
+        assertEquals(new TreeMap<>(expected.getDimensionStyles()).toString(), new TreeMap<>(actual.getDimensionStyles()).toString());
+        assertEquals(new TreeMap<>(expected.getBlockRecords()).toString(), new TreeMap<>(actual.getBlockRecords()).toString());
+        assertEquals(expected.getLayers().keySet(), actual.getLayers().keySet());
+        for (Map.Entry<String, DxfLayer> entry : expected.getLayers().entrySet()) {
+            DxfLayer layer = actual.getLayer(entry.getKey());
+            assertEquals(entry.getValue().toString(), layer.toString());
+            assertEquals(entry.getValue().isVisible(), layer.isVisible());
+            assertEntitiesEqual(entry.getValue().getEntities(), layer.getEntities());
+        }
+        assertEquals(expected.getBlocks().keySet(), actual.getBlocks().keySet());
+        for (Map.Entry<String, DxfBlock> entry : expected.getBlocks().entrySet()) {
+            DxfBlock block = actual.getBlock(entry.getKey());
+            assertEquals(entry.getValue().getName(), block.getName());
+            assertEquals(entry.getValue().getBasePoint(), block.getBasePoint());
+            assertEntitiesEqual(entry.getValue().getEntities(), block.getEntities());
+        }
+        assertEntitiesEqual(expected.getModelSpaceEntities(), actual.getModelSpaceEntities());
+    }
+
+    /**
+     * Asserts that two entity lists hold equal entities in the same order.
+     * Column rows count as instances of the entity class they view.
+     * @param expected The reference entities.
+     * @param actual The entities to check.
+     */
+    public static void assertEntitiesEqual(List<DxfEntity> expected, List<DxfEntity> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            AbstractDxfEntity e = (AbstractDxfEntity) expected.get(i);
+            AbstractDxfEntity a = (AbstractDxfEntity) actual.get(i);
+            assertSame(e.getType(), a.getType());
+            assertTrue(e.getClass().isInstance(a) || a.getClass().isInstance(e), a.getClass().getName());
+            assertEquals(e.toString(), a.toString());
+            assertEquals(e.getLinetypeName(), a.getLinetypeName());
+            assertEquals(e.getThickness(), a.getThickness());
+            assertEquals(e.getHandle(), a.getHandle());
+            assertEquals(e.getOwnerHandle(), a.getOwnerHandle());
+            assertEquals(e.getXData().toString(), a.getXData().toString());
+            assertEquals(e.getReactorHandles(), a.getReactorHandles());
+            assertEquals(e.getBounds().toString(), a.getBounds().toString());
+            if (e instanceof DxfLwPolyline) {
+                // toString() only shows the vertex count
+                DxfLwPolyline ep = (DxfLwPolyline) e;
+                DxfLwPolyline ap = (DxfLwPolyline) a;
+                assertEquals(ep.getVertices(), ap.getVertices());
+                assertEquals(ep.getBulges(), ap.getBulges());
+                assertEquals(ep.hasVertexWidths(), ap.hasVertexWidths());
+                for (int v = 0; v < ep.getNumberOfVertices(); v++) {
+                    assertEquals(ep.getStartWidth(v), ap.getStartWidth(v));
+                    assertEquals(ep.getEndWidth(v), ap.getEndWidth(v));
+                }
+            }
+        }
+    }
+}
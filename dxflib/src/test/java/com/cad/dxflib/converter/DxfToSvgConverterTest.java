@@ -17,10 +17,19 @@ import com.cad.dxflib.structure.DxfDocument;
 import com.cad.dxflib.structure.DxfLayer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List; // For DxfEntity list in testParseLineCircleMixed
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -453,6 +462,84 @@ class DxfToSvgConverterTest {
             "Transformed group for INSERT does not contain the expected red circle. Group content: \n" + groupContent);
     }
 
+    @Test
+    void testNestedInsertsDoNotModifyBlocksAndConvertConcurrently() throws Exception {
+        String dxf = "0\nSECTION\n2\nTABLES\n0\nTABLE\n2\nLTYPE\n"
+                + "0\nLTYPE\n2\nDASHED\n3\nDashed\n72\n65\n73\n2\n40\n0.75\n49\n0.5\n49\n-0.25\n0\nENDTAB\n"
+                + "0\nTABLE\n2\nLAYER\n"
+                + "0\nLAYER\n2\n0\n62\n7\n6\nCONTINUOUS\n0\nLAYER\n2\nWalls\n62\n3\n6\nDASHED\n0\nENDTAB\n0\nENDSEC\n"
+                + "0\nSECTION\n2\nBLOCKS\n"
+                + "0\nBLOCK\n8\n0\n2\nInner\n10\n0\n20\n0\n"
+                + "0\nLINE\n8\n0\n62\n0\n6\nBYBLOCK\n10\n0\n20\n0\n11\n10\n21\n0\n0\nENDBLK\n"
+                + "0\nBLOCK\n8\n0\n2\nOuter\n10\n0\n20\n0\n"
+                + "0\nINSERT\n8\n0\n62\n0\n6\nBYBLOCK\n2\nInner\n10\n1\n20\n1\n"
+                + "0\nCIRCLE\n8\n0\n10\n5\n20\n5\n40\n2\n0\nENDBLK\n0\nENDSEC\n"
+                + "0\nSECTION\n2\nENTITIES\n"
+                + "0\nINSERT\n8\nWalls\n62\n1\n2\nOuter\n10\n20\n20\n20\n"
+                + "0\nINSERT\n8\n0\n2\nOuter\n10\n40\n20\n40\n"
+                + "0\nENDSEC\n0\nEOF\n";
+        DxfDocument doc = dxfParser.parse(new ByteArrayInputStream(dxf.getBytes(StandardCharsets.US_ASCII)));
+        String svg = svgConverter.convert(doc, defaultOptions);
+
+        // Through the red INSERT on Walls: the BYBLOCK line is red, the layer 0 circle takes the layer Walls color
+        String throughWalls = insertGroup(svg, "translate(20.000, 20.000)");
+        assertTrue(throughWalls.contains("x2=\"10.000\" y2=\"0.000\" stroke=\"red\""), throughWalls);
+        assertTrue(throughWalls.contains("stroke-dasharray"), throughWalls); // BYBLOCK linetype from the layer
+        assertTrue(throughWalls.contains("r=\"2.000\" stroke=\"green\""), throughWalls);
+        // Through the BYLAYER INSERT on layer 0: no state left over from the other one
+        String throughZero = insertGroup(svg, "translate(40.000, 40.000)");
+        assertTrue(throughZero.contains("x2=\"10.000\" y2=\"0.000\" stroke=\"" + defaultOptions.getDefaultStrokeColor() + "\""), throughZero);
+        assertFalse(throughZero.contains("stroke-dasharray"), throughZero);
+
+        DxfEntity innerLine = doc.getBlock("Inner").getEntities().get(0);
+        assertEquals("0", innerLine.getLayerName());
+        assertEquals(0, innerLine.getColor());
+        assertEquals("BYBLOCK", innerLine.getLinetypeName());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> svgConverter.convert(doc, defaultOptions)));
+            }
+            for (Future<String> result : results) {
+                assertEquals(svg, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRepeatedInsertsShareBodyAndWidenViewBox() throws Exception {
+        // Only INSERTs in model space: the viewBox must come from the block geometry, not the insertion points
+        String dxf = "0\nSECTION\n2\nBLOCKS\n0\nBLOCK\n2\nBox\n10\n0\n20\n0\n"
+                + "0\nLINE\n8\n0\n10\n0\n20\n0\n11\n50\n21\n0\n"
+                + "0\nCIRCLE\n8\n0\n10\n50\n20\n0\n40\n10\n0\nENDBLK\n0\nENDSEC\n"
+                + "0\nSECTION\n2\nENTITIES\n"
+                + "0\nINSERT\n8\n0\n2\nBox\n10\n0\n20\n0\n"
+                + "0\nINSERT\n8\n0\n2\nBox\n10\n0\n20\n100\n"
+                + "0\nINSERT\n8\n0\n2\nBox\n10\n0\n20\n200\n"
+                + "0\nENDSEC\n0\nEOF\n";
+        DxfDocument doc = dxfParser.parse(new ByteArrayInputStream(dxf.getBytes(StandardCharsets.US_ASCII)));
+        SvgConversionOptions options = new SvgConversionOptions();
+        options.setMargin(0);
+        String svg = svgConverter.convert(doc, options);
+
+        assertTrue(svg.contains("viewBox=\"0.000 -10.000 60.000 220.000\""), svg);
+        String body = "\">\n    <line x1=\"0.000\" y1=\"0.000\" x2=\"50.000\" y2=\"0.000\" stroke=\"black\" stroke-width=\"1.000\" />\n"
+                + "    <circle cx=\"50.000\" cy=\"0.000\" r=\"10.000\" stroke=\"black\" stroke-width=\"1.000\" fill=\"none\" />\n  </g>\n";
+        assertEquals(3, svg.split(java.util.regex.Pattern.quote(body), -1).length - 1, svg);
+    }
+
+    // The outer group of a top-level INSERT, up to its closing tag
+    private static String insertGroup(String svg, String transform) {
+        int start = svg.indexOf("<g transform=\"" + transform);
+        assertTrue(start >= 0, svg);
+        int end = svg.indexOf("\n  </g>\n", svg.indexOf("\n  </g>\n", start) + 1);
+        return svg.substring(start, end);
+    }
+
     @Test
     void testConvertEmptyDocumentToSvg() throws DxfParserException {
         InputStream inputStream = getResourceAsStream("/dxf/empty_document.dxf");
@@ -514,4 +601,19 @@ class DxfToSvgConverterTest {
         assertTrue(svg.contains(expectedHeight), "SVG height for single point doc is not as expected. SVG: \n" + svg);
         assertTrue(svg.contains(expectedViewBox), "SVG viewBox for single point doc is not as expected. SVG: \n" + svg);
     }
+
+    @Test
+    void testLazyDocumentConvertsLikeEagerParse(@TempDir Path tempDir) throws Exception {
+        String dxf = "0\nSECTION\n2\nTABLES\n0\nTABLE\n2\nLAYER\n0\nLAYER\n2\nA\n62\n1\n6\nCONTINUOUS\n0\nENDTAB\n0\nENDSEC\n"
+                + "0\nSECTION\n2\nENTITIES\n0\nLINE\n8\nA\n10\n0\n20\n0\n11\n10\n21\n5\n0\nENDSEC\n0\nEOF\n";
+        Path file = tempDir.resolve("lazy.dxf");
+        Files.write(file, dxf.getBytes(StandardCharsets.US_ASCII));
+        String eager = svgConverter.convert(dxfParser.parse(file), defaultOptions);
+
+        // Reading the layer's entities parses ENTITIES, though getLayers() only parsed TABLES
+        DxfDocument lazy = new DxfParser().parseLazily(file);
+        assertEquals(1, lazy.getLayer("A").getEntities().size());
+        assertEquals(eager, svgConverter.convert(new DxfParser().parseLazily(file), defaultOptions));
+        assertTrue(eager.contains("<line"), eager);
+    }
 }
@@ -0,0 +1,51 @@
+package com.cad.dxflib.converter;
+
+import com.cad.dxflib.parser.DxfParser;
+import com.cad.dxflib.structure.DxfDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SvgStyleTableTest {
+
+    private static final String DXF = "0\nSECTION\n2\nTABLES\n0\nTABLE\n2\nLTYPE\n"
+            + "0\nLTYPE\n2\nDASHED\n3\nDashed\n72\n65\n73\n2\n40\n0.75\n49\n0.5\n49\n-0.25\n0\nENDTAB\n"
+            + "0\nTABLE\n2\nLAYER\n"
+            + "0\nLAYER\n2\n0\n62\n7\n6\nCONTINUOUS\n0\nLAYER\n2\nWalls\n62\n-3\n6\nDASHED\n0\nENDTAB\n0\nENDSEC\n0\nEOF\n";
+
+    @Test
+    void testResolvesByLayerAndByBlockOnce() throws Exception {
+        DxfDocument document = new DxfParser().parse(new ByteArrayInputStream(DXF.getBytes(StandardCharsets.US_ASCII)));
+        SvgConversionOptions options = new SvgConversionOptions();
+        SvgStyleTable styles = new SvgStyleTable(document, options);
+
+        // BYLAYER color (absolute value of an off layer's color) and linetype
+        SvgStyle walls = styles.resolve("Walls", 256, "BYLAYER");
+        assertEquals("green", walls.getColor());
+        assertEquals("stroke=\"green\" stroke-width=\"1.000\" stroke-dasharray=\"0.500 0.250\"", walls.getAttributes(false));
+        assertEquals(walls.getAttributes(false) + " fill=\"none\"", walls.getAttributes(true));
+        // BYBLOCK outside blocks: BYLAYER color, solid line; another spelling of the layer
+        SvgStyle byBlock = styles.resolve("WALLS", 0, "BYBLOCK");
+        assertEquals("green", byBlock.getColor());
+        assertNull(byBlock.getDashArray());
+
+        // Interned: equal resolutions share one instance, also across layers
+        assertSame(walls, styles.resolve("Walls", 256, null));
+        assertSame(walls, styles.resolve("0", 3, "dashed"));
+        assertSame(byBlock, styles.resolve("0", 3, "CONTINUOUS"));
+        assertEquals(2, styles.size());
+
+        assertEquals(options.getDefaultStrokeColor(), styles.resolve("0", 256, null).getColor());
+        assertEquals(options.getDefaultStrokeColor(), styles.resolve("Missing", 256, null).getColor());
+        assertEquals(options.getDefaultStrokeColor(), styles.resolve("0", 1000, null).getColor());
+        assertEquals("red", styles.color("Missing", 1));
+
+        SvgStyle wide = styles.withStrokeWidth(walls, 2.5);
+        assertEquals("stroke=\"green\" stroke-width=\"2.500\" stroke-dasharray=\"0.500 0.250\"", wide.getAttributes(false));
+        assertSame(wide, styles.withStrokeWidth(styles.resolve("Walls", 256, null), 2.5));
+        assertSame(walls, styles.withStrokeWidth(walls, 1.0));
+    }
+}
@@ -0,0 +1,91 @@
+package com.cad.dxflib.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfNumberParserTest {
+
+    private static void assertParsesLikeJdk(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(Double.doubleToRawLongBits(Double.parseDouble(text)),
+                     Double.doubleToRawLongBits(DxfNumberParser.parseDouble(bytes, 0, bytes.length)),
+                     "Mismatch for " + text);
+    }
+
+    @Test
+    void testEveryNumberInSampleDrawingsIsBitExact() throws IOException, DxfParserException {
+        int numbers = 0;
+        for (String resource : new String[] {"/1.dxf", "/2.dxf"}) {
+            try (InputStream in = getClass().getResourceAsStream(resource)) {
+                assertNotNull(in, "Test file " + resource + " not found in resources.");
+                DxfTokenizer tokenizer = new DxfTokenizer(in, StandardCharsets.ISO_8859_1);
+                while (tokenizer.next()) {
+                    String text = tokenizer.getStringValue();
+                    double expected;
+                    try {
+                        expected = Double.parseDouble(text);
+                    } catch (NumberFormatException e) {
+                        continue; // Names, handles and other text values
+                    }
+                    double actual = DxfNumberParser.parseDouble(tokenizer.getValueBuffer(),
+                            tokenizer.getValueOffset(), tokenizer.getValueLength());
+                    assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual),
+                                 "Mismatch for " + text + " in " + resource);
+                    numbers++;
+                }
+            }
+        }
+        assertTrue(numbers > 10000, "Expected the sample drawings to contain many numbers, found " + numbers);
+    }
+
+    @Test
+    void testEdgeCasesMatchJdk() {
+        String[] values = {
+            "0", "-0", "0.0", "-0.000", "1", "-1", "+2.5", ".5", "5.", "1e0", "1E+2", "1e-2",
+            "9007199254740993", "9007199254740992.5", "18446744073709551615", "9999999999999999999",
+            "0.1", "0.2", "0.30000000000000004", "3.141592653589793", "2.718281828459045",
+            "1.7976931348623157e308", "1.7976931348623159e308", "2.2250738585072014e-308",
+            "2.2250738585072011e-308", "4.9e-324", "2.4703282292062328e-324", "1e-400", "1e400",
+            "123456789012345678901234567890", "0.000000000000000000000000000001234567",
+            "7.0064923216240854e-46", "1.00000000000000011102230246251565404236316680908203125",
+            "NaN", "-Infinity", "0x1.8p1", "1d", "2f"
+        };
+        for (String value : values) {
+            assertParsesLikeJdk(value);
+        }
+        byte[] invalid = "1.2.3".getBytes(StandardCharsets.ISO_8859_1);
+        assertThrows(NumberFormatException.class, () -> DxfNumberParser.parseDouble(invalid, 0, invalid.length));
+    }
+
+    @Test
+    void testRandomInputsMatchJdk() {
+        Random random = new Random(20240501L);
+        for (int i = 0; i < 200000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                continue;
+            }
+            assertParsesLikeJdk(Double.toString(value));
+            assertParsesLikeJdk(String.format(Locale.ROOT, "%.17g", value));
+        }
+        for (int i = 0; i < 200000; i++) {
+            // Up to 19 digits with an exponent across the whole double range, like CAD coordinates at any scale
+            StringBuilder digits = new StringBuilder();
+            int count = 1 + random.nextInt(19);
+            for (int d = 0; d < count; d++) {
+                digits.append((char) ('0' + random.nextInt(10)));
+            }
+            int dot = random.nextInt(count + 1);
+            digits.insert(dot, '.');
+            digits.append('e').append(random.nextInt(700) - 350);
+            assertParsesLikeJdk(digits.toString());
+        }
+    }
+}
@@ -10,14 +10,39 @@ import com.cad.dxflib.entities.DxfInsert;
 import com.cad.dxflib.entities.DxfLine;
 import com.cad.dxflib.entities.DxfLwPolyline;
 import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.math.Bounds;
 import com.cad.dxflib.structure.DxfBlock;
 import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfHeader;
 import com.cad.dxflib.structure.DxfLayer;
 import com.cad.dxflib.structure.DxfLinetype; // Added import
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.cad.dxflib.DxfAssertions.assertSameDocument;
 import static org.junit.jupiter.api.Assertions.*;
 
 class DxfParserTest {
@@ -226,6 +251,43 @@ class DxfParserTest {
         assertEquals(0.0, poly.getBulges().get(3), 0.001);
     }
 
+    @Test
+    void testParseLwPolylineVertexWidths() throws Exception {
+        String dxf = "0\nSECTION\n2\nENTITIES\n0\nLWPOLYLINE\n8\n0\n90\n3\n70\n1\n"
+                + "10\n0\n20\n0\n91\n1\n40\n1.5\n41\n2.5\n42\n0.25\n"
+                + "10\n10\n20\n0\n"
+                + "10\n10\n20\n10\n40\n3\n41\n0\n"
+                + "0\nENDSEC\n0\nEOF\n";
+        DxfLwPolyline poly = (DxfLwPolyline) new DxfParser()
+                .parse(new ByteArrayInputStream(dxf.getBytes(StandardCharsets.US_ASCII))).getModelSpaceEntities().get(0);
+
+        assertEquals(3, poly.getNumberOfVertices());
+        assertTrue(poly.hasBulges());
+        assertTrue(poly.hasVertexWidths());
+        assertEquals(0.25, poly.getBulge(0)); // Read after the widths, still on the first vertex
+        assertEquals(0.0, poly.getBulge(1));
+        assertEquals(1.5, poly.getStartWidth(0));
+        assertEquals(2.5, poly.getEndWidth(0));
+        assertEquals(0.0, poly.getStartWidth(1));
+        assertEquals(3.0, poly.getStartWidth(2));
+        assertEquals(10.0, poly.getX(2));
+        assertEquals(10.0, poly.getY(2));
+        assertEquals(List.of(new Point2D(0, 0), new Point2D(10, 0), new Point2D(10, 10)), poly.getVertices());
+        assertThrows(UnsupportedOperationException.class, () -> poly.getVertices().add(new Point2D(1, 1)));
+        assertThrows(IndexOutOfBoundsException.class, () -> poly.getX(3));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DxfDocument written = new DxfDocument();
+        written.addEntity(poly);
+        new DxfWriter().write(written, out);
+        DxfLwPolyline reread = (DxfLwPolyline) new DxfParser()
+                .parse(new ByteArrayInputStream(out.toByteArray())).getModelSpaceEntities().get(0);
+        assertEquals(poly.getVertices(), reread.getVertices());
+        assertEquals(poly.getBulges(), reread.getBulges());
+        assertEquals(2.5, reread.getEndWidth(0));
+        assertEquals(3.0, reread.getStartWidth(2));
+    }
+
     @Test
     void testParseTextSimple() throws DxfParserException {
         DxfParser parser = new DxfParser();
@@ -407,4 +469,462 @@ class DxfParserTest {
         assertNotNull(byblock);
         assertTrue(byblock.getPatternElements().isEmpty());
     }
+
+    @Test
+    void testParsePathMatchesInputStream() throws Exception {
+        Path path = Paths.get(getClass().getResource("/dxf/line_circle_mixed.dxf").toURI());
+        DxfDocument fromPath = new DxfParser().parse(path);
+        DxfDocument fromStream = new DxfParser().parse(getResourceAsStream("/dxf/line_circle_mixed.dxf"));
+
+        assertEquals(fromStream.getLayers().keySet(), fromPath.getLayers().keySet());
+        assertEquals(fromStream.getModelSpaceEntities().size(), fromPath.getModelSpaceEntities().size());
+        for (int i = 0; i < fromStream.getModelSpaceEntities().size(); i++) {
+            assertEquals(fromStream.getModelSpaceEntities().get(i).toString(), fromPath.getModelSpaceEntities().get(i).toString());
+        }
+    }
+
+    @Test
+    void testParsePathDecodesDwgCodePage(@TempDir Path tempDir) throws Exception {
+        String content = "0\nSECTION\n2\nHEADER\n9\n$ACADVER\n1\nAC1015\n9\n$DWGCODEPAGE\n3\nANSI_1252\n0\nENDSEC\n"
+                + "0\nSECTION\n2\nENTITIES\n0\nTEXT\n8\n0\n1\nDurchmesser \u00d8 20\n0\nENDSEC\n0\nEOF\n";
+        Path file = tempDir.resolve("codepage.dxf");
+        Files.write(file, content.getBytes(Charset.forName("windows-1252")));
+
+        DxfDocument doc = new DxfParser().parse(file);
+        assertEquals(1, doc.getModelSpaceEntities().size());
+        assertEquals("Durchmesser \u00d8 20", ((DxfText) doc.getModelSpaceEntities().get(0)).getTextValue());
+    }
+
+    @Test
+    void testParseHeaderVariablesAndBounds(@TempDir Path tempDir) throws Exception {
+        // Stale saved extents: larger than the entities
+        String content = "0\nSECTION\n2\nHEADER\n9\n$ACADVER\n1\nAC1027\n9\n$DWGCODEPAGE\n3\nANSI_1252\n"
+                + "9\n$INSUNITS\n70\n4\n9\n$EXTMIN\n10\n-50\n20\n-40\n30\n0\n9\n$EXTMAX\n10\n500\n20\n400\n30\n0\n"
+                + "9\n$LTSCALE\n40\n2.5\n9\n$OTHER\n40\n9\n0\nENDSEC\n"
+                + "0\nSECTION\n2\nENTITIES\n"
+                + "0\nLINE\n8\n0\n10\n0\n20\n0\n11\n10\n21\n5\n"
+                + "0\nCIRCLE\n8\n0\n10\n20\n20\n20\n40\n5\n"
+                + "0\nENDSEC\n0\nEOF\n";
+        Path file = tempDir.resolve("header.dxf");
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+
+        DxfDocument doc = new DxfParser().parse(file);
+        DxfHeader header = doc.getHeader();
+        assertEquals("AC1027", header.getAcadVersion());
+        assertEquals("ANSI_1252", header.getCodePage());
+        assertEquals(4, header.getInsertionUnits());
+        assertEquals(2.5, header.getLinetypeScale());
+        assertEquals(new Point3D(-50, -40, 0), header.getExtMin());
+        assertEquals(new Point3D(500, 400, 0), header.getExtMax());
+        assertEquals(550, header.getExtents().getWidth());
+
+        Bounds bounds = doc.getBounds();
+        assertEquals(0, bounds.getMinX());
+        assertEquals(25, bounds.getMaxX());
+        assertEquals(25, bounds.getMaxY());
+        // Kept up to date as entities are added
+        DxfLine added = new DxfLine();
+        added.setStartPoint(new Point3D(-10, 0, 0));
+        added.setEndPoint(new Point3D(0, 100, 0));
+        doc.addEntity(added);
+        assertEquals(-10, doc.getBounds().getMinX());
+        assertEquals(100, doc.getBounds().getMaxY());
+        // The returned bounds are a copy
+        doc.getBounds().addToBounds(1000, 1000);
+        assertEquals(100, doc.getBounds().getMaxY());
+        ((DxfCircle) doc.getModelSpaceEntities().get(1)).setRadius(50);
+        doc.invalidateBounds();
+        assertEquals(70, doc.getBounds().getMaxX());
+
+        // A lazy document answers with the saved extents until its entities are loaded
+        DxfDocument lazy = new DxfParser().parseLazily(file);
+        assertEquals(500, lazy.getBounds().getMaxX());
+        assertEquals(2, lazy.getModelSpaceEntities().size());
+        assertEquals(25, lazy.getBounds().getMaxX());
+
+        // Without header variables, the defaults apply
+        DxfHeader defaults = new DxfParser().parse(getResourceAsStream("/dxf/line_simple.dxf")).getHeader();
+        assertNull(defaults.getExtMin());
+        assertFalse(defaults.getExtents().isValid());
+        assertEquals(0, defaults.getInsertionUnits());
+        assertEquals(1.0, defaults.getLinetypeScale());
+    }
+
+    @Test
+    void testParallelEntitiesMatchSequentialParse() throws DxfParserException {
+        String[] resources = {"/dxf/line_circle_mixed.dxf", "/dxf/entities_with_linetypes.dxf",
+                              "/dxf/lwpolyline_with_bulge.dxf", "/dxf/blocks_simple.dxf"};
+        for (String resource : resources) {
+            DxfDocument sequential = new DxfParser().parse(getResourceAsStream(resource));
+
+            DxfParser parallelParser = new DxfParser();
+            parallelParser.setParallelEntities(true);
+            parallelParser.setEntityChunkSize(16); // Forces roughly one chunk per entity
+            DxfDocument parallel = parallelParser.parse(getResourceAsStream(resource));
+
+            assertEquals(sequential.getModelSpaceEntities().size(), parallel.getModelSpaceEntities().size(), resource);
+            for (int i = 0; i < sequential.getModelSpaceEntities().size(); i++) {
+                assertEquals(sequential.getModelSpaceEntities().get(i).toString(),
+                             parallel.getModelSpaceEntities().get(i).toString(), resource + " entity " + i);
+            }
+            for (DxfLayer layer : sequential.getLayers().values()) {
+                assertEquals(layer.getEntities().size(), parallel.getLayer(layer.getName()).getEntities().size(),
+                             resource + " layer " + layer.getName());
+            }
+        }
+    }
+
+    @Test
+    void testParallelParseOfMappedFileMatchesSequentialParse(@TempDir Path tempDir) throws Exception {
+        // CRLF line ends and right-aligned group codes, as AutoCAD writes them
+        StringBuilder content = new StringBuilder("  0\r\nSECTION\r\n  2\r\nBLOCKS\r\n");
+        for (int i = 0; i < 50; i++) {
+            content.append("  0\r\nBLOCK\r\n  2\r\nB").append(i).append("\r\n 10\r\n").append(i).append("\r\n 20\r\n0\r\n")
+                   .append("  0\r\nCIRCLE\r\n  8\r\n0\r\n 10\r\n0\r\n 20\r\n0\r\n 40\r\n").append(i + 1).append("\r\n")
+                   .append("  0\r\nENDBLK\r\n");
+        }
+        content.append("  0\r\nENDSEC\r\n  0\r\nSECTION\r\n  2\r\nENTITIES\r\n");
+        for (int i = 0; i < 2000; i++) {
+            content.append("  0\r\nLINE\r\n  5\r\n").append(Integer.toHexString(i + 0x100)).append("\r\n  8\r\nL")
+                   .append(i % 7).append("\r\n 10\r\n").append(i).append("\r\n 20\r\n0.5\r\n 11\r\n")
+                   .append(i + 1).append("\r\n 21\r\n-").append(i).append(".25\r\n");
+            if (i % 10 == 0) {
+                content.append("  0\r\nTEXT\r\n  8\r\n0\r\n 10\r\n1\r\n 20\r\n2\r\n 40\r\n2.5\r\n  1\r\nT").append(i).append("\r\n");
+            }
+        }
+        content.append("  0\r\nENDSEC\r\n  0\r\nEOF\r\n");
+        Path file = Files.write(tempDir.resolve("parallel.dxf"), content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        DxfDocument sequential = new DxfParser().parse(file);
+        assertEquals(2200, sequential.getModelSpaceEntities().size());
+        for (int chunkSize : new int[] {16, 4096}) {
+            DxfParser parallelParser = new DxfParser();
+            parallelParser.setParallelEntities(true);
+            parallelParser.setParallelBlocks(true);
+            parallelParser.setEntityChunkSize(chunkSize);
+            // Mapped, so the chunks are slices of the file; and streamed, so they are copied into reused buffers
+            assertSameDocument(sequential, parallelParser.parse(file));
+            assertSameDocument(sequential, parallelParser.parse(Files.newInputStream(file)));
+        }
+    }
+
+    @Test
+    void testParallelBlocksRegisterDefinitionsInFileOrder() throws DxfParserException {
+        StringBuilder content = new StringBuilder("0\nSECTION\n2\nBLOCKS\n");
+        for (int i = 0; i < 200; i++) {
+            content.append("0\nBLOCK\n8\n0\n2\nSYM").append(i).append("\n10\n").append(i).append("\n20\n0\n30\n0\n")
+                   .append("0\nLINE\n8\n0\n10\n0\n20\n0\n11\n").append(i).append("\n21\n1\n")
+                   .append("0\nENDBLK\n8\n0\n");
+        }
+        // Same name again: the later definition wins, as in a sequential parse
+        content.append("0\nBLOCK\n2\nsym7\n10\n-1\n20\n0\n30\n0\n0\nENDBLK\n");
+        content.append("0\nENDSEC\n0\nEOF\n");
+        byte[] bytes = content.toString().getBytes(StandardCharsets.US_ASCII);
+
+        DxfDocument sequential = new DxfParser().parse(new ByteArrayInputStream(bytes));
+        DxfParser parallelParser = new DxfParser();
+        parallelParser.setParallelBlocks(true);
+        DxfDocument parallel = parallelParser.parse(new ByteArrayInputStream(bytes));
+
+        assertEquals(200, parallel.getBlocks().size());
+        assertEquals(sequential.getBlocks().keySet(), parallel.getBlocks().keySet());
+        for (DxfBlock block : sequential.getBlocks().values()) {
+            DxfBlock other = parallel.getBlock(block.getName());
+            assertEquals(block.getBasePoint(), other.getBasePoint());
+            assertEquals(block.getEntities().size(), other.getEntities().size());
+            for (int i = 0; i < block.getEntities().size(); i++) {
+                assertEquals(block.getEntities().get(i).toString(), other.getEntities().get(i).toString());
+            }
+        }
+        assertEquals(new Point3D(-1, 0, 0), parallel.getBlock("SYM7").getBasePoint());
+        assertTrue(parallel.getBlock("SYM7").getEntities().isEmpty());
+    }
+
+    @Test
+    void testParallelBlocksReportFirstMalformedDefinition() {
+        String content = "0\nSECTION\n2\nBLOCKS\n"
+                + "0\nBLOCK\n2\nGOOD\n0\nENDBLK\n"
+                + "0\nBLOCK\n10\n0\n0\nENDBLK\n"
+                + "0\nBLOCK\n2\nOPEN\n0\nLINE\n8\n0\n";
+        DxfParser parallelParser = new DxfParser();
+        parallelParser.setParallelBlocks(true);
+        DxfParserException e = assertThrows(DxfParserException.class,
+                () -> parallelParser.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII))));
+        assertEquals("BLOCK definition found with no name (group code 2).", e.getMessage());
+    }
+
+    @Test
+    void testParseLazilyLoadsSectionsOnFirstAccess() throws Exception {
+        Path path = Paths.get(getClass().getResource("/dxf/line_circle_mixed.dxf").toURI());
+        DxfDocument eager = new DxfParser().parse(path);
+        DxfDocument lazy = new DxfParser().parseLazily(path);
+
+        assertTrue(lazy.isLazy());
+        assertEquals(eager.getLayers().keySet(), lazy.getLayers().keySet());
+        // Only TABLES has been parsed so far; reading a layer's entities parses ENTITIES
+        for (DxfLayer layer : eager.getLayers().values()) {
+            assertEquals(layer.getEntities().size(), lazy.getLayer(layer.getName()).getEntities().size());
+        }
+
+        assertEquals(eager.getModelSpaceEntities().size(), lazy.getModelSpaceEntities().size());
+        for (int i = 0; i < eager.getModelSpaceEntities().size(); i++) {
+            assertEquals(eager.getModelSpaceEntities().get(i).toString(), lazy.getModelSpaceEntities().get(i).toString());
+        }
+        for (DxfLayer layer : eager.getLayers().values()) {
+            assertEquals(layer.getEntities().size(), lazy.getLayer(layer.getName()).getEntities().size());
+        }
+
+        lazy.loadAllSections();
+        assertFalse(lazy.isLazy());
+    }
+
+    @Test
+    void testParseLazilyReportsErrorsFromGetters(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("broken.dxf");
+        Files.write(file, "0\nSECTION\n2\nENTITIES\n0\nLINE\n8\n0\n".getBytes(StandardCharsets.US_ASCII));
+
+        DxfDocument lazy = new DxfParser().parseLazily(file);
+        assertEquals(1, lazy.getLayers().size()); // No TABLES section: only the default layer
+        IllegalStateException e = assertThrows(IllegalStateException.class, lazy::getModelSpaceEntities);
+        assertTrue(e.getCause() instanceof DxfParserException);
+        assertSame(e, assertThrows(IllegalStateException.class, lazy::getModelSpaceEntities));
+    }
+
+    @Test
+    void testParseBinaryDxfMatchesAscii() throws Exception {
+        String[] resources = {"/dxf/line_circle_mixed.dxf", "/dxf/layers_simple.dxf",
+                              "/dxf/lwpolyline_with_bulge.dxf", "/dxf/text_simple.dxf"};
+        for (String resource : resources) {
+            DxfDocument ascii = new DxfParser().parse(getResourceAsStream(resource));
+            DxfDocument binary = new DxfParser().parse(new ByteArrayInputStream(toBinaryDxf(getResourceAsStream(resource))));
+
+            assertEquals(ascii.getLayers().keySet(), binary.getLayers().keySet(), resource);
+            assertEquals(ascii.getModelSpaceEntities().size(), binary.getModelSpaceEntities().size(), resource);
+            for (int i = 0; i < ascii.getModelSpaceEntities().size(); i++) {
+                assertEquals(ascii.getModelSpaceEntities().get(i).toString(),
+                             binary.getModelSpaceEntities().get(i).toString(), resource + " entity " + i);
+            }
+        }
+    }
+
+    @Test
+    void testEntityHandlesAreIndexed() throws DxfParserException {
+        String dxf = "0\nSECTION\n2\nBLOCKS\n"
+                + "0\nBLOCK\n2\nB1\n10\n0\n20\n0\n"
+                + "0\nCIRCLE\n5\n2F\n330\n1F\n8\n0\n10\n0\n20\n0\n40\n1\n"
+                + "0\nENDBLK\n0\nENDSEC\n"
+                + "0\nSECTION\n2\nENTITIES\n"
+                + "0\nLINE\n5\n1a3f\n330\n1F\n8\n0\n10\n0\n20\n0\n11\n1\n21\n1\n"
+                + "0\nLINE\n8\n0\n10\n0\n20\n0\n11\n2\n21\n2\n"
+                + "0\nLWPOLYLINE\n5\nFFFFFFFFFFFFFFFF\n8\n0\n90\n1\n10\n1\n20\n1\n"
+                + "0\nENDSEC\n0\nEOF\n";
+        DxfDocument doc = new DxfParser().parse(new ByteArrayInputStream(dxf.getBytes(StandardCharsets.US_ASCII)));
+
+        DxfLine line = (DxfLine) doc.getModelSpaceEntities().get(0);
+        assertEquals(0x1A3FL, line.getHandle());
+        assertEquals(0x1FL, line.getOwnerHandle());
+        assertSame(line, doc.getEntityByHandle(0x1A3FL));
+        assertSame(line, doc.getEntityByHandle("1A3F"));
+        assertEquals(0L, doc.getModelSpaceEntities().get(1).getHandle());
+        assertSame(doc.getModelSpaceEntities().get(2), doc.getEntityByHandle("ffffffffffffffff"));
+        assertSame(doc.getBlock("B1").getEntities().get(0), doc.getEntityByHandle(0x2FL));
+        assertNull(doc.getEntityByHandle(0L));
+        assertNull(doc.getEntityByHandle("1A40"));
+        assertNull(doc.getEntityByHandle("not a handle"));
+    }
+
+    @Test
+    void testMalformedHandlesAreIgnored() throws DxfParserException {
+        String dxf = "0\nSECTION\n2\nENTITIES\n"
+                + "0\nLINE\n5\n\n330\n1F\n8\n0\n10\n0\n20\n0\n11\n1\n21\n1\n"
+                + "0\nCIRCLE\n5\nG1\n330\nZZ\n8\n0\n10\n0\n20\n0\n40\n1\n"
+                + "0\nARC\n5\n1234567890ABCDEF1\n8\n0\n10\n0\n20\n0\n40\n1\n50\n0\n51\n90\n"
+                + "0\nENDSEC\n0\nEOF\n";
+        DxfDocument doc = new DxfParser().parse(new ByteArrayInputStream(dxf.getBytes(StandardCharsets.US_ASCII)));
+
+        List<DxfEntity> entities = doc.getModelSpaceEntities();
+        assertEquals(3, entities.size());
+        assertEquals(0L, entities.get(0).getHandle());
+        assertEquals(0x1FL, ((DxfLine) entities.get(0)).getOwnerHandle());
+        assertEquals(0L, entities.get(1).getHandle());
+        assertEquals(0L, ((DxfCircle) entities.get(1)).getOwnerHandle());
+        assertEquals(0L, entities.get(2).getHandle());
+        assertEquals(1.0, ((DxfCircle) entities.get(1)).getRadius());
+    }
+
+    @Test
+    void testParseWithVisitorStreamsEntities() throws DxfParserException {
+        String resource = "/dxf/entities_with_linetypes.dxf";
+        DxfDocument retained = new DxfParser().parse(getResourceAsStream(resource));
+
+        List<DxfEntity> visited = new ArrayList<>();
+        DxfParser parser = new DxfParser();
+        parser.setParallelEntities(true); // Ignored while streaming
+        DxfDocument streamed = parser.parse(getResourceAsStream(resource), (entity, document) -> {
+            assertNotNull(document.getLayer(entity.getLayerName()), "Tables are parsed before entities");
+            visited.add(entity);
+        });
+
+        assertEquals(retained.getModelSpaceEntities().size(), visited.size());
+        for (int i = 0; i < visited.size(); i++) {
+            assertEquals(retained.getModelSpaceEntities().get(i).toString(), visited.get(i).toString());
+        }
+        assertTrue(streamed.getModelSpaceEntities().isEmpty());
+        for (DxfLayer layer : streamed.getLayers().values()) {
+            assertTrue(layer.getEntities().isEmpty(), "Layer " + layer.getName());
+        }
+        assertEquals(retained.getLayers().keySet(), streamed.getLayers().keySet());
+
+        // The visitor only applies to the call it was passed to
+        assertEquals(visited.size(), parser.parse(getResourceAsStream(resource)).getModelSpaceEntities().size());
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(getResourceAsStream(resource), null));
+    }
+
+    private static Path writeLines(Path dir, int count) throws Exception {
+        StringBuilder dxf = new StringBuilder("0\nSECTION\n2\nENTITIES\n");
+        for (int i = 0; i < count; i++) {
+            dxf.append("0\nLINE\n8\n0\n10\n").append(i).append("\n20\n0\n11\n").append(i).append("\n21\n1\n");
+        }
+        dxf.append("0\nENDSEC\n0\nEOF\n");
+        Path file = dir.resolve("lines.dxf");
+        Files.write(file, dxf.toString().getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    @Test
+    void testParseAsyncReportsProgress(@TempDir Path tempDir) throws Exception {
+        Path file = writeLines(tempDir, 10000);
+        List<long[]> updates = new ArrayList<>();
+        DxfDocument doc = new DxfParser().parseAsync(file, (bytesRead, totalBytes, entitiesParsed) ->
+                updates.add(new long[] {bytesRead, totalBytes, entitiesParsed})).get();
+
+        assertEquals(10000, doc.getModelSpaceEntities().size());
+        assertTrue(updates.size() >= 3, "Expected intermediate updates, got " + updates.size());
+        for (int i = 1; i < updates.size(); i++) {
+            assertTrue(updates.get(i)[0] >= updates.get(i - 1)[0]);
+            assertTrue(updates.get(i)[2] >= updates.get(i - 1)[2]);
+        }
+        long[] last = updates.get(updates.size() - 1);
+        assertArrayEquals(new long[] {Files.size(file), Files.size(file), 10000}, last);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> new DxfParser().parseAsync(tempDir.resolve("missing.dxf"), null).get());
+        assertInstanceOf(DxfParserException.class, failure.getCause());
+    }
+
+    @Test
+    void testParseAsyncStopsWhenCancelled(@TempDir Path tempDir) throws Exception {
+        Path file = writeLines(tempDir, 20000);
+        AtomicReference<CompletableFuture<DxfDocument>> future = new AtomicReference<>();
+        AtomicLong lastReported = new AtomicLong();
+        CountDownLatch submitted = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        future.set(new DxfParser().parseAsync(file, (bytesRead, totalBytes, entitiesParsed) -> {
+            lastReported.set(entitiesParsed);
+            future.get().cancel(true);
+        }, task -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    submitted.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                task.run();
+            });
+            threads.add(thread);
+            thread.start();
+        }));
+        submitted.countDown();
+        threads.get(0).join(10000);
+
+        assertFalse(threads.get(0).isAlive());
+        assertTrue(future.get().isCancelled());
+        assertThrows(CancellationException.class, () -> future.get().join());
+        // Cancelled at the first report, so the parse never reached the next one
+        assertTrue(lastReported.get() > 0 && lastReported.get() < 20000, "Reported " + lastReported.get());
+    }
+
+    @Test
+    void testParseCompressedFiles(@TempDir Path tempDir) throws Exception {
+        Path plain = writeLines(tempDir, 50000); // Several inflater chunks
+        byte[] bytes = Files.readAllBytes(plain);
+        Path gzip = tempDir.resolve("lines.dxf.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(bytes);
+        }
+        Path zip = tempDir.resolve("lines.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("readme.txt"));
+            out.write("Not a drawing".getBytes(StandardCharsets.US_ASCII));
+            out.putNextEntry(new ZipEntry("drawings/LINES.DXF"));
+            out.write(bytes);
+        }
+
+        List<DxfEntity> expected = new DxfParser().parse(plain).getModelSpaceEntities();
+        List<DxfDocument> docs = List.of(
+                new DxfParser().parse(gzip),
+                new DxfParser().parse(zip),
+                new DxfParser().parse(Files.newInputStream(gzip)),
+                new DxfParser().parse(Files.newInputStream(zip)),
+                new DxfParser().parseLazily(gzip));
+        for (DxfDocument doc : docs) {
+            List<DxfEntity> entities = doc.getModelSpaceEntities();
+            assertEquals(expected.size(), entities.size());
+            assertEquals(expected.get(0).toString(), entities.get(0).toString());
+            assertEquals(expected.get(49999).toString(), entities.get(49999).toString());
+        }
+
+        // Progress is reported in compressed bytes, the size of the file
+        List<long[]> updates = new ArrayList<>();
+        new DxfParser().parseAsync(gzip, (bytesRead, totalBytes, entitiesParsed) ->
+                updates.add(new long[] {bytesRead, totalBytes, entitiesParsed})).get();
+        for (long[] update : updates) {
+            assertTrue(update[0] <= update[1], "Reported " + update[0] + " of " + update[1]);
+        }
+        assertArrayEquals(new long[] {Files.size(gzip), Files.size(gzip), 50000}, updates.get(updates.size() - 1));
+    }
+
+    @Test
+    void testParseInvalidCompressedFilesFails(@TempDir Path tempDir) throws Exception {
+        Path zip = tempDir.resolve("nodxf.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("readme.txt"));
+            out.write("Not a drawing".getBytes(StandardCharsets.US_ASCII));
+        }
+        DxfParserException noEntry = assertThrows(DxfParserException.class, () -> new DxfParser().parse(zip));
+        assertTrue(noEntry.getCause().getMessage().contains("no .dxf entry"), noEntry.getCause().getMessage());
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(Files.readAllBytes(writeLines(tempDir, 1000)));
+        }
+        Path truncated = tempDir.resolve("truncated.dxf.gz");
+        Files.write(truncated, Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2));
+        assertThrows(DxfParserException.class, () -> new DxfParser().parse(truncated));
+    }
+
+    private static byte[] toBinaryDxf(InputStream asciiDxf) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("AutoCAD Binary DXF\r\n\u001a\u0000".getBytes(StandardCharsets.ISO_8859_1));
+        DxfTokenizer tokenizer = new DxfTokenizer(asciiDxf, StandardCharsets.UTF_8);
+        ByteBuffer pair = ByteBuffer.allocate(10).order(ByteOrder.LITTLE_ENDIAN);
+        while (tokenizer.next()) {
+            pair.clear();
+            pair.putShort((short) tokenizer.getCode());
+            switch (DxfTokenizer.binaryValueType(tokenizer.getCode())) {
+                case DxfTokenizer.BINARY_DOUBLE: pair.putDouble(tokenizer.getDoubleValue()); break;
+                case DxfTokenizer.BINARY_INT16: pair.putShort((short) tokenizer.getIntValue()); break;
+                case DxfTokenizer.BINARY_INT32: pair.putInt(tokenizer.getIntValue()); break;
+                case DxfTokenizer.BINARY_BOOLEAN: pair.put((byte) tokenizer.getIntValue()); break;
+                default:
+                    out.write(pair.array(), 0, pair.position());
+                    out.write(tokenizer.getValueBuffer(), tokenizer.getValueOffset(), tokenizer.getValueLength());
+                    out.write(0);
+                    continue;
+            }
+            out.write(pair.array(), 0, pair.position());
+        }
+        return out.toByteArray();
+    }
 }
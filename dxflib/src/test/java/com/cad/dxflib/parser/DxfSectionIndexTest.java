@@ -0,0 +1,53 @@
+package com.cad.dxflib.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfSectionIndexTest {
+
+    private static final String HEADER = "0\r\nSECTION\r\n2\r\nHEADER\r\n9\r\n$ACADVER\r\n1\r\nAC1015\r\n0\r\nENDSEC\r\n";
+    private static final String TABLES = "0\nSECTION\n2\ntables\n0\nTABLE\n2\nLAYER\n0\nENDTAB\n0\nENDSEC\n";
+    private static final String ENTITIES = "  0\nSECTION\n  2\nENTITIES\n0\nLINE\n8\n0\n0\nENDSEC\n";
+
+    private DxfSectionIndex indexFor(String content) {
+        return new DxfSectionIndex(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void testRecordsSectionOffsets() throws DxfParserException {
+        String content = HEADER + "999\ncomment\n" + TABLES + ENTITIES + "0\nEOF\n";
+        DxfSectionIndex index = indexFor(content);
+
+        List<DxfSectionIndex.Section> sections = index.getSections();
+        assertEquals(3, sections.size());
+        assertEquals("HEADER", sections.get(0).getName());
+        assertEquals("TABLES", sections.get(1).getName());
+        assertEquals("ENTITIES", sections.get(2).getName());
+
+        assertEquals(0, sections.get(0).getStartOffset());
+        assertEquals(HEADER.length(), sections.get(0).getEndOffset() + 1); // "\n" of the final "\r\n" follows the end
+        int tablesStart = content.indexOf(TABLES);
+        assertEquals(tablesStart, sections.get(1).getStartOffset());
+        assertEquals(tablesStart + TABLES.length(), sections.get(1).getEndOffset());
+        assertEquals(content.indexOf(ENTITIES), sections.get(2).getStartOffset());
+        assertSame(sections.get(2), index.find("entities"));
+        assertNull(index.find("OBJECTS"));
+    }
+
+    @Test
+    void testFindStopsAtRequestedSectionAndReportsUnterminatedSections() throws DxfParserException {
+        // Everything after TABLES is garbage: find() must not read that far
+        DxfSectionIndex index = indexFor(HEADER + TABLES + "0\nSECTION\n2\nENTITIES\nX\n");
+        assertEquals("TABLES", index.find("TABLES").getName());
+        assertThrows(DxfParserException.class, () -> index.find("ENTITIES"));
+
+        String unterminated = HEADER + "0\nSECTION\n2\nBLOCKS\n0\nBLOCK\n";
+        DxfSectionIndex.Section blocks = indexFor(unterminated).find("BLOCKS");
+        assertEquals(unterminated.length(), blocks.getEndOffset());
+    }
+}
@@ -0,0 +1,222 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.common.AbstractDxfEntity;
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.entities.DxfArc;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.structure.DxfDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.cad.dxflib.DxfAssertions.assertEntitiesEqual;
+import static com.cad.dxflib.DxfAssertions.assertSameDocument;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfSnapshotCacheTest {
+
+    private static final String DXF = "0\nSECTION\n2\nHEADER\n9\n$ACADVER\n1\nAC1021\n9\n$INSUNITS\n70\n6\n"
+            + "9\n$EXTMIN\n10\n-1\n20\n-2\n30\n0\n9\n$EXTMAX\n10\n9\n20\n8\n30\n0\n9\n$LTSCALE\n40\n10\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nTABLES\n"
+            + "0\nTABLE\n2\nLTYPE\n"
+            + "0\nLTYPE\n2\nDashed\n3\nDashed __ __\n73\n2\n40\n0.75\n49\n0.5\n49\n-0.25\n"
+            + "0\nENDTAB\n"
+            + "0\nTABLE\n2\nLAYER\n"
+            + "0\nLAYER\n2\nWalls\n62\n-3\n6\nDashed\n"
+            + "0\nENDTAB\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nBLOCKS\n"
+            + "0\nBLOCK\n2\nB1\n10\n1\n20\n2\n30\n0\n"
+            + "0\nCIRCLE\n5\n2F\n330\n1F\n8\n0\n10\n0\n20\n0\n40\n1.5\n"
+            + "0\nENDBLK\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nENTITIES\n"
+            + "0\nLINE\n5\n1A3F\n330\n1F\n8\nWalls\n62\n3\n10\n0\n20\n0\n11\n1\n21\n1\n"
+            + "102\n{ACAD_REACTORS\n330\n7E\n102\n}\n100\nAcDbLine\n"
+            + "1001\nMYAPP\n1000\nsome text\n1040\n2.5\n"
+            + "0\nARC\n8\nwalls\n10\n5\n20\n5\n40\n2\n50\n10\n51\n80\n"
+            + "0\nLWPOLYLINE\n8\n0\n90\n3\n70\n1\n43\n0.1\n10\n0\n20\n0\n42\n0.5\n10\n4\n20\n0\n40\n0.2\n41\n0.4\n10\n4\n20\n3\n"
+            + "0\nTEXT\n8\nWalls\n10\n1\n20\n2\n40\n2.5\n50\n30\n1\nHello\n"
+            + "0\nINSERT\n8\n0\n2\nB1\n10\n3\n20\n4\n41\n2\n42\n2\n50\n45\n"
+            + "0\nDIMENSION\n8\n0\n2\n*D1\n3\nSTANDARD\n70\n1\n10\n0\n20\n5\n11\n1\n21\n5\n1\n<>\n13\n0\n23\n0\n14\n2\n24\n0\n"
+            + "0\nSPLINE\n8\n0\n70\n8\n71\n3\n72\n8\n73\n4\n"
+            + "40\n0\n40\n0\n40\n0\n40\n0\n40\n1\n40\n1\n40\n1\n40\n1\n"
+            + "10\n0\n20\n0\n30\n0\n10\n1\n20\n1\n30\n0\n10\n2\n20\n1\n30\n0\n10\n3\n20\n0\n30\n0\n"
+            + "0\nENDSEC\n0\nEOF\n";
+
+    @Test
+    void testSnapshotRoundTripsDocument(@TempDir Path tempDir) throws Exception {
+        Path file = write(tempDir.resolve("drawing.dxf"), DXF);
+        DxfDocument parsed = new DxfParser().parse(file);
+        assertEquals(7, parsed.getModelSpaceEntities().size());
+        // Non-ASCII text survives the string table
+        ((DxfText) parsed.getModelSpaceEntities().get(3)).setTextValue("Ação ✓");
+        parsed.invalidateBounds();
+
+        DxfSnapshotCache cache = new DxfSnapshotCache(tempDir.resolve("cache"));
+        assertNull(cache.get(file));
+        cache.put(file, parsed);
+        DxfDocument cached = cache.get(file);
+
+        assertNotNull(cached);
+        assertNotSame(parsed, cached);
+        assertSameDocument(parsed, cached);
+        DxfEntity line = cached.getEntityByHandle("1A3F");
+        assertSame(cached.getModelSpaceEntities().get(0), line);
+        assertEquals(List.of("7E"), ((AbstractDxfEntity) line).getReactorHandles());
+        assertEquals("[(1001, \"MYAPP\"), (1000, \"some text\"), (1040, \"2.5\")]",
+                ((AbstractDxfEntity) line).getXDataForApplication("MYAPP").toString());
+        assertSame(cached.getBlock("B1").getEntities().get(0), cached.getEntityByHandle(0x2FL));
+        // Names are interned in the new document, as when parsing
+        assertSame(cached.getLayer("WALLS").getName(), line.getLayerName());
+        assertSame(cached.getSymbols().intern("Walls"), line.getLayerName());
+        assertEquals(3, cached.getLayer("Walls").getEntities().size());
+    }
+
+    @Test
+    void testSnapshotsOfResourcesMatchParse(@TempDir Path tempDir) throws Exception {
+        DxfSnapshotCache cache = new DxfSnapshotCache(tempDir.resolve("cache"));
+        String[] resources = {"arc_simple.dxf", "blocks_simple.dxf", "circle_simple.dxf", "colors_aci_test.dxf",
+                "entities_with_linetypes.dxf", "insert_byblock_color.dxf", "insert_simple.dxf", "layers_simple.dxf",
+                "line_circle_mixed.dxf", "linetypes_simple.dxf", "lwpolyline_closed.dxf",
+                "lwpolyline_constant_width.dxf", "lwpolyline_with_bulge.dxf", "text_simple.dxf", "empty_document.dxf"};
+        for (String resource : resources) {
+            Path file = tempDir.resolve(resource);
+            try (InputStream in = getClass().getResourceAsStream("/dxf/" + resource)) {
+                assertNotNull(in, "Test file " + resource + " not found in resources.");
+                Files.copy(in, file);
+            }
+            DxfDocument parsed = new DxfParser().parse(file);
+            cache.put(file, parsed);
+            DxfDocument cached = cache.get(file);
+            assertNotNull(cached, resource);
+            assertSameDocument(parsed, cached);
+        }
+    }
+
+    @Test
+    void testColumnarDocumentsAreSnapshotted(@TempDir Path tempDir) throws Exception {
+        Path file = write(tempDir.resolve("drawing.dxf"), DXF);
+        DxfSnapshotCache cache = new DxfSnapshotCache(tempDir.resolve("cache"));
+        DxfParser parser = new DxfParser();
+        parser.setColumnarStorage(true);
+        parser.setSnapshotCache(cache);
+
+        DxfDocument first = parser.parse(file);
+        assertEquals(1, first.getModelSpaceColumns().size()); // The ARC
+        singleSnapshot(cache);
+        DxfDocument second = parser.parse(file);
+        assertTrue(second.isColumnarStorage());
+        assertEquals(1, second.getModelSpaceColumns().size());
+        assertSameDocument(first, second);
+        assertSameDocument(new DxfParser().parse(file), cache.get(file));
+
+        // A change through a row view is snapshotted, and the next parse returns it
+        ((DxfArc) first.getModelSpaceEntities().get(1)).setRadius(7);
+        cache.put(file, first);
+        assertEquals(7, ((DxfArc) parser.parse(file).getModelSpaceEntities().get(1)).getRadius());
+    }
+
+    @Test
+    void testParserReadsSnapshotOfUnchangedFile(@TempDir Path tempDir) throws Exception {
+        Path file = write(tempDir.resolve("drawing.dxf"), DXF);
+        DxfSnapshotCache cache = new DxfSnapshotCache(tempDir.resolve("cache"));
+        DxfParser parser = new DxfParser();
+        parser.setSnapshotCache(cache);
+        assertSame(cache, parser.getSnapshotCache());
+
+        DxfDocument first = parser.parse(file);
+        try (Stream<Path> snapshots = Files.list(cache.getDirectory())) {
+            assertEquals(1, snapshots.count(), "The parse is snapshotted");
+        }
+        // Store a recognizable document: the next parse must return it instead of parsing
+        ((DxfText) first.getModelSpaceEntities().get(3)).setTextValue("From snapshot");
+        cache.put(file, first);
+        DxfDocument second = parser.parse(file);
+        assertEquals("From snapshot", ((DxfText) second.getModelSpaceEntities().get(3)).getTextValue());
+
+        // Asynchronous parses go through the cache as well
+        DxfDocument async = parser.parseAsync(file, null).get();
+        assertEquals("From snapshot", ((DxfText) async.getModelSpaceEntities().get(3)).getTextValue());
+    }
+
+    @Test
+    void testChangedFileInvalidatesSnapshot(@TempDir Path tempDir) throws Exception {
+        Path file = write(tempDir.resolve("drawing.dxf"), DXF);
+        DxfSnapshotCache cache = new DxfSnapshotCache(tempDir.resolve("cache"));
+        DxfParser parser = new DxfParser();
+        parser.setSnapshotCache(cache);
+        parser.parse(file);
+        assertNotNull(cache.get(file));
+
+        // Same size and modification time: only the content hash tells the files apart
+        FileTime modified = Files.getLastModifiedTime(file);
+        write(file, DXF.replace("1\nHello\n", "1\nHallo\n"));
+        Files.setLastModifiedTime(file, modified);
+        assertNull(cache.get(file));
+        try (Stream<Path> snapshots = Files.list(cache.getDirectory())) {
+            assertEquals(0, snapshots.count(), "The stale snapshot is deleted");
+        }
+
+        DxfDocument reparsed = parser.parse(file);
+        assertEquals("Hallo", ((DxfText) reparsed.getModelSpaceEntities().get(3)).getTextValue());
+        assertEquals("Hallo", ((DxfText) cache.get(file).getModelSpaceEntities().get(3)).getTextValue());
+        assertTrue(cache.invalidate(file));
+        assertNull(cache.get(file));
+    }
+
+    @Test
+    void testIncompatibleOrCorruptSnapshotIsDiscarded(@TempDir Path tempDir) throws Exception {
+        Path file = write(tempDir.resolve("drawing.dxf"), DXF);
+        DxfSnapshotCache cache = new DxfSnapshotCache(tempDir.resolve("cache"));
+        cache.put(file, new DxfParser().parse(file));
+        Path snapshot = singleSnapshot(cache);
+
+        // A snapshot written by another format version
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            ByteBuffer version = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            version.putInt(0, DxfSnapshotCache.FORMAT_VERSION + 1);
+            channel.write(version, 8);
+        }
+        assertNull(cache.get(file));
+        assertFalse(Files.exists(snapshot), "The incompatible snapshot is deleted");
+
+        // A truncated snapshot
+        cache.put(file, new DxfParser().parse(file));
+        snapshot = singleSnapshot(cache);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() / 2);
+        }
+        assertNull(cache.get(file));
+        assertFalse(Files.exists(snapshot), "The corrupt snapshot is deleted");
+
+        // The parser falls back to parsing, and snapshots the file again
+        DxfParser parser = new DxfParser();
+        parser.setSnapshotCache(cache);
+        assertEquals(7, parser.parse(file).getModelSpaceEntities().size());
+        assertNotNull(cache.get(file));
+    }
+
+    private static Path write(Path file, String dxf) throws IOException {
+        return Files.write(file, dxf.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Path singleSnapshot(DxfSnapshotCache cache) throws IOException {
+        try (Stream<Path> snapshots = Files.list(cache.getDirectory())) {
+            List<Path> files = snapshots.collect(Collectors.toList());
+            assertEquals(1, files.size());
+            return files.get(0);
+        }
+    }
+}
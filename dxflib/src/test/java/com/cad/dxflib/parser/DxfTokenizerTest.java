@@ -0,0 +1,145 @@
+package com.cad.dxflib.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfTokenizerTest {
+
+    private DxfTokenizer tokenizerFor(String content) {
+        return new DxfTokenizer(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testReadsPairsWithMixedLineEndingsAndPadding() throws IOException, DxfParserException {
+        DxfTokenizer tokenizer = tokenizerFor("  0\r\nSECTION  \n2\rENTITIES\r\n");
+
+        assertTrue(tokenizer.next());
+        assertEquals(0, tokenizer.getCode());
+        assertEquals("SECTION", tokenizer.getStringValue());
+        assertTrue(tokenizer.valueEqualsIgnoreCase("section"));
+        assertFalse(tokenizer.valueEquals("section"));
+
+        assertTrue(tokenizer.next());
+        assertEquals(2, tokenizer.getCode());
+        assertEquals("ENTITIES", tokenizer.getStringValue());
+
+        assertFalse(tokenizer.next());
+        assertFalse(tokenizer.hasCurrent());
+    }
+
+    @Test
+    void testNumbersMatchJdkParsing() throws IOException, DxfParserException {
+        String[] values = {"0", "-0.0", "1.5", ".25", "10.", "1.5e3", "-2.5E-4", "0.1", "3.141592653589793",
+                           "123456789012345678.25", "1e-320", "NaN", "Infinity", "0x1p3"};
+        StringBuilder content = new StringBuilder();
+        for (String value : values) {
+            content.append("10\n").append(value).append('\n');
+        }
+        DxfTokenizer tokenizer = tokenizerFor(content.toString());
+        for (String value : values) {
+            assertTrue(tokenizer.next());
+            assertEquals(Double.doubleToRawLongBits(Double.parseDouble(value)),
+                         Double.doubleToRawLongBits(tokenizer.getDoubleValue()), "Mismatch for " + value);
+        }
+
+        tokenizer = tokenizerFor("62\n-256\n70\n+1\n90\n12abc\n");
+        assertTrue(tokenizer.next());
+        assertEquals(-256, tokenizer.getIntValue());
+        assertTrue(tokenizer.next());
+        assertEquals(1, tokenizer.getIntValue());
+        assertTrue(tokenizer.next());
+        assertThrows(NumberFormatException.class, tokenizer::getIntValue);
+    }
+
+    @Test
+    void testDecodesNonAsciiValues() throws IOException, DxfParserException {
+        DxfTokenizer tokenizer = tokenizerFor("8\nWände\n");
+        assertTrue(tokenizer.next());
+        assertEquals("Wände", tokenizer.getStringValue());
+    }
+
+    @Test
+    void testReadsHexHandles() throws IOException, DxfParserException {
+        DxfTokenizer tokenizer = tokenizerFor("5\n1A3f\n330\n  FFFFFFFFFFFFFFFF\n5\nG1\n5\n\n");
+        assertTrue(tokenizer.next());
+        assertEquals(0x1A3FL, tokenizer.getHexValue());
+        assertTrue(tokenizer.next());
+        assertEquals(-1L, tokenizer.getHexValue());
+        assertTrue(tokenizer.next());
+        assertThrows(NumberFormatException.class, tokenizer::getHexValue);
+        assertTrue(tokenizer.next());
+        assertThrows(NumberFormatException.class, tokenizer::getHexValue);
+    }
+
+    @Test
+    void testRejectsInvalidGroupCodeAndMissingValue() {
+        DxfTokenizer invalidCode = tokenizerFor("X\nLINE\n");
+        DxfParserException invalid = assertThrows(DxfParserException.class, invalidCode::next);
+        assertTrue(invalid.getMessage().contains("Invalid group code format: 'X'"));
+
+        DxfTokenizer missingValue = tokenizerFor("0\n");
+        DxfParserException missing = assertThrows(DxfParserException.class, missingValue::next);
+        assertTrue(missing.getMessage().startsWith("Premature EOF"));
+    }
+
+    @Test
+    void testReadsBinaryDxfPairs() throws IOException, DxfParserException {
+        ByteBuffer data = ByteBuffer.allocate(128).order(ByteOrder.LITTLE_ENDIAN);
+        data.put("AutoCAD Binary DXF\r\n\u001a\u0000".getBytes(StandardCharsets.ISO_8859_1));
+        data.putShort((short) 0).put("SECTION\0".getBytes(StandardCharsets.US_ASCII));
+        data.putShort((short) 10).putDouble(0.1);
+        data.putShort((short) 62).putShort((short) -256);
+        data.putShort((short) 90).putInt(70000);
+        data.putShort((short) 290).put((byte) 1);
+        data.putShort((short) 310).put((byte) 2).put((byte) 0xAB).put((byte) 0x01);
+        data.flip();
+        DxfTokenizer tokenizer = new DxfTokenizer(new ByteArrayInputStream(data.array(), 0, data.limit()), StandardCharsets.UTF_8);
+
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.isBinary());
+        assertEquals(0, tokenizer.getCode());
+        assertTrue(tokenizer.valueEqualsIgnoreCase("section"));
+
+        assertTrue(tokenizer.next());
+        assertEquals(10, tokenizer.getCode());
+        assertEquals(Double.doubleToRawLongBits(0.1), Double.doubleToRawLongBits(tokenizer.getDoubleValue()));
+        assertEquals("0.1", tokenizer.getStringValue());
+
+        assertTrue(tokenizer.next());
+        assertEquals(-256, tokenizer.getIntValue());
+        assertTrue(tokenizer.next());
+        assertEquals(70000, tokenizer.getIntValue());
+        assertTrue(tokenizer.next());
+        assertEquals(1, tokenizer.getIntValue());
+        assertTrue(tokenizer.next());
+        assertEquals("AB01", tokenizer.getStringValue());
+
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    void testReadsPreR13BinaryGroupCodesAndReportsTruncation() throws IOException, DxfParserException {
+        ByteBuffer data = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        data.put("AutoCAD Binary DXF\r\n\u001a\u0000".getBytes(StandardCharsets.ISO_8859_1));
+        data.put((byte) 0).put("SECTION\0".getBytes(StandardCharsets.US_ASCII));
+        data.put((byte) 255).putShort((short) 1001).put("APP\0".getBytes(StandardCharsets.US_ASCII));
+        data.put((byte) 40).put((byte) 0); // Double truncated after one byte
+        data.flip();
+        DxfTokenizer tokenizer = new DxfTokenizer(data, StandardCharsets.UTF_8);
+
+        assertTrue(tokenizer.next());
+        assertEquals("SECTION", tokenizer.getStringValue());
+        assertTrue(tokenizer.next());
+        assertEquals(1001, tokenizer.getCode());
+        assertEquals("APP", tokenizer.getStringValue());
+        DxfParserException e = assertThrows(DxfParserException.class, tokenizer::next);
+        assertTrue(e.getMessage().startsWith("Premature EOF"));
+    }
+}
@@ -0,0 +1,164 @@
+package com.cad.dxflib.parser;
+
+import com.cad.dxflib.common.AbstractDxfEntity;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.structure.DxfDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static com.cad.dxflib.DxfAssertions.assertEntitiesEqual;
+import static com.cad.dxflib.DxfAssertions.assertSameDrawing;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfWriterTest {
+
+    private static final String DXF = "0\nSECTION\n2\nTABLES\n"
+            + "0\nTABLE\n2\nLTYPE\n"
+            + "0\nLTYPE\n2\nDashed\n3\nDashed __ __\n73\n2\n40\n0.75\n49\n0.5\n49\n-0.25\n"
+            + "0\nENDTAB\n"
+            + "0\nTABLE\n2\nLAYER\n"
+            + "0\nLAYER\n2\nWalls\n62\n-3\n6\nDashed\n"
+            + "0\nLAYER\n2\nDoors\n62\n5\n6\nCONTINUOUS\n"
+            + "0\nENDTAB\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nBLOCKS\n"
+            + "0\nBLOCK\n2\nB1\n10\n1\n20\n2\n30\n0\n"
+            + "0\nCIRCLE\n5\n2F\n330\n1F\n8\n0\n10\n0\n20\n0\n40\n1.5\n"
+            + "0\nENDBLK\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nENTITIES\n"
+            + "0\nLINE\n5\n1A3F\n102\n{ACAD_REACTORS\n330\n7E\n102\n}\n330\n1F\n8\nWalls\n6\nDashed\n62\n3\n"
+            + "10\n0\n20\n0\n11\n1\n21\n1\n"
+            + "1001\nMYAPP\n1000\nsome text\n1040\n2.5\n1070\n7\n1004\n0AFF\n"
+            + "1001\nOTHER\n1071\n123456\n1010\n1.5\n1020\n2.5\n1030\n3.5\n"
+            + "0\nARC\n8\nwalls\n10\n5\n20\n5\n40\n2\n50\n10\n51\n80\n"
+            + "0\nLWPOLYLINE\n8\nDoors\n90\n3\n70\n1\n43\n0.1\n38\n2\n39\n0.5\n"
+            + "10\n0\n20\n0\n42\n0.5\n10\n4\n20\n0\n10\n4\n20\n3\n"
+            + "0\nTEXT\n8\nWalls\n10\n1\n20\n2\n40\n2.5\n50\n30\n1\nHello\n"
+            + "0\nINSERT\n8\n0\n2\nB1\n10\n3\n20\n4\n41\n2\n42\n2\n50\n45\n"
+            + "0\nDIMENSION\n8\n0\n2\n*D1\n3\nSTANDARD\n70\n1\n10\n0\n20\n5\n11\n1\n21\n5\n1\n<>\n13\n0\n23\n0\n14\n2\n24\n0\n"
+            + "0\nSPLINE\n8\n0\n70\n8\n71\n3\n72\n8\n73\n4\n"
+            + "40\n0\n40\n0\n40\n0\n40\n0\n40\n1\n40\n1\n40\n1\n40\n1\n"
+            + "10\n0\n20\n0\n30\n0\n10\n1\n20\n1\n30\n0\n10\n2\n20\n1\n30\n0\n10\n3.000000000000001\n20\n0\n30\n0\n"
+            + "0\nCIRCLE\n8\n0\n10\n0.1\n20\n-1e-7\n40\n123456789.123\n"
+            + "0\nENDSEC\n0\nEOF\n";
+
+    @Test
+    void testAsciiRoundTrip() throws Exception {
+        DxfDocument parsed = parse(DXF);
+        assertEquals(8, parsed.getModelSpaceEntities().size());
+        ((DxfText) parsed.getModelSpaceEntities().get(3)).setTextValue("Ação ✓");
+
+        parsed.getHeader().setInsertionUnits(4);
+        parsed.getHeader().setLinetypeScale(0.5);
+
+        byte[] written = write(parsed, false);
+        String text = new String(written, StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("0\nSECTION\n2\nHEADER\n"));
+        assertTrue(text.endsWith("0\nEOF\n"));
+        assertTrue(text.contains("\n10\n0.1\n20\n-0.0000001\n30\n0\n40\n123456789.123\n"));
+
+        DxfDocument reparsed = new DxfParser().parse(new ByteArrayInputStream(written));
+        assertSameDrawing(parsed, reparsed);
+        AbstractDxfEntity line = (AbstractDxfEntity) reparsed.getEntityByHandle("1A3F");
+        assertEquals(0x1FL, line.getOwnerHandle());
+        assertEquals(List.of("7E"), line.getReactorHandles());
+        assertEquals("[(1001, \"OTHER\"), (1071, \"123456\"), (1010, \"1.5\"), (1020, \"2.5\"), (1030, \"3.5\")]",
+                line.getXDataForApplication("OTHER").toString());
+        assertFalse(reparsed.getLayer("WALLS").isVisible());
+        assertEquals(4, reparsed.getHeader().getInsertionUnits());
+        assertEquals(0.5, reparsed.getHeader().getLinetypeScale());
+        assertEquals(parsed.getBounds().toString(), reparsed.getHeader().getExtents().toString());
+        assertEquals("Ação ✓", ((DxfText) reparsed.getModelSpaceEntities().get(3)).getTextValue());
+    }
+
+    @Test
+    void testBinaryRoundTrip(@TempDir Path tempDir) throws Exception {
+        DxfDocument parsed = parse(DXF);
+        DxfWriter writer = new DxfWriter();
+        writer.setBinary(true);
+        assertTrue(writer.isBinary());
+        Path file = tempDir.resolve("drawing.dxf");
+        writer.write(parsed, file);
+
+        assertTrue(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1).startsWith("AutoCAD Binary DXF"));
+        DxfDocument reparsed = new DxfParser().parse(file);
+        assertSameDrawing(parsed, reparsed);
+        assertEquals("[(1001, \"MYAPP\"), (1000, \"some text\"), (1040, \"2.5\"), (1070, \"7\"), (1004, \"0AFF\")]",
+                ((AbstractDxfEntity) reparsed.getEntityByHandle("1A3F")).getXDataForApplication("MYAPP").toString());
+    }
+
+    @Test
+    void testRoundTripResources() throws Exception {
+        for (String name : new String[] {"/dxf/line_simple.dxf", "/dxf/layers_simple.dxf", "/dxf/entities_with_linetypes.dxf",
+                                         "/dxf/lwpolyline_with_bulge.dxf", "/dxf/insert_simple.dxf", "/dxf/text_simple.dxf"}) {
+            DxfDocument parsed;
+            try (InputStream inputStream = getClass().getResourceAsStream(name)) {
+                assertNotNull(inputStream, "Missing resource " + name);
+                parsed = new DxfParser().parse(inputStream);
+            }
+            for (boolean binary : new boolean[] {false, true}) {
+                DxfDocument reparsed = new DxfParser().parse(new ByteArrayInputStream(write(parsed, binary)));
+                assertSameDrawing(parsed, reparsed);
+            }
+        }
+    }
+
+    @Test
+    void testFormatDoubleReadsBackExactly() {
+        byte[] out = new byte[64];
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            double value;
+            switch (i % 4) {
+                case 0: value = random.nextDouble() * 10000; break;
+                case 1: value = Math.round(random.nextGaussian() * 1e6) / 1000.0; break;
+                case 2: value = Double.longBitsToDouble(random.nextLong()); break;
+                default: value = random.nextInt(2000) - 1000; break;
+            }
+            int end = DxfWriter.GroupCodeOutput.formatDouble(value, out, 0);
+            if (end >= 0) {
+                String text = new String(out, 0, end, StandardCharsets.US_ASCII);
+                assertEquals(value, Double.parseDouble(text), text);
+            }
+        }
+        assertEquals("0", format(0.0));
+        assertEquals("-2.5", format(-2.5));
+        assertEquals("0.1", format(0.1));
+        assertEquals("1234567.875", format(1234567.875));
+        assertEquals(-1, DxfWriter.GroupCodeOutput.formatDouble(-0.0, out, 0));
+        assertEquals(-1, DxfWriter.GroupCodeOutput.formatDouble(Double.NaN, out, 0));
+        assertEquals(-1, DxfWriter.GroupCodeOutput.formatDouble(1e300, out, 0));
+    }
+
+    @Test
+    void testWriteRejectsNullArguments() {
+        DxfWriter writer = new DxfWriter();
+        assertThrows(IllegalArgumentException.class, () -> writer.write(null, new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class, () -> writer.write(new DxfDocument(), (Path) null));
+    }
+
+    private static String format(double value) {
+        byte[] out = new byte[64];
+        return new String(out, 0, DxfWriter.GroupCodeOutput.formatDouble(value, out, 0), StandardCharsets.US_ASCII);
+    }
+
+    private static DxfDocument parse(String dxf) throws DxfParserException {
+        return new DxfParser().parse(new ByteArrayInputStream(dxf.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] write(DxfDocument document, boolean binary) throws Exception {
+        DxfWriter writer = new DxfWriter();
+        writer.setBinary(binary);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(document, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,157 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfInsert;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.math.Bounds;
+import com.cad.dxflib.parser.DxfParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfBlockGeometryTest {
+
+    // DOOR: a line and an arc with bulge, base point (1,0); ROOM: two DOORs, one rotated and scaled
+    private static final String DXF = "0\nSECTION\n2\nBLOCKS\n"
+            + "0\nBLOCK\n2\nDOOR\n10\n1\n20\n0\n"
+            + "0\nLINE\n8\n0\n10\n1\n20\n0\n11\n3\n21\n0\n"
+            + "0\nLWPOLYLINE\n8\n0\n90\n2\n70\n0\n10\n1\n20\n0\n42\n1\n10\n3\n20\n0\n"
+            + "0\nENDBLK\n"
+            + "0\nBLOCK\n2\nROOM\n10\n0\n20\n0\n"
+            + "0\nINSERT\n8\n0\n2\nDOOR\n10\n10\n20\n0\n"
+            + "0\nINSERT\n8\n0\n2\ndoor\n10\n0\n20\n10\n41\n2\n42\n2\n50\n90\n"
+            + "0\nENDBLK\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nENTITIES\n0\nINSERT\n8\n0\n2\nROOM\n10\n100\n20\n100\n0\nENDSEC\n0\nEOF\n";
+
+    @Test
+    void testFlattensNestedInsertsInBlockCoordinates() throws Exception {
+        DxfDocument document = parse();
+        DxfBlockGeometry door = document.getBlockGeometry("door");
+        assertEquals("DOOR", door.getBlockName());
+        assertEquals(2, door.getPathCount());
+        // Relative to the base point
+        assertEquals(0, door.getX(0, 0), 1e-9);
+        assertEquals(2, door.getX(0, 1), 1e-9);
+        // A half circle of radius 1 bulging to the right of the chord: clockwise from (0,0) to (2,0) through (1,-1)
+        int arcPoints = door.getPointCount(1);
+        assertEquals(180 / DxfBlockGeometry.MAX_CHORD_DEGREES + 1, arcPoints);
+        assertEquals(2, door.getX(1, arcPoints - 1), 1e-9);
+        assertEquals(-1, door.getY(1, arcPoints / 2), 1e-9);
+        Bounds bounds = door.getBounds();
+        assertEquals(-1, bounds.getMinY(), 1e-9);
+        assertEquals(2, bounds.getMaxX(), 1e-9);
+
+        DxfBlockGeometry room = document.getBlockGeometry("ROOM");
+        assertEquals(4, room.getPathCount());
+        assertSame(door.getEntity(0), room.getEntity(0));
+        // First DOOR translated by (10,0)
+        assertEquals(12, room.getX(0, 1), 1e-9);
+        // Second DOOR scaled by 2, rotated 90 degrees counter-clockwise, at (0,10): (2,0) goes to (0,14)
+        assertEquals(0, room.getX(2, 1), 1e-9);
+        assertEquals(14, room.getY(2, 1), 1e-9);
+
+        DxfInsert top = (DxfInsert) document.getModelSpaceEntities().get(0);
+        Bounds placed = room.getBounds(DxfBlockGeometry.insertTransform(top, null));
+        assertEquals(100 + room.getBounds().getMaxX(), placed.getMaxX(), 1e-9);
+        assertEquals(100 + room.getBounds().getMinY(), placed.getMinY(), 1e-9);
+        assertThrows(IndexOutOfBoundsException.class, () -> room.getX(4, 0));
+        assertNull(document.getBlockGeometry("MISSING"));
+    }
+
+    @Test
+    void testGeometryIsMemoizedUntilABlockChanges() throws Exception {
+        DxfDocument document = parse();
+        DxfBlockGeometry room = document.getBlockGeometry("ROOM");
+        DxfBlockGeometry door = document.getBlockGeometry("DOOR"); // Built while flattening ROOM
+        assertSame(room, document.getBlockGeometry("ROOM"));
+        assertSame(door, document.getBlockGeometry("DOOR"));
+
+        // A nested block gaining an entity invalidates the blocks that insert it
+        DxfCircle knob = new DxfCircle();
+        knob.setCenter(new Point3D(2, 0.5, 0));
+        knob.setRadius(0.1);
+        document.getBlock("DOOR").addEntity(knob);
+        DxfBlockGeometry newRoom = document.getBlockGeometry("ROOM");
+        assertNotSame(room, newRoom);
+        assertEquals(6, newRoom.getPathCount());
+        assertEquals(3, document.getBlockGeometry("DOOR").getPathCount());
+
+        // In-place edits are announced with markModified
+        ((DxfLine) document.getBlock("DOOR").getEntities().get(0)).setEndPoint(new Point3D(5, 0, 0));
+        assertSame(newRoom, document.getBlockGeometry("ROOM"));
+        document.getBlock("DOOR").markModified();
+        assertEquals(14, document.getBlockGeometry("ROOM").getX(0, 1), 1e-9);
+
+        // Replacing a block definition
+        DxfBlock emptyDoor = new DxfBlock("Door");
+        document.addBlock(emptyDoor);
+        assertEquals(0, document.getBlockGeometry("ROOM").getPathCount());
+    }
+
+    @Test
+    void testInsertCyclesAreCutOff() {
+        DxfDocument document = new DxfDocument();
+        DxfBlock a = new DxfBlock("A");
+        DxfBlock b = new DxfBlock("B");
+        DxfLine line = new DxfLine();
+        line.setStartPoint(new Point3D(0, 0, 0));
+        line.setEndPoint(new Point3D(1, 0, 0));
+        a.addEntity(line);
+        a.addEntity(insert("B", 10));
+        b.addEntity(insert("A", 100));
+        document.addBlock(a);
+        document.addBlock(b);
+
+        DxfBlockGeometry geometry = document.getBlockGeometry("A");
+        // A's line only: B is empty once its INSERT of A, the cycle, is cut
+        assertEquals(1, geometry.getPathCount());
+        assertEquals(0, geometry.getX(0, 0), 1e-9);
+        // B on its own holds A's line once: the cached A, cut where it reached B, is not reused inside B
+        assertEquals(1, document.getBlockGeometry("B").getPathCount());
+        assertEquals(100, document.getBlockGeometry("B").getX(0, 0), 1e-9);
+    }
+
+    @Test
+    void testNestedInsertIsPlacedBeforeTheParentBasePointIsRemoved() {
+        DxfDocument document = new DxfDocument();
+        DxfBlock d = new DxfBlock("D");
+        DxfLine line = new DxfLine();
+        line.setStartPoint(new Point3D(0, 0, 0));
+        line.setEndPoint(new Point3D(2, 0, 0));
+        d.addEntity(line);
+        DxfBlock r = new DxfBlock("R");
+        r.setBasePoint(new Point3D(5, 5, 0));
+        DxfInsert scaled = insert("D", 0);
+        scaled.setXScale(2);
+        scaled.setYScale(2);
+        r.addEntity(scaled);
+        DxfInsert rotated = insert("D", 1);
+        rotated.setRotationAngle(90);
+        r.addEntity(rotated);
+        document.addBlock(d);
+        document.addBlock(r);
+
+        DxfBlockGeometry geometry = document.getBlockGeometry("R");
+        // (2,0) scaled by 2 is (4,0), then moved by the base point (5,5)
+        assertEquals(-1, geometry.getX(0, 1), 1e-9);
+        assertEquals(-5, geometry.getY(0, 1), 1e-9);
+        // (2,0) rotated 90 degrees is (0,2), inserted at (1,0), then moved by the base point
+        assertEquals(-4, geometry.getX(1, 1), 1e-9);
+        assertEquals(-3, geometry.getY(1, 1), 1e-9);
+    }
+
+    private static DxfInsert insert(String blockName, double x) {
+        DxfInsert insert = new DxfInsert();
+        insert.setBlockName(blockName);
+        insert.setInsertionPoint(new Point3D(x, 0, 0));
+        return insert;
+    }
+
+    private static DxfDocument parse() throws Exception {
+        return new DxfParser().parse(new ByteArrayInputStream(DXF.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
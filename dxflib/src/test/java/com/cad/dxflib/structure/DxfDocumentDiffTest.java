@@ -0,0 +1,109 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.parser.DxfParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfDocumentDiffTest {
+
+    // Layer Walls; blocks DOOR, ROOM (inserting DOOR) and DESK; lines 1A and 1B, circle 1C, an INSERT of ROOM and a TEXT without handle
+    private static final String BEFORE = revision("1", "3", "1B\n8\n0\n10\n0\n20\n5\n11\n5\n21\n5\n",
+            "0\nCIRCLE\n5\n1C\n8\n0\n10\n0\n20\n0\n40\n2\n");
+    // Walls recolored, DOOR's line longer, line 1B moved, circle 1C replaced with 1E; everything else as before
+    private static final String AFTER = revision("3", "4", "1B\n8\n0\n10\n0\n20\n6\n11\n5\n21\n6\n",
+            "0\nCIRCLE\n5\n1E\n8\n0\n10\n0\n20\n0\n40\n2\n");
+
+    @Test
+    void testMatchesEntitiesByHandleAndTablesByName() throws Exception {
+        DxfDocument before = parse(BEFORE, false);
+        DxfDocument after = parse(AFTER, false);
+        DxfDocumentDiff diff = DxfDocumentDiff.compute(before, after);
+
+        assertEquals(List.of(after.getEntityByHandle("1E")), diff.getAddedEntities());
+        assertEquals(List.of(before.getEntityByHandle("1C")), diff.getRemovedEntities());
+        assertEquals(List.of(after.getEntityByHandle("1B")), diff.getModifiedEntities());
+        assertEquals(3, diff.getUnchangedEntityCount()); // 1A, the INSERT and the TEXT
+        assertEquals(Set.of("WALLS"), diff.getChangedLayers());
+        assertTrue(diff.getChangedLinetypes().isEmpty());
+        assertEquals(Set.of("DOOR"), diff.getChangedBlocks());
+        assertEquals(Set.of("DOOR", "ROOM"), diff.getAffectedBlocks());
+        assertFalse(diff.isEmpty());
+
+        DxfDocumentDiff none = DxfDocumentDiff.compute(before, parse(BEFORE, true));
+        assertTrue(none.isEmpty(), none.toString());
+        assertEquals(5, none.getUnchangedEntityCount());
+        assertThrows(IllegalArgumentException.class, () -> DxfDocumentDiff.compute(before, null));
+    }
+
+    @Test
+    void testReloadReusesGeometryOfUnaffectedBlocks() throws Exception {
+        DxfDocument before = parse(BEFORE, false);
+        DxfBlockGeometry desk = before.getBlockGeometry("DESK");
+        before.getBlockGeometry("ROOM");
+        DxfDocument after = parse(AFTER, false);
+
+        assertEquals(1, after.reuseBlockGeometry(before, DxfDocumentDiff.compute(before, after)));
+        DxfBlockGeometry reused = after.getBlockGeometry("DESK");
+        assertNotSame(desk, reused);
+        assertSame(after.getBlock("DESK").getEntities().get(0), reused.getEntity(0));
+        assertEquals(desk.getX(0, 1), reused.getX(0, 1));
+        assertSame(reused, after.getBlockGeometry("DESK"));
+        // Rebuilt around the changed DOOR
+        assertEquals(5, before.getBlockGeometry("ROOM").getX(0, 1), 1e-9);
+        assertEquals(6, after.getBlockGeometry("ROOM").getX(0, 1), 1e-9);
+
+        // Reused geometry still follows later edits
+        DxfLine line = (DxfLine) after.getBlock("DESK").getEntities().get(0);
+        line.setEndPoint(new Point3D(9, 0, 0));
+        after.getBlock("DESK").markModified();
+        assertEquals(9, after.getBlockGeometry("DESK").getX(0, 1), 1e-9);
+        assertEquals(desk.getX(0, 1), before.getBlockGeometry("DESK").getX(0, 1));
+    }
+
+    @Test
+    void testStringsWithEqualJavaHashCodesDiffer() throws Exception {
+        // "Aa" and "BB", and "AaAa" and "BBBB", have the same String.hashCode and length
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        String text = "0\nSECTION\n2\nENTITIES\n0\nTEXT\n5\n2F\n8\n0\n10\n0\n20\n0\n40\n1\n1\n%s\n"
+                + "1001\nAPP\n1000\n%s\n0\nENDSEC\n0\nEOF\n";
+        DxfDocument before = parse(String.format(text, "Aa", "AaAa"), false);
+
+        DxfDocumentDiff value = DxfDocumentDiff.compute(before, parse(String.format(text, "BB", "AaAa"), false));
+        assertEquals(1, value.getModifiedEntities().size());
+        assertFalse(value.isEmpty());
+        DxfDocumentDiff xdata = DxfDocumentDiff.compute(before, parse(String.format(text, "Aa", "BBBB"), false));
+        assertEquals(1, xdata.getModifiedEntities().size());
+        assertTrue(DxfDocumentDiff.compute(before, parse(String.format(text, "Aa", "AaAa"), false)).isEmpty());
+    }
+
+    private static String revision(String wallsColor, String doorLength, String line1B, String circle) {
+        return "0\nSECTION\n2\nTABLES\n0\nTABLE\n2\nLAYER\n0\nLAYER\n2\nWalls\n62\n" + wallsColor + "\n6\nCONTINUOUS\n"
+                + "0\nENDTAB\n0\nENDSEC\n"
+                + "0\nSECTION\n2\nBLOCKS\n"
+                + "0\nBLOCK\n2\nDOOR\n10\n0\n20\n0\n0\nLINE\n5\n2A\n8\n0\n10\n0\n20\n0\n11\n" + doorLength + "\n21\n0\n0\nENDBLK\n"
+                + "0\nBLOCK\n2\nROOM\n10\n0\n20\n0\n0\nINSERT\n5\n2B\n8\n0\n2\nDOOR\n10\n2\n20\n0\n0\nENDBLK\n"
+                + "0\nBLOCK\n2\nDESK\n10\n0\n20\n0\n0\nLINE\n5\n2C\n8\n0\n10\n0\n20\n0\n11\n3\n21\n0\n0\nENDBLK\n"
+                + "0\nENDSEC\n"
+                + "0\nSECTION\n2\nENTITIES\n"
+                + "0\nLINE\n5\n1A\n8\nWalls\n10\n0\n20\n0\n11\n5\n21\n0\n"
+                + "0\nLINE\n5\n" + line1B
+                + circle
+                + "0\nINSERT\n5\n1D\n8\n0\n2\nROOM\n10\n50\n20\n50\n"
+                + "0\nTEXT\n8\nWalls\n10\n1\n20\n1\n40\n2.5\n1\nNote\n"
+                + "0\nENDSEC\n0\nEOF\n";
+    }
+
+    private static DxfDocument parse(String dxf, boolean columnar) throws Exception {
+        DxfParser parser = new DxfParser();
+        parser.setColumnarStorage(columnar);
+        return parser.parse(new ByteArrayInputStream(dxf.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
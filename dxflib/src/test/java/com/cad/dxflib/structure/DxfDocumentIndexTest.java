@@ -0,0 +1,117 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.EntityType;
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.entities.DxfText;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfDocumentIndexTest {
+
+    @Test
+    void testTypeAndLayerIndexesFollowAddEntity() {
+        DxfDocument document = new DxfDocument();
+        document.addLayer(new DxfLayer("Walls"));
+        fill(document, 1000);
+
+        assertEquals(1000, document.getEntityCount(EntityType.LINE));
+        assertEquals(500, document.getEntityCount(EntityType.CIRCLE));
+        assertEquals(1, document.getEntityCount(EntityType.TEXT));
+        assertEquals(0, document.getEntityCount(EntityType.INSERT));
+        assertTrue(document.getEntities(EntityType.INSERT).isEmpty());
+        assertEquals(Map.of(EntityType.LINE, 1000, EntityType.CIRCLE, 500, EntityType.TEXT, 1), document.getEntityCounts());
+
+        List<DxfEntity> lines = document.getEntities(EntityType.LINE);
+        assertTrue(lines.stream().allMatch(entity -> entity instanceof DxfLine));
+        assertEquals(7.0, ((DxfLine) lines.get(7)).getStartPoint().x);
+        assertThrows(UnsupportedOperationException.class, () -> lines.add(new DxfLine()));
+        // Live view
+        document.addEntity(line(5000, "0"));
+        assertEquals(1001, lines.size());
+
+        assertEquals(751, document.getEntitiesOnLayer("walls").size());
+        assertEquals(751, document.getLayer("WALLS").getEntityCount());
+        assertTrue(document.getEntitiesOnLayer("Missing").isEmpty());
+    }
+
+    @Test
+    void testHandleIndexRemovesWithoutBreakingProbeRuns() {
+        HandleIndex<String> index = new HandleIndex<>();
+        for (long handle = 1; handle <= 1000; handle++) {
+            index.put(handle, Long.toHexString(handle));
+        }
+        for (long handle = 1; handle <= 1000; handle += 3) {
+            assertEquals(Long.toHexString(handle), index.remove(handle));
+        }
+        assertNull(index.remove(1));
+        assertNull(index.remove(0));
+        assertEquals(666, index.size());
+        for (long handle = 1; handle <= 1000; handle++) {
+            assertEquals(handle % 3 == 1 ? null : Long.toHexString(handle), index.get(handle));
+        }
+
+        HandleRowIndex rows = new HandleRowIndex();
+        rows.put(0x1A, 4);
+        rows.remove(0x1A, 5); // Indexed to another row: kept
+        assertEquals(4, rows.get(0x1A));
+        rows.remove(0x1A, 4);
+        assertEquals(-1, rows.get(0x1A));
+        assertEquals(0, rows.size());
+    }
+
+    @Test
+    void testColumnarIndexesSplitForParallelStreams() {
+        DxfDocument document = new DxfDocument();
+        document.setColumnarStorage(true);
+        document.addLayer(new DxfLayer("Walls"));
+        fill(document, 100_000);
+
+        List<DxfEntity> lines = document.getEntities(EntityType.LINE);
+        Spliterator<DxfEntity> spliterator = lines.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        Spliterator<DxfEntity> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(50_000, prefix.estimateSize());
+        assertEquals(50_000, spliterator.estimateSize());
+
+        double sum = lines.parallelStream().mapToDouble(entity -> ((DxfLine) entity).getStartPoint().x).sum();
+        assertEquals(99_999.0 * 100_000 / 2, sum);
+        assertEquals(50_000, document.getEntities(EntityType.CIRCLE).parallelStream()
+                .filter(entity -> entity instanceof DxfCircle).count());
+        assertEquals("note", ((DxfText) document.getEntities(EntityType.TEXT).get(0)).getTextValue());
+    }
+
+    // count LINEs, one CIRCLE per two lines, and a TEXT; every other LINE and CIRCLE on Walls
+    private static void fill(DxfDocument document, int count) {
+        for (int i = 0; i < count; i++) {
+            document.addEntity(line(i, i % 2 == 0 ? "Walls" : "0"));
+            if (i % 2 == 0) {
+                DxfCircle circle = new DxfCircle();
+                circle.setCenter(new Point3D(i, 0, 0));
+                circle.setRadius(1);
+                circle.setLayerName(i % 4 == 0 ? "Walls" : "0");
+                document.addEntity(circle);
+            }
+        }
+        DxfText text = new DxfText();
+        text.setTextValue("note");
+        text.setLayerName("Walls");
+        document.addEntity(text);
+    }
+
+    private static DxfLine line(double x, String layerName) {
+        DxfLine line = new DxfLine();
+        line.setStartPoint(new Point3D(x, 0, 0));
+        line.setEndPoint(new Point3D(x, 1, 0));
+        line.setLayerName(layerName);
+        return line;
+    }
+}
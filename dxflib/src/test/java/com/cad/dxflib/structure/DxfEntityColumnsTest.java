@@ -0,0 +1,168 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.common.EntityType;
+import com.cad.dxflib.common.Point3D;
+import com.cad.dxflib.entities.DxfArc;
+import com.cad.dxflib.entities.DxfCircle;
+import com.cad.dxflib.entities.DxfLine;
+import com.cad.dxflib.entities.DxfText;
+import com.cad.dxflib.parser.DxfGroupCode;
+import com.cad.dxflib.parser.DxfParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static com.cad.dxflib.DxfAssertions.assertEntitiesEqual;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfEntityColumnsTest {
+
+    private static final String DXF = "0\nSECTION\n2\nTABLES\n0\nTABLE\n2\nLAYER\n"
+            + "0\nLAYER\n2\nWalls\n62\n3\n6\nCONTINUOUS\n0\nENDTAB\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nENTITIES\n"
+            + "0\nLINE\n5\n1A\n330\n1F\n8\nWalls\n62\n3\n10\n0\n20\n0\n11\n10\n21\n5\n"
+            + "0\nTEXT\n5\n1B\n8\n0\n10\n1\n20\n2\n40\n2.5\n1\nHello\n"
+            + "0\nCIRCLE\n5\n1C\n8\nwalls\n6\nDASHED\n10\n20\n20\n20\n40\n5\n"
+            + "0\nARC\n5\n1D\n8\n0\n39\n2\n10\n5\n20\n5\n40\n2\n50\n10\n51\n80\n"
+            + "0\nLINE\n5\n1E\n8\n0\n10\n1\n20\n1\n11\n2\n21\n2\n1001\nMYAPP\n1000\nkeep\n"
+            + "0\nENDSEC\n0\nEOF\n";
+
+    @Test
+    void testColumnarParseMatchesObjects() throws Exception {
+        DxfDocument objects = parse(false);
+        DxfDocument columnar = parse(true);
+
+        assertTrue(columnar.isColumnarStorage());
+        assertNull(objects.getModelSpaceColumns());
+        DxfEntityColumns columns = columnar.getModelSpaceColumns();
+        assertEquals(3, columns.size()); // The TEXT and the LINE with XDATA stay objects
+
+        assertEntitiesEqual(objects.getModelSpaceEntities(), columnar.getModelSpaceEntities());
+        for (Map.Entry<String, DxfLayer> entry : objects.getLayers().entrySet()) {
+            assertEntitiesEqual(entry.getValue().getEntities(), columnar.getLayer(entry.getKey()).getEntities());
+        }
+        assertEquals(objects.getBounds().toString(), columnar.getBounds().toString());
+        for (String handle : new String[] {"1A", "1B", "1C", "1D", "1E"}) {
+            assertEquals(objects.getEntityByHandle(handle).toString(), columnar.getEntityByHandle(handle).toString());
+        }
+        assertNull(columnar.getEntityByHandle("99"));
+
+        // Bulk access without views
+        assertEquals(EntityType.LINE, columns.getType(0));
+        assertEquals(10, columns.getCoordinate(0, 3));
+        assertEquals(5, columns.getCoordinate(1, 3));
+        assertEquals(80, columns.getCoordinate(2, 5));
+        assertEquals("Walls", columns.getLayerName(0));
+        assertEquals("DASHED", columns.getLinetypeName(1));
+        assertEquals(0, columns.getThickness(2));
+        assertEquals(0x1FL, columns.getOwnerHandle(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.get(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.getCoordinate(0, DxfEntityColumns.COORDINATES));
+    }
+
+    @Test
+    void testViewsWriteThroughToColumns() throws Exception {
+        DxfDocument document = parse(true);
+        DxfLine line = (DxfLine) document.getEntityByHandle("1A");
+        assertNotSame(line, document.getEntityByHandle("1A")); // A new view each time
+        line.setEndPoint(new Point3D(7, 8, 9));
+        line.setColor(5);
+        line.setLayerName("0");
+        DxfLine reread = (DxfLine) document.getModelSpaceEntities().get(0);
+        assertEquals(new Point3D(7, 8, 9), reread.getEndPoint());
+        assertEquals(5, reread.getColor());
+        assertEquals("0", reread.getLayerName());
+
+        DxfArc arc = (DxfArc) document.getEntityByHandle("1D");
+        arc.setRadius(3);
+        arc.setEndAngle(90);
+        arc.setThickness(0);
+        assertEquals("DxfArc{center=Point3D{x=5.0, y=5.0, z=0.0}, radius=3.0, startAngle=10.0, endAngle=90.0, layer='0', color=256}",
+                document.getEntityByHandle("1D").toString());
+        assertEquals(0, document.getEntityByHandle("1D").getThickness());
+
+        // A new handle moves the row in the handle index
+        DxfEntityColumns columns = document.getModelSpaceColumns();
+        line.setHandle(0x2A);
+        assertEquals(0, columns.findHandle(0x2A));
+        assertEquals(-1, columns.findHandle(0x1A));
+        assertNull(document.getEntityByHandle("1A"));
+        assertEquals(0x2AL, document.getEntityByHandle("2A").getHandle());
+        line.setHandle(0);
+        assertEquals(-1, columns.findHandle(0x2A));
+
+        DxfCircle circle = (DxfCircle) document.getEntityByHandle("1C");
+        assertThrows(UnsupportedOperationException.class, () -> circle.addXData("APP", List.of(new DxfGroupCode(1000, "x"))));
+        assertThrows(UnsupportedOperationException.class, () -> circle.addReactorHandle("7E"));
+        assertThrows(IllegalArgumentException.class, () -> circle.setColor(1 << 20));
+        assertEquals(256, circle.getColor()); // Neither the view nor the row took the rejected color
+        assertEquals(256, document.getEntityByHandle("1C").getColor());
+    }
+
+    @Test
+    void testAddKeepsOnlyPlainSimpleEntities() {
+        DxfEntityColumns columns = new DxfEntityColumns();
+        DxfLine withXData = new DxfLine();
+        withXData.addXData("APP", List.of(new DxfGroupCode(1000, "x")));
+        assertEquals(-1, columns.add(withXData));
+        assertEquals(-1, columns.add(new DxfText()));
+        assertEquals(-1, columns.add(new DxfLine() { })); // Subclasses may carry state the columns cannot hold
+        assertEquals(-1, columns.add(null));
+
+        // Growth past the initial capacity, and lookups by handle after rehashing
+        for (int i = 0; i < 1000; i++) {
+            DxfLine line = new DxfLine();
+            line.setHandle(i + 1);
+            line.setStartPoint(new Point3D(i, 0, 0));
+            line.setThickness(i == 600 ? 1.5 : 0);
+            assertEquals(i, columns.add(line));
+        }
+        assertEquals(1000, columns.size());
+        assertEquals(499, columns.findHandle(500));
+        assertEquals(499.0, ((DxfLine) columns.get(499)).getStartPoint().x);
+        assertEquals(-1, columns.findHandle(5000));
+        assertEquals(-1, columns.findHandle(0));
+        // Removing handles from the middle of probe chains keeps the others reachable
+        for (int i = 0; i < 1000; i += 3) {
+            ((DxfLine) columns.get(i)).setHandle(i + 2001);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 3 == 0 ? -1 : i, columns.findHandle(i + 1));
+            assertEquals(i % 3 == 0 ? i : -1, columns.findHandle(i + 2001));
+        }
+        assertEquals(0, columns.getThickness(599));
+        assertEquals(1.5, columns.getThickness(600));
+        assertTrue(columns.estimateBytes() >= 1000L * 83);
+        assertTrue(columns.estimateBytes() < 1000L * 200);
+    }
+
+    @Test
+    void testSwitchingStorageKeepsEntityOrder() {
+        DxfDocument document = new DxfDocument();
+        DxfText before = new DxfText();
+        document.addEntity(before);
+        document.setColumnarStorage(true);
+        document.addEntity(new DxfLine());
+        document.setColumnarStorage(false);
+        DxfCircle after = new DxfCircle();
+        document.addEntity(after);
+
+        List<DxfEntity> entities = document.getModelSpaceEntities();
+        assertEquals(3, entities.size());
+        assertSame(before, entities.get(0));
+        assertTrue(entities.get(1) instanceof DxfLine);
+        assertSame(after, entities.get(2));
+        assertEquals(3, document.getLayer("0").getEntities().size());
+        assertSame(after, document.getLayer("0").getEntities().get(2));
+    }
+
+    private static DxfDocument parse(boolean columnar) throws Exception {
+        DxfParser parser = new DxfParser();
+        parser.setColumnarStorage(columnar);
+        return parser.parse(new ByteArrayInputStream(DXF.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.EntityType;
+import com.cad.dxflib.parser.DxfParser;
+import com.cad.dxflib.structure.DxfMemoryReport.Usage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfMemoryReportTest {
+
+    private static final String DXF = "0\nSECTION\n2\nTABLES\n0\nTABLE\n2\nLAYER\n"
+            + "0\nLAYER\n2\nWalls\n62\n3\n6\nCONTINUOUS\n0\nENDTAB\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nBLOCKS\n0\nBLOCK\n2\nDOOR\n10\n0\n20\n0\n"
+            + "0\nLINE\n8\n0\n10\n0\n20\n0\n11\n1\n21\n1\n0\nCIRCLE\n8\n0\n10\n0\n20\n0\n40\n1\n0\nENDBLK\n0\nENDSEC\n"
+            + "0\nSECTION\n2\nENTITIES\n"
+            + "0\nLINE\n5\n1A\n8\nWalls\n10\n0\n20\n0\n11\n10\n21\n5\n"
+            + "0\nLINE\n5\n1B\n8\nwalls\n10\n0\n20\n0\n11\n10\n21\n5\n"
+            + "0\nCIRCLE\n5\n1C\n8\n0\n10\n20\n20\n20\n40\n5\n"
+            + "0\nTEXT\n5\n1D\n8\n0\n10\n1\n20\n2\n40\n2.5\n1\nA rather long text value\n"
+            + "0\nLINE\n5\n1E\n8\n0\n102\n{ACAD_REACTORS\n330\n7F\n102\n}\n10\n1\n20\n1\n11\n2\n21\n2\n"
+            + "1001\nMYAPP\n1000\nkeep\n1040\n2.5\n"
+            + "0\nENDSEC\n0\nEOF\n";
+
+    @Test
+    void testBreakdownsAddUp() throws Exception {
+        DxfMemoryReport report = parse(false).estimateMemory();
+
+        Usage modelSpace = report.getModelSpace();
+        assertEquals(5, modelSpace.getCount());
+        assertEquals(3, report.getByType().get(EntityType.LINE).getCount());
+        assertEquals(1, report.getByType().get(EntityType.CIRCLE).getCount());
+        assertEquals(1, report.getByType().get(EntityType.TEXT).getCount());
+        assertNull(report.getByType().get(EntityType.ARC));
+        assertEquals(modelSpace.getBytes(), sum(report.getByType()).getBytes());
+        assertEquals(modelSpace.getObjects(), sum(report.getByLayer()).getObjects());
+        assertEquals(2, report.getByLayer().get("WALLS").getCount()); // Both spellings
+        assertEquals(3, report.getByLayer().get("0").getCount());
+        // A LINE object with its two points
+        assertEquals(3 * 3, report.getByType().get(EntityType.LINE).getObjects());
+        assertTrue(report.getByType().get(EntityType.TEXT).getBytes() > report.getByType().get(EntityType.CIRCLE).getBytes());
+
+        assertEquals(2, report.getByBlock().get("DOOR").getCount());
+        assertEquals(1, report.getXData().getCount());
+        assertTrue(report.getXData().getBytes() > 0);
+        assertEquals(1, report.getReactors().getCount());
+        assertTrue(report.getIndexes().getBytes() > 0);
+        assertTrue(report.getTables().getBytes() > 0);
+
+        Usage total = report.getTotal();
+        assertEquals(7, total.getCount());
+        assertEquals(modelSpace.getBytes() + report.getByBlock().get("DOOR").getBytes() + report.getXData().getBytes()
+                + report.getReactors().getBytes() + report.getIndexes().getBytes() + report.getTables().getBytes(),
+                total.getBytes());
+        String text = report.format();
+        assertTrue(text.startsWith("Estimated heap: "));
+        assertTrue(text.contains("  LINE"));
+        assertTrue(text.contains("  WALLS"));
+        assertTrue(text.contains("  DOOR"));
+    }
+
+    @Test
+    void testColumnarRowsAreSmallerAndCountedAlike() throws Exception {
+        DxfMemoryReport objects = parse(false).estimateMemory();
+        DxfMemoryReport columnar = parse(true).estimateMemory();
+
+        for (Map.Entry<EntityType, Usage> entry : objects.getByType().entrySet()) {
+            assertEquals(entry.getValue().getCount(), columnar.getByType().get(entry.getKey()).getCount());
+        }
+        assertEquals(objects.getByLayer().keySet(), columnar.getByLayer().keySet());
+        // The LINE with XDATA and reactors stays an object; the other two are rows
+        assertEquals(3, columnar.getByType().get(EntityType.LINE).getObjects());
+        assertTrue(columnar.getByType().get(EntityType.LINE).getBytes() < objects.getByType().get(EntityType.LINE).getBytes());
+        assertEquals(objects.getXData().getBytes(), columnar.getXData().getBytes());
+    }
+
+    @Test
+    void testFormatBytes() {
+        assertEquals("0 B", DxfMemoryReport.formatBytes(0));
+        assertEquals("1023 B", DxfMemoryReport.formatBytes(1023));
+        assertEquals("1.5 KB", DxfMemoryReport.formatBytes(1536));
+        assertEquals("3.0 MB", DxfMemoryReport.formatBytes(3L << 20));
+        assertEquals("2.0 GB", DxfMemoryReport.formatBytes(2L << 30));
+    }
+
+    private static Usage sum(Map<?, Usage> usages) {
+        Usage sum = new Usage();
+        usages.values().forEach(sum::add);
+        return sum;
+    }
+
+    private static DxfDocument parse(boolean columnar) throws Exception {
+        DxfParser parser = new DxfParser();
+        parser.setColumnarStorage(columnar);
+        return parser.parse(new ByteArrayInputStream(DXF.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
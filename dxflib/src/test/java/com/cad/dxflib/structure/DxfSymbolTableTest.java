@@ -0,0 +1,121 @@
+package com.cad.dxflib.structure;
+
+import com.cad.dxflib.common.DxfEntity;
+import com.cad.dxflib.parser.DxfParser;
+import com.cad.dxflib.parser.DxfParserException;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DxfSymbolTableTest {
+
+    @Test
+    void testInternReturnsCanonicalInstances() {
+        DxfSymbolTable symbols = new DxfSymbolTable();
+        String walls = symbols.intern(new String("Walls"));
+        assertSame(walls, symbols.intern(new String("Walls")));
+        byte[] bytes = "xWallsx".getBytes(StandardCharsets.ISO_8859_1);
+        assertSame(walls, symbols.intern(bytes, 1, 5));
+
+        // Other spellings are kept as written but share the case-insensitive symbol
+        String upper = symbols.intern("WALLS");
+        assertEquals("WALLS", upper);
+        assertNotSame(walls, upper);
+        assertEquals(symbols.getId("walls"), symbols.getId(upper));
+        assertEquals(1, symbols.size());
+        assertNull(symbols.intern((String) null));
+    }
+
+    @Test
+    void testCaseInsensitiveLookup() {
+        DxfSymbolTable symbols = new DxfSymbolTable();
+        symbols.intern("0");
+        symbols.intern("Dashed");
+        symbols.intern("Straße");
+
+        assertEquals(0, symbols.getId("0"));
+        assertEquals(1, symbols.getId("DASHED"));
+        assertEquals("DASHED", symbols.getKey("dashed"));
+        assertEquals("DASHED", symbols.getName(1));
+        assertEquals("STRASSE", symbols.getKey("STRASSE"));
+        assertEquals("STRASSE", symbols.getKey("straße"));
+        assertEquals(-1, symbols.getId("HIDDEN"));
+        assertNull(symbols.getKey("HIDDEN"));
+        assertNull(symbols.getKey(null));
+        assertThrows(IndexOutOfBoundsException.class, () -> symbols.getName(3));
+    }
+
+    @Test
+    void testGrowsAndKeepsIds() {
+        DxfSymbolTable symbols = new DxfSymbolTable();
+        for (int i = 0; i < 1000; i++) {
+            symbols.intern("Layer" + i);
+        }
+        assertEquals(1000, symbols.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, symbols.getId("LAYER" + i));
+            assertEquals("LAYER" + i, symbols.getName(i));
+        }
+    }
+
+    @Test
+    void testConcurrentInterning() throws Exception {
+        DxfSymbolTable symbols = new DxfSymbolTable();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<String> interned = new ArrayList<>();
+                    for (int i = 0; i < 500; i++) {
+                        interned.add(symbols.intern(new String("L" + i)));
+                    }
+                    return interned;
+                }));
+            }
+            start.countDown();
+            List<String> first = results.get(0).get();
+            for (Future<List<String>> result : results) {
+                List<String> interned = result.get();
+                for (int i = 0; i < interned.size(); i++) {
+                    assertSame(first.get(i), interned.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(500, symbols.size());
+    }
+
+    @Test
+    void testParsedEntitiesShareNames() throws DxfParserException {
+        InputStream in = getClass().getResourceAsStream("/dxf/entities_with_linetypes.dxf");
+        assertNotNull(in, "Test file entities_with_linetypes.dxf not found in resources.");
+        DxfDocument document = new DxfParser().parse(in);
+
+        List<DxfEntity> entities = document.getModelSpaceEntities();
+        assertEquals(4, entities.size());
+        for (DxfEntity entity : entities) {
+            String layerName = entity.getLayerName();
+            assertSame(document.getSymbols().intern(new String(layerName)), layerName);
+            assertNotNull(document.getLayer(layerName.toLowerCase(Locale.ROOT)), "Layer " + layerName + " not found");
+        }
+        // Layer "0" and the ARC on it name the same linetype, and share the document's default instance
+        assertSame(document.getLayer("0").getLinetypeName(), entities.get(2).getLinetypeName());
+        assertSame(document.getLinetype("continuous").getName(), entities.get(2).getLinetypeName());
+        assertSame(entities.get(0).getLayerName(), entities.get(2).getLayerName());
+    }
+}
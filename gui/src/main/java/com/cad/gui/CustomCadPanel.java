@@ -2,15 +2,21 @@ package com.cad.gui;
 
 import com.cad.dxflib.common.Point2D;
 import com.cad.dxflib.common.DxfEntity; // Added import
+import com.cad.dxflib.common.EntityType;
+import com.cad.gui.history.DrawingState;
+import com.cad.gui.history.EditHistory;
 import com.cad.gui.tool.ActiveTool;
 import com.cad.gui.tool.ToolManager;
 import com.cad.modules.geometry.entities.Circle2D;
 import com.cad.modules.geometry.entities.Line2D;
 import com.cad.modules.rendering.DxfRenderService;
 import com.cad.modules.rendering.DxfProcessingResult; // Added import
-import com.cad.dxflib.parser.DxfParserException; // Added for loadDxfFromFile
 import com.cad.dxflib.entities.DxfLine; // Added import for DXF entity types
 import com.cad.dxflib.entities.DxfCircle; // Added import for DXF entity types
+import com.cad.dxflib.entities.DxfInsert;
+import com.cad.dxflib.math.Bounds;
+import com.cad.dxflib.structure.DxfBlockGeometry;
+import com.cad.dxflib.structure.DxfDocument;
 
 // Apache Batik Imports
 import org.w3c.dom.svg.SVGDocument;
@@ -26,11 +32,11 @@ import java.awt.*;
 // import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
 import java.io.File;
-import java.io.FileInputStream; // Added for loadDxfFromFile
-import java.io.IOException; // Added for loadDxfFromFile
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 // import java.net.URI; // No longer directly used in this class
 // import java.util.Iterator; // No longer directly used in this class
 
@@ -39,9 +45,8 @@ public class CustomCadPanel extends JPanel {
 
     private DxfRenderService dxfRenderService;
     private ToolManager toolManager;
-    private List<Line2D> drawnLines;
-    private List<Circle2D> drawnCircles;
-    private List<DxfEntity> importedDxfEntities = new ArrayList<>(); // Added field
+    private final EditHistory<DrawingState> history; // Drawn lines and circles, with undo and redo
+    private DxfDocument dxfDocument; // The loaded drawing, null until a load completes
     private Object selectedEntity;
     private Point2D lineStartPoint;
     private Point2D previewEndPoint;
@@ -53,6 +58,11 @@ public class CustomCadPanel extends JPanel {
     private double translateY;
     private Point2D panLastMousePosition;
     private static final double HIT_TOLERANCE = 5.0;
+    private CompletableFuture<DxfProcessingResult> pendingLoad; // DXF load running in the background, if any
+    private int loadGeneration; // Incremented per load, so results of abandoned loads are ignored
+    private String loadProgress; // Status text painted while a DXF file loads
+    private File loadedFile; // File of the last load, reloaded incrementally when opened again
+    private DxfProcessingResult loadedResult; // Result of the last completed load of loadedFile
 
     // Batik bridge components
     private UserAgentAdapter userAgentAdapter;
@@ -64,8 +74,7 @@ public class CustomCadPanel extends JPanel {
     public CustomCadPanel(ToolManager toolManager, DxfRenderService dxfRenderService) {
         this.toolManager = toolManager;
         this.dxfRenderService = dxfRenderService;
-        this.drawnLines = new ArrayList<>();
-        this.drawnCircles = new ArrayList<>();
+        this.history = new EditHistory<>(DrawingState.empty());
         this.currentScale = 1.0;
         this.translateX = 0.0;
         this.translateY = 0.0;
@@ -96,36 +105,91 @@ public class CustomCadPanel extends JPanel {
     }
 
     public void loadDxfFromFile(File file) {
-        // For now, just clear lists and store base content
-        // In the future, this will parse the DXF and prepare it for rendering
-        drawnLines.clear(); // Removed duplicate clear
-        drawnCircles.clear(); // Keep this
-        this.importedDxfEntities.clear(); // Clear imported entities
+        // Opening the loaded file again reloads it against the loaded revision
+        DxfProcessingResult previous = file != null && file.equals(loadedFile) ? loadedResult : null;
+        GraphicsNode previousGvtRoot = this.gvtRoot;
+        long selectedHandle = selectedEntity instanceof DxfEntity ? ((DxfEntity) selectedEntity).getHandle() : 0;
+        loadedFile = file;
+        loadedResult = null;
+        history.reset(DrawingState.empty()); // A new drawing starts a new history
+        this.dxfDocument = null;
         selectedEntity = null;
         clearPreviewLineState();
         clearPreviewCircleState();
         this.svgDocument = null; // Clear previous document
         this.gvtRoot = null;     // Clear previous GVT tree
 
+        // Abandon a load still in progress, so it stops parsing and frees its memory
+        int generation = ++loadGeneration;
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+            pendingLoad = null;
+        }
+        loadProgress = null;
+
         if (file == null || !file.exists()) {
             System.err.println("File not found or null: " + (file != null ? file.getAbsolutePath() : "null"));
             repaint();
             return;
         }
 
-        try (FileInputStream fis = new FileInputStream(file)) {
-            String diagramName = file.getName();
-            // Call the new loadDxf method
-            DxfProcessingResult result = dxfRenderService.loadDxf(fis, diagramName);
+        // Parse and convert off the EDT; the result is installed back on the EDT
+        String diagramName = file.getName();
+        loadProgress = "Carregando " + diagramName + "...";
+        CompletableFuture<DxfProcessingResult> load = dxfRenderService.reloadDxfAsync(file.toPath(), diagramName,
+                (bytesRead, totalBytes, entitiesParsed) -> SwingUtilities.invokeLater(() ->
+                        showLoadProgress(generation, diagramName, bytesRead, totalBytes, entitiesParsed)), previous);
+        pendingLoad = load;
+        SVGDocument previousSvg = previous != null ? previous.batikDocument : null;
+        load.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            finishLoad(generation, diagramName, result, error, previousSvg, previousGvtRoot);
+            // A selected entity still in the file stays selected
+            if (generation == loadGeneration && result != null && result.diff != null && this.dxfDocument != null
+                    && selectedHandle != 0) {
+                selectedEntity = this.dxfDocument.getEntityByHandle(selectedHandle);
+                repaint();
+            }
+        }));
+        repaint();
+    }
 
+    private void showLoadProgress(int generation, String diagramName, long bytesRead, long totalBytes, long entitiesParsed) {
+        if (generation != loadGeneration || pendingLoad == null) {
+            return; // A newer load replaced this one, or it already finished
+        }
+        long percent = totalBytes > 0 ? bytesRead * 100 / totalBytes : 0;
+        loadProgress = String.format("Carregando %s: %d%% (%d entidades)", diagramName, percent, entitiesParsed);
+        repaint();
+    }
+
+    private void finishLoad(int generation, String diagramName, DxfProcessingResult result, Throwable error,
+                            SVGDocument previousSvg, GraphicsNode previousGvtRoot) {
+        if (generation != loadGeneration) {
+            return; // Superseded by a newer load
+        }
+        pendingLoad = null;
+        loadProgress = null;
+        if (error != null) {
+            if (!(error instanceof CancellationException)) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                cause.printStackTrace(); // DxfParserException, or Batik errors from the conversion
+            }
+            this.svgDocument = null; // Ensure clean state on error
+            this.gvtRoot = null;
+            this.dxfDocument = null; // Also clear entities on error
+            repaint();
+            return;
+        }
+        try {
             if (result != null) {
                 this.svgDocument = result.batikDocument; // Set SVG document from result
-                if (result.dxfDocument != null && result.dxfDocument.getModelSpaceEntities() != null) {
-                    this.importedDxfEntities.addAll(result.dxfDocument.getModelSpaceEntities());
-                }
+                this.dxfDocument = result.dxfDocument; // Its entity indexes serve selection
+                this.loadedResult = result;
 
                 // Build GVT tree if batikDocument is available
-                if (this.svgDocument != null) {
+                if (this.svgDocument != null && this.svgDocument == previousSvg && previousGvtRoot != null) {
+                    this.gvtRoot = previousGvtRoot; // Reloaded without changes: same rendering
+                } else if (this.svgDocument != null) {
                     this.gvtRoot = gvtBuilder.build(bridgeContext, this.svgDocument);
                 } else {
                     this.gvtRoot = null; // No Batik document to build GVT from
@@ -139,24 +203,72 @@ public class CustomCadPanel extends JPanel {
                 this.gvtRoot = null;
                 System.err.println("DXF processing result was null for: " + diagramName);
             }
-        } catch (IOException | DxfParserException e) { // DxfRenderService.loadDxf can throw these
-            e.printStackTrace();
-            this.svgDocument = null; // Ensure clean state on error
-            this.gvtRoot = null;
-            this.importedDxfEntities.clear(); // Also clear entities on error
-        } catch (Exception e) { // Catch other Batik-specific exceptions during GVT build or other unexpected issues
+        } catch (Exception e) { // Catch Batik-specific exceptions during GVT build or other unexpected issues
             e.printStackTrace();
             this.svgDocument = null; // Ensure clean state on error
             this.gvtRoot = null;
-            this.importedDxfEntities.clear(); // Also clear entities on error
+            this.dxfDocument = null; // Also clear entities on error
         }
         repaint();
     }
 
-    // Consider adding a method to get importedDxfEntities if needed externally
-    // public List<DxfEntity> getImportedDxfEntities() {
-    //     return importedDxfEntities;
-    // }
+    /**
+     * Undoes the last line or circle drawn, or the last redo.
+     * @return true if there was an edit to undo.
+     */
+    public boolean undo() {
+        if (!history.canUndo()) {
+            return false;
+        }
+        history.undo();
+        afterHistoryChange();
+        return true;
+    }
+
+    /**
+     * Redoes the last undone edit.
+     * @return true if there was an edit to redo.
+     */
+    public boolean redo() {
+        if (!history.canRedo()) {
+            return false;
+        }
+        history.redo();
+        afterHistoryChange();
+        return true;
+    }
+
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * Gets the lines and circles drawn so far.
+     * @return The current state of the edit history.
+     */
+    public DrawingState getDrawingState() {
+        return history.getCurrent();
+    }
+
+    private void afterHistoryChange() {
+        if (selectedEntity instanceof Line2D || selectedEntity instanceof Circle2D) {
+            selectedEntity = null; // May have been undone
+        }
+        clearPreviewLineState();
+        clearPreviewCircleState();
+    }
+
+    /**
+     * Gets the drawing loaded by the last completed {@link #loadDxfFromFile(File)}.
+     * @return The document, or null if none is loaded.
+     */
+    public DxfDocument getDxfDocument() {
+        return dxfDocument;
+    }
 
     private Point2D screenToModel(Point2D screenPoint) {
         try {
@@ -208,6 +320,59 @@ public class CustomCadPanel extends JPanel {
         return Math.abs(distToCenter - radius) <= tolerance;
     }
 
+    /**
+     * Checks whether a point is near the geometry drawn by an INSERT, using the block's flattened geometry
+     * memoized by the document, so repeated blocks and nested INSERTs are not walked again.
+     * @param point The point in model coordinates.
+     * @param insert The INSERT.
+     * @param tolerance The distance in model units.
+     * @return true if a segment of the inserted block is within the tolerance.
+     */
+    public boolean isPointNearDxfInsert(Point2D point, DxfInsert insert, double tolerance) {
+        DxfBlockGeometry geometry = dxfDocument != null ? dxfDocument.getBlockGeometry(insert.getBlockName()) : null;
+        if (geometry == null) {
+            return false;
+        }
+        double[] m = DxfBlockGeometry.insertTransform(insert, null);
+        Bounds extents = geometry.getBounds(m);
+        if (!extents.isValid() || point.x < extents.getMinX() - tolerance || point.x > extents.getMaxX() + tolerance
+                || point.y < extents.getMinY() - tolerance || point.y > extents.getMaxY() + tolerance) {
+            return false;
+        }
+        for (int path = 0; path < geometry.getPathCount(); path++) {
+            double x1 = 0;
+            double y1 = 0;
+            for (int i = 0; i < geometry.getPointCount(path); i++) {
+                double gx = geometry.getX(path, i);
+                double gy = geometry.getY(path, i);
+                double x2 = m[0] * gx + m[2] * gy + m[4];
+                double y2 = m[1] * gx + m[3] * gy + m[5];
+                if (i > 0 && java.awt.geom.Line2D.ptSegDist(x1, y1, x2, y2, point.x, point.y) <= tolerance) {
+                    return true;
+                }
+                x1 = x2;
+                y1 = y2;
+            }
+        }
+        return false;
+    }
+
+    // The outline of an inserted block, from its flattened geometry
+    private Shape dxfInsertOutline(DxfInsert insert) {
+        DxfBlockGeometry geometry = dxfDocument != null ? dxfDocument.getBlockGeometry(insert.getBlockName()) : null;
+        if (geometry == null) {
+            return null;
+        }
+        Path2D.Double outline = new Path2D.Double();
+        for (int path = 0; path < geometry.getPathCount(); path++) {
+            outline.moveTo(geometry.getX(path, 0), geometry.getY(path, 0));
+            for (int i = 1; i < geometry.getPointCount(path); i++) {
+                outline.lineTo(geometry.getX(path, i), geometry.getY(path, i));
+            }
+        }
+        return new AffineTransform(DxfBlockGeometry.insertTransform(insert, null)).createTransformedShape(outline);
+    }
+
     public void handleMousePress(Point2D screenPoint) {
         Point2D modelPoint = screenToModel(screenPoint);
         ActiveTool activeTool = toolManager.getActiveTool();
@@ -215,7 +380,7 @@ public class CustomCadPanel extends JPanel {
         if (activeTool == ActiveTool.SELECT) {
             selectedEntity = null; // Clear previous selection
             // Check lines
-            for (Line2D line : drawnLines) {
+            for (Line2D line : history.getCurrent().getLines()) {
                 if (isPointNearLine(modelPoint, line, HIT_TOLERANCE / currentScale)) {
                     selectedEntity = line;
                     break;
@@ -223,7 +388,7 @@ public class CustomCadPanel extends JPanel {
             }
             // Check circles if no line selected
             if (selectedEntity == null) {
-                for (Circle2D circle : drawnCircles) {
+                for (Circle2D circle : history.getCurrent().getCircles()) {
                     if (isPointNearCircle(modelPoint, circle, HIT_TOLERANCE / currentScale)) {
                         selectedEntity = circle;
                         break;
@@ -231,27 +396,38 @@ public class CustomCadPanel extends JPanel {
                 }
             }
 
-            if (selectedEntity == null) { // Check imported DXF entities if no drawn entity was selected
-                for (DxfEntity entity : importedDxfEntities) {
-                    if (entity instanceof com.cad.dxflib.entities.DxfLine) {
-                        if (isPointNearDxfLine(modelPoint, (com.cad.dxflib.entities.DxfLine) entity, HIT_TOLERANCE / currentScale)) {
+            if (selectedEntity == null && dxfDocument != null) { // Check imported DXF entities if no drawn entity was selected
+                // The document indexes entities by type, so only the selectable ones are scanned
+                double tolerance = HIT_TOLERANCE / currentScale;
+                for (DxfEntity entity : dxfDocument.getEntities(EntityType.LINE)) {
+                    if (isPointNearDxfLine(modelPoint, (DxfLine) entity, tolerance)) {
+                        selectedEntity = entity;
+                        break;
+                    }
+                }
+                if (selectedEntity == null) {
+                    for (DxfEntity entity : dxfDocument.getEntities(EntityType.CIRCLE)) {
+                        if (isPointNearDxfCircle(modelPoint, (DxfCircle) entity, tolerance)) {
                             selectedEntity = entity;
                             break;
                         }
-                    } else if (entity instanceof com.cad.dxflib.entities.DxfCircle) {
-                        if (isPointNearDxfCircle(modelPoint, (com.cad.dxflib.entities.DxfCircle) entity, HIT_TOLERANCE / currentScale)) {
+                    }
+                }
+                if (selectedEntity == null) {
+                    for (DxfEntity entity : dxfDocument.getEntities(EntityType.INSERT)) {
+                        if (isPointNearDxfInsert(modelPoint, (DxfInsert) entity, tolerance)) {
                             selectedEntity = entity;
                             break;
                         }
                     }
-                    // Future: Add support for other DxfEntity types like DxfArc, DxfLwPolyline
                 }
+                // Future: Add support for other DxfEntity types like DxfArc, DxfLwPolyline
             }
         } else if (activeTool == ActiveTool.DRAW_LINE) {
             if (lineStartPoint == null) {
                 lineStartPoint = modelPoint;
             } else {
-                drawnLines.add(new Line2D(lineStartPoint, modelPoint));
+                history.apply(history.getCurrent().withLine(new Line2D(lineStartPoint, modelPoint)));
                 clearPreviewLineState(); // Clears lineStartPoint and previewEndPoint
             }
         } else if (activeTool == ActiveTool.DRAW_CIRCLE) {
@@ -259,7 +435,7 @@ public class CustomCadPanel extends JPanel {
                 circleCenterPoint = modelPoint;
             } else {
                 double radius = circleCenterPoint.distanceTo(modelPoint);
-                drawnCircles.add(new Circle2D(circleCenterPoint, radius));
+                history.apply(history.getCurrent().withCircle(new Circle2D(circleCenterPoint, radius)));
                 clearPreviewCircleState(); // Clears circleCenterPoint and previewRadius
             }
         } else if (activeTool == ActiveTool.PAN) {
@@ -360,7 +536,8 @@ public class CustomCadPanel extends JPanel {
             }
 
             // Render drawn geometric entities
-            for (Line2D line : drawnLines) {
+            DrawingState drawing = history.getCurrent();
+            for (Line2D line : drawing.getLines()) {
                 String lineStrokeColor = (line == selectedEntity) ? "red" : "black";
                 int lineStrokeWidth = (line == selectedEntity) ? 3 : 2;
                 g2d.setColor(lineStrokeColor.equals("red") ? Color.RED : Color.BLACK);
@@ -369,7 +546,7 @@ public class CustomCadPanel extends JPanel {
                              (int) line.getEndPoint().x, (int) line.getEndPoint().y);
             }
 
-            for (Circle2D circle : drawnCircles) {
+            for (Circle2D circle : drawing.getCircles()) {
                 String circleStrokeColor = (circle == selectedEntity) ? "red" : "blue";
                 int circleStrokeWidth = (circle == selectedEntity) ? 3 : 2;
                 g2d.setColor(circleStrokeColor.equals("red") ? Color.RED : Color.BLUE);
@@ -420,6 +597,13 @@ public class CustomCadPanel extends JPanel {
                     (int) (2 * radius),
                     0, 360
                 );
+            } else if (selectedEntity instanceof DxfInsert) {
+                Shape outline = dxfInsertOutline((DxfInsert) selectedEntity);
+                if (outline != null) {
+                    g2d.setColor(Color.MAGENTA); // Highlight color
+                    g2d.setStroke(new BasicStroke(3)); // Thicker stroke
+                    g2d.draw(outline);
+                }
             }
             // Reset stroke to default if other drawing operations were to follow
             // g2d.setStroke(new BasicStroke(1));
@@ -427,6 +611,12 @@ public class CustomCadPanel extends JPanel {
         } finally {
             g2d.dispose(); // Release resources of the copied Graphics context
         }
+
+        // Loading status, drawn in screen coordinates on top of the drawing
+        if (loadProgress != null) {
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(loadProgress, 10, getHeight() - 10);
+        }
     }
 
     // Getters and Setters for fields that might be needed by MainFrame (e.g. for status bar)
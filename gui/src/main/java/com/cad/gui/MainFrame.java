@@ -3,6 +3,9 @@ package com.cad.gui;
 import com.cad.core.api.ModuleInterface;
 import com.cad.dxflib.common.Point2D;
 import com.cad.dxflib.parser.DxfParserException;
+import com.cad.dxflib.parser.DxfSnapshotCache;
+import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfMemoryReport;
 import com.cad.gui.tool.ActiveTool;
 import com.cad.gui.tool.ToolManager;
 import com.cad.modules.rendering.DxfRenderService;
@@ -10,8 +13,11 @@ import com.cad.modules.rendering.DxfRenderService;
 // import com.kitfox.svg.app.beans.SVGPanel;
 
 import javax.swing.*;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionListener;
@@ -50,7 +56,9 @@ public class MainFrame extends JFrame implements ModuleInterface {
     public MainFrame(boolean initializeUI) {
         this.toolManager = new ToolManager();
         // this.cadPanelLogic = new CadPanelLogic(this.toolManager, new DxfRenderService()); // Removed
-        this.customCadPanel = new CustomCadPanel(this.toolManager, new DxfRenderService()); // Added
+        // Reopening an unchanged drawing reads its snapshot instead of parsing it again
+        DxfSnapshotCache snapshotCache = new DxfSnapshotCache(DxfSnapshotCache.defaultDirectory());
+        this.customCadPanel = new CustomCadPanel(this.toolManager, new DxfRenderService(snapshotCache));
 
         if (initializeUI) {
             initUI();
@@ -78,9 +86,45 @@ public class MainFrame extends JFrame implements ModuleInterface {
         openDxfMenuItem.addActionListener(e -> openDxfFile());
         fileMenu.add(openDxfMenuItem);
 
+        JMenuItem memoryReportMenuItem = new JMenuItem("Relatório de memória...");
+        memoryReportMenuItem.addActionListener(e -> showMemoryReport());
+        fileMenu.add(memoryReportMenuItem);
+
         JMenuItem exitMenuItem = new JMenuItem("Sair");
         exitMenuItem.addActionListener(e -> System.exit(0));
         fileMenu.add(exitMenuItem);
+
+        JMenu editMenu = new JMenu("Editar");
+        menuBar.add(editMenu);
+
+        JMenuItem undoMenuItem = new JMenuItem("Desfazer");
+        undoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        undoMenuItem.addActionListener(e -> customCadPanel.undo());
+        editMenu.add(undoMenuItem);
+
+        JMenuItem redoMenuItem = new JMenuItem("Refazer");
+        redoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        redoMenuItem.addActionListener(e -> customCadPanel.redo());
+        editMenu.add(redoMenuItem);
+        // Enabled to match the history each time the menu opens
+        editMenu.addMenuListener(new MenuListener() {
+            @Override
+            public void menuSelected(MenuEvent e) {
+                undoMenuItem.setEnabled(customCadPanel.canUndo());
+                redoMenuItem.setEnabled(customCadPanel.canRedo());
+            }
+
+            @Override
+            public void menuDeselected(MenuEvent e) {
+                undoMenuItem.setEnabled(true); // Accelerators call undo and redo, which ignore an empty history
+                redoMenuItem.setEnabled(true);
+            }
+
+            @Override
+            public void menuCanceled(MenuEvent e) {
+                menuDeselected(e);
+            }
+        });
         setJMenuBar(menuBar);
 
         JToolBar toolBar = new JToolBar();
@@ -248,7 +292,7 @@ public class MainFrame extends JFrame implements ModuleInterface {
     private void openDxfFile() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Abrir Arquivo DXF");
-        fileChooser.setFileFilter(new FileNameExtensionFilter("Arquivos DXF (*.dxf)", "dxf"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Arquivos DXF (*.dxf, *.dxf.gz, *.zip)", "dxf", "gz", "zip"));
         fileChooser.setAcceptAllFileFilterUsed(false);
 
         int userSelection = fileChooser.showOpenDialog(this);
@@ -261,6 +305,25 @@ public class MainFrame extends JFrame implements ModuleInterface {
         }
     }
 
+    private void showMemoryReport() {
+        DxfDocument document = customCadPanel.getDxfDocument();
+        if (document == null) {
+            JOptionPane.showMessageDialog(this, "Nenhum desenho DXF carregado.", "Relatório de memória",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        String heap = String.format("Heap da JVM: %s usados de %s (máximo %s)%n%n",
+                DxfMemoryReport.formatBytes(runtime.totalMemory() - runtime.freeMemory()),
+                DxfMemoryReport.formatBytes(runtime.totalMemory()),
+                DxfMemoryReport.formatBytes(runtime.maxMemory()));
+        JTextArea text = new JTextArea(heap + document.estimateMemory().format(), 24, 90);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(this, new JScrollPane(text), "Relatório de memória",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
     // public void loadSvg(String completeSvgString) { // Removed
     // }
 
@@ -0,0 +1,77 @@
+package com.cad.gui.history;
+
+import com.cad.modules.geometry.entities.Circle2D;
+import com.cad.modules.geometry.entities.Line2D;
+
+/**
+ * The entities drawn in the panel at one point of its edit history. Immutable: edits return a new state
+ * sharing the untouched parts of the entity lists with this one, see {@link PersistentVector}.
+ */
+public final class DrawingState {
+
+    private static final DrawingState EMPTY = new DrawingState(PersistentVector.empty(), PersistentVector.empty());
+
+    private final PersistentVector<Line2D> lines;
+    private final PersistentVector<Circle2D> circles;
+
+    private DrawingState(PersistentVector<Line2D> lines, PersistentVector<Circle2D> circles) {
+        this.lines = lines;
+        this.circles = circles;
+    }
+
+    /**
+     * Gets the state without entities.
+     * @return The empty state.
+     */
+    public static DrawingState empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Gets the drawn lines, in drawing order.
+     * @return The lines; immutable.
+     */
+    public PersistentVector<Line2D> getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the drawn circles, in drawing order.
+     * @return The circles; immutable.
+     */
+    public PersistentVector<Circle2D> getCircles() {
+        return circles;
+    }
+
+    /**
+     * Returns this state with a line drawn.
+     * @param line The line.
+     * @return The new state.
+     */
+    public DrawingState withLine(Line2D line) {
+        if (line == null) {
+            throw new IllegalArgumentException("Line cannot be null.");
+        }
+        return new DrawingState(lines.append(line), circles);
+    }
+
+    /**
+     * Returns this state with a circle drawn.
+     * @param circle The circle.
+     * @return The new state.
+     */
+    public DrawingState withCircle(Circle2D circle) {
+        if (circle == null) {
+            throw new IllegalArgumentException("Circle cannot be null.");
+        }
+        return new DrawingState(lines, circles.append(circle));
+    }
+
+    /**
+     * Checks whether nothing is drawn.
+     * @return true if there are no lines or circles.
+     */
+    public boolean isEmpty() {
+        return lines.isEmpty() && circles.isEmpty();
+    }
+}
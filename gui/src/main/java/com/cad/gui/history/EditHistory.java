@@ -0,0 +1,127 @@
+package com.cad.gui.history;
+
+import java.util.ArrayDeque;
+
+/**
+ * Undo and redo over immutable states. Each edit records the state it replaces, so undoing is swapping states;
+ * with states built on {@link PersistentVector}s, consecutive states share all but the edited paths and
+ * thousands of steps of a large drawing cost little more than the drawing itself.
+ * The oldest steps are forgotten beyond a limit. Not thread-safe.
+ * @param <S> The state type; instances must not be modified once recorded.
+ */
+public final class EditHistory<S> {
+
+    /** Number of undo steps kept by default. */
+    public static final int DEFAULT_LIMIT = 10_000;
+
+    private final int limit;
+    private final ArrayDeque<S> undoStates = new ArrayDeque<>(); // Most recent first
+    private final ArrayDeque<S> redoStates = new ArrayDeque<>();
+    private S current;
+
+    /**
+     * Creates a history keeping {@value #DEFAULT_LIMIT} undo steps.
+     * @param initial The initial state.
+     */
+    public EditHistory(S initial) {
+        this(initial, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Creates a history.
+     * @param initial The initial state.
+     * @param limit The number of undo steps kept, at least 1.
+     */
+    public EditHistory(S initial, int limit) {
+        if (initial == null) {
+            throw new IllegalArgumentException("Initial state cannot be null.");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("History limit must be at least 1.");
+        }
+        this.current = initial;
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the current state.
+     * @return The state after the last edit, undo or redo.
+     */
+    public S getCurrent() {
+        return current;
+    }
+
+    /**
+     * Records an edit: the state becomes current, the former one can be restored with {@link #undo()},
+     * and the undone edits can no longer be redone.
+     * @param state The state after the edit.
+     */
+    public void apply(S state) {
+        if (state == null) {
+            throw new IllegalArgumentException("State cannot be null.");
+        }
+        undoStates.push(current);
+        if (undoStates.size() > limit) {
+            undoStates.removeLast();
+        }
+        redoStates.clear();
+        current = state;
+    }
+
+    /**
+     * Restores the state before the last edit.
+     * @return The restored state.
+     * @throws IllegalStateException If there is nothing to undo.
+     */
+    public S undo() {
+        if (undoStates.isEmpty()) {
+            throw new IllegalStateException("Nothing to undo.");
+        }
+        redoStates.push(current);
+        current = undoStates.pop();
+        return current;
+    }
+
+    /**
+     * Restores the state of the last undone edit.
+     * @return The restored state.
+     * @throws IllegalStateException If there is nothing to redo.
+     */
+    public S redo() {
+        if (redoStates.isEmpty()) {
+            throw new IllegalStateException("Nothing to redo.");
+        }
+        undoStates.push(current);
+        current = redoStates.pop();
+        return current;
+    }
+
+    public boolean canUndo() {
+        return !undoStates.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStates.isEmpty();
+    }
+
+    public int getUndoCount() {
+        return undoStates.size();
+    }
+
+    public int getRedoCount() {
+        return redoStates.size();
+    }
+
+    /**
+     * Starts over from a state, forgetting every step, e.g. when another drawing is opened.
+     * @param state The new current state.
+     */
+    public void reset(S state) {
+        if (state == null) {
+            throw new IllegalArgumentException("State cannot be null.");
+        }
+        undoStates.clear();
+        redoStates.clear();
+        current = state;
+    }
+}
@@ -0,0 +1,66 @@
+package com.cad.gui.history;
+
+import com.cad.dxflib.common.Point2D;
+import com.cad.modules.geometry.entities.Circle2D;
+import com.cad.modules.geometry.entities.Line2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EditHistoryTest {
+
+    @Test
+    void testUndoRedoRestoresDrawingStates() {
+        EditHistory<DrawingState> history = new EditHistory<>(DrawingState.empty());
+        assertFalse(history.canUndo());
+        Line2D line = new Line2D(new Point2D(0, 0), new Point2D(10, 0));
+        Circle2D circle = new Circle2D(new Point2D(5, 5), 2);
+        history.apply(history.getCurrent().withLine(line));
+        DrawingState withLine = history.getCurrent();
+        history.apply(withLine.withCircle(circle));
+
+        assertEquals(1, history.getCurrent().getLines().size());
+        assertEquals(circle, history.getCurrent().getCircles().get(0));
+        // States share the lists an edit did not touch
+        assertSame(withLine.getLines(), history.getCurrent().getLines());
+
+        assertSame(withLine, history.undo());
+        assertTrue(history.getCurrent().getCircles().isEmpty());
+        assertTrue(history.undo().isEmpty());
+        assertFalse(history.canUndo());
+        assertThrows(IllegalStateException.class, history::undo);
+        assertEquals(2, history.getRedoCount());
+
+        assertSame(withLine, history.redo());
+        // A new edit drops what was undone
+        history.apply(withLine.withLine(line));
+        assertFalse(history.canRedo());
+        assertEquals(2, history.getCurrent().getLines().size());
+        assertEquals(2, history.getUndoCount());
+    }
+
+    @Test
+    void testKeepsThousandsOfStepsOfALargeDrawingWithinLimit() {
+        DrawingState state = DrawingState.empty();
+        for (int i = 0; i < 200_000; i++) {
+            state = state.withLine(new Line2D(new Point2D(i, 0), new Point2D(i, 1)));
+        }
+        EditHistory<DrawingState> history = new EditHistory<>(state, 5000);
+        for (int i = 0; i < 6000; i++) {
+            history.apply(history.getCurrent().withCircle(new Circle2D(new Point2D(i, i), 1)));
+        }
+        assertEquals(5000, history.getUndoCount());
+        for (int i = 0; i < 5000; i++) {
+            history.undo();
+        }
+        assertEquals(1000, history.getCurrent().getCircles().size());
+        assertEquals(200_000, history.getCurrent().getLines().size());
+        assertSame(state.getLines(), history.getCurrent().getLines());
+        assertThrows(IllegalArgumentException.class, () -> new EditHistory<>(DrawingState.empty(), 0));
+        assertThrows(IllegalArgumentException.class, () -> history.apply(null));
+
+        history.reset(DrawingState.empty());
+        assertFalse(history.canUndo());
+        assertFalse(history.canRedo());
+    }
+}
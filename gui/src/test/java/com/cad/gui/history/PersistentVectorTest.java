@@ -0,0 +1,58 @@
+package com.cad.gui.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentVectorTest {
+
+    @Test
+    void testAppendSetAndRemoveAcrossTrieLevels() {
+        // Past 32 (first leaf), 1056 (second level) and 33824 (third level) elements
+        int count = 40_000;
+        List<Integer> expected = new ArrayList<>();
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<PersistentVector<Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            vector = vector.append(i);
+            expected.add(i);
+            if (i % 997 == 0) {
+                versions.add(vector);
+            }
+        }
+        assertEquals(expected, vector);
+        assertEquals(count, vector.size());
+        // Earlier versions are untouched
+        for (PersistentVector<Integer> version : versions) {
+            assertEquals(expected.subList(0, version.size()), version);
+        }
+
+        PersistentVector<Integer> replaced = vector.with(5, -5).with(count - 1, -1);
+        assertEquals(-5, replaced.get(5));
+        assertEquals(-1, replaced.get(count - 1));
+        assertEquals(5, vector.get(5));
+        assertEquals(count - 1, vector.get(count - 1));
+
+        PersistentVector<Integer> shrinking = vector;
+        for (int i = count - 1; i >= 0; i--) {
+            assertEquals(i, shrinking.get(shrinking.size() - 1));
+            shrinking = shrinking.removeLast();
+            if (i % 4999 == 0) {
+                assertEquals(expected.subList(0, i), shrinking);
+            }
+        }
+        assertTrue(shrinking.isEmpty());
+        assertSame(PersistentVector.empty(), shrinking);
+        assertEquals(count, vector.size());
+
+        assertThrows(IllegalStateException.class, shrinking::removeLast);
+        PersistentVector<Integer> full = vector;
+        assertThrows(IndexOutOfBoundsException.class, () -> full.get(count));
+        assertThrows(IndexOutOfBoundsException.class, () -> full.with(-1, 0));
+        assertThrows(UnsupportedOperationException.class, () -> full.add(1));
+        assertThrows(UnsupportedOperationException.class, () -> full.set(0, 1));
+    }
+}
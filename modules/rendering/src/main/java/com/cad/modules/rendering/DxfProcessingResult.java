@@ -1,16 +1,24 @@
 package com.cad.modules.rendering;
 
 import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfDocumentDiff;
 import org.w3c.dom.svg.SVGDocument;
 
 public class DxfProcessingResult {
     public final DxfDocument dxfDocument;
     public final org.w3c.dom.svg.SVGDocument batikDocument;
     public final String svgString; // Added field
+    public final DxfDocumentDiff diff; // Changes from the previous revision on reloads, null on first loads
 
     public DxfProcessingResult(DxfDocument dxfDocument, org.w3c.dom.svg.SVGDocument batikDocument, String svgString) {
+        this(dxfDocument, batikDocument, svgString, null);
+    }
+
+    public DxfProcessingResult(DxfDocument dxfDocument, org.w3c.dom.svg.SVGDocument batikDocument, String svgString,
+                               DxfDocumentDiff diff) {
         this.dxfDocument = dxfDocument;
         this.batikDocument = batikDocument;
         this.svgString = svgString; // Assigned in constructor
+        this.diff = diff;
     }
 }
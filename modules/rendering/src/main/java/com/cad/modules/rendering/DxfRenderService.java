@@ -2,7 +2,10 @@ package com.cad.modules.rendering;
 
 import com.cad.dxflib.parser.DxfParser;
 import com.cad.dxflib.parser.DxfParserException;
+import com.cad.dxflib.parser.DxfProgressListener;
+import com.cad.dxflib.parser.DxfSnapshotCache;
 import com.cad.dxflib.structure.DxfDocument;
+import com.cad.dxflib.structure.DxfDocumentDiff;
 import com.cad.dxflib.converter.DxfToSvgConverter;
 import com.cad.dxflib.converter.SvgConversionOptions;
 import com.cad.modules.rendering.DxfProcessingResult; // Added import
@@ -16,6 +19,9 @@ import org.slf4j.LoggerFactory; // Added import
 import java.io.StringReader;
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class DxfRenderService {
 
@@ -30,46 +36,24 @@ public class DxfRenderService {
         this.svgConverter = new DxfToSvgConverter(); // Assuming default constructor is fine
     }
 
+    /**
+     * Creates a service whose file loads reuse binary snapshots of previously parsed, unchanged files.
+     * @param snapshotCache The snapshot cache, or null to always parse.
+     */
+    public DxfRenderService(DxfSnapshotCache snapshotCache) {
+        this();
+        this.dxfParser.setSnapshotCache(snapshotCache);
+    }
+
     public DxfProcessingResult loadDxf(InputStream dxfInputStream, String diagramName) throws DxfParserException, IOException {
         if (dxfInputStream == null) {
             throw new IllegalArgumentException("DXF input stream cannot be null");
         }
 
-        DxfDocument dxfDoc = null;
         try {
             // Parse the DXF input stream
-            dxfDoc = dxfParser.parse(dxfInputStream);
-
-            // Generate SVG string from DxfDocument
-            // Using default SvgConversionOptions, customize as needed
-            SvgConversionOptions options = new SvgConversionOptions();
-            String svgString = svgConverter.convert(dxfDoc, options);
-
-            SVGDocument batikDoc = null;
-            if (svgString != null && !svgString.isEmpty()) {
-                try {
-                    String parser = XMLResourceDescriptor.getXMLParserClassName();
-                    SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(parser);
-                    // Create a unique URI for the document
-                    String syntheticDocumentURI = "dxf2svg://" + (diagramName != null ? diagramName : "untitled.svg");
-                    batikDoc = factory.createSVGDocument(syntheticDocumentURI, new StringReader(svgString));
-                } catch (IOException e) {
-                    logger.error("Error parsing SVG string for diagram: {}", diagramName, e);
-                    // Wrap the Batik-specific exception or rethrow as DxfParserException
-                    throw new DxfParserException("Failed to parse SVG string into Batik document for diagram: " + diagramName, e);
-                } catch (Exception e) {
-                    // Catch any other unexpected errors during SVG parsing or document creation
-                    logger.error("Unexpected error creating Batik SVG document for diagram: {}", diagramName, e);
-                    throw new DxfParserException("Unexpected error creating Batik SVG document for diagram: " + diagramName, e);
-                }
-            } else {
-                // Log if SVG string is null or empty, but still proceed with the DxfDocument
-                logger.warn("SVG string is null or empty for diagram: {}. DXF Document might be valid but contain no renderable entities.", diagramName);
-            }
-
-            // Return the result containing DxfDocument, potentially null SVGDocument, and the SVG string
-            return new DxfProcessingResult(dxfDoc, batikDoc, svgString);
-
+            DxfDocument dxfDoc = dxfParser.parse(dxfInputStream);
+            return render(dxfDoc, diagramName);
         } finally {
             // Ensure the input stream is closed in all cases
             try {
@@ -80,4 +64,103 @@ public class DxfRenderService {
             }
         }
     }
+
+    /**
+     * Parses a DXF file in the background and renders it, without blocking the caller (e.g. the Swing EDT).
+     * Cancelling the returned future also cancels the parse, which stops at the next entity boundary.
+     * @param dxfFile The DXF file to load.
+     * @param diagramName The name used for the synthetic SVG document URI.
+     * @param listener Receives parse progress on the loading thread, or null.
+     * @return A future completing with the parsed document and its SVG rendering.
+     */
+    public CompletableFuture<DxfProcessingResult> loadDxfAsync(Path dxfFile, String diagramName, DxfProgressListener listener) {
+        CompletableFuture<DxfDocument> parse = dxfParser.parseAsync(dxfFile, listener);
+        CompletableFuture<DxfProcessingResult> result = parse.thenApply(dxfDoc -> {
+            try {
+                return render(dxfDoc, diagramName);
+            } catch (DxfParserException e) {
+                throw new CompletionException(e);
+            }
+        });
+        // Cancelling a dependent future does not reach its source, so forward it
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                parse.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Parses a new revision of a loaded DXF file in the background and compares it with the loaded one.
+     * Cached block geometry of blocks the diff leaves unaffected is carried over, and if nothing changed
+     * the previous SVG rendering is reused rather than converted again.
+     * @param dxfFile The DXF file to load.
+     * @param diagramName The name used for the synthetic SVG document URI.
+     * @param listener Receives parse progress on the loading thread, or null.
+     * @param previous The result of loading the previous revision, or null to load from scratch.
+     * @return A future completing with the new document, its SVG rendering and, if there was a previous result, the diff.
+     */
+    public CompletableFuture<DxfProcessingResult> reloadDxfAsync(Path dxfFile, String diagramName,
+                                                               DxfProgressListener listener, DxfProcessingResult previous) {
+        if (previous == null || previous.dxfDocument == null) {
+            return loadDxfAsync(dxfFile, diagramName, listener);
+        }
+        CompletableFuture<DxfDocument> parse = dxfParser.parseAsync(dxfFile, listener);
+        CompletableFuture<DxfProcessingResult> result = parse.thenApply(dxfDoc -> {
+            DxfDocumentDiff diff = DxfDocumentDiff.compute(previous.dxfDocument, dxfDoc);
+            int reused = dxfDoc.reuseBlockGeometry(previous.dxfDocument, diff);
+            logger.debug("Reloaded diagram {}: {}, {} block geometries reused", diagramName, diff, reused);
+            if (diff.isEmpty()) {
+                return new DxfProcessingResult(dxfDoc, previous.batikDocument, previous.svgString, diff);
+            }
+            try {
+                DxfProcessingResult rendered = render(dxfDoc, diagramName);
+                return new DxfProcessingResult(dxfDoc, rendered.batikDocument, rendered.svgString, diff);
+            } catch (DxfParserException e) {
+                throw new CompletionException(e);
+            }
+        });
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                parse.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private DxfProcessingResult render(DxfDocument dxfDoc, String diagramName) throws DxfParserException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Memory estimate for diagram {}:{}{}", diagramName, System.lineSeparator(), dxfDoc.estimateMemory().format());
+        }
+        // Generate SVG string from DxfDocument
+        // Using default SvgConversionOptions, customize as needed
+        SvgConversionOptions options = new SvgConversionOptions();
+        String svgString = svgConverter.convert(dxfDoc, options);
+
+        SVGDocument batikDoc = null;
+        if (svgString != null && !svgString.isEmpty()) {
+            try {
+                String parser = XMLResourceDescriptor.getXMLParserClassName();
+                SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(parser);
+                // Create a unique URI for the document
+                String syntheticDocumentURI = "dxf2svg://" + (diagramName != null ? diagramName : "untitled.svg");
+                batikDoc = factory.createSVGDocument(syntheticDocumentURI, new StringReader(svgString));
+            } catch (IOException e) {
+                logger.error("Error parsing SVG string for diagram: {}", diagramName, e);
+                // Wrap the Batik-specific exception or rethrow as DxfParserException
+                throw new DxfParserException("Failed to parse SVG string into Batik document for diagram: " + diagramName, e);
+            } catch (Exception e) {
+                // Catch any other unexpected errors during SVG parsing or document creation
+                logger.error("Unexpected error creating Batik SVG document for diagram: {}", diagramName, e);
+                throw new DxfParserException("Unexpected error creating Batik SVG document for diagram: " + diagramName, e);
+            }
+        } else {
+            // Log if SVG string is null or empty, but still proceed with the DxfDocument
+            logger.warn("SVG string is null or empty for diagram: {}. DXF Document might be valid but contain no renderable entities.", diagramName);
+        }
+
+        // Return the result containing DxfDocument, potentially null SVGDocument, and the SVG string
+        return new DxfProcessingResult(dxfDoc, batikDoc, svgString);
+    }
 }
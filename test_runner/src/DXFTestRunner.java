@@ -23,6 +23,7 @@ public class DXFTestRunner {
             } else {
                System.out.println("*Model_Space block not found.");
             }
+            System.out.print(doc.estimateMemory().format());
         } catch (DxfParserException e) {
             System.err.println("Parsing failed: " + e.getMessage());
             e.printStackTrace();